@@ -50,6 +50,7 @@ import com.microsoft.azure.maven.model.DeploymentResource;
 import com.microsoft.azure.toolkit.lib.common.exception.AzureExecutionException;
 import com.microsoft.azure.toolkit.lib.common.logging.Log;
 import com.microsoft.azure.toolkit.lib.common.operation.AzureOperation;
+import com.microsoft.azure.toolkit.lib.common.utils.FileStager;
 import com.microsoft.azure.toolkit.lib.common.utils.Utils;
 import com.microsoft.azure.toolkit.lib.legacy.function.bindings.Binding;
 import com.microsoft.azure.toolkit.lib.legacy.function.bindings.BindingEnum;
@@ -107,6 +108,9 @@ public class PackageMojo extends AbstractFunctionMojo {
     private static final String EXTENSION_BUNDLE_PREVIEW_ID = "Microsoft.Azure.Functions.ExtensionBundle.Preview";
     private static final String SKIP_INSTALL_EXTENSIONS_FLAG = "skipInstallExtensions flag is set, skip install extension";
     private static final String SKIP_INSTALL_EXTENSIONS_BUNDLE = "Extension bundle specified, skip install extension";
+    private static final String STAGING_BYTES_COPIED = "staging-bytes-copied";
+    private static final String STAGING_FILES_LINKED = "staging-files-linked";
+    private static final String STAGING_FILES_SKIPPED = "staging-files-skipped";
     private static final String CAN_NOT_FIND_ARTIFACT = "Cannot find the maven artifact, please run `mvn package` first.";
     //region Entry Point
 
@@ -345,19 +349,20 @@ public class PackageMojo extends AbstractFunctionMojo {
         Log.info("");
         Log.info(COPY_JARS + stagingDirectory);
         final File libFolder = Paths.get(stagingDirectory, "lib").toFile();
-        if (libFolder.exists()) {
-            FileUtils.cleanDirectory(libFolder);
-        }
         final Set<Artifact> artifacts = project.getArtifacts();
         final String libraryToExclude = artifacts.stream()
                 .filter(artifact -> StringUtils.equalsAnyIgnoreCase(artifact.getArtifactId(), AZURE_FUNCTIONS_JAVA_CORE_LIBRARY))
                 .map(Artifact::getArtifactId).findFirst().orElse(AZURE_FUNCTIONS_JAVA_LIBRARY);
-        for (final Artifact artifact : artifacts) {
-            if (!StringUtils.equalsIgnoreCase(artifact.getArtifactId(), libraryToExclude)) {
-                FileUtils.copyFileToDirectory(artifact.getFile(), libFolder);
-            }
-        }
-        FileUtils.copyFileToDirectory(getArtifactFile(), new File(stagingDirectory));
+        final List<File> dependencies = artifacts.stream()
+                .filter(artifact -> !StringUtils.equalsIgnoreCase(artifact.getArtifactId(), libraryToExclude))
+                .map(Artifact::getFile)
+                .collect(Collectors.toList());
+        final FileStager.Result result = FileStager.builder().build().stage(dependencies, libFolder);
+        FileStager.builder().removeStale(false).build().stage(Collections.singletonList(getArtifactFile()), new File(stagingDirectory));
+        getTelemetryProxy().addDefaultProperty(STAGING_BYTES_COPIED, String.valueOf(result.getBytesCopied()));
+        getTelemetryProxy().addDefaultProperty(STAGING_FILES_LINKED, String.valueOf(result.getFilesLinked()));
+        getTelemetryProxy().addDefaultProperty(STAGING_FILES_SKIPPED, String.valueOf(result.getFilesSkipped()));
+        Log.info(String.format("Dependencies: %s.", result));
         Log.info(COPY_SUCCESS);
     }
 
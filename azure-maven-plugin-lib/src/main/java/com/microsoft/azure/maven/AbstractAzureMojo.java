@@ -28,9 +28,13 @@ import com.microsoft.azure.toolkit.lib.auth.exception.AzureToolkitAuthentication
 import com.microsoft.azure.toolkit.lib.auth.exception.LoginFailureException;
 import com.microsoft.azure.toolkit.lib.auth.model.AuthType;
 import com.microsoft.azure.toolkit.lib.auth.util.AzureEnvironmentUtils;
+import com.microsoft.azure.toolkit.lib.common.cache.CacheManager;
 import com.microsoft.azure.toolkit.lib.common.exception.AzureExecutionException;
+import com.microsoft.azure.toolkit.lib.common.http.HttpTransport;
+import com.microsoft.azure.toolkit.lib.common.http.HttpTransportConfig;
 import com.microsoft.azure.toolkit.lib.common.logging.Log;
 import com.microsoft.azure.toolkit.lib.common.messager.AzureMessager;
+import com.microsoft.azure.toolkit.lib.common.model.ServiceManagerCache;
 import com.microsoft.azure.toolkit.lib.common.model.Subscription;
 import com.microsoft.azure.toolkit.lib.common.operation.OperationContext;
 import com.microsoft.azure.toolkit.lib.common.proxy.ProxyInfo;
@@ -64,6 +68,7 @@ import org.beryx.textio.TextTerminal;
 import reactor.core.publisher.Mono;
 
 import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileOutputStream;
@@ -72,14 +77,20 @@ import java.io.InputStream;
 import java.io.OutputStream;
 import java.lang.management.ManagementFactory;
 import java.nio.file.Paths;
+import java.time.Duration;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
 import java.util.Properties;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 import java.util.stream.Collectors;
 
 /**
@@ -93,6 +104,7 @@ public abstract class AbstractAzureMojo extends AbstractMojo {
     public static final String SUBSCRIPTION_ID_KEY = "subscriptionId";
     private static final String AUTH_TYPE = "authType";
     private static final String AUTH_METHOD = "authMethod";
+    private static final long INSTALLATION_ID_TIMEOUT_SECONDS = 10;
     private static final String TELEMETRY_NOT_ALLOWED = "TelemetryNotAllowed";
     private static final String JVM_UP_TIME = "jvmUpTime";
     private static final String CONFIGURATION_PATH = Paths.get(System.getProperty("user.home"),
@@ -110,6 +122,10 @@ public abstract class AbstractAzureMojo extends AbstractMojo {
 
     private static final String AZURE_ENVIRONMENT = "azureEnvironment";
     private static final String PROXY = "proxy";
+    private static final String CACHE_STATISTICS = "Cache[%s]: hits=%d, misses=%d, loads=%d(failed %d, %.1fms on average), evictions=%d";
+    private static final String MANAGER_CONSTRUCTIONS = "Manager[%s]: constructed %d time(s)";
+    private static final String HTTP_STATISTICS = "Http[%s]: active=%d, idle=%d, pending=%d, acquires=%d(%.1fms on average), received=%d bytes, " +
+        "sent=%d bytes, errors=%d";
 
     //region Properties
 
@@ -253,6 +269,41 @@ public abstract class AbstractAzureMojo extends AbstractMojo {
     @Parameter(property = "auth")
     protected MavenAuthConfiguration auth;
 
+    /**
+     * Max connections per host of the http connection pool shared by all requests to Azure.
+     */
+    @JsonProperty
+    @Parameter(property = "azure.http.maxConnections")
+    protected Integer httpMaxConnections;
+
+    /**
+     * Max requests per host waiting for a connection from the http connection pool, default to twice of max connections.
+     */
+    @JsonProperty
+    @Parameter(property = "azure.http.pendingAcquireMaxCount")
+    protected Integer httpPendingAcquireMaxCount;
+
+    /**
+     * Seconds an idle connection is kept in the http connection pool.
+     */
+    @JsonProperty
+    @Parameter(property = "azure.http.maxIdleTime")
+    protected Integer httpMaxIdleTime;
+
+    /**
+     * Seconds to wait for the response of a request to Azure.
+     */
+    @JsonProperty
+    @Parameter(property = "azure.http.responseTimeout")
+    protected Integer httpResponseTimeout;
+
+    /**
+     * Boolean flag to negotiate HTTP/2 with Azure if possible.
+     */
+    @JsonProperty
+    @Parameter(property = "azure.http.http2")
+    protected Boolean http2Enabled;
+
     @Component
     @JsonIgnore
     protected SettingsDecrypter settingsDecrypter;
@@ -272,8 +323,13 @@ public abstract class AbstractAzureMojo extends AbstractMojo {
     @JsonIgnore
     private final String sessionId = UUID.randomUUID().toString();
 
+    /**
+     * resolved in background (once per machine) only if telemetry is allowed, so that it doesn't block mojos unless telemetry is sent,
+     * and nothing is persisted if telemetry is disabled.
+     */
+    @Nullable
     @JsonIgnore
-    private final String installationId = InstallationIdUtils.getHashMac();
+    private CompletableFuture<String> installationId;
 
     //endregion
 
@@ -282,7 +338,31 @@ public abstract class AbstractAzureMojo extends AbstractMojo {
     }
 
     public String getInstallationId() {
-        return installationId == null ? "" : installationId;
+        final CompletableFuture<String> future = resolveInstallationId();
+        if (Objects.isNull(future)) {
+            return "";
+        }
+        try {
+            return StringUtils.defaultString(future.get(INSTALLATION_ID_TIMEOUT_SECONDS, TimeUnit.SECONDS));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return "";
+        } catch (ExecutionException | TimeoutException e) {
+            return "";
+        }
+    }
+
+    @Nonnull
+    private String getResolvedInstallationId() {
+        return Optional.ofNullable(resolveInstallationId()).map(id -> id.exceptionally(e -> null).getNow(null)).orElse("");
+    }
+
+    @Nullable
+    private synchronized CompletableFuture<String> resolveInstallationId() {
+        if (Objects.isNull(this.installationId) && isAllowTelemetry()) {
+            this.installationId = InstallationIdUtils.getPersistentHashMacAsync();
+        }
+        return this.installationId;
     }
 
     public String getPluginName() {
@@ -293,10 +373,17 @@ public abstract class AbstractAzureMojo extends AbstractMojo {
         return plugin.getVersion();
     }
 
+    /**
+     * installation id is contained only if it's already resolved, the user agent never waits for it.
+     */
     public String getUserAgent() {
-        return isAllowTelemetry() ? String.format("%s/%s %s:%s %s:%s", getPluginName(), getPluginVersion(),
-                INSTALLATION_ID_KEY, getInstallationId(), SESSION_ID_KEY, getSessionId())
-                : String.format("%s/%s", getPluginName(), getPluginVersion());
+        if (!isAllowTelemetry()) {
+            return String.format("%s/%s", getPluginName(), getPluginVersion());
+        }
+        final String installationId = getResolvedInstallationId();
+        return StringUtils.isEmpty(installationId) ? String.format("%s/%s %s:%s", getPluginName(), getPluginVersion(), SESSION_ID_KEY, getSessionId())
+                : String.format("%s/%s %s:%s %s:%s", getPluginName(), getPluginVersion(),
+                INSTALLATION_ID_KEY, installationId, SESSION_ID_KEY, getSessionId());
     }
 
     protected String getAuthType() {
@@ -332,7 +419,7 @@ public abstract class AbstractAzureMojo extends AbstractMojo {
             mavenAuthConfiguration.setType(getAuthType());
 
             SystemPropertyUtils.injectCommandLineParameter("auth", mavenAuthConfiguration, MavenAuthConfiguration.class);
-            Azure.az().config().setUserAgent(getUserAgent());
+            Azure.az().config().setUserAgent(this::getUserAgent);
             azureAccount = login(MavenAuthUtils.buildAuthConfiguration(session, settingsDecrypter, mavenAuthConfiguration));
         }
         return azureAccount;
@@ -462,6 +549,7 @@ public abstract class AbstractAzureMojo extends AbstractMojo {
     protected void initTelemetryProxy() {
         final Map<String, String> properties = getTelemetryProperties();
         telemetryProxy = new AzureTelemetryClient(properties);
+        telemetryProxy.addDefaultProperty(INSTALLATION_ID_KEY, this::getInstallationId);
         AzureTelemeter.setClient(telemetryProxy);
         AzureTelemeter.setEventNamePrefix("AzurePlugin.Maven");
         if (!isAllowTelemetry()) {
@@ -473,7 +561,8 @@ public abstract class AbstractAzureMojo extends AbstractMojo {
     //endregion
     public Map<String, String> getTelemetryProperties() {
         final Map<String, String> map = new HashMap<>();
-        map.put(INSTALLATION_ID_KEY, getInstallationId());
+        // installation id is not waited for here, it's added into telemetries when they are sent, see `initTelemetryProxy`
+        map.put(INSTALLATION_ID_KEY, getResolvedInstallationId());
         map.put(PLUGIN_NAME_KEY, getPluginName());
         map.put(PLUGIN_VERSION_KEY, getPluginVersion());
         map.put(SUBSCRIPTION_ID_KEY, getSubscriptionId());
@@ -493,12 +582,14 @@ public abstract class AbstractAzureMojo extends AbstractMojo {
 
     @Override
     public void execute() throws MojoExecutionException {
+        final Map<String, Long> constructions = ServiceManagerCache.getConstructions();
         try {
             MavenActionManager.register();
             AzureTaskManager.register(new MavenAzureTaskManager());
             AzureMessager.setDefaultMessager(new MavenAzureMessager());
             Azure.az().config().setLogLevel(HttpLogDetailLevel.NONE.name());
-            Azure.az().config().setUserAgent(getUserAgent());
+            Azure.az().config().setUserAgent(this::getUserAgent);
+            initHttpTransport(Azure.az().config().getHttpTransport());
             // init proxy manager
             initMavenSettingsProxy(Optional.ofNullable(this.session).map(MavenSession::getRequest).orElse(null));
             ProxyManager.getInstance().applyProxy();
@@ -529,11 +620,14 @@ public abstract class AbstractAzureMojo extends AbstractMojo {
         } catch (Throwable e) {
             onMojoError(e);
         } finally {
+            // telemetries of operations are sent in background
+            AzureTelemeter.flush();
             // When maven goal executes too quick, The HTTPClient of AI SDK may not fully initialize and will step
             // into endless loop when close, we need to call it in main thread.
             // Refer here for detail codes: https://github.com/Microsoft/ApplicationInsights-Java/blob/master/core/src
             // /main/java/com/microsoft/applicationinsights/internal/channel/common/ApacheSender43.java#L103
             Optional.ofNullable(TextIOUtils.getTextTerminal()).ifPresent(TextTerminal::dispose);
+            printStatistics(constructions);
             try {
                 // Sleep to wait ai sdk flush telemetries
                 Thread.sleep(2 * 1000);
@@ -544,6 +638,27 @@ public abstract class AbstractAzureMojo extends AbstractMojo {
         }
     }
 
+    private void initHttpTransport(@Nonnull HttpTransportConfig config) {
+        Optional.ofNullable(httpMaxConnections).ifPresent(config::setMaxConnections);
+        Optional.ofNullable(httpPendingAcquireMaxCount).ifPresent(config::setPendingAcquireMaxCount);
+        Optional.ofNullable(httpMaxIdleTime).map(Duration::ofSeconds).ifPresent(config::setMaxIdleTime);
+        Optional.ofNullable(httpResponseTimeout).map(Duration::ofSeconds).ifPresent(config::setResponseTimeout);
+        Optional.ofNullable(http2Enabled).ifPresent(config::setHttp2Enabled);
+    }
+
+    private static void printStatistics(@Nonnull Map<String, Long> constructionsBefore) {
+        if (!Log.isDebugEnabled()) {
+            return;
+        }
+        CacheManager.getStatistics().forEach((name, stats) -> Log.debug(String.format(CACHE_STATISTICS, name, stats.hitCount(),
+            stats.missCount(), stats.loadCount(), stats.loadExceptionCount(), stats.averageLoadPenalty() / 1e6, stats.evictionCount())));
+        ServiceManagerCache.getConstructions().forEach((type, count) ->
+            Log.debug(String.format(MANAGER_CONSTRUCTIONS, type, count - constructionsBefore.getOrDefault(type, 0L))));
+        HttpTransport.getStatistics().forEach((host, stats) -> Log.debug(String.format(HTTP_STATISTICS, host, stats.getActiveConnections(),
+            stats.getIdleConnections(), stats.getPendingAcquires(), stats.getAcquireCount(), stats.getAverageAcquireTime().toNanos() / 1e6,
+            stats.getBytesIn(), stats.getBytesOut(), stats.getErrors())));
+    }
+
     private static void initMavenSettingsProxy(MavenExecutionRequest request) {
         if (request != null) {
             final List<Proxy> mavenProxies = request.getProxies();
@@ -0,0 +1,86 @@
+/*
+ * Copyright (c) Microsoft Corporation. All rights reserved.
+ * Licensed under the MIT License. See License.txt in the project root for license information.
+ */
+
+package com.microsoft.azure.maven;
+
+import com.microsoft.azure.toolkit.lib.common.utils.InstallationIdUtils;
+import org.apache.maven.plugin.descriptor.PluginDescriptor;
+import org.codehaus.plexus.util.ReflectionUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+import static com.microsoft.azure.maven.AbstractAzureMojo.INSTALLATION_ID_KEY;
+import static com.microsoft.azure.maven.AbstractAzureMojo.SESSION_ID_KEY;
+
+/**
+ * JMH benchmark of constructing the mojos of a reactor build and building their user agents, with the legacy installation id which was
+ * computed (by forking commands to list network interfaces) in every construction, and with the one resolved once per JVM in background.
+ * it's not a unit test (and never run by surefire), run it after {@code test-compile} of this module by e.g.
+ * <pre>
+ * mvn -pl azure-maven-plugin-lib test-compile exec:exec -Dexec.executable=java -Dexec.classpathScope=test \
+ *     -Dexec.args="-cp %classpath org.openjdk.jmh.Main AbstractAzureMojoBenchmark"
+ * </pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class AbstractAzureMojoBenchmark {
+    /**
+     * number of modules of the reactor build.
+     */
+    @Param({"20"})
+    public int modules;
+
+    private final PluginDescriptor plugin = new PluginDescriptor();
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        this.plugin.setArtifactId("azure-maven-plugin-lib");
+        this.plugin.setVersion("0.1.0-SNAPSHOT");
+    }
+
+    @Benchmark
+    public void legacy(Blackhole blackhole) throws IllegalAccessException {
+        for (int i = 0; i < this.modules; i++) {
+            final AbstractAzureMojo mojo = newMojo();
+            blackhole.consume(String.format("%s/%s %s:%s %s:%s", mojo.getPluginName(), mojo.getPluginVersion(),
+                INSTALLATION_ID_KEY, InstallationIdUtils.getHashMac(), SESSION_ID_KEY, mojo.getSessionId()));
+        }
+    }
+
+    @Benchmark
+    public void current(Blackhole blackhole) throws IllegalAccessException {
+        for (int i = 0; i < this.modules; i++) {
+            blackhole.consume(newMojo().getUserAgent());
+        }
+    }
+
+    private AbstractAzureMojo newMojo() throws IllegalAccessException {
+        final AbstractAzureMojo mojo = new AbstractAzureMojo() {
+            @Override
+            protected void doExecute() {
+            }
+        };
+        ReflectionUtils.setVariableValueInObject(mojo, "plugin", this.plugin);
+        ReflectionUtils.setVariableValueInObject(mojo, "allowTelemetry", true);
+        return mojo;
+    }
+}
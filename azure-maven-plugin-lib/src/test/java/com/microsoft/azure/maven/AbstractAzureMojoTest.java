@@ -32,6 +32,7 @@ import static com.microsoft.azure.maven.AbstractAzureMojo.SESSION_ID_KEY;
 import static com.microsoft.azure.maven.AbstractAzureMojo.SUBSCRIPTION_ID_KEY;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 import static org.mockito.Mockito.doReturn;
 
@@ -116,11 +117,17 @@ public class AbstractAzureMojoTest {
     @Test
     public void getUserAgentWhenTelemetryAllowed() throws IllegalAccessException {
         ReflectionUtils.setVariableValueInObject(mojo, "allowTelemetry", true);
+        // installation id is not resolved when the mojo is constructed
+        assertNull(ReflectionUtils.getValueIncludingSuperclasses("installationId", mojo));
         final String userAgent = mojo.getUserAgent();
         assertTrue(StringUtils.contains(userAgent, PLUGIN_NAME));
         assertTrue(StringUtils.contains(userAgent, PLUGIN_VERSION));
-        assertTrue(StringUtils.contains(userAgent, mojo.getInstallationId()));
         assertTrue(StringUtils.contains(userAgent, mojo.getSessionId()));
+        // user agent doesn't wait for the installation id, but contains it once it's resolved
+        final String installationId = mojo.getInstallationId();
+        if (StringUtils.isNotEmpty(installationId)) {
+            assertTrue(StringUtils.contains(mojo.getUserAgent(), INSTALLATION_ID_KEY + ":" + installationId));
+        }
     }
 
     @Test
@@ -128,8 +135,10 @@ public class AbstractAzureMojoTest {
         final String userAgent = mojo.getUserAgent();
         assertTrue(StringUtils.contains(userAgent, PLUGIN_NAME));
         assertTrue(StringUtils.contains(userAgent, PLUGIN_VERSION));
-        assertFalse(StringUtils.contains(userAgent, mojo.getInstallationId()));
+        assertFalse(StringUtils.contains(userAgent, INSTALLATION_ID_KEY));
         assertFalse(StringUtils.contains(userAgent, mojo.getSessionId()));
+        // installation id is neither resolved nor persisted if telemetry is disabled
+        assertEquals("", mojo.getInstallationId());
     }
 
     @Test
@@ -12,10 +12,10 @@ import com.microsoft.azure.toolkit.lib.common.exception.AzureToolkitRuntimeExcep
 import com.microsoft.azure.toolkit.lib.common.model.IArtifact;
 import com.microsoft.azure.toolkit.lib.common.operation.AzureOperation;
 import com.microsoft.azure.toolkit.lib.common.task.AzureTask;
+import com.microsoft.azure.toolkit.lib.common.utils.Poller;
 import com.microsoft.azure.toolkit.lib.common.utils.TextUtils;
 import com.microsoft.azure.toolkit.lib.springcloud.SpringCloudApp;
 import com.microsoft.azure.toolkit.lib.springcloud.SpringCloudDeployment;
-import com.microsoft.azure.toolkit.lib.springcloud.Utils;
 import com.microsoft.azure.toolkit.lib.springcloud.config.SpringCloudAppConfig;
 import com.microsoft.azure.toolkit.lib.springcloud.config.SpringCloudDeploymentConfig;
 import com.microsoft.azure.toolkit.lib.springcloud.task.DeploySpringCloudAppTask;
@@ -30,6 +30,7 @@ import org.apache.maven.project.MavenProject;
 import org.codehaus.plexus.util.xml.Xpp3Dom;
 
 import java.io.IOException;
+import java.time.Duration;
 import java.util.List;
 import java.util.Objects;
 import java.util.Optional;
@@ -113,10 +114,12 @@ public class DeployMojo extends AbstractMojoBase {
         log.info("Getting public url of app({})...", TextUtils.cyan(app.name()));
         String publicUrl = app.getApplicationUrl();
         if (!noWait && StringUtils.isEmpty(publicUrl)) {
-            publicUrl = Utils.pollUntil(() -> {
-                app.refresh();
-                return app.getApplicationUrl();
-            }, StringUtils::isNotBlank, GET_URL_TIMEOUT);
+            publicUrl = Poller.builder().initialDelay(Duration.ofSeconds(1)).maxDelay(Duration.ofSeconds(5))
+                .deadline(Duration.ofSeconds(GET_URL_TIMEOUT)).build()
+                .poll("public url", () -> {
+                    app.refresh();
+                    return app.getApplicationUrl();
+                }, StringUtils::isNotBlank);
         }
         if (StringUtils.isEmpty(publicUrl)) {
             log.warn("Failed to get application url");
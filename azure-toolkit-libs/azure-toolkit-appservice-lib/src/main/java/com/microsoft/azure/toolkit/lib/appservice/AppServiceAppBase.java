@@ -29,6 +29,7 @@ import com.microsoft.azure.toolkit.lib.appservice.plan.AppServicePlanModule;
 import com.microsoft.azure.toolkit.lib.appservice.utils.AppServiceUtils;
 import com.microsoft.azure.toolkit.lib.appservice.utils.Utils;
 import com.microsoft.azure.toolkit.lib.common.bundle.AzureString;
+import com.microsoft.azure.toolkit.lib.common.http.LogStreamer;
 import com.microsoft.azure.toolkit.lib.common.messager.AzureMessager;
 import com.microsoft.azure.toolkit.lib.common.model.AbstractAzResource;
 import com.microsoft.azure.toolkit.lib.common.model.AbstractAzResourceModule;
@@ -110,9 +111,13 @@ public abstract class AppServiceAppBase<
     }
 
     public void deploy(@Nonnull DeployType deployType, @Nonnull File targetFile, @Nullable String targetPath) {
+        deploy(deployType, targetFile, targetPath, null);
+    }
+
+    public void deploy(@Nonnull DeployType deployType, @Nonnull File targetFile, @Nullable String targetPath, @Nullable Boolean restartSite) {
         final WebSiteBase remote = this.getRemote();
         if (remote instanceof SupportsOneDeploy) {
-            final DeployOptions options = new DeployOptions().withPath(targetPath);
+            final DeployOptions options = new DeployOptions().withPath(targetPath).withRestartSite(restartSite);
             AzureMessager.getMessager().info(AzureString.format("Deploying (%s)[%s] %s ...", targetFile.toString(),
                 (deployType.toString()), StringUtils.isBlank(targetPath) ? "" : (" to " + (targetPath))));
             final com.azure.resourcemanager.appservice.models.DeployType type =
@@ -141,9 +146,14 @@ public abstract class AppServiceAppBase<
         return Optional.ofNullable(this.getFullRemote()).map(WebAppBase::diagnosticLogsConfig).map(AppServiceUtils::fromWebAppDiagnosticLogs).orElse(null);
     }
 
+    /**
+     * streams logs with bounded buffering, reconnecting (without replay, as kudu only streams new logs) when disconnected.
+     */
     @Nonnull
     public Flux<String> streamAllLogsAsync() {
-        return Optional.ofNullable(this.getFullRemote()).map(WebAppBase::streamAllLogsAsync).orElseGet(Flux::empty);
+        return Optional.ofNullable(this.getFullRemote())
+            .map(remote -> LogStreamer.builder().build().stream(resumeFrom -> remote.streamAllLogsAsync()))
+            .orElseGet(Flux::empty);
     }
 
     @Nonnull
@@ -224,6 +234,14 @@ public abstract class AppServiceAppBase<
         return remote.state();
     }
 
+    /**
+     * @return id of the latest deployment recorded by kudu, {@code null} if there is none.
+     */
+    @Nullable
+    public String getLatestDeploymentId() {
+        return Optional.ofNullable(getKuduManager()).map(AppServiceKuduClient::getLatestDeploymentId).orElse(null);
+    }
+
     @Nullable
     protected IFileClient getFileClient() {
         return getKuduManager();
@@ -20,6 +20,7 @@ import com.microsoft.azure.toolkit.lib.auth.Account;
 import com.microsoft.azure.toolkit.lib.auth.AzureAccount;
 import com.microsoft.azure.toolkit.lib.common.model.AbstractAzService;
 import com.microsoft.azure.toolkit.lib.common.model.AbstractAzServiceSubscription;
+import com.microsoft.azure.toolkit.lib.common.model.ServiceManagerCache;
 import com.microsoft.azure.toolkit.lib.resource.AzureResources;
 import com.microsoft.azure.toolkit.lib.resource.GenericResource;
 import org.apache.commons.lang3.StringUtils;
@@ -56,16 +57,17 @@ public class AzureAppService extends AbstractAzService<AppServiceServiceSubscrip
     @Nonnull
     @Override
     protected AppServiceManager loadResourceFromAzure(@Nonnull String subscriptionId, String resourceGroup) {
-        final Account account = Azure.az(AzureAccount.class).account();
-        final AzureConfiguration config = Azure.az().config();
-        final String userAgent = config.getUserAgent();
-        final HttpLogDetailLevel logLevel = Optional.ofNullable(config.getLogLevel()).map(HttpLogDetailLevel::valueOf).orElse(HttpLogDetailLevel.NONE);
-        final AzureProfile azureProfile = new AzureProfile(null, subscriptionId, account.getEnvironment());
-        return AppServiceManager.configure()
-            .withHttpClient(AbstractAzServiceSubscription.getDefaultHttpClient())
-            .withLogLevel(logLevel)
-            .withPolicy(AbstractAzServiceSubscription.getUserAgentPolicy(userAgent)) // set user agent with policy
-            .authenticate(account.getTokenCredential(subscriptionId), azureProfile);
+        return ServiceManagerCache.get(subscriptionId, AppServiceManager.class, id -> {
+            final Account account = Azure.az(AzureAccount.class).account();
+            final AzureConfiguration config = Azure.az().config();
+            final HttpLogDetailLevel logLevel = Optional.ofNullable(config.getLogLevel()).map(HttpLogDetailLevel::valueOf).orElse(HttpLogDetailLevel.NONE);
+            final AzureProfile azureProfile = new AzureProfile(null, id, account.getEnvironment());
+            return AppServiceManager.configure()
+                .withHttpClient(AbstractAzServiceSubscription.getDefaultHttpClient())
+                .withLogLevel(logLevel)
+                .withPolicy(AbstractAzServiceSubscription.getUserAgentPolicy(config::getUserAgent)) // set user agent with policy
+                .authenticate(account.getTokenCredential(id), azureProfile);
+        });
     }
 
     @Nonnull
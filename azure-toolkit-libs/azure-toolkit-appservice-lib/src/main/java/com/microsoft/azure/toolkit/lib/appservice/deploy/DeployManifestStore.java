@@ -0,0 +1,200 @@
+/*
+ * Copyright (c) Microsoft Corporation. All rights reserved.
+ * Licensed under the MIT License. See License.txt in the project root for license information.
+ */
+
+package com.microsoft.azure.toolkit.lib.appservice.deploy;
+
+import com.microsoft.azure.toolkit.lib.appservice.model.DeployManifest;
+import com.microsoft.azure.toolkit.lib.common.utils.CacheDirs;
+import com.microsoft.azure.toolkit.lib.common.utils.JsonUtils;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.codec.digest.DigestUtils;
+import org.apache.commons.lang3.BooleanUtils;
+import org.apache.commons.lang3.StringUtils;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * records content hashes of the artifacts of the last successful deployment to an app, so that the next deployment can skip
+ * unchanged artifacts. enabled by system property {@value #ENABLED_PROPERTY}.
+ * <ul>
+ *     <li>manifests are stored in the {@link CacheDirs cache directory} with the fingerprint of what is deployed to the app (e.g. id of
+ *     the latest kudu deployment) on completion. a manifest is trusted only if the app still has the same fingerprint, so deployments
+ *     by anything else (other machines, portal, CI, etc.) invalidate it.</li>
+ *     <li>{@link #begin()} marks the manifest as in progress before anything is uploaded, and {@link #complete(Map)} records the new
+ *     hashes only if no other deployment has begun since, so interrupted or overlapping deployments lead to a full deployment next time.</li>
+ * </ul>
+ */
+@Slf4j
+public class DeployManifestStore {
+    public static final String ENABLED_PROPERTY = "azure.deploy.incremental";
+    // file locks are held by the jvm, so they can't guard threads of the same process
+    private static final Map<Path, Object> LOCKS = new ConcurrentHashMap<>();
+
+    private final Path file;
+    private final Supplier<String> fingerprint;
+    private String id;
+
+    /**
+     * @param fingerprint identifies what is deployed to the app currently, {@code null} if unknown.
+     */
+    public DeployManifestStore(@Nonnull String appId, @Nonnull Supplier<String> fingerprint) {
+        this.file = CacheDirs.resolve("deploy", DigestUtils.sha256Hex(appId.toLowerCase()) + ".json");
+        this.fingerprint = fingerprint;
+    }
+
+    public static boolean isEnabled() {
+        return BooleanUtils.toBoolean(System.getProperty(ENABLED_PROPERTY));
+    }
+
+    /**
+     * marks the manifest as in progress.
+     *
+     * @return artifact hashes of the last deployment, empty if unknown or not trusted.
+     */
+    @Nonnull
+    public Map<String, String> begin() {
+        this.id = UUID.randomUUID().toString();
+        final String current = getFingerprint();
+        return withLock(() -> {
+            final DeployManifest local = loadLocal();
+            final boolean trusted = Objects.nonNull(local) && local.isCompleted() && Objects.nonNull(local.getArtifacts()) &&
+                Objects.nonNull(current) && StringUtils.equals(current, local.getFingerprint());
+            saveLocal(new DeployManifest(id, false, null, Collections.emptyMap()));
+            return trusted ? Collections.unmodifiableMap(local.getArtifacts()) : Collections.emptyMap();
+        });
+    }
+
+    /**
+     * records {@code artifacts} as deployed, if no other deployment has begun since {@link #begin()}.
+     */
+    public void complete(@Nonnull Map<String, String> artifacts) {
+        if (Objects.isNull(this.id)) {
+            throw new IllegalStateException("deployment is not begun");
+        }
+        final String current = getFingerprint();
+        withLock(() -> {
+            final DeployManifest local = loadLocal();
+            if (Objects.isNull(local) || !StringUtils.equals(id, local.getId())) {
+                log.debug("another deployment has begun since, skip recording manifest {}", file);
+            } else if (Objects.isNull(current)) {
+                log.debug("deployment to the app can not be identified, skip recording manifest {}", file);
+            } else {
+                saveLocal(new DeployManifest(id, true, current, new TreeMap<>(artifacts)));
+            }
+            return null;
+        });
+    }
+
+    /**
+     * @return sha256 of the file content, {@code null} if it can not be read.
+     */
+    @Nullable
+    public static String hash(@Nonnull File file) {
+        try (final InputStream input = Files.newInputStream(file.toPath())) {
+            return DigestUtils.sha256Hex(input);
+        } catch (final IOException e) {
+            log.debug("failed to hash {}", file, e);
+            return null;
+        }
+    }
+
+    /**
+     * @return sha256 of all files under {@code dir} accepted by {@code filter}, keyed by their relative paths (separated by '/'),
+     * {@code null} if any of them can not be read.
+     */
+    @Nullable
+    public static Map<String, String> hash(@Nonnull File dir, @Nonnull Predicate<String> filter) {
+        final Path root = dir.toPath();
+        try (final Stream<Path> paths = Files.walk(root)) {
+            final Map<String, String> result = new TreeMap<>();
+            for (final Path path : paths.filter(Files::isRegularFile).collect(Collectors.toList())) {
+                final String name = root.relativize(path).toString().replace(File.separatorChar, '/');
+                if (filter.test(name)) {
+                    final String hash = hash(path.toFile());
+                    if (Objects.isNull(hash)) {
+                        return null;
+                    }
+                    result.put(name, hash);
+                }
+            }
+            return result;
+        } catch (final IOException e) {
+            log.debug("failed to hash {}", dir, e);
+            return null;
+        }
+    }
+
+    private <T> T withLock(@Nonnull Supplier<T> action) {
+        synchronized (LOCKS.computeIfAbsent(file, k -> new Object())) {
+            try {
+                Files.createDirectories(file.getParent());
+                try (final FileChannel channel = FileChannel.open(file.resolveSibling(file.getFileName() + ".lock"),
+                    StandardOpenOption.CREATE, StandardOpenOption.WRITE); final FileLock ignored = channel.lock()) {
+                    return action.get();
+                }
+            } catch (final IOException e) {
+                log.debug("failed to lock manifest {}, run without lock", file, e);
+                return action.get();
+            }
+        }
+    }
+
+    @Nullable
+    private DeployManifest loadLocal() {
+        try {
+            return Files.isRegularFile(file) ? JsonUtils.fromJson(new String(Files.readAllBytes(file), StandardCharsets.UTF_8), DeployManifest.class) : null;
+        } catch (final IOException | RuntimeException e) {
+            log.debug("failed to load deploy manifest {}", file, e);
+            return null;
+        }
+    }
+
+    private void saveLocal(@Nonnull DeployManifest manifest) {
+        try {
+            CacheDirs.writeAtomically(file, JsonUtils.toJson(manifest).getBytes(StandardCharsets.UTF_8));
+        } catch (final IOException | RuntimeException e) {
+            log.debug("failed to save deploy manifest {}", file, e);
+            deleteLocal();
+        }
+    }
+
+    private void deleteLocal() {
+        try {
+            Files.deleteIfExists(file);
+        } catch (final IOException e) {
+            log.debug("failed to delete deploy manifest {}", file, e);
+        }
+    }
+
+    @Nullable
+    private String getFingerprint() {
+        try {
+            return this.fingerprint.get();
+        } catch (final RuntimeException e) {
+            log.debug("failed to get fingerprint of the deployment", e);
+            return null;
+        }
+    }
+}
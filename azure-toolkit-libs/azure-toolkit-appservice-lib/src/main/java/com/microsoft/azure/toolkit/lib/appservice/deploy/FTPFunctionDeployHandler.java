@@ -10,23 +10,25 @@ import com.azure.resourcemanager.appservice.models.WebAppBase;
 import com.microsoft.azure.toolkit.lib.common.exception.AzureExecutionException;
 import com.microsoft.azure.toolkit.lib.common.exception.AzureToolkitRuntimeException;
 import com.microsoft.azure.toolkit.lib.common.messager.AzureMessager;
-import com.microsoft.azure.toolkit.lib.legacy.appservice.handlers.artifact.FTPUploader;
+import com.microsoft.azure.toolkit.lib.legacy.appservice.handlers.artifact.ParallelFTPUploader;
+import org.apache.commons.lang3.math.NumberUtils;
 
 import java.io.File;
 
 public class FTPFunctionDeployHandler implements IFunctionDeployHandler {
     private static final String DEFAULT_WEBAPP_ROOT = "/site/wwwroot";
-    private static final int DEFAULT_MAX_RETRY_TIMES = 3;
 
     @Override
     public void deploy(final File file, final WebAppBase webAppBase) {
-        final FTPUploader uploader = new FTPUploader();
         final PublishingProfile profile = webAppBase.getPublishingProfile();
         final String serverUrl = profile.ftpUrl().split("/", 2)[0];
-
+        final ParallelFTPUploader uploader = ParallelFTPUploader.builder()
+            .ftpServer(serverUrl).username(profile.ftpUsername()).password(profile.ftpPassword())
+            .connections(NumberUtils.toInt(System.getProperty(ParallelFTPUploader.CONNECTIONS_PROPERTY), ParallelFTPUploader.DEFAULT_CONNECTIONS))
+            .skipUnchanged(Boolean.getBoolean(ParallelFTPUploader.SKIP_UNCHANGED_PROPERTY))
+            .build();
         try {
-            uploader.uploadDirectoryWithRetries(serverUrl, profile.ftpUsername(), profile.ftpPassword(),
-                    file.getAbsolutePath(), DEFAULT_WEBAPP_ROOT, DEFAULT_MAX_RETRY_TIMES);
+            uploader.uploadDirectory(file, DEFAULT_WEBAPP_ROOT);
         } catch (AzureExecutionException e) {
             throw new AzureToolkitRuntimeException("Failed to upload artifact to azure", e);
         }
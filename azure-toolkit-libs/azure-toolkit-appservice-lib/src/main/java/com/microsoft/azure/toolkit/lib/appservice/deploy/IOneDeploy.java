@@ -24,4 +24,12 @@ public interface IOneDeploy {
     }
 
     void deploy(DeployType deployType, File targetFile, String targetPath);
+
+    /**
+     * @param restartSite whether to restart the app after deployment, {@code null} for the default behavior of the deploy type.
+     *                    implementations not supporting it fall back to the default behavior.
+     */
+    default void deploy(DeployType deployType, File targetFile, String targetPath, Boolean restartSite) {
+        deploy(deployType, targetFile, targetPath);
+    }
 }
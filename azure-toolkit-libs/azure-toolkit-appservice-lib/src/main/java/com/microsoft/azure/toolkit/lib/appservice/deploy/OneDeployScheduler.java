@@ -0,0 +1,180 @@
+/*
+ * Copyright (c) Microsoft Corporation. All rights reserved.
+ * Licensed under the MIT License. See License.txt in the project root for license information.
+ */
+
+package com.microsoft.azure.toolkit.lib.appservice.deploy;
+
+import com.azure.core.exception.HttpResponseException;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.microsoft.azure.toolkit.lib.appservice.model.DeployType;
+import com.microsoft.azure.toolkit.lib.appservice.model.WebAppArtifact;
+import com.microsoft.azure.toolkit.lib.common.exception.AzureToolkitRuntimeException;
+import com.microsoft.azure.toolkit.lib.common.messager.AzureMessager;
+import com.microsoft.azure.toolkit.lib.common.operation.OperationThreadContext;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.lang3.math.NumberUtils;
+
+import javax.annotation.Nonnull;
+import java.net.HttpURLConnection;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * deploys artifacts through OneDeploy in the given order, while adjacent artifacts independent of each other (lib/static/script)
+ * are deployed concurrently (up to {@code parallelism}). artifacts which may clean the target folder (war/jar/ear/zip) and startup
+ * scripts are deployed alone, so that they never overtake or get overtaken by the artifacts declared before/after them.
+ * with parallelism 1, every artifact is deployed with the default restart behavior of its deploy type, as it is today. otherwise,
+ * artifacts before the last stage are deployed with {@code restart=false} and the last one with {@code restart=true}, so the app
+ * restarts exactly once after all artifacts are deployed. parallelism defaults to 1 and can be set by system property
+ * {@value #PARALLELISM_PROPERTY}, since kudu may reject overlapping deployments with 409, which are retried with backoff.
+ */
+@Builder
+public class OneDeployScheduler {
+    public static final String PARALLELISM_PROPERTY = "azure.webapp.deployParallelism";
+    private static final List<DeployType> CLEAN_DEPLOY_TYPES = Arrays.asList(DeployType.WAR, DeployType.JAR, DeployType.EAR, DeployType.ZIP);
+    private static final String ARTIFACT_DEPLOYED = "Successfully deployed %s (%s) in %.1fs";
+    private static final String ARTIFACT_CONFLICT = "Another deployment is in progress, retrying to deploy %s (%d/%d)";
+
+    @Builder.Default
+    private final int parallelism = Math.max(1, NumberUtils.toInt(System.getProperty(PARALLELISM_PROPERTY), 1));
+    @Builder.Default
+    private final int maxConflictAttempts = 5;
+    @Builder.Default
+    private final Duration conflictRetryDelay = Duration.ofSeconds(2);
+
+    /**
+     * @return results in the order of deployment.
+     */
+    @Nonnull
+    public List<Result> deploy(@Nonnull IOneDeploy target, @Nonnull List<WebAppArtifact> artifacts) {
+        final List<List<WebAppArtifact>> stages = plan(artifacts);
+        final List<Result> results = new ArrayList<>();
+        final ExecutorService executor = Executors.newFixedThreadPool(Math.max(1, this.parallelism), new ThreadFactoryBuilder()
+            .setNameFormat("azure-one-deploy-%d").setDaemon(true).build());
+        try {
+            for (int i = 0; i < stages.size(); i++) {
+                final Boolean restart = getRestart(i, stages.size());
+                final List<Future<Result>> futures = stages.get(i).stream()
+                    .map(artifact -> submit(executor, () -> deploy(target, artifact, restart)))
+                    .collect(Collectors.toList());
+                for (final Future<Result> future : futures) {
+                    results.add(future.get());
+                }
+            }
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new AzureToolkitRuntimeException("Interrupted while deploying artifacts", e);
+        } catch (final ExecutionException e) {
+            final Throwable cause = e.getCause();
+            throw cause instanceof RuntimeException ? (RuntimeException) cause : new AzureToolkitRuntimeException(cause.getMessage(), cause);
+        } finally {
+            executor.shutdownNow();
+        }
+        return results;
+    }
+
+    /**
+     * @return stages to deploy in order, artifacts of a stage can be deployed concurrently, the last stage contains only one artifact.
+     */
+    @Nonnull
+    static List<List<WebAppArtifact>> plan(@Nonnull List<WebAppArtifact> artifacts) {
+        final List<List<WebAppArtifact>> stages = new ArrayList<>();
+        List<WebAppArtifact> independent = new ArrayList<>();
+        for (final WebAppArtifact artifact : artifacts) {
+            if (isIndependent(artifact)) {
+                independent.add(artifact);
+                continue;
+            }
+            if (!independent.isEmpty()) {
+                stages.add(independent);
+                independent = new ArrayList<>();
+            }
+            stages.add(Collections.singletonList(artifact));
+        }
+        if (independent.size() > 1) {
+            // leave the last one to deploy alone, with restart
+            stages.add(new ArrayList<>(independent.subList(0, independent.size() - 1)));
+            stages.add(Collections.singletonList(independent.get(independent.size() - 1)));
+        } else if (!independent.isEmpty()) {
+            stages.add(independent);
+        }
+        return stages;
+    }
+
+    /**
+     * @return {@code null} for the default restart behavior of the deploy type.
+     */
+    private Boolean getRestart(int stage, int stages) {
+        if (this.parallelism <= 1 || stages == 1) {
+            return null;
+        }
+        // only the last stage contains the last artifact, which restarts the app for all suppressed before.
+        return stage == stages - 1;
+    }
+
+    private static boolean isIndependent(@Nonnull WebAppArtifact artifact) {
+        return !CLEAN_DEPLOY_TYPES.contains(artifact.getDeployType()) && !Objects.equals(artifact.getDeployType(), DeployType.SCRIPT_STARTUP);
+    }
+
+    @Nonnull
+    private static Future<Result> submit(@Nonnull ExecutorService executor, @Nonnull Callable<Result> deployment) {
+        // derived on the calling thread, so that deployments run in its operation and messager.
+        final OperationThreadContext context = OperationThreadContext.current().derive();
+        final CompletableFuture<Result> future = new CompletableFuture<>();
+        executor.execute(() -> context.run(() -> {
+            try {
+                future.complete(deployment.call());
+            } catch (final Throwable t) {
+                future.completeExceptionally(t);
+            }
+        }));
+        return future;
+    }
+
+    @Nonnull
+    private Result deploy(@Nonnull IOneDeploy target, @Nonnull WebAppArtifact artifact, Boolean restart) throws InterruptedException {
+        final long start = System.currentTimeMillis();
+        for (int attempt = 1; ; attempt++) {
+            try {
+                target.deploy(artifact.getDeployType(), artifact.getFile(), artifact.getPath(), restart);
+                break;
+            } catch (final HttpResponseException e) {
+                if (e.getResponse() == null || e.getResponse().getStatusCode() != HttpURLConnection.HTTP_CONFLICT || attempt >= this.maxConflictAttempts) {
+                    throw e;
+                }
+                AzureMessager.getMessager().info(String.format(ARTIFACT_CONFLICT, artifact.getFile().getName(), attempt, this.maxConflictAttempts));
+                final long delay = this.conflictRetryDelay.toMillis() << (attempt - 1);
+                TimeUnit.MILLISECONDS.sleep((long) (delay * ThreadLocalRandom.current().nextDouble(0.8, 1.2)));
+            }
+        }
+        final Result result = new Result(artifact, Duration.ofMillis(System.currentTimeMillis() - start), artifact.getFile().length());
+        AzureMessager.getMessager().info(String.format(ARTIFACT_DEPLOYED, artifact.getFile().getName(),
+            FileUtils.byteCountToDisplaySize(result.getBytes()), result.getElapsed().toMillis() / 1000.0));
+        return result;
+    }
+
+    @Getter
+    @RequiredArgsConstructor
+    public static class Result {
+        private final WebAppArtifact artifact;
+        private final Duration elapsed;
+        private final long bytes;
+    }
+}
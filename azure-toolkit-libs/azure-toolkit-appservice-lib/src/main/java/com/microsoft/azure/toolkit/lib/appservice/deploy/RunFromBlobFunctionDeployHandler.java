@@ -16,10 +16,14 @@ import com.microsoft.azure.toolkit.lib.common.exception.AzureExecutionException;
 import com.microsoft.azure.toolkit.lib.common.exception.AzureToolkitRuntimeException;
 import com.microsoft.azure.toolkit.lib.common.messager.AzureMessager;
 import com.microsoft.azure.toolkit.lib.legacy.function.AzureStorageHelper;
+import org.apache.commons.codec.digest.DigestUtils;
 import org.apache.commons.lang3.StringUtils;
 
 import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
 import java.net.URISyntaxException;
+import java.nio.file.Files;
 import java.time.Period;
 
 import static com.microsoft.azure.toolkit.lib.legacy.function.Constants.APP_SETTING_WEBSITE_RUN_FROM_PACKAGE;
@@ -78,9 +82,17 @@ public class RunFromBlobFunctionDeployHandler implements IFunctionDeployHandler
         AzureMessager.getMessager().info(String.format(UPDATE_ACCESS_LEVEL_TO_PRIVATE, DEPLOYMENT_PACKAGE_CONTAINER));
     }
 
-    private String getBlobName(final WebAppBase deployTarget, final File zipPackage) {
+    /**
+     * the package is staged in a temp file with a random name, so the blob is named after its content instead,
+     * an unchanged package then maps to the same blob and an interrupted upload can be resumed.
+     */
+    private String getBlobName(final WebAppBase deployTarget, final File zipPackage) throws AzureExecutionException {
         // replace '/' in resource id to '-' in case create multi-level blob
         final String fixedResourceId = StringUtils.replace(deployTarget.id(), "/", "-").replaceFirst("-", "");
-        return String.format("%s-%s", fixedResourceId, zipPackage.getName());
+        try (final InputStream stream = Files.newInputStream(zipPackage.toPath())) {
+            return String.format("%s-%s.zip", fixedResourceId, DigestUtils.md5Hex(stream));
+        } catch (IOException e) {
+            throw new AzureExecutionException(String.format("Failed to read package '%s'", zipPackage.getAbsolutePath()), e);
+        }
     }
 }
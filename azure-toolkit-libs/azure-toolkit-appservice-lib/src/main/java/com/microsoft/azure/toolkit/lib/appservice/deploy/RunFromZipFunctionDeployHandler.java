@@ -4,25 +4,70 @@
  */
 package com.microsoft.azure.toolkit.lib.appservice.deploy;
 
+import com.azure.core.exception.HttpResponseException;
 import com.azure.resourcemanager.appservice.models.WebAppBase;
+import com.microsoft.azure.toolkit.lib.appservice.file.AppServiceKuduClient;
+import com.microsoft.azure.toolkit.lib.common.exception.AzureToolkitRuntimeException;
+import com.microsoft.azure.toolkit.lib.common.operation.OperationContext;
+import com.microsoft.azure.toolkit.lib.common.utils.ReadinessProbe;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.ObjectUtils;
+import org.apache.commons.lang3.StringUtils;
 
+import javax.annotation.Nonnull;
 import java.io.File;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Optional;
 
+@Slf4j
 public class RunFromZipFunctionDeployHandler extends ZIPFunctionDeployHandler {
     private static final String APP_SETTING_WEBSITE_RUN_FROM_PACKAGE = "WEBSITE_RUN_FROM_PACKAGE";
     private static final String RUN_FROM_PACKAGE_VALUE = "1";
+    private static final Duration APP_SETTING_PROPAGATION_TIMEOUT = Duration.ofSeconds(60);
+    private static final String PHASE_KUDU_APP_SETTINGS = "kudu-app-settings";
 
     @Override
     public void deploy(File file, WebAppBase functionApp) {
         DeployUtils.updateFunctionAppSetting(functionApp, APP_SETTING_WEBSITE_RUN_FROM_PACKAGE, RUN_FROM_PACKAGE_VALUE);
-        // todo: Check status from kudu api, refers https://github.com/Azure/azure-functions-core-tools/blob/dev/src/Azure.Functions.Cli/
-        //  Actions/AzureActions/PublishFunctionAppAction.cs#L515
+        // work around for issue https://dev.azure.com/msazure/Unified%20Platform%20KPIs/_workitems/edit/7481871
+        // kudu restarts to pick up the new app setting, deploy only after it sees the setting (or it will not run from package),
+        // refers https://github.com/Azure/azure-functions-core-tools/blob/dev/src/Azure.Functions.Cli/Actions/AzureActions/PublishFunctionAppAction.cs#L515
+        final ReadinessProbe probe = ReadinessProbe.builder().deadline(APP_SETTING_PROPAGATION_TIMEOUT).build();
         try {
-            // work around for issue https://dev.azure.com/msazure/Unified%20Platform%20KPIs/_workitems/edit/7481871
-            Thread.sleep(20 * 1000);
-        } catch (InterruptedException e) {
-            // Sorrow exception here as we just wait for 20s for kudu app settings update, which is not required in normal cases
+            awaitRunFromPackage(AppServiceKuduClient.getClient(functionApp, null), probe);
+        } catch (final AzureToolkitRuntimeException e) {
+            // try deploying anyway, the setting is usually picked up in normal cases
+            log.debug("kudu app settings are not updated in time", e);
         }
+        probe.getPhaseTimings().forEach((phase, cost) -> OperationContext.action().setTelemetryProperty(phase + "-cost", String.valueOf(cost.toMillis())));
         super.deploy(file, functionApp);
     }
+
+    /**
+     * waits until kudu sees the run from package setting, or its app settings are not accessible.
+     *
+     * @throws AzureToolkitRuntimeException if kudu doesn't see the setting before the deadline of {@code probe}.
+     */
+    static void awaitRunFromPackage(@Nonnull final AppServiceKuduClient kudu, @Nonnull final ReadinessProbe probe) {
+        probe.await(PHASE_KUDU_APP_SETTINGS, () -> getAppSettings(kudu), settings -> settings.map(s ->
+            StringUtils.equals(s.get(APP_SETTING_WEBSITE_RUN_FROM_PACKAGE), RUN_FROM_PACKAGE_VALUE)).orElse(true));
+    }
+
+    /**
+     * @return app settings seen by kudu, empty if they are not accessible (e.g. 401/403/404), which waiting will not fix.
+     */
+    private static Optional<Map<String, String>> getAppSettings(final AppServiceKuduClient kudu) {
+        try {
+            return Optional.of(ObjectUtils.defaultIfNull(kudu.getAppSettings(), Collections.emptyMap()));
+        } catch (final HttpResponseException e) {
+            final int code = e.getResponse().getStatusCode();
+            if (code >= 400 && code < 500 && code != 408 && code != 429) {
+                log.debug("kudu app settings are not accessible, skip waiting", e);
+                return Optional.empty();
+            }
+            throw e;
+        }
+    }
 }
@@ -15,6 +15,7 @@ import com.azure.core.annotation.PathParam;
 import com.azure.core.annotation.Post;
 import com.azure.core.annotation.Put;
 import com.azure.core.annotation.ServiceInterface;
+import com.azure.core.exception.HttpResponseException;
 import com.azure.core.http.HttpPipeline;
 import com.azure.core.http.HttpPipelineBuilder;
 import com.azure.core.http.policy.HttpPipelinePolicy;
@@ -42,11 +43,14 @@ import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
 import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
 import java.io.File;
 import java.nio.ByteBuffer;
 import java.nio.file.Paths;
 import java.util.List;
 import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
 import java.util.stream.Collectors;
 
 public class AppServiceKuduClient implements IFileClient, IProcessClient {
@@ -61,7 +65,7 @@ public class AppServiceKuduClient implements IFileClient, IProcessClient {
         this.kuduService = kuduService;
     }
 
-    public static AppServiceKuduClient getClient(@Nonnull WebAppBase webAppBase, @Nonnull AppServiceAppBase<?, ?, ?> appService) {
+    public static AppServiceKuduClient getClient(@Nonnull WebAppBase webAppBase, @Nullable AppServiceAppBase<?, ?, ?> appService) {
         // refers : https://github.com/Azure/azure-sdk-for-java/blob/master/sdk/resourcemanager/azure-resourcemanager-appservice/src/main/java/
         // com/azure/resourcemanager/appservice/implementation/KuduClient.java
         if (webAppBase.defaultHostname() == null) {
@@ -82,6 +86,13 @@ public class AppServiceKuduClient implements IFileClient, IProcessClient {
                 .policies(policies.toArray(new HttpPipelinePolicy[0]))
                 .httpClient(webAppBase.manager().httpPipeline().getHttpClient())
                 .build();
+        return getClient(host, httpPipeline, appService);
+    }
+
+    /**
+     * @param host kudu endpoint, e.g. {@code https://<app>.scm.azurewebsites.net}
+     */
+    public static AppServiceKuduClient getClient(@Nonnull String host, @Nonnull HttpPipeline httpPipeline, @Nullable AppServiceAppBase<?, ?, ?> appService) {
         final KuduService kuduService = RestProxy.create(KuduService.class, httpPipeline,
                 SerializerFactory.createDefaultManagementSerializerAdapter());
         return new AppServiceKuduClient(host, kuduService, appService);
@@ -136,6 +147,29 @@ public class AppServiceKuduClient implements IFileClient, IProcessClient {
         return this.kuduService.getAppServiceTunnelStatus(host).block().getValue();
     }
 
+    /**
+     * @return app settings seen by kudu, which may lag behind the ones updated through ARM until the scm site restarts.
+     */
+    public Map<String, String> getAppSettings() {
+        return this.kuduService.getAppSettings(host).block().getValue();
+    }
+
+    /**
+     * @return id of the latest deployment recorded by kudu, {@code null} if there is none.
+     */
+    @Nullable
+    public String getLatestDeploymentId() {
+        try {
+            return Optional.ofNullable(this.kuduService.getLatestDeployment(host).block()).map(Response::getValue)
+                .map(deployment -> deployment.get("id")).map(String::valueOf).orElse(null);
+        } catch (final HttpResponseException e) {
+            if (e.getResponse().getStatusCode() == 404) {
+                return null;
+            }
+            throw e;
+        }
+    }
+
     @Host("{$host}")
     @ServiceInterface(name = "KuduService")
     private interface KuduService {
@@ -190,6 +224,20 @@ public class AppServiceKuduClient implements IFileClient, IProcessClient {
         })
         @Get("AppServiceTunnel/Tunnel.ashx?GetStatus&GetStatusAPIVer=2")
         Mono<Response<TunnelStatus>> getAppServiceTunnelStatus(@HostParam("$host") String host);
+
+        @Headers({
+                "Content-Type: application/json; charset=utf-8",
+                "x-ms-body-logging: false"
+        })
+        @Get("api/settings")
+        Mono<Response<Map<String, String>>> getAppSettings(@HostParam("$host") String host);
+
+        @Headers({
+                "Content-Type: application/json; charset=utf-8",
+                "x-ms-body-logging: false"
+        })
+        @Get("api/deployments/latest")
+        Mono<Response<Map<String, Object>>> getLatestDeployment(@HostParam("$host") String host);
     }
 
     @Data
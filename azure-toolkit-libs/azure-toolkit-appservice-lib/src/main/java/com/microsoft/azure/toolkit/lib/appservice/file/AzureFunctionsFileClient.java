@@ -31,6 +31,7 @@ import com.azure.resourcemanager.resources.fluentcore.policy.AuxiliaryAuthentica
 import com.azure.resourcemanager.resources.fluentcore.policy.ProviderRegistrationPolicy;
 import com.microsoft.azure.toolkit.lib.appservice.function.FunctionAppBase;
 import com.microsoft.azure.toolkit.lib.appservice.model.AppServiceFile;
+import com.microsoft.azure.toolkit.lib.appservice.model.FunctionHostStatus;
 import com.microsoft.azure.toolkit.lib.appservice.model.OperatingSystem;
 import com.microsoft.azure.toolkit.lib.appservice.utils.Utils;
 import com.microsoft.azure.toolkit.lib.common.exception.AzureToolkitRuntimeException;
@@ -53,10 +54,10 @@ public class AzureFunctionsFileClient implements IFileClient {
     private final FunctionsService functionsService;
     private final FunctionAppBase<?, ?, ?> app;
 
-    private AzureFunctionsFileClient(FunctionsService functionsService, FunctionAppBase<?, ?, ?> app) {
+    private AzureFunctionsFileClient(String host, FunctionsService functionsService, FunctionAppBase<?, ?, ?> app) {
+        this.host = host;
         this.app = app;
         this.functionsService = functionsService;
-        this.host = String.format("https://%s", app.getHostName());
     }
 
     public static AzureFunctionsFileClient getClient(@Nonnull WebAppBase functionApp, @Nonnull FunctionAppBase<?, ?, ?> appService) {
@@ -73,9 +74,16 @@ public class AzureFunctionsFileClient implements IFileClient {
                 .policies(policies.toArray(new HttpPipelinePolicy[0]))
                 .httpClient(functionApp.manager().httpPipeline().getHttpClient())
                 .build();
+        return getClient(String.format("https://%s", appService.getHostName()), httpPipeline, appService);
+    }
+
+    /**
+     * @param host functions host endpoint, e.g. {@code https://<app>.azurewebsites.net}
+     */
+    public static AzureFunctionsFileClient getClient(@Nonnull String host, @Nonnull HttpPipeline httpPipeline, @Nonnull FunctionAppBase<?, ?, ?> appService) {
         final FunctionsService functionsService = RestProxy.create(FunctionsService.class, httpPipeline,
                 SerializerFactory.createDefaultManagementSerializerAdapter());
-        return new AzureFunctionsFileClient(functionsService, appService);
+        return new AzureFunctionsFileClient(host, functionsService, appService);
     }
 
     public Flux<ByteBuffer> getFileContent(final String path) {
@@ -111,6 +119,10 @@ public class AzureFunctionsFileClient implements IFileClient {
         this.functionsService.deleteFile(host, getFixedPath(path)).block();
     }
 
+    public FunctionHostStatus getHostStatus() {
+        return this.functionsService.getHostStatus(host).block().getValue();
+    }
+
     private String getFixedPath(String originPath) {
         return app.getRuntime().getOperatingSystem() == OperatingSystem.WINDOWS || StringUtils.startsWithIgnoreCase(originPath, LINUX_ROOT) ?
                 originPath : Paths.get(LINUX_ROOT, originPath).toString();
@@ -150,5 +162,12 @@ public class AzureFunctionsFileClient implements IFileClient {
         })
         @Delete("admin/vfs/{path}")
         Mono<Void> deleteFile(@HostParam("$host") String host, @PathParam("path") String path);
+
+        @Headers({
+            "Content-Type: application/json; charset=utf-8",
+            "x-ms-body-logging: false"
+        })
+        @Get("admin/host/status")
+        Mono<Response<FunctionHostStatus>> getHostStatus(@HostParam("$host") String host);
     }
 }
@@ -17,6 +17,7 @@ import com.microsoft.azure.toolkit.lib.appservice.deploy.ZIPFunctionDeployHandle
 import com.microsoft.azure.toolkit.lib.appservice.file.AzureFunctionsFileClient;
 import com.microsoft.azure.toolkit.lib.appservice.file.IFileClient;
 import com.microsoft.azure.toolkit.lib.appservice.model.FunctionDeployType;
+import com.microsoft.azure.toolkit.lib.appservice.model.FunctionHostStatus;
 import com.microsoft.azure.toolkit.lib.appservice.model.OperatingSystem;
 import com.microsoft.azure.toolkit.lib.appservice.model.PricingTier;
 import com.microsoft.azure.toolkit.lib.appservice.model.Runtime;
@@ -63,6 +64,19 @@ public abstract class FunctionAppBase<T extends FunctionAppBase<T, P, F>, P exte
 
     @Nullable
     protected IFileClient getFileClient() {
+        return getFunctionsFileClient();
+    }
+
+    /**
+     * @return status of the functions host, {@code null} if the app doesn't exist.
+     */
+    @Nullable
+    public FunctionHostStatus getHostStatus() {
+        return Optional.ofNullable(getFunctionsFileClient()).map(AzureFunctionsFileClient::getHostStatus).orElse(null);
+    }
+
+    @Nullable
+    private AzureFunctionsFileClient getFunctionsFileClient() {
         // kudu api does not applies to linux consumption, using functions admin api instead
         if (fileClient == null) {
             fileClient = Optional.ofNullable(this.getFullRemote()).map(r -> AzureFunctionsFileClient.getClient(r, this)).orElse(null);
@@ -19,9 +19,11 @@ import com.microsoft.azure.toolkit.lib.common.exception.AzureToolkitRuntimeExcep
 import com.microsoft.azure.toolkit.lib.common.messager.AzureMessager;
 import com.microsoft.azure.toolkit.lib.common.operation.AzureOperation;
 import com.microsoft.azure.toolkit.lib.common.operation.OperationContext;
+import com.microsoft.azure.toolkit.lib.common.utils.FileStager;
 import com.microsoft.azure.toolkit.lib.legacy.function.bindings.Binding;
 import com.microsoft.azure.toolkit.lib.legacy.function.bindings.BindingEnum;
 import com.microsoft.azure.toolkit.lib.legacy.function.configurations.FunctionConfiguration;
+import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.io.FileUtils;
 import org.apache.commons.lang3.ObjectUtils;
 import org.apache.commons.lang3.StringUtils;
@@ -31,18 +33,27 @@ import java.io.FileInputStream;
 import java.io.IOException;
 import java.nio.charset.Charset;
 import java.nio.file.Paths;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Scanner;
 import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 
+@Slf4j
 public class AzureFunctionPackager extends AzureFunctionPackagerBase {
     private static final String TRIGGER_TYPE = "triggerType";
+    private static final String STEP_COSTS = "package-step-costs";
+    private static final String STAGING_BYTES_COPIED = "staging-bytes-copied";
+    private static final String STAGING_FILES_LINKED = "staging-files-linked";
+    private static final String STAGING_FILES_SKIPPED = "staging-files-skipped";
     protected static final String LINE_FEED = "\r\n";
     protected static final String FUNCTION_JSON = "function.json";
     protected static final String HOST_JSON = "host.json";
@@ -81,6 +92,8 @@ public class AzureFunctionPackager extends AzureFunctionPackagerBase {
     private static final String EXTENSION_BUNDLE_PREVIEW_ID = "Microsoft.Azure.Functions.ExtensionBundle.Preview";
     private static final BindingEnum[] FUNCTION_WITHOUT_FUNCTION_EXTENSION = {BindingEnum.HttpOutput, BindingEnum.HttpTrigger};
 
+    private volatile Map<String, Long> lastStepCosts = Collections.emptyMap();
+
     private static class AzureFunctionPackagerHolder {
         static final AzureFunctionPackager instance = new AzureFunctionPackager();
     }
@@ -94,7 +107,9 @@ public class AzureFunctionPackager extends AzureFunctionPackagerBase {
         type = AzureOperation.Type.TASK
     )
     public void packageProject(FunctionProject project, boolean installExtension, String funcPath) {
+        final StepTimer timer = new StepTimer();
         final List<FunctionMethod> methods = findAnnotatedMethodsInner(project);
+        timer.record("search");
 
         if (methods.isEmpty()) {
             AzureMessager.getMessager().info(NO_FUNCTIONS);
@@ -102,29 +117,46 @@ public class AzureFunctionPackager extends AzureFunctionPackagerBase {
         }
 
         final Map<String, FunctionConfiguration> configMap = generateConfigurations(project, methods);
+        timer.record("generate");
 
         trackFunctionProperties(configMap);
 
         validateFunctionConfigurations(configMap);
+        timer.record("validate");
 
         final ObjectWriter objectWriter = getObjectWriter();
 
         try {
             copyHostJson(project);
             copyLocalSettingsJson(project);
+            timer.record("settings");
             writeFunctionJsonFiles(project, objectWriter, configMap);
+            timer.record("save");
             copyJarsToStageDirectory(project);
+            timer.record("copy");
             final Set<BindingEnum> bindingEnums = this.getFunctionBindingEnums(configMap);
 
             if (isInstallingExtensionNeeded(!installExtension, project, bindingEnums)) {
                 installExtensionStep(project, funcPath);
             }
+            timer.record("extension");
             AzureMessager.getMessager().info(BUILD_SUCCESS);
         } catch (IOException e) {
             throw new AzureToolkitRuntimeException("Cannot perform IO operations due to error:" + e.getMessage(), e);
+        } finally {
+            this.lastStepCosts = timer.costs;
+            OperationContext.action().setTelemetryProperty(STEP_COSTS, timer.toString());
+            log.debug("time spent in packaging steps (ms): {}", timer);
         }
     }
 
+    /**
+     * @return time spent in each step of the last {@link #packageProject}, in ms.
+     */
+    public Map<String, Long> getLastStepCosts() {
+        return Collections.unmodifiableMap(lastStepCosts);
+    }
+
     @AzureOperation(
         name = "function.list_function_methods",
         params = {"project.getName()"},
@@ -176,19 +208,18 @@ public class AzureFunctionPackager extends AzureFunctionPackagerBase {
         if (configMap.size() == 0) {
             AzureMessager.getMessager().info(SAVE_SKIP);
         } else {
-            for (final Map.Entry<String, FunctionConfiguration> config : configMap.entrySet()) {
-                writeFunctionJsonFile(project, objectWriter, config.getKey(), config.getValue());
+            // files are written concurrently, and reported in the order of function names
+            final List<Map.Entry<String, FunctionConfiguration>> configs = new ArrayList<>(new TreeMap<>(configMap).entrySet());
+            runPartitioned(configs, config -> writeObjectToFile(objectWriter, config.getValue(), getFunctionJsonFile(project, config.getKey())));
+            for (final Map.Entry<String, FunctionConfiguration> config : configs) {
+                AzureMessager.getMessager().info(SAVE_FUNCTION_JSON + config.getKey());
+                AzureMessager.getMessager().info(SAVE_SUCCESS + getFunctionJsonFile(project, config.getKey()).getAbsolutePath());
             }
         }
     }
 
-    private void writeFunctionJsonFile(FunctionProject project, final ObjectWriter objectWriter, final String functionName,
-                                       final FunctionConfiguration config) throws IOException {
-        AzureMessager.getMessager().info(SAVE_FUNCTION_JSON + functionName);
-        final File functionJsonFile = Paths.get(project.getStagingFolder().getAbsolutePath(),
-            functionName, FUNCTION_JSON).toFile();
-        writeObjectToFile(objectWriter, config, functionJsonFile);
-        AzureMessager.getMessager().info(SAVE_SUCCESS + functionJsonFile.getAbsolutePath());
+    private static File getFunctionJsonFile(FunctionProject project, final String functionName) {
+        return Paths.get(project.getStagingFolder().getAbsolutePath(), functionName, FUNCTION_JSON).toFile();
     }
 
     private void copyHostJson(FunctionProject project) throws IOException {
@@ -236,13 +267,12 @@ public class AzureFunctionPackager extends AzureFunctionPackagerBase {
         final String stagingDirectory = project.getStagingFolder().getAbsolutePath();
         AzureMessager.getMessager().info(LINE_FEED + COPY_JARS + stagingDirectory);
         final File libFolder = Paths.get(stagingDirectory, "lib").toFile();
-        if (libFolder.exists()) {
-            FileUtils.cleanDirectory(libFolder);
-        }
-        for (final File file : project.getDependencies()) {
-            FileUtils.copyFileToDirectory(file, libFolder);
-        }
-        FileUtils.copyFileToDirectory(project.getArtifactFile(), new File(stagingDirectory));
+        final FileStager.Result result = FileStager.builder().build().stage(project.getDependencies(), libFolder);
+        FileStager.builder().removeStale(false).build().stage(Collections.singletonList(project.getArtifactFile()), new File(stagingDirectory));
+        OperationContext.action().setTelemetryProperty(STAGING_BYTES_COPIED, String.valueOf(result.getBytesCopied()));
+        OperationContext.action().setTelemetryProperty(STAGING_FILES_LINKED, String.valueOf(result.getFilesLinked()));
+        OperationContext.action().setTelemetryProperty(STAGING_FILES_SKIPPED, String.valueOf(result.getFilesSkipped()));
+        AzureMessager.getMessager().info(String.format("Dependencies: %s.", result));
         AzureMessager.getMessager().info(COPY_SUCCESS);
     }
 
@@ -298,4 +328,20 @@ public class AzureFunctionPackager extends AzureFunctionPackagerBase {
             return null;
         }
     }
+
+    private static class StepTimer {
+        private final Map<String, Long> costs = new LinkedHashMap<>();
+        private long last = System.nanoTime();
+
+        private void record(String step) {
+            final long now = System.nanoTime();
+            costs.put(step, TimeUnit.NANOSECONDS.toMillis(now - last));
+            last = now;
+        }
+
+        @Override
+        public String toString() {
+            return costs.entrySet().stream().map(e -> e.getKey() + "=" + e.getValue()).collect(Collectors.joining(","));
+        }
+    }
 }
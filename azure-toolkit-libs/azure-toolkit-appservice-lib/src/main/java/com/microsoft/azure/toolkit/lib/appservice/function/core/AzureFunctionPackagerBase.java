@@ -13,16 +13,26 @@ import com.microsoft.azure.toolkit.lib.legacy.function.bindings.BindingEnum;
 import com.microsoft.azure.toolkit.lib.legacy.function.configurations.FunctionConfiguration;
 import com.microsoft.azure.toolkit.lib.legacy.function.configurations.Retry;
 import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.ObjectUtils;
 import org.apache.commons.lang3.StringUtils;
+import org.apache.commons.lang3.math.NumberUtils;
 
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.function.Function;
 
 import static com.microsoft.azure.toolkit.lib.appservice.function.core.AzureFunctionsAnnotationConstants.CUSTOM_BINDING;
@@ -33,6 +43,7 @@ import static com.microsoft.azure.toolkit.lib.appservice.function.core.AzureFunc
 
 @Slf4j
 abstract class AzureFunctionPackagerBase {
+    public static final String PARALLELISM_PROPERTY = "azure.functions.packageParallelism";
     private static final List<String> CUSTOM_BINDING_RESERVED_PROPERTIES = Arrays.asList("type", "name", "direction");
     private static final String MULTI_RETRY_ANNOTATION = "Fixed delay retry and exponential backoff retry are not compatible, " +
         "please use either of them for one trigger";
@@ -59,19 +70,82 @@ abstract class AzureFunctionPackagerBase {
         return config;
     }
 
+    /**
+     * generates configurations of {@code methods} in parallel, function names are validated in order before that.
+     *
+     * @return configurations sorted by function name.
+     */
     protected Map<String, FunctionConfiguration> generateConfigurationsInner(FunctionProject project, List<FunctionMethod> methods) {
-        final Map<String, FunctionConfiguration> configMap = new HashMap<>();
+        final Map<String, FunctionMethod> functions = new LinkedHashMap<>();
         for (final FunctionMethod method : methods) {
             final FunctionAnnotation functionAnnotation = method.getAnnotation(FUNCTION_NAME);
             if (functionAnnotation == null) {
                 continue;
             }
             final String functionName = functionAnnotation.getStringValue("value", false);
-            validateFunctionName(configMap.keySet(), functionName);
-            log.debug("Starting processing function : " + functionName);
-            configMap.put(functionName, generateConfiguration(project, method));
+            validateFunctionName(functions.keySet(), functionName);
+            functions.put(functionName, method);
+        }
+        final Map<String, FunctionConfiguration> configMap = new ConcurrentHashMap<>();
+        try {
+            runPartitioned(new ArrayList<>(functions.entrySet()), function -> {
+                log.debug("Starting processing function : " + function.getKey());
+                configMap.put(function.getKey(), generateConfiguration(project, function.getValue()));
+            });
+        } catch (final IOException e) {
+            throw new AzureToolkitRuntimeException(e.getMessage(), e);
+        }
+        return new TreeMap<>(configMap);
+    }
+
+    /**
+     * runs {@code task} on {@code items} split into consecutive partitions, one per thread (up to {@value #PARALLELISM_PROPERTY},
+     * defaults to the number of processors). a partition stops at its first failure, and the failure of the first failed partition
+     * is rethrown after all partitions are done.
+     */
+    protected static <T> void runPartitioned(List<T> items, PartitionTask<T> task) throws IOException {
+        final int parallelism = Math.min(items.size(), Math.max(1, NumberUtils.toInt(System.getProperty(PARALLELISM_PROPERTY),
+            Runtime.getRuntime().availableProcessors())));
+        if (parallelism <= 1) {
+            for (final T item : items) {
+                task.run(item);
+            }
+            return;
+        }
+        final int size = (items.size() + parallelism - 1) / parallelism;
+        final ExecutorService executor = Executors.newFixedThreadPool(parallelism);
+        try {
+            final List<Future<?>> futures = new ArrayList<>();
+            for (int start = 0; start < items.size(); start += size) {
+                final List<T> partition = items.subList(start, Math.min(items.size(), start + size));
+                futures.add(executor.submit(() -> {
+                    for (final T item : partition) {
+                        task.run(item);
+                    }
+                    return null;
+                }));
+            }
+            Throwable failure = null;
+            for (final Future<?> future : futures) {
+                try {
+                    future.get();
+                } catch (final ExecutionException e) {
+                    failure = ObjectUtils.defaultIfNull(failure, e.getCause());
+                }
+            }
+            if (failure instanceof IOException) {
+                throw (IOException) failure;
+            } else if (failure instanceof RuntimeException) {
+                throw (RuntimeException) failure;
+            } else if (failure != null) {
+                throw new AzureToolkitRuntimeException(failure.getMessage(), failure);
+            }
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new AzureToolkitRuntimeException("Interrupted while packaging functions", e);
+        } finally {
+            executor.shutdownNow();
         }
-        return configMap;
     }
 
     private void patchStorageBinding(final FunctionMethod method, final List<Binding> bindings) {
@@ -216,4 +290,9 @@ abstract class AzureFunctionPackagerBase {
     private Retry createRetryFromMap(Map<String, Object> map) {
         return JsonUtils.fromJson(JsonUtils.toJson(map), Retry.class);
     }
+
+    @FunctionalInterface
+    protected interface PartitionTask<T> {
+        void run(T item) throws IOException;
+    }
 }
@@ -4,12 +4,9 @@
  */
 package com.microsoft.azure.toolkit.lib.appservice.function.impl;
 
-import java.io.IOException;
-import java.io.InputStream;
 import java.lang.annotation.Annotation;
 import java.net.MalformedURLException;
 import java.net.URL;
-import java.net.URLClassLoader;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
@@ -27,9 +24,7 @@ import org.jboss.jandex.AnnotationInstance;
 import org.jboss.jandex.AnnotationTarget;
 import org.jboss.jandex.AnnotationValue;
 import org.jboss.jandex.ClassInfo;
-import org.jboss.jandex.CompositeIndex;
 import org.jboss.jandex.DotName;
-import org.jboss.jandex.IndexReader;
 import org.jboss.jandex.IndexView;
 import org.jboss.jandex.MethodInfo;
 
@@ -108,18 +103,7 @@ public class DefaultFunctionProject extends FunctionProject {
     }
 
     private static IndexView buildIndex(final List<URL> urls) {
-        try {
-            List<IndexView> indexes = new ArrayList<>();
-            for (URL url : urls) {
-                InputStream persistedIndexStream = getClassLoader(url).getResourceAsStream("/META-INF/jandex.idx");
-                if (persistedIndexStream != null) {
-                    indexes.add(new IndexReader(persistedIndexStream).read());
-                }
-            }
-            return CompositeIndex.create(indexes);
-        } catch (IOException e) {
-            throw new AzureToolkitRuntimeException(e);
-        }
+        return new JandexIndexCache().buildIndex(urls);
     }
 
     private static Set<MethodInfo> findFunctions(final IndexView index) {
@@ -133,10 +117,6 @@ public class DefaultFunctionProject extends FunctionProject {
         return methodInfos;
     }
 
-    private static ClassLoader getClassLoader(final URL url) {
-        return new URLClassLoader(new URL[]{url}, null);
-    }
-
     private URL getArtifactUrl() throws MalformedURLException {
         return getArtifactFile().toURI().toURL();
     }
@@ -0,0 +1,278 @@
+/*
+ * Copyright (c) Microsoft Corporation. All rights reserved.
+ * Licensed under the MIT License. See License.txt in the project root for license information.
+ */
+package com.microsoft.azure.toolkit.lib.appservice.function.impl;
+
+import com.microsoft.azure.toolkit.lib.common.exception.AzureToolkitRuntimeException;
+import com.microsoft.azure.toolkit.lib.common.utils.CacheDirs;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.codec.digest.DigestUtils;
+import org.apache.commons.lang3.BooleanUtils;
+import org.apache.commons.lang3.StringUtils;
+import org.jboss.jandex.CompositeIndex;
+import org.jboss.jandex.Index;
+import org.jboss.jandex.IndexReader;
+import org.jboss.jandex.IndexView;
+import org.jboss.jandex.IndexWriter;
+import org.jboss.jandex.Indexer;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.jar.JarFile;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.ZipEntry;
+
+/**
+ * builds jandex indexes of class path entries, and caches them across builds in the {@link CacheDirs cache directory}, disabled by system property {@value #ENABLED_PROPERTY}={@code false}.
+ * <ul>
+ *     <li>jars contribute their persisted {@value #INDEX_ENTRY}, read by {@link JarFile}. the index is cached by the content hash of
+ *     the jar, which is looked up by the path, size and modified time of the jar, so unchanged jars are not opened at all.</li>
+ *     <li>directories (e.g. {@code target/classes}) are always indexed from their class files, a {@value #INDEX_ENTRY} in them is
+ *     ignored since it may be left by a previous build. the index is cached by the paths, sizes and modified times of the class files.</li>
+ *     <li>cached files not used for {@link #MAX_AGE} (e.g. of old versions of jars or previous builds) are evicted.</li>
+ * </ul>
+ */
+@Slf4j
+public class JandexIndexCache {
+    public static final String ENABLED_PROPERTY = "azure.functions.indexCache";
+    public static final String INDEX_ENTRY = "META-INF/jandex.idx";
+    public static final Duration MAX_AGE = Duration.ofDays(30);
+
+    @Nullable
+    private final Path dir;
+    @Nonnull
+    private final Duration maxAge;
+
+    public JandexIndexCache() {
+        this(BooleanUtils.toBoolean(System.getProperty(ENABLED_PROPERTY, "true")) ? CacheDirs.resolve("jandex") : null);
+    }
+
+    /**
+     * @param dir directory to cache indexes in, caching is disabled if {@code null}.
+     */
+    public JandexIndexCache(@Nullable Path dir) {
+        this(dir, MAX_AGE);
+    }
+
+    JandexIndexCache(@Nullable Path dir, @Nonnull Duration maxAge) {
+        this.dir = dir;
+        this.maxAge = maxAge;
+    }
+
+    @Nonnull
+    public IndexView buildIndex(@Nonnull List<URL> urls) {
+        final List<IndexView> indexes = new ArrayList<>();
+        for (final URL url : urls) {
+            if (!StringUtils.equals(url.getProtocol(), "file")) {
+                log.debug("skip indexing of non-file url: {}", url);
+                continue;
+            }
+            try {
+                final Index index = this.getIndex(Paths.get(url.toURI()).toFile());
+                if (Objects.nonNull(index)) {
+                    indexes.add(index);
+                }
+            } catch (final URISyntaxException | IOException e) {
+                throw new AzureToolkitRuntimeException(String.format("failed to index %s: %s", url, e.getMessage()), e);
+            }
+        }
+        this.evict();
+        return CompositeIndex.create(indexes);
+    }
+
+    /**
+     * @return index of the jar or directory, {@code null} if there is none.
+     */
+    @Nullable
+    public Index getIndex(@Nonnull File file) throws IOException {
+        if (file.isFile()) {
+            return this.getJarIndex(file);
+        } else if (file.isDirectory()) {
+            return this.getDirectoryIndex(file.toPath());
+        }
+        return null;
+    }
+
+    @Nullable
+    private Index getJarIndex(@Nonnull File jar) throws IOException {
+        if (Objects.isNull(this.dir)) {
+            return readJarIndex(jar);
+        }
+        final Path ref = this.dir.resolve(DigestUtils.sha256Hex(String.format("%s|%d|%d", jar.getAbsolutePath(), jar.length(), jar.lastModified())) + ".ref");
+        final String known = this.readString(ref);
+        final String hash = StringUtils.isBlank(known) ? hash(jar) : known;
+        if (StringUtils.isBlank(hash)) {
+            return readJarIndex(jar);
+        } else if (StringUtils.isBlank(known)) {
+            this.write(ref, output -> output.write(hash.getBytes(StandardCharsets.UTF_8)));
+        }
+        // jars without index are marked, so that they are not opened again
+        final Path none = this.dir.resolve(hash + ".none");
+        final Path cached = this.dir.resolve(hash + ".idx");
+        if (Files.isRegularFile(none)) {
+            touch(none);
+            return null;
+        }
+        final Index index = this.readIndex(cached);
+        if (Objects.nonNull(index)) {
+            return index;
+        }
+        final Index read = readJarIndex(jar);
+        if (Objects.isNull(read)) {
+            this.write(none, output -> {
+            });
+        } else {
+            this.write(cached, output -> new IndexWriter(output).write(read));
+        }
+        return read;
+    }
+
+    @Nullable
+    private static String hash(@Nonnull File jar) {
+        try (final InputStream input = Files.newInputStream(jar.toPath())) {
+            return DigestUtils.sha256Hex(input);
+        } catch (final IOException e) {
+            log.debug("failed to hash {}", jar, e);
+            return null;
+        }
+    }
+
+    @Nullable
+    private static Index readJarIndex(@Nonnull File jar) throws IOException {
+        try (final JarFile file = new JarFile(jar)) {
+            final ZipEntry entry = file.getEntry(INDEX_ENTRY);
+            if (Objects.isNull(entry)) {
+                return null;
+            }
+            try (final InputStream input = file.getInputStream(entry)) {
+                return new IndexReader(input).read();
+            }
+        }
+    }
+
+    @Nonnull
+    private Index getDirectoryIndex(@Nonnull Path root) throws IOException {
+        final List<Path> classes;
+        try (final Stream<Path> paths = Files.walk(root)) {
+            classes = paths.filter(p -> p.getFileName().toString().endsWith(".class") && Files.isRegularFile(p)).sorted().collect(Collectors.toList());
+        }
+        Path cached = null;
+        if (Objects.nonNull(this.dir)) {
+            final StringBuilder fingerprint = new StringBuilder(root.toAbsolutePath().toString());
+            for (final Path clazz : classes) {
+                fingerprint.append('|').append(root.relativize(clazz)).append('|').append(Files.size(clazz)).append('|').append(Files.getLastModifiedTime(clazz).toMillis());
+            }
+            cached = this.dir.resolve(DigestUtils.sha256Hex(fingerprint.toString()) + ".idx");
+            final Index index = this.readIndex(cached);
+            if (Objects.nonNull(index)) {
+                return index;
+            }
+        }
+        final Indexer indexer = new Indexer();
+        for (final Path clazz : classes) {
+            try (final InputStream input = Files.newInputStream(clazz)) {
+                indexer.index(input);
+            }
+        }
+        final Index index = indexer.complete();
+        if (Objects.nonNull(cached)) {
+            this.write(cached, output -> new IndexWriter(output).write(index));
+        }
+        return index;
+    }
+
+    @Nullable
+    private Index readIndex(@Nonnull Path cached) {
+        if (!Files.isRegularFile(cached)) {
+            return null;
+        }
+        try (final InputStream input = Files.newInputStream(cached)) {
+            final Index index = new IndexReader(input).read();
+            touch(cached);
+            return index;
+        } catch (final IOException | RuntimeException e) {
+            log.debug("failed to read cached index {}", cached, e);
+            return null;
+        }
+    }
+
+    @Nullable
+    private String readString(@Nonnull Path file) {
+        try {
+            if (!Files.isRegularFile(file)) {
+                return null;
+            }
+            final String content = new String(Files.readAllBytes(file), StandardCharsets.UTF_8).trim();
+            touch(file);
+            return content;
+        } catch (final IOException e) {
+            log.debug("failed to read {}", file, e);
+            return null;
+        }
+    }
+
+    /**
+     * marks {@code file} as used, so that it's not evicted.
+     */
+    private static void touch(@Nonnull Path file) {
+        try {
+            Files.setLastModifiedTime(file, FileTime.fromMillis(System.currentTimeMillis()));
+        } catch (final IOException e) {
+            log.debug("failed to touch {}", file, e);
+        }
+    }
+
+    /**
+     * deletes cached files (including temp files left by interrupted writes) not used for {@link #maxAge}.
+     */
+    private void evict() {
+        if (Objects.isNull(this.dir) || !Files.isDirectory(this.dir)) {
+            return;
+        }
+        final long expiry = System.currentTimeMillis() - this.maxAge.toMillis();
+        try (final Stream<Path> files = Files.list(this.dir)) {
+            files.filter(f -> {
+                try {
+                    return Files.isRegularFile(f) && Files.getLastModifiedTime(f).toMillis() < expiry;
+                } catch (final IOException e) {
+                    return false;
+                }
+            }).forEach(f -> {
+                try {
+                    Files.deleteIfExists(f);
+                } catch (final IOException e) {
+                    log.debug("failed to evict {}", f, e);
+                }
+            });
+        } catch (final IOException | RuntimeException e) {
+            log.debug("failed to evict cached indexes in {}", this.dir, e);
+        }
+    }
+
+    /**
+     * writes to a temp file and then moves it to {@code file}, failures are ignored since the cache is optional.
+     */
+    private void write(@Nonnull Path file, @Nonnull CacheDirs.ContentWriter writer) {
+        try {
+            CacheDirs.writeAtomically(file, writer);
+        } catch (final IOException | RuntimeException e) {
+            log.debug("failed to cache {}", file, e);
+        }
+    }
+}
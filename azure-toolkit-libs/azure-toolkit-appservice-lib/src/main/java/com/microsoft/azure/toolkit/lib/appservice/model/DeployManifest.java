@@ -0,0 +1,34 @@
+/*
+ * Copyright (c) Microsoft Corporation. All rights reserved.
+ * Licensed under the MIT License. See License.txt in the project root for license information.
+ */
+
+package com.microsoft.azure.toolkit.lib.appservice.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.Map;
+
+/**
+ * content hashes of the artifacts deployed to an app, keyed by artifact.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class DeployManifest {
+    /**
+     * id of the deployment which wrote this manifest
+     */
+    private String id;
+    /**
+     * {@code false} while the deployment is still in progress, when {@link #artifacts} are not reliable.
+     */
+    private boolean completed;
+    /**
+     * identifies what was deployed to the app (e.g. id of the latest kudu deployment) when the deployment completed.
+     */
+    private String fingerprint;
+    private Map<String, String> artifacts;
+}
@@ -0,0 +1,37 @@
+/*
+ * Copyright (c) Microsoft Corporation. All rights reserved.
+ * Licensed under the MIT License. See License.txt in the project root for license information.
+ */
+
+package com.microsoft.azure.toolkit.lib.appservice.model;
+
+import lombok.Data;
+import org.apache.commons.lang3.StringUtils;
+
+import java.util.List;
+
+/**
+ * response of functions host admin api {@code admin/host/status}
+ */
+@Data
+public class FunctionHostStatus {
+    public static final String RUNNING = "Running";
+    public static final String ERROR = "Error";
+    public static final String OFFLINE = "Offline";
+
+    private String id;
+    private String state;
+    private String version;
+    private List<String> errors;
+
+    public boolean isRunning() {
+        return StringUtils.equalsIgnoreCase(state, RUNNING);
+    }
+
+    /**
+     * @return whether the host is in a state which it doesn't recover from without changes of the app, e.g. invalid configurations.
+     */
+    public boolean isTerminated() {
+        return StringUtils.equalsAnyIgnoreCase(state, ERROR, OFFLINE);
+    }
+}
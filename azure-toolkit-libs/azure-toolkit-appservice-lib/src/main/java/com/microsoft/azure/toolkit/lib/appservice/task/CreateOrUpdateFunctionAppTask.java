@@ -29,14 +29,14 @@ import com.microsoft.azure.toolkit.lib.common.bundle.AzureString;
 import com.microsoft.azure.toolkit.lib.common.exception.AzureToolkitRuntimeException;
 import com.microsoft.azure.toolkit.lib.common.messager.AzureMessager;
 import com.microsoft.azure.toolkit.lib.common.task.AzureTask;
+import com.microsoft.azure.toolkit.lib.common.task.AzureTaskGraph;
 import com.microsoft.azure.toolkit.lib.resource.ResourceGroup;
 import com.microsoft.azure.toolkit.lib.resource.task.CreateResourceGroupTask;
 import org.apache.commons.lang3.StringUtils;
 import org.apache.commons.lang3.exception.ExceptionUtils;
 
 import javax.annotation.Nonnull;
-import java.util.ArrayList;
-import java.util.List;
+import javax.annotation.Nullable;
 import java.util.Map;
 import java.util.Optional;
 import java.util.function.Consumer;
@@ -61,7 +61,7 @@ public class CreateOrUpdateFunctionAppTask extends AzureTask<FunctionAppBase<?,
     public static final JavaVersion DEFAULT_FUNCTION_JAVA_VERSION = JavaVersion.JAVA_8;
 
     private final FunctionAppConfig functionAppConfig;
-    private final List<AzureTask<?>> tasks = new ArrayList<>();
+    private final AzureTaskGraph tasks = new AzureTaskGraph();
 
     private ResourceGroup resourceGroup;
     private AppServicePlan appServicePlan;
@@ -77,37 +77,43 @@ public class CreateOrUpdateFunctionAppTask extends AzureTask<FunctionAppBase<?,
     private void initTasks() {
         final FunctionAppDraft appDraft = Azure.az(AzureFunctions.class).functionApps(functionAppConfig.subscriptionId())
             .updateOrCreate(functionAppConfig.appName(), functionAppConfig.resourceGroup());
-        registerSubTask(getResourceGroupTask(), result -> this.resourceGroup = result);
-        registerSubTask(getServicePlanTask(), result -> this.appServicePlan = result);
+        // service plan and application insights are got/created concurrently after the resource group, and the app after both of them.
+        // if one of them fails, the other one is finished only if it's already started, and the app is not created.
+        final AzureTask<?> resourceGroupTask = registerSubTask(getResourceGroupTask(), result -> this.resourceGroup = result);
+        final AzureTask<?> servicePlanTask = registerSubTask(getServicePlanTask(), result -> this.appServicePlan = result, resourceGroupTask);
+        AzureTask<?> appInsightsTask = null;
         // get/create AI instances only if user didn't specify AI connection string in app settings
         if (!functionAppConfig.disableAppInsights() && !functionAppConfig.appSettings().containsKey(APPINSIGHTS_INSTRUMENTATION_KEY)) {
             if (StringUtils.isNotEmpty(functionAppConfig.appInsightsKey())) {
                 this.instrumentationKey = functionAppConfig.appInsightsKey();
             } else if (StringUtils.isNotEmpty(functionAppConfig.appInsightsInstance()) || !appDraft.exists()) {
                 // create AI instance by default when create new function
-                registerSubTask(getApplicationInsightsTask(),
-                    result -> this.instrumentationKey = Optional.ofNullable(result).map(ApplicationInsight::getInstrumentationKey).orElse(null));
+                appInsightsTask = registerSubTask(getApplicationInsightsTask(),
+                    result -> this.instrumentationKey = Optional.ofNullable(result).map(ApplicationInsight::getInstrumentationKey).orElse(null),
+                    resourceGroupTask);
             }
         }
         if (StringUtils.isEmpty(functionAppConfig.deploymentSlotName())) {
             final AzureTask<FunctionApp> functionTask = appDraft.exists() ? getUpdateFunctionAppTask(appDraft) : getCreateFunctionAppTask(appDraft);
-            registerSubTask(functionTask, result -> this.functionApp = result);
+            registerSubTask(functionTask, result -> this.functionApp = result, resourceGroupTask, servicePlanTask, appInsightsTask);
         } else {
             final FunctionAppDeploymentSlotDraft slotDraft = getFunctionDeploymentSlot(appDraft);
             final AzureTask<FunctionAppDeploymentSlot> slotTask = slotDraft.exists() ?
                 getUpdateFunctionSlotTask(slotDraft) : getCreateFunctionSlotTask(slotDraft);
-            registerSubTask(slotTask, result -> this.functionApp = result);
+            registerSubTask(slotTask, result -> this.functionApp = result, resourceGroupTask, servicePlanTask, appInsightsTask);
         }
     }
 
-    private <T> void registerSubTask(AzureTask<T> task, Consumer<T> consumer) {
+    @Nullable
+    private <T> AzureTask<T> registerSubTask(@Nullable AzureTask<T> task, Consumer<T> consumer, AzureTask<?>... dependencies) {
         if (task != null) {
-            tasks.add(new AzureTask<>(() -> {
+            return tasks.add(new AzureTask<>(() -> {
                 T result = task.getBody().call();
                 consumer.accept(result);
                 return result;
-            }));
+            }), dependencies);
         }
+        return null;
     }
 
     private AzureTask<FunctionApp> getCreateFunctionAppTask(final FunctionAppDraft draft) {
@@ -260,9 +266,7 @@ public class CreateOrUpdateFunctionAppTask extends AzureTask<FunctionAppBase<?,
 
     @Override
     public FunctionAppBase<?, ?, ?> doExecute() throws Exception {
-        for (AzureTask<?> task : this.tasks) {
-            task.getBody().call();
-        }
+        this.tasks.execute();
         return functionApp;
     }
 }
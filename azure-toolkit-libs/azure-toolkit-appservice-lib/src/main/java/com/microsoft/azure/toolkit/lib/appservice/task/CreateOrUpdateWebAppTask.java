@@ -30,15 +30,14 @@ import com.microsoft.azure.toolkit.lib.common.operation.AzureOperation;
 import com.microsoft.azure.toolkit.lib.common.operation.AzureOperation.Type;
 import com.microsoft.azure.toolkit.lib.common.operation.OperationContext;
 import com.microsoft.azure.toolkit.lib.common.task.AzureTask;
+import com.microsoft.azure.toolkit.lib.common.task.AzureTaskGraph;
 import com.microsoft.azure.toolkit.lib.resource.task.CreateResourceGroupTask;
 import lombok.Setter;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.lang3.ObjectUtils;
 import org.apache.commons.lang3.StringUtils;
 
-import java.util.ArrayList;
 import java.util.HashMap;
-import java.util.List;
 import java.util.Objects;
 
 import static com.microsoft.azure.toolkit.lib.appservice.utils.Utils.throwForbidCreateResourceWarning;
@@ -49,7 +48,8 @@ public class CreateOrUpdateWebAppTask extends AzureTask<WebAppBase<?, ?, ?>> {
     private static final String WEBAPP_NOT_EXIST_FOR_SLOT = "Target Web App does not exist. Please make sure the Web App name is correct.";
 
     private final AppServiceConfig config;
-    private final List<AzureTask<?>> subTasks;
+    private final AzureTaskGraph subTasks;
+    private WebAppBase<?, ?, ?> result;
 
     @Setter
     private boolean skipCreateAzureResource;
@@ -59,10 +59,13 @@ public class CreateOrUpdateWebAppTask extends AzureTask<WebAppBase<?, ?, ?>> {
         this.subTasks = this.initTasks();
     }
 
-    private List<AzureTask<?>> initTasks() {
-        final List<AzureTask<?>> tasks = new ArrayList<>();
+    private AzureTaskGraph initTasks() {
+        final AzureTaskGraph tasks = new AzureTaskGraph();
         final AzureString title = AzureString.format("Create new web app({0})", this.config.appName());
-        tasks.add(new AzureTask<>(title, this::createOrUpdateResource));
+        tasks.add(new AzureTask<>(title, () -> {
+            this.result = this.createOrUpdateResource();
+            return this.result;
+        }));
         return tasks;
     }
 
@@ -185,14 +188,11 @@ public class CreateOrUpdateWebAppTask extends AzureTask<WebAppBase<?, ?, ?>> {
     @Override
     @AzureOperation(name = "webapp.create_update_app.app", params = {"this.config.appName()"}, type = Type.SERVICE)
     public WebAppBase<?, ?, ?> doExecute() {
-        Object result = null;
-        for (final AzureTask<?> task : subTasks) {
-            try {
-                result = task.getBody().call();
-            } catch (Throwable e) {
-                throw new AzureToolkitRuntimeException(e);
-            }
+        try {
+            this.subTasks.execute();
+        } catch (Throwable e) {
+            throw new AzureToolkitRuntimeException(e);
         }
-        return (WebAppBase<?, ?, ?>) result;
+        return this.result;
     }
 }
@@ -4,22 +4,24 @@
  */
 package com.microsoft.azure.toolkit.lib.appservice.task;
 
+import com.azure.core.exception.HttpResponseException;
 import com.azure.core.management.exception.ManagementException;
+import com.microsoft.azure.toolkit.lib.appservice.deploy.DeployManifestStore;
 import com.microsoft.azure.toolkit.lib.appservice.entity.FunctionEntity;
 import com.microsoft.azure.toolkit.lib.appservice.function.FunctionApp;
 import com.microsoft.azure.toolkit.lib.appservice.function.FunctionAppBase;
 import com.microsoft.azure.toolkit.lib.appservice.model.FunctionDeployType;
+import com.microsoft.azure.toolkit.lib.appservice.model.FunctionHostStatus;
+import com.microsoft.azure.toolkit.lib.appservice.utils.ZipPackager;
 import com.microsoft.azure.toolkit.lib.common.bundle.AzureString;
 import com.microsoft.azure.toolkit.lib.common.exception.AzureToolkitRuntimeException;
 import com.microsoft.azure.toolkit.lib.common.messager.AzureMessager;
 import com.microsoft.azure.toolkit.lib.common.operation.OperationContext;
 import com.microsoft.azure.toolkit.lib.common.task.AzureTask;
+import com.microsoft.azure.toolkit.lib.common.utils.ReadinessProbe;
+import org.apache.commons.codec.digest.DigestUtils;
 import org.apache.commons.collections4.CollectionUtils;
 import org.apache.commons.lang3.StringUtils;
-import org.zeroturnaround.zip.ZipUtil;
-import reactor.core.publisher.Mono;
-import reactor.core.scheduler.Schedulers;
-import reactor.util.retry.Retry;
 
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
@@ -27,22 +29,36 @@ import java.io.File;
 import java.io.IOException;
 import java.nio.file.Files;
 import java.time.Duration;
+import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.function.Predicate;
 import java.util.stream.Collectors;
 
 import static com.microsoft.azure.toolkit.lib.appservice.function.core.AzureFunctionsAnnotationConstants.ANONYMOUS;
+import static com.microsoft.azure.toolkit.lib.legacy.function.Constants.APP_SETTING_WEBSITE_RUN_FROM_PACKAGE;
 
 public class DeployFunctionAppTask extends AzureTask<FunctionAppBase<?, ?, ?>> {
 
-    private static final int SYNC_FUNCTION_MAX_ATTEMPTS = 5;
-    private static final int SYNC_FUNCTION_DELAY = 1;
-    private static final int LIST_TRIGGERS_MAX_RETRY = 5;
-    private static final int LIST_TRIGGERS_RETRY_PERIOD_IN_SECONDS = 10;
+    private static final Duration READINESS_INITIAL_DELAY = Duration.ofSeconds(1);
+    private static final Duration READINESS_MAX_DELAY = Duration.ofSeconds(10);
+    private static final Duration HOST_TIMEOUT = Duration.ofMinutes(2);
+    private static final Duration SYNC_TRIGGERS_TIMEOUT = Duration.ofSeconds(30);
+    private static final Duration LIST_FUNCTIONS_TIMEOUT = Duration.ofMinutes(1);
+    private static final String PHASE_FUNCTION_HOST = "function-host";
+    private static final String PHASE_SYNC_TRIGGERS = "sync-triggers";
+    private static final String PHASE_LIST_FUNCTIONS = "list-functions";
     private static final String RUNNING = "Running";
     private static final String AUTH_LEVEL = "authLevel";
     private static final String HTTP_TRIGGER = "httpTrigger";
     private static final String LOCAL_SETTINGS_FILE = "local.settings.json";
+    private static final String MANIFEST_DEPLOY_TYPE = "<deploy-type>";
+    private static final String SKIP_UNCHANGED_DEPLOYMENT = "Skip deployment as the artifacts are unchanged since last deployment.";
     private static final String DEPLOY_START = "Starting deployment...";
     private static final String DEPLOY_FINISH = "Deployment done, you may access your resource through %s";
     private static final String HTTP_TRIGGER_URLS = "HTTP Trigger Urls:";
@@ -53,9 +69,12 @@ public class DeployFunctionAppTask extends AzureTask<FunctionAppBase<?, ?, ?>> {
         "because they are non-anonymous. To access the non-anonymous triggers, please refer to https://aka.ms/azure-functions-key.";
     private static final String SKIP_DEPLOYMENT_FOR_DOCKER_APP_SERVICE = "Skip deployment for docker app service";
     private static final String FAILED_TO_LIST_TRIGGERS = "Deployment succeeded, but failed to list http trigger urls.";
+    private static final String WAIT_FOR_HOST = "Waiting for function host to start...";
+    private static final String HOST_NOT_RUNNING = "Function host is %s%s, syncing triggers anyway.";
     private static final String SYNC_TRIGGERS = "Syncing triggers and fetching function information";
     private static final String LIST_TRIGGERS = "Querying triggers...";
-    private static final String LIST_TRIGGERS_WITH_RETRY = "Querying triggers (Attempt {0}/{1})...";
+    private static final String LIST_TRIGGERS_WITH_RETRY = "Querying triggers (Attempt {0})...";
+    private static final String FUNCTION_APP_READY = "Function app is ready in %.1fs (%s)";
 
     private final FunctionAppBase<?, ?, ?> target;
     private final File stagingDirectory;
@@ -87,36 +106,69 @@ public class DeployFunctionAppTask extends AzureTask<FunctionAppBase<?, ?, ?>> {
 
     private void deployArtifact() {
         AzureMessager.getMessager().info(DEPLOY_START);
-        // For ftp deploy, we need to upload entire staging directory not the zipped package
-        final File file = deployType == FunctionDeployType.FTP ? stagingDirectory : packageStagingDirectory();
-        final long startTime = System.currentTimeMillis();
-        if (deployType == null) {
-            target.deploy(file);
+        final DeployManifestStore store = DeployManifestStore.isEnabled() ? new DeployManifestStore(target.getId(), this::getDeployedFingerprint) : null;
+        final Map<String, String> hashes = Objects.isNull(store) ? null :
+            DeployManifestStore.hash(stagingDirectory, path -> !StringUtils.equals(path, LOCAL_SETTINGS_FILE));
+        Optional.ofNullable(hashes).ifPresent(h -> h.put(MANIFEST_DEPLOY_TYPE, String.valueOf(deployType)));
+        final Map<String, String> deployed = Objects.isNull(store) ? Collections.emptyMap() : store.begin();
+        if (Objects.nonNull(hashes) && !deployed.isEmpty() && hashes.equals(deployed)) {
+            AzureMessager.getMessager().info(SKIP_UNCHANGED_DEPLOYMENT);
+            OperationContext.action().setTelemetryProperty("deploy-skipped", String.valueOf(true));
         } else {
-            target.deploy(file, deployType);
+            // For ftp deploy, we need to upload entire staging directory not the zipped package
+            final File file = deployType == FunctionDeployType.FTP ? stagingDirectory : packageStagingDirectory();
+            final long startTime = System.currentTimeMillis();
+            if (deployType == null) {
+                target.deploy(file);
+            } else {
+                target.deploy(file, deployType);
+            }
+            OperationContext.action().setTelemetryProperty("deploy-cost", String.valueOf(System.currentTimeMillis() - startTime));
+        }
+        if (Objects.nonNull(store) && Objects.nonNull(hashes)) {
+            store.complete(hashes);
         }
-        OperationContext.action().setTelemetryProperty("deploy-cost", String.valueOf(System.currentTimeMillis() - startTime));
         if (!StringUtils.equalsIgnoreCase(target.getStatus(), RUNNING)) {
             target.start();
         }
         AzureMessager.getMessager().info(String.format(DEPLOY_FINISH, target.getHostName()));
     }
 
+    /**
+     * run-from-blob deployments only change the package url in app settings, others are recorded as kudu deployments.
+     */
+    @Nullable
+    private String getDeployedFingerprint() {
+        final String packageUrl = Optional.ofNullable(target.getAppSettings()).map(s -> s.get(APP_SETTING_WEBSITE_RUN_FROM_PACKAGE)).orElse(null);
+        if (StringUtils.startsWithIgnoreCase(packageUrl, "http")) {
+            // the url contains sas token
+            return DigestUtils.sha256Hex(packageUrl);
+        }
+        return target.getLatestDeploymentId();
+    }
+
     private File packageStagingDirectory() {
         try {
             final File zipFile = Files.createTempFile("azure-functions", ".zip").toFile();
-            ZipUtil.pack(stagingDirectory, zipFile);
-            ZipUtil.removeEntry(zipFile, LOCAL_SETTINGS_FILE);
-            return zipFile;
+            // deterministic, so that unchanged staging folders are packed into identical packages
+            return ZipPackager.builder().source(stagingDirectory).exclude(LOCAL_SETTINGS_FILE).deterministic(true).build().packTo(zipFile);
         } catch (IOException e) {
             throw new AzureToolkitRuntimeException("Failed to package function to deploy", e);
         }
     }
 
     private void listHTTPTriggerUrls(FunctionApp target) {
+        // phases have their own deadlines, so that a host which never gets running doesn't use up the time of syncing triggers.
+        final Map<String, Duration> timings = new LinkedHashMap<>();
         try {
-            syncTriggers(target);
-            final List<FunctionEntity> triggers = listFunctions(target);
+            waitForFunctionHost(target, timings);
+            syncTriggers(target, timings);
+            final List<FunctionEntity> triggers = listFunctions(target, timings);
+            if (CollectionUtils.isEmpty(triggers)) {
+                AzureMessager.getMessager().warning(NO_TRIGGERS_FOUNDED);
+                return;
+            }
+            reportReadiness(timings);
             final List<FunctionEntity> httpFunction = triggers.stream()
                 .filter(function -> function.getTrigger() != null &&
                     StringUtils.equalsIgnoreCase(function.getTrigger().getType(), HTTP_TRIGGER))
@@ -134,38 +186,93 @@ public class DeployFunctionAppTask extends AzureTask<FunctionAppBase<?, ?, ?>> {
             if (anonymousTriggers.size() < httpFunction.size()) {
                 AzureMessager.getMessager().info(UNABLE_TO_LIST_NONE_ANONYMOUS_HTTP_TRIGGERS);
             }
-        } catch (final RuntimeException | InterruptedException e) {
+        } catch (final RuntimeException e) {
             // show warning instead of exception for list triggers
             AzureMessager.getMessager().warning(FAILED_TO_LIST_TRIGGERS);
+        } finally {
+            timings.forEach((phase, cost) -> OperationContext.action().setTelemetryProperty(phase + "-cost", String.valueOf(cost.toMillis())));
+        }
+    }
+
+    /**
+     * triggers can only be synced after the host is started, skip if host status is not available (e.g. forbidden). stops waiting if the
+     * host is in a terminal state (e.g. {@code Error}) or not running in time, triggers are synced anyway.
+     */
+    private void waitForFunctionHost(final FunctionApp functionApp, final Map<String, Duration> timings) {
+        AzureMessager.getMessager().info(WAIT_FOR_HOST);
+        try {
+            final Optional<FunctionHostStatus> status = await(PHASE_FUNCTION_HOST, HOST_TIMEOUT, timings, () -> {
+                try {
+                    return Optional.ofNullable(functionApp.getHostStatus());
+                } catch (final HttpResponseException e) {
+                    final int code = e.getResponse().getStatusCode();
+                    if (code >= 400 && code < 500 && code != 408 && code != 429) {
+                        return Optional.<FunctionHostStatus>empty();
+                    }
+                    throw e;
+                }
+            }, s -> s.map(h -> h.isRunning() || h.isTerminated()).orElse(true));
+            status.filter(FunctionHostStatus::isTerminated).ifPresent(h -> AzureMessager.getMessager().warning(String.format(HOST_NOT_RUNNING,
+                "in state " + h.getState(), CollectionUtils.isEmpty(h.getErrors()) ? "" : " (" + String.join("; ", h.getErrors()) + ")")));
+        } catch (final AzureToolkitRuntimeException e) {
+            if (e.getCause() instanceof CancellationException) {
+                throw e;
+            }
+            AzureMessager.getMessager().warning(String.format(HOST_NOT_RUNNING, "not running after " + HOST_TIMEOUT.getSeconds() + "s", ""));
         }
     }
 
     // todo: move to app service library
     // Refers https://github.com/Azure/azure-functions-core-tools/blob/3.0.3568/src/Azure.Functions.Cli/Actions/AzureActions/PublishFunctionAppAction.cs#L452
-    private void syncTriggers(final FunctionApp functionApp) throws InterruptedException {
+    private void syncTriggers(final FunctionApp functionApp, final Map<String, Duration> timings) {
         AzureMessager.getMessager().info(SYNC_TRIGGERS);
-        Thread.sleep(5 * 1000);
-        Mono.fromRunnable(() -> {
-                try {
-                    functionApp.syncTriggers();
-                } catch (ManagementException e) {
-                    if (e.getResponse().getStatusCode() != 200) { // Java SDK throw exception with 200 response, swallow exception in this case
-                        throw e;
-                    }
+        await(PHASE_SYNC_TRIGGERS, SYNC_TRIGGERS_TIMEOUT, timings, () -> {
+            try {
+                functionApp.syncTriggers();
+            } catch (ManagementException e) {
+                if (e.getResponse().getStatusCode() != 200) { // Java SDK throw exception with 200 response, swallow exception in this case
+                    throw e;
                 }
-            }).subscribeOn(Schedulers.boundedElastic())
-            .retryWhen(Retry.fixedDelay(SYNC_FUNCTION_MAX_ATTEMPTS - 1, Duration.ofSeconds(SYNC_FUNCTION_DELAY))).block();
+            }
+            return Boolean.TRUE;
+        }, r -> true);
     }
 
-    private List<FunctionEntity> listFunctions(final FunctionApp functionApp) {
+    /**
+     * @return functions of the app, empty if none is listed in time.
+     */
+    private List<FunctionEntity> listFunctions(final FunctionApp functionApp, final Map<String, Duration> timings) {
         final int[] count = {0};
-        return Mono.fromCallable(() -> {
-                final AzureString message = count[0]++ == 0 ? AzureString.fromString(LIST_TRIGGERS) : AzureString.format(LIST_TRIGGERS_WITH_RETRY, count[0], LIST_TRIGGERS_MAX_RETRY);
+        try {
+            return await(PHASE_LIST_FUNCTIONS, LIST_FUNCTIONS_TIMEOUT, timings, () -> {
+                final AzureString message = count[0]++ == 0 ? AzureString.fromString(LIST_TRIGGERS) : AzureString.format(LIST_TRIGGERS_WITH_RETRY, count[0]);
                 AzureMessager.getMessager().info(message);
-                return Optional.of(functionApp.listFunctions())
-                    .filter(CollectionUtils::isNotEmpty)
-                    .orElseThrow(() -> new AzureToolkitRuntimeException(NO_TRIGGERS_FOUNDED));
-            }).subscribeOn(Schedulers.boundedElastic())
-            .retryWhen(Retry.fixedDelay(LIST_TRIGGERS_MAX_RETRY - 1, Duration.ofSeconds(LIST_TRIGGERS_RETRY_PERIOD_IN_SECONDS))).block();
+                return functionApp.listFunctions();
+            }, CollectionUtils::isNotEmpty);
+        } catch (final AzureToolkitRuntimeException e) {
+            if (e.getCause() != null) {
+                throw e;
+            }
+            return Collections.emptyList();
+        }
+    }
+
+    private static <T> T await(final String phase, final Duration timeout, final Map<String, Duration> timings,
+                               final Callable<T> signal, final Predicate<? super T> ready) {
+        final ReadinessProbe probe = ReadinessProbe.builder()
+            .initialDelay(READINESS_INITIAL_DELAY).maxDelay(READINESS_MAX_DELAY).deadline(timeout).build();
+        try {
+            return probe.await(phase, signal, ready);
+        } finally {
+            timings.putAll(probe.getPhaseTimings());
+        }
+    }
+
+    private void reportReadiness(final Map<String, Duration> timings) {
+        final Duration total = timings.values().stream().reduce(Duration.ZERO, Duration::plus);
+        final String phases = timings.entrySet().stream()
+            .map(e -> String.format("%s: %.1fs", e.getKey(), e.getValue().toMillis() / 1000.0))
+            .collect(Collectors.joining(", "));
+        AzureMessager.getMessager().info(String.format(FUNCTION_APP_READY, total.toMillis() / 1000.0, phases));
     }
 }
@@ -5,18 +5,27 @@
 
 package com.microsoft.azure.toolkit.lib.appservice.task;
 
+import com.microsoft.azure.toolkit.lib.appservice.deploy.DeployManifestStore;
+import com.microsoft.azure.toolkit.lib.appservice.deploy.OneDeployScheduler;
+import com.microsoft.azure.toolkit.lib.appservice.model.DeployType;
 import com.microsoft.azure.toolkit.lib.appservice.model.WebAppArtifact;
 import com.microsoft.azure.toolkit.lib.appservice.webapp.WebAppBase;
 import com.microsoft.azure.toolkit.lib.common.bundle.AzureString;
 import com.microsoft.azure.toolkit.lib.common.exception.AzureToolkitRuntimeException;
 import com.microsoft.azure.toolkit.lib.common.messager.AzureMessager;
+import com.microsoft.azure.toolkit.lib.common.model.AzResource;
 import com.microsoft.azure.toolkit.lib.common.operation.AzureOperation;
 import com.microsoft.azure.toolkit.lib.common.operation.OperationContext;
 import com.microsoft.azure.toolkit.lib.common.task.AzureTask;
+import com.microsoft.azure.toolkit.lib.common.utils.ReadinessProbe;
 import org.apache.commons.lang3.StringUtils;
 
+import java.time.Duration;
+import java.util.Arrays;
 import java.util.List;
-import java.util.concurrent.TimeUnit;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
 import java.util.stream.Collectors;
 
 public class DeployWebAppTask extends AzureTask<WebAppBase<?, ?, ?>> {
@@ -27,8 +36,12 @@ public class DeployWebAppTask extends AzureTask<WebAppBase<?, ?, ?>> {
     private static final String STOP_APP = "Stopping Web App before deploying artifacts...";
     private static final String START_APP = "Starting Web App after deploying artifacts...";
     private static final String STOP_APP_DONE = "Successfully stopped Web App.";
+    private static final String STOP_APP_TIMED_OUT = "Web App is not reported as stopped in %ds, deploying anyway.";
     private static final String START_APP_DONE = "Successfully started Web App.";
     private static final String RUNNING = "Running";
+    private static final Duration STOP_APP_TIMEOUT = Duration.ofSeconds(30);
+    private static final String SKIP_UNCHANGED_ARTIFACTS = "Skip deploying %d artifacts unchanged since last deployment.";
+    private static final List<DeployType> CLEAN_DEPLOY_TYPES = Arrays.asList(DeployType.WAR, DeployType.JAR, DeployType.EAR, DeployType.ZIP);
     private final WebAppBase<?, ?, ?> webApp;
     private final List<WebAppArtifact> artifacts;
     private final boolean isStopAppDuringDeployment;
@@ -71,20 +84,68 @@ public class DeployWebAppTask extends AzureTask<WebAppBase<?, ?, ?>> {
         final List<WebAppArtifact> artifactsOneDeploy = this.artifacts.stream()
             .filter(artifact -> artifact.getDeployType() != null)
             .collect(Collectors.toList());
-        artifactsOneDeploy.forEach(resource -> webApp.deploy(resource.getDeployType(), resource.getFile(), resource.getPath()));
+        if (DeployManifestStore.isEnabled()) {
+            deployChangedArtifacts(artifactsOneDeploy, new DeployManifestStore(webApp.getId(), webApp::getLatestDeploymentId));
+        } else {
+            deploy(artifactsOneDeploy);
+        }
         OperationContext.action().setTelemetryProperty("deploy-cost", String.valueOf(System.currentTimeMillis() - startTime));
     }
 
+    /**
+     * artifacts of types deployed with clean (e.g. war/jar/zip) may remove other artifacts, so all artifacts are deployed if any of
+     * them changed, the same if any artifact is added or removed.
+     */
+    private void deployChangedArtifacts(final List<WebAppArtifact> artifacts, final DeployManifestStore store) {
+        final Map<String, String> hashes = new TreeMap<>();
+        artifacts.forEach(artifact -> hashes.put(getManifestKey(artifact), DeployManifestStore.hash(artifact.getFile())));
+        final Map<String, String> deployed = store.begin();
+        final List<WebAppArtifact> changed = artifacts.stream()
+            .filter(artifact -> Objects.isNull(hashes.get(getManifestKey(artifact))) ||
+                !StringUtils.equals(hashes.get(getManifestKey(artifact)), deployed.get(getManifestKey(artifact))))
+            .collect(Collectors.toList());
+        final boolean full = !deployed.keySet().equals(hashes.keySet()) ||
+            changed.stream().anyMatch(artifact -> CLEAN_DEPLOY_TYPES.contains(artifact.getDeployType()));
+        final List<WebAppArtifact> deploying = full ? artifacts : changed;
+        if (deploying.size() < artifacts.size()) {
+            AzureMessager.getMessager().info(String.format(SKIP_UNCHANGED_ARTIFACTS, artifacts.size() - deploying.size()));
+        }
+        deploy(deploying);
+        OperationContext.action().setTelemetryProperty("skipped-artifacts", String.valueOf(artifacts.size() - deploying.size()));
+        if (!hashes.containsValue(null)) {
+            store.complete(hashes);
+        }
+    }
+
+    private void deploy(final List<WebAppArtifact> artifacts) {
+        final List<OneDeployScheduler.Result> results = OneDeployScheduler.builder().build().deploy(webApp, artifacts);
+        final long bytes = results.stream().mapToLong(OneDeployScheduler.Result::getBytes).sum();
+        final long slowest = results.stream().mapToLong(result -> result.getElapsed().toMillis()).max().orElse(0);
+        OperationContext.action().setTelemetryProperty("deploy-bytes", String.valueOf(bytes));
+        OperationContext.action().setTelemetryProperty("deploy-slowest-artifact-cost", String.valueOf(slowest));
+    }
+
+    private static String getManifestKey(final WebAppArtifact artifact) {
+        return String.format("%s:%s:%s", artifact.getDeployType().getValue(), StringUtils.defaultString(artifact.getPath()), artifact.getFile().getName());
+    }
+
     private static void stopAppService(WebAppBase<?, ?, ?> target) {
         AzureMessager.getMessager().info(STOP_APP);
         target.stop();
-        // workaround for the resources release problem.
+        // workaround for the resources release problem, wait until the app is reported as stopped instead of a fixed sleep.
         // More details: https://github.com/Microsoft/azure-maven-plugins/issues/191
+        final ReadinessProbe probe = ReadinessProbe.builder().deadline(STOP_APP_TIMEOUT).build();
         try {
-            TimeUnit.SECONDS.sleep(10 /* 10 seconds */);
-        } catch (InterruptedException e) {
-            // swallow exception
+            probe.await("stop-app", () -> {
+                target.refresh();
+                return target.getStatusSync();
+            }, status -> StringUtils.equalsIgnoreCase(status, AzResource.Status.STOPPED));
+        } catch (final AzureToolkitRuntimeException e) {
+            // try deploying anyway as before
+            AzureMessager.getMessager().warning(String.format(STOP_APP_TIMED_OUT, STOP_APP_TIMEOUT.getSeconds()));
         }
+        OperationContext.action().setTelemetryProperty("stop-app-cost", String.valueOf(probe.getPhaseTimings().values().stream()
+            .mapToLong(Duration::toMillis).sum()));
         AzureMessager.getMessager().info(STOP_APP_DONE);
     }
 
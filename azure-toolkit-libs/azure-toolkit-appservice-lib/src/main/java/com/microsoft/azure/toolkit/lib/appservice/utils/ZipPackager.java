@@ -0,0 +1,129 @@
+/*
+ * Copyright (c) Microsoft Corporation. All rights reserved.
+ * Licensed under the MIT License. See License.txt in the project root for license information.
+ */
+package com.microsoft.azure.toolkit.lib.appservice.utils;
+
+import lombok.Builder;
+import lombok.Singular;
+import org.apache.commons.io.IOUtils;
+import org.apache.commons.io.output.CountingOutputStream;
+import org.apache.commons.io.output.CloseShieldOutputStream;
+
+import javax.annotation.Nonnull;
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.Deflater;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * packs a directory into a zip archive in a single pass, entries are excluded while walking the directory instead of
+ * being removed from the archive afterwards, and the archive can be written to any stream (e.g. an upload request body).
+ * <ul>
+ *     <li>entries are always written in lexical order of their relative paths.</li>
+ *     <li>in {@code deterministic} mode all entries get the same fixed timestamp, so packing the same content
+ *     always produces byte-identical archives.</li>
+ * </ul>
+ */
+@Builder
+public class ZipPackager {
+    // earliest time representable in zip (dos) format, resolved in the local zone as ZipEntry does.
+    private static final long FIXED_ENTRY_TIME = LocalDateTime.of(1980, 1, 1, 0, 0).atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    @Nonnull
+    private final File source;
+    /**
+     * relative paths (separated by '/') of files or folders to exclude, e.g. {@code local.settings.json}.
+     */
+    @Singular
+    private final Set<String> excludes;
+    /**
+     * extra filter on relative paths (separated by '/'), entries are packed only if it returns {@code true}.
+     */
+    @Builder.Default
+    private final Predicate<String> filter = path -> true;
+    @Builder.Default
+    private final boolean deterministic = false;
+    @Builder.Default
+    private final int level = Deflater.DEFAULT_COMPRESSION;
+
+    /**
+     * @return the target file.
+     */
+    @Nonnull
+    public File packTo(@Nonnull File target) throws IOException {
+        try (final OutputStream output = Files.newOutputStream(target.toPath())) {
+            writeTo(output);
+        }
+        return target;
+    }
+
+    /**
+     * writes the archive to {@code output}, which is left open.
+     *
+     * @return bytes written.
+     */
+    public long writeTo(@Nonnull OutputStream output) throws IOException {
+        final Path root = source.toPath();
+        final List<Path> paths;
+        try (final Stream<Path> stream = Files.walk(root)) {
+            paths = stream.filter(path -> !path.equals(root) && isIncluded(root.relativize(path)))
+                .sorted((a, b) -> toEntryName(root, a).compareTo(toEntryName(root, b)))
+                .collect(Collectors.toList());
+        }
+        final CountingOutputStream counter = new CountingOutputStream(new BufferedOutputStream(CloseShieldOutputStream.wrap(output), BUFFER_SIZE));
+        try (final ZipOutputStream zip = new ZipOutputStream(counter)) {
+            zip.setLevel(level);
+            final byte[] buffer = new byte[BUFFER_SIZE];
+            for (final Path path : paths) {
+                final boolean directory = Files.isDirectory(path);
+                final ZipEntry entry = new ZipEntry(toEntryName(root, path) + (directory ? "/" : ""));
+                entry.setTime(deterministic ? FIXED_ENTRY_TIME : Files.getLastModifiedTime(path).toMillis());
+                zip.putNextEntry(entry);
+                if (!directory) {
+                    try (final InputStream input = Files.newInputStream(path)) {
+                        IOUtils.copyLarge(input, zip, buffer);
+                    }
+                }
+                zip.closeEntry();
+            }
+        }
+        return counter.getByteCount();
+    }
+
+    /**
+     * a path is excluded if itself or any of its parents is in {@code excludes}.
+     */
+    private boolean isIncluded(@Nonnull Path relative) {
+        for (Path path = relative; path != null; path = path.getParent()) {
+            if (excludes.contains(toEntryName(path))) {
+                return false;
+            }
+        }
+        return filter.test(toEntryName(relative));
+    }
+
+    @Nonnull
+    private static String toEntryName(@Nonnull Path root, @Nonnull Path path) {
+        return toEntryName(root.relativize(path));
+    }
+
+    @Nonnull
+    private static String toEntryName(@Nonnull Path relative) {
+        return relative.toString().replace(File.separatorChar, '/');
+    }
+}
@@ -0,0 +1,392 @@
+/*
+ * Copyright (c) Microsoft Corporation. All rights reserved.
+ * Licensed under the MIT License. See License.txt in the project root for license information.
+ */
+
+package com.microsoft.azure.toolkit.lib.legacy.appservice.handlers.artifact;
+
+import com.microsoft.azure.toolkit.lib.common.exception.AzureExecutionException;
+import com.microsoft.azure.toolkit.lib.common.messager.AzureMessager;
+import com.microsoft.azure.toolkit.lib.common.messager.IAzureMessager;
+import com.microsoft.azure.toolkit.lib.common.operation.OperationThreadContext;
+import com.microsoft.azure.toolkit.lib.common.utils.CacheDirs;
+import com.microsoft.azure.toolkit.lib.common.utils.JsonUtils;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.codec.digest.DigestUtils;
+import org.apache.commons.lang3.StringUtils;
+import org.apache.commons.lang3.math.NumberUtils;
+import org.apache.commons.net.ftp.FTP;
+import org.apache.commons.net.ftp.FTPClient;
+import org.apache.commons.net.ftp.FTPFile;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Queue;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Stream;
+
+/**
+ * uploads a directory (or files) to FTP server over multiple connections, directories are created once up front and
+ * failed files are retried individually with backoff.
+ * <p>
+ * if {@code skipUnchanged} is enabled, files whose content hash matches the local manifest of last upload
+ * (kept in the {@link CacheDirs cache directory}) and whose remote size is unchanged are skipped.
+ */
+@Slf4j
+@Builder
+public class ParallelFTPUploader {
+    public static final int DEFAULT_CONNECTIONS = 4;
+    public static final int DEFAULT_MAX_ATTEMPTS = 3;
+    public static final String CONNECTIONS_PROPERTY = "azure.ftp.connections";
+    public static final String SKIP_UNCHANGED_PROPERTY = "azure.ftp.skipUnchanged";
+    public static final String UPLOAD_START = "Uploading files to FTP server: %s (%d connections)";
+    public static final String UPLOAD_FILE = "[FILE] %s --> %s";
+    public static final String UPLOAD_FILE_RETRY = "Failed to upload file %s, retrying (%d/%d)";
+    public static final String UPLOAD_SUCCESS = "Successfully uploaded %d files (%d unchanged files skipped) to FTP server in %.1fs";
+
+    @Nonnull
+    private final String ftpServer;
+    @Nonnull
+    private final String username;
+    @Nonnull
+    private final String password;
+    @Builder.Default
+    private final int connections = DEFAULT_CONNECTIONS;
+    @Builder.Default
+    private final int maxAttempts = DEFAULT_MAX_ATTEMPTS;
+    @Builder.Default
+    private final Duration retryDelay = Duration.ofSeconds(1);
+    private final boolean skipUnchanged;
+
+    public Result uploadDirectory(@Nonnull File sourceDirectory, @Nonnull String targetDirectory) throws AzureExecutionException {
+        final Path source = sourceDirectory.toPath();
+        final List<String> directories = new ArrayList<>();
+        final Map<String, Path> files = new LinkedHashMap<>();
+        try (final Stream<Path> paths = Files.walk(source)) {
+            paths.filter(p -> !p.equals(source)).forEach(p -> {
+                if (Files.isDirectory(p)) {
+                    directories.add(toRelativePath(source, p));
+                } else {
+                    files.put(toRelativePath(source, p), p);
+                }
+            });
+        } catch (final IOException e) {
+            throw new AzureExecutionException(String.format("Failed to list files in directory: %s", sourceDirectory), e);
+        }
+        return upload(files, directories, targetDirectory);
+    }
+
+    /**
+     * uploads {@code files} (by their names) into {@code targetDirectory}, a later file overwrites an earlier one of the same name.
+     */
+    public Result uploadFiles(@Nonnull List<File> files, @Nonnull String targetDirectory) throws AzureExecutionException {
+        final Map<String, Path> entries = new LinkedHashMap<>();
+        files.forEach(file -> entries.put(file.getName(), file.toPath()));
+        return upload(entries, Collections.emptyList(), targetDirectory);
+    }
+
+    /**
+     * @param files local files keyed by their paths relative to {@code targetDirectory}
+     */
+    private Result upload(@Nonnull Map<String, Path> files, @Nonnull List<String> directories, @Nonnull String targetDirectory)
+        throws AzureExecutionException {
+        final long start = System.nanoTime();
+        final IAzureMessager messager = AzureMessager.getMessager();
+        final String target = StringUtils.removeEnd(targetDirectory, "/");
+        messager.info(String.format(UPLOAD_START, this.ftpServer, this.connections));
+        final Path manifestFile = this.skipUnchanged ? getManifestFile(target) : null;
+        final Map<String, String> lastHashes = Objects.isNull(manifestFile) ? Collections.emptyMap() : loadManifest(manifestFile);
+        final Map<String, Long> remoteSizes;
+        FTPClient control = null;
+        try {
+            control = connect();
+            createDirectories(control, target, directories);
+            remoteSizes = this.skipUnchanged ? listRemoteFileSizes(control, target, directories) : Collections.emptyMap();
+        } catch (final IOException e) {
+            throw new AzureExecutionException(String.format("Failed to prepare directories on FTP server: %s", target), e);
+        } finally {
+            disconnect(control);
+        }
+
+        final Uploading uploading = new Uploading(target, files, new ConcurrentLinkedQueue<>(files.keySet()), lastHashes, remoteSizes);
+        final ExecutorService executor = Executors.newFixedThreadPool(Math.max(1, this.connections));
+        try {
+            final List<Future<?>> workers = new ArrayList<>();
+            for (int i = 0; i < Math.max(1, this.connections); i++) {
+                // derived on the calling thread, so that workers report progress and errors to its operation and messager.
+                final OperationThreadContext context = OperationThreadContext.current().derive();
+                workers.add(executor.submit(() -> context.run(() -> this.uploadFiles(uploading))));
+            }
+            for (final Future<?> worker : workers) {
+                worker.get();
+            }
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            uploading.error.compareAndSet(null, e);
+        } catch (final Exception e) {
+            uploading.error.compareAndSet(null, e);
+        } finally {
+            executor.shutdownNow();
+        }
+        if (Objects.nonNull(uploading.error.get())) {
+            // remote state is unknown after a failed upload, so nothing can be skipped next time.
+            if (Objects.nonNull(manifestFile)) {
+                deleteManifest(manifestFile);
+            }
+            final Exception error = uploading.error.get();
+            throw new AzureExecutionException(error instanceof InterruptedException ?
+                "Interrupted while uploading files to FTP server" : "Failed to upload files to FTP server", error);
+        }
+        if (Objects.nonNull(manifestFile)) {
+            saveManifest(manifestFile, target, uploading.hashes);
+        }
+        final Result result = new Result(uploading.uploaded.get(), uploading.skipped.get(), uploading.bytes.get(),
+            Duration.ofNanos(System.nanoTime() - start));
+        messager.success(String.format(UPLOAD_SUCCESS, result.uploaded, result.skipped, result.elapsed.toMillis() / 1000.0));
+        return result;
+    }
+
+    private void uploadFiles(@Nonnull Uploading uploading) {
+        FTPClient client = null;
+        try {
+            String file;
+            while (Objects.isNull(uploading.error.get()) && (file = uploading.files.poll()) != null) {
+                final Path local = uploading.locals.get(file);
+                final String hash = this.skipUnchanged ? hash(local) : null;
+                if (Objects.nonNull(hash) && StringUtils.equals(hash, uploading.lastHashes.get(file)) &&
+                    Objects.equals(uploading.remoteSizes.get(file), Files.size(local))) {
+                    log.debug("skip unchanged file: {}", file);
+                    uploading.hashes.put(file, hash);
+                    uploading.skipped.incrementAndGet();
+                    continue;
+                }
+                client = uploadFileWithRetries(client, local, uploading.target + "/" + file);
+                if (Objects.nonNull(hash)) {
+                    uploading.hashes.put(file, hash);
+                }
+                uploading.uploaded.incrementAndGet();
+                uploading.bytes.addAndGet(Files.size(local));
+            }
+        } catch (final IOException | RuntimeException e) {
+            uploading.error.compareAndSet(null, e);
+        } finally {
+            disconnect(client);
+        }
+    }
+
+    /**
+     * @return the client (may be reconnected) to upload following files.
+     */
+    @Nonnull
+    private FTPClient uploadFileWithRetries(@Nullable FTPClient client, @Nonnull Path file, @Nonnull String remotePath) throws IOException {
+        AzureMessager.getMessager().info(String.format(UPLOAD_FILE, file, remotePath));
+        for (int attempt = 1; ; attempt++) {
+            try {
+                client = Objects.isNull(client) || !client.isConnected() ? connect() : client;
+                uploadFile(client, file, remotePath);
+                return client;
+            } catch (final IOException e) {
+                // connection may be broken, reconnect in next attempt
+                disconnect(client);
+                client = null;
+                if (attempt >= this.maxAttempts) {
+                    throw e;
+                }
+                log.debug(e.getMessage(), e);
+                AzureMessager.getMessager().warning(String.format(UPLOAD_FILE_RETRY, file, attempt, this.maxAttempts));
+                sleep(this.retryDelay.multipliedBy(1L << (attempt - 1)));
+            }
+        }
+    }
+
+    protected void uploadFile(@Nonnull FTPClient client, @Nonnull Path file, @Nonnull String remotePath) throws IOException {
+        try (final InputStream is = Files.newInputStream(file)) {
+            if (!client.storeFile(remotePath, is)) {
+                throw new IOException(String.format("Failed to upload file %s: %s", file, StringUtils.trim(client.getReplyString())));
+            }
+        }
+    }
+
+    private static void createDirectories(@Nonnull FTPClient client, @Nonnull String target, @Nonnull List<String> directories) throws IOException {
+        final List<String> paths = new ArrayList<>();
+        // parents of target directory first
+        for (Path path = Paths.get(target); Objects.nonNull(path) && !client.changeWorkingDirectory(toFtpPath(path)); path = path.getParent()) {
+            paths.add(0, toFtpPath(path));
+        }
+        directories.forEach(dir -> paths.add(target + "/" + dir));
+        for (final String path : paths) {
+            if (!client.makeDirectory(path) && !client.changeWorkingDirectory(path)) {
+                throw new IOException(String.format("Failed to create directory %s: %s", path, StringUtils.trim(client.getReplyString())));
+            }
+        }
+    }
+
+    @Nonnull
+    private static Map<String, Long> listRemoteFileSizes(@Nonnull FTPClient client, @Nonnull String target, @Nonnull List<String> directories)
+        throws IOException {
+        final Map<String, Long> result = new ConcurrentHashMap<>();
+        final boolean mlsd = client.hasFeature("MLSD");
+        final List<String> relativeDirs = new ArrayList<>(directories);
+        relativeDirs.add(0, "");
+        for (final String dir : relativeDirs) {
+            final String remote = StringUtils.isEmpty(dir) ? target : target + "/" + dir;
+            final FTPFile[] files = mlsd ? client.mlistDir(remote) : client.listFiles(remote);
+            for (final FTPFile file : files) {
+                if (Objects.nonNull(file) && file.isFile()) {
+                    result.put(StringUtils.isEmpty(dir) ? file.getName() : dir + "/" + file.getName(), file.getSize());
+                }
+            }
+        }
+        return result;
+    }
+
+    @Nonnull
+    protected FTPClient connect() throws IOException {
+        final FTPClient client = new FTPClient();
+        final String host = StringUtils.substringBeforeLast(this.ftpServer, ":");
+        final String port = StringUtils.substringAfterLast(this.ftpServer, ":");
+        if (NumberUtils.isDigits(port)) {
+            client.connect(host, Integer.parseInt(port));
+        } else {
+            client.connect(this.ftpServer);
+        }
+        if (!client.login(this.username, this.password)) {
+            disconnect(client);
+            throw new IOException(String.format("Failed to login FTP server %s", this.ftpServer));
+        }
+        client.setFileType(FTP.BINARY_FILE_TYPE);
+        client.enterLocalPassiveMode();
+        return client;
+    }
+
+    private static void disconnect(@Nullable FTPClient client) {
+        if (Objects.nonNull(client) && client.isConnected()) {
+            try {
+                client.logout();
+                client.disconnect();
+            } catch (final IOException e) {
+                log.debug("failed to disconnect from FTP server", e);
+            }
+        }
+    }
+
+    private static void sleep(@Nonnull Duration delay) throws IOException {
+        try {
+            Thread.sleep((long) (delay.toMillis() * ThreadLocalRandom.current().nextDouble(0.8, 1.2)));
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while uploading files to FTP server", e);
+        }
+    }
+
+    @Nonnull
+    private static String hash(@Nonnull Path file) throws IOException {
+        try (final InputStream is = Files.newInputStream(file)) {
+            return DigestUtils.sha256Hex(is);
+        }
+    }
+
+    @Nonnull
+    private static String toRelativePath(@Nonnull Path root, @Nonnull Path path) {
+        return root.relativize(path).toString().replace(File.separatorChar, '/');
+    }
+
+    @Nonnull
+    private static String toFtpPath(@Nonnull Path path) {
+        return path.toString().replace(File.separatorChar, '/');
+    }
+
+    @Nonnull
+    private Path getManifestFile(@Nonnull String target) {
+        final String key = String.format("ftp://%s@%s%s", this.username, this.ftpServer, target).toLowerCase();
+        return CacheDirs.resolve("ftp", DigestUtils.sha256Hex(key) + ".json");
+    }
+
+    @Nonnull
+    private static Map<String, String> loadManifest(@Nonnull Path file) {
+        try {
+            if (Files.isRegularFile(file)) {
+                final Manifest manifest = JsonUtils.fromJson(new String(Files.readAllBytes(file), StandardCharsets.UTF_8), Manifest.class);
+                return Objects.isNull(manifest) || Objects.isNull(manifest.files) ? Collections.emptyMap() : manifest.files;
+            }
+        } catch (final IOException | RuntimeException e) {
+            log.debug("failed to load FTP upload manifest {}", file, e);
+        }
+        return Collections.emptyMap();
+    }
+
+    private static void saveManifest(@Nonnull Path file, @Nonnull String target, @Nonnull Map<String, String> hashes) {
+        try {
+            CacheDirs.writeAtomically(file, JsonUtils.toJson(new Manifest(target, new TreeMap<>(hashes))).getBytes(StandardCharsets.UTF_8));
+        } catch (final IOException | RuntimeException e) {
+            log.debug("failed to save FTP upload manifest {}", file, e);
+        }
+    }
+
+    private static void deleteManifest(@Nonnull Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (final IOException e) {
+            log.debug("failed to delete FTP upload manifest {}", file, e);
+        }
+    }
+
+    @RequiredArgsConstructor
+    private static class Uploading {
+        private final String target;
+        private final Map<String, Path> locals;
+        private final Queue<String> files;
+        private final Map<String, String> lastHashes;
+        private final Map<String, Long> remoteSizes;
+        private final Map<String, String> hashes = new ConcurrentHashMap<>();
+        private final AtomicInteger uploaded = new AtomicInteger();
+        private final AtomicInteger skipped = new AtomicInteger();
+        private final AtomicLong bytes = new AtomicLong();
+        private final AtomicReference<Exception> error = new AtomicReference<>();
+    }
+
+    @Getter
+    @NoArgsConstructor
+    @AllArgsConstructor
+    private static class Manifest {
+        private String target;
+        private Map<String, String> files;
+    }
+
+    @Getter
+    @RequiredArgsConstructor
+    public static class Result {
+        private final int uploaded;
+        private final int skipped;
+        private final long bytes;
+        private final Duration elapsed;
+    }
+}
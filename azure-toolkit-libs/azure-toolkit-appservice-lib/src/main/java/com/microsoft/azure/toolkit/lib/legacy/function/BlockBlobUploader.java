@@ -0,0 +1,233 @@
+/*
+ * Copyright (c) Microsoft Corporation. All rights reserved.
+ * Licensed under the MIT License. See License.txt in the project root for license information.
+ */
+
+package com.microsoft.azure.toolkit.lib.legacy.function;
+
+import com.microsoft.azure.storage.RetryNoRetry;
+import com.microsoft.azure.storage.StorageException;
+import com.microsoft.azure.storage.blob.BlobRequestOptions;
+import com.microsoft.azure.storage.blob.BlockEntry;
+import com.microsoft.azure.storage.blob.BlockListingFilter;
+import com.microsoft.azure.storage.blob.BlockSearchMode;
+import com.microsoft.azure.storage.blob.CloudBlockBlob;
+import com.microsoft.azure.toolkit.lib.common.exception.AzureExecutionException;
+import com.microsoft.azure.toolkit.lib.common.messager.AzureMessager;
+import lombok.Builder;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.codec.binary.Base64;
+import org.apache.commons.codec.digest.DigestUtils;
+import org.apache.commons.lang3.StringUtils;
+import org.apache.commons.lang3.math.NumberUtils;
+
+import javax.annotation.Nonnull;
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.net.HttpURLConnection;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * uploads a file as block blob in blocks of {@code blockSize} over {@code parallelism} concurrent requests.
+ * <ul>
+ *     <li>the upload is skipped if the remote blob has the same length and content MD5 as the file.</li>
+ *     <li>block ids are derived from the file content, so blocks left uncommitted by an interrupted upload of
+ *     the same file are reused instead of uploaded again.</li>
+ *     <li>each block is retried individually with backoff.</li>
+ * </ul>
+ * defaults can be overridden by system properties {@code azure.storage.blockSize} (in bytes) and {@code azure.storage.parallelism}.
+ */
+@Slf4j
+@Builder
+public class BlockBlobUploader {
+    public static final int DEFAULT_BLOCK_SIZE = 8 * 1024 * 1024;
+    public static final int MAX_BLOCK_SIZE = 100 * 1024 * 1024;
+    public static final int DEFAULT_PARALLELISM = 4;
+    public static final int DEFAULT_MAX_ATTEMPTS = 3;
+    private static final String BLOB_UNCHANGED = "Skip uploading %s as the blob is up to date.";
+    private static final String BLOB_RESUMED = "Resuming upload of %s, %d/%d blocks are already uploaded.";
+    private static final String FAIL_TO_UPLOAD_BLOCK = "Fail to upload block %d of %s";
+
+    @Builder.Default
+    private final int blockSize = NumberUtils.toInt(System.getProperty("azure.storage.blockSize"), DEFAULT_BLOCK_SIZE);
+    @Builder.Default
+    private final int parallelism = NumberUtils.toInt(System.getProperty("azure.storage.parallelism"), DEFAULT_PARALLELISM);
+    @Builder.Default
+    private final int maxAttempts = DEFAULT_MAX_ATTEMPTS;
+    @Builder.Default
+    private final Duration retryDelay = Duration.ofSeconds(1);
+
+    /**
+     * @return {@code false} if the upload is skipped since the blob is up to date.
+     */
+    public boolean upload(@Nonnull File file, @Nonnull CloudBlockBlob blob) throws AzureExecutionException {
+        final int size = Math.min(Math.max(this.blockSize, 1), MAX_BLOCK_SIZE);
+        final long length = file.length();
+        try {
+            final String md5 = md5(file);
+            if (isUpToDate(blob, length, md5)) {
+                AzureMessager.getMessager().info(String.format(BLOB_UNCHANGED, file.getName()));
+                return false;
+            }
+            final int count = (int) ((length + size - 1) / size);
+            final String prefix = DigestUtils.md5Hex(String.format("%s:%d", md5, size)).substring(0, 16);
+            final List<String> blockIds = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                blockIds.add(Base64.encodeBase64String(String.format("%s-%08d", prefix, i).getBytes(StandardCharsets.UTF_8)));
+            }
+            final Map<String, Long> uploaded = listUncommittedBlocks(blob);
+            final List<Integer> pending = new ArrayList<>();
+            for (int i = 0; i < count; i++) {
+                if (!Objects.equals(uploaded.get(blockIds.get(i)), blockLength(length, size, i))) {
+                    pending.add(i);
+                }
+            }
+            if (pending.size() < count) {
+                AzureMessager.getMessager().info(String.format(BLOB_RESUMED, file.getName(), count - pending.size(), count));
+            }
+            uploadBlocks(file, blob, blockIds, pending, size);
+            blob.getProperties().setContentMD5(md5);
+            blob.commitBlockList(blockIds.stream().map(id -> new BlockEntry(id, BlockSearchMode.LATEST)).collect(Collectors.toList()));
+            return true;
+        } catch (final IOException | StorageException e) {
+            throw new AzureExecutionException(String.format("Fail to upload %s", file.getName()), e);
+        }
+    }
+
+    private void uploadBlocks(@Nonnull File file, @Nonnull CloudBlockBlob blob, @Nonnull List<String> blockIds,
+                              @Nonnull List<Integer> pending, int size) throws AzureExecutionException {
+        if (pending.isEmpty()) {
+            return;
+        }
+        final ExecutorService executor = Executors.newFixedThreadPool(Math.max(1, Math.min(this.parallelism, pending.size())));
+        try {
+            final List<Future<?>> futures = pending.stream()
+                .map(i -> executor.submit(() -> {
+                    this.uploadBlockWithRetries(file, blob, blockIds.get(i), i, size);
+                    return null;
+                })).collect(Collectors.toList());
+            for (final Future<?> future : futures) {
+                future.get();
+            }
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new AzureExecutionException("Interrupted while uploading blocks", e);
+        } catch (final ExecutionException e) {
+            throw new AzureExecutionException(e.getCause().getMessage(), e.getCause());
+        } finally {
+            shutdown(executor);
+        }
+    }
+
+    /**
+     * make sure no block is still in flight when this uploader returns, or it may race with a retried upload.
+     */
+    private static void shutdown(@Nonnull ExecutorService executor) {
+        executor.shutdownNow();
+        try {
+            if (!executor.awaitTermination(1, TimeUnit.MINUTES)) {
+                log.debug("block upload threads are not terminated in time");
+            }
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void uploadBlockWithRetries(@Nonnull File file, @Nonnull CloudBlockBlob blob, @Nonnull String blockId, int index, int size)
+        throws AzureExecutionException, InterruptedException {
+        final byte[] content = readBlock(file, index, size);
+        for (int attempt = 1; ; attempt++) {
+            try (final InputStream stream = new ByteArrayInputStream(content)) {
+                blob.uploadBlock(blockId, stream, content.length, null, blockOptions(), null);
+                return;
+            } catch (final IOException | StorageException e) {
+                if (attempt >= this.maxAttempts || !isRetryable(e)) {
+                    throw new AzureExecutionException(String.format(FAIL_TO_UPLOAD_BLOCK, index, file.getName()), e);
+                }
+                log.debug("failed to upload block {} of {}, retrying({}/{})", index, file.getName(), attempt, this.maxAttempts, e);
+                final long delay = this.retryDelay.toMillis() << (attempt - 1);
+                Thread.sleep((long) (delay * ThreadLocalRandom.current().nextDouble(0.8, 1.2)));
+            }
+        }
+    }
+
+    private static boolean isUpToDate(@Nonnull CloudBlockBlob blob, long length, @Nonnull String md5) throws StorageException {
+        if (!blob.exists()) {
+            return false;
+        }
+        blob.downloadAttributes();
+        return blob.getProperties().getLength() == length && StringUtils.equals(blob.getProperties().getContentMD5(), md5);
+    }
+
+    @Nonnull
+    private static Map<String, Long> listUncommittedBlocks(@Nonnull CloudBlockBlob blob) throws StorageException {
+        try {
+            return blob.downloadBlockList(BlockListingFilter.UNCOMMITTED, null, null, null).stream()
+                .collect(Collectors.toMap(BlockEntry::getId, BlockEntry::getSize, (a, b) -> b));
+        } catch (final StorageException e) {
+            if (e.getHttpStatusCode() == HttpURLConnection.HTTP_NOT_FOUND) {
+                return new HashMap<>();
+            }
+            throw e;
+        }
+    }
+
+    private static boolean isRetryable(@Nonnull Exception e) {
+        if (e instanceof StorageException) {
+            final int status = ((StorageException) e).getHttpStatusCode();
+            return status < 400 || status == 408 || status == 429 || status >= 500;
+        }
+        return true;
+    }
+
+    private static long blockLength(long length, int size, int index) {
+        return Math.min(size, length - (long) index * size);
+    }
+
+    @Nonnull
+    private static byte[] readBlock(@Nonnull File file, int index, int size) throws AzureExecutionException {
+        try (final RandomAccessFile raf = new RandomAccessFile(file, "r")) {
+            final byte[] content = new byte[(int) blockLength(raf.length(), size, index)];
+            raf.seek((long) index * size);
+            raf.readFully(content);
+            return content;
+        } catch (final IOException e) {
+            throw new AzureExecutionException(String.format("Fail to read block %d of %s", index, file.getName()), e);
+        }
+    }
+
+    @Nonnull
+    private static String md5(@Nonnull File file) throws IOException {
+        try (final InputStream stream = Files.newInputStream(file.toPath())) {
+            return Base64.encodeBase64String(DigestUtils.md5(stream));
+        }
+    }
+
+    /**
+     * blocks are retried by this uploader, and their content is verified by transactional MD5.
+     */
+    @Nonnull
+    private static BlobRequestOptions blockOptions() {
+        final BlobRequestOptions options = new BlobRequestOptions();
+        options.setRetryPolicyFactory(new RetryNoRetry());
+        options.setUseTransactionalContentMD5(true);
+        return options;
+    }
+}
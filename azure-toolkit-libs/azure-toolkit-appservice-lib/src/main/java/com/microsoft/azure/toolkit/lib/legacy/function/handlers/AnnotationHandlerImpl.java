@@ -5,17 +5,8 @@
 
 package com.microsoft.azure.toolkit.lib.legacy.function.handlers;
 
-import java.io.IOException;
-import java.io.InputStream;
-import java.net.URISyntaxException;
 import java.net.URL;
 import java.net.URLClassLoader;
-import java.nio.file.FileVisitResult;
-import java.nio.file.Files;
-import java.nio.file.Path;
-import java.nio.file.Paths;
-import java.nio.file.SimpleFileVisitor;
-import java.nio.file.attribute.BasicFileAttributes;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
@@ -31,19 +22,16 @@ import java.util.stream.Collectors;
 import org.apache.commons.lang3.StringUtils;
 import org.jboss.jandex.AnnotationInstance;
 import org.jboss.jandex.AnnotationTarget;
-import org.jboss.jandex.CompositeIndex;
 import org.jboss.jandex.DotName;
-import org.jboss.jandex.IndexReader;
 import org.jboss.jandex.IndexView;
-import org.jboss.jandex.Indexer;
 import org.jboss.jandex.MethodInfo;
 import org.jboss.jandex.Type;
 
 import com.microsoft.azure.toolkit.lib.appservice.function.core.FunctionAnnotation;
 import com.microsoft.azure.toolkit.lib.appservice.function.core.FunctionMethod;
 import com.microsoft.azure.toolkit.lib.appservice.function.impl.DefaultFunctionProject;
+import com.microsoft.azure.toolkit.lib.appservice.function.impl.JandexIndexCache;
 import com.microsoft.azure.toolkit.lib.common.exception.AzureExecutionException;
-import com.microsoft.azure.toolkit.lib.common.exception.AzureToolkitRuntimeException;
 import com.microsoft.azure.toolkit.lib.legacy.function.bindings.Binding;
 import com.microsoft.azure.toolkit.lib.legacy.function.bindings.BindingEnum;
 import com.microsoft.azure.toolkit.lib.legacy.function.bindings.BindingFactory;
@@ -77,40 +65,13 @@ public class AnnotationHandlerImpl implements AnnotationHandler {
     }
 
     public IndexView buildIndex(final List<URL> urls) {
-        try {
-            List<IndexView> indexes = new ArrayList<>();
-            for (URL url : urls) {
-                InputStream persistedIndexStream = getClassLoader(url).getResourceAsStream("/META-INF/jandex.idx");
-                if (persistedIndexStream != null) {
-                    indexes.add(new IndexReader(persistedIndexStream).read());
-                } else {
-                    if (url.getProtocol().equals("file") && url.getFile().endsWith("/")) {
-                        indexes.add(indexLocalFolder(url));
-                    }
-                }
-            }
-            return CompositeIndex.create(indexes);
-        } catch (IOException | URISyntaxException e) {
-            throw new AzureToolkitRuntimeException(e);
-        }
-    }
-
-    private IndexView indexLocalFolder(URL url) throws URISyntaxException, IOException {
-        Indexer indexer = new Indexer();
-        Path p = Paths.get(url.toURI());
-
-        Files.walkFileTree(p, new SimpleFileVisitor<Path>() {
-            @Override public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) throws IOException {
-                if (file.getFileName().toString().endsWith(".class")) {
-                    indexer.index(Files.newInputStream(file));
-                }
-                return FileVisitResult.CONTINUE;
-            }
-        });
-
-        return indexer.complete();
+        return new JandexIndexCache().buildIndex(urls);
     }
 
+    /**
+     * @deprecated indexes are no longer read through class loaders, see {@link JandexIndexCache}.
+     */
+    @Deprecated
     protected ClassLoader getClassLoader(final URL url) {
         return new URLClassLoader(new URL[]{url}, null);
     }
@@ -0,0 +1,146 @@
+/*
+ * Copyright (c) Microsoft Corporation. All rights reserved.
+ * Licensed under the MIT License. See License.txt in the project root for license information.
+ */
+
+package com.microsoft.azure.toolkit.lib.appservice.deploy;
+
+import com.microsoft.azure.toolkit.lib.appservice.file.AppServiceKuduClient;
+import com.microsoft.azure.toolkit.lib.appservice.file.KuduStandIn;
+import com.microsoft.azure.toolkit.lib.common.utils.CacheDirs;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Collections;
+import java.util.Map;
+import java.util.UUID;
+
+public class DeployManifestStoreTest {
+    private static final String APP_ID = "/subscriptions/0000/resourceGroups/rg/providers/Microsoft.Web/sites/app";
+    private static final Map<String, String> HASHES = Collections.singletonMap("jar::app.jar", "0123456789abcdef");
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+    private KuduStandIn kudu;
+    private AppServiceKuduClient client;
+    private String cacheDir;
+    private volatile String latest;
+    private volatile boolean available = true;
+
+    @Before
+    public void setUp() throws Exception {
+        this.kudu = new KuduStandIn().on("/api/deployments/latest", request -> !available ? KuduStandIn.status(503) :
+            latest != null ? KuduStandIn.ok(Collections.singletonMap("id", latest)) : KuduStandIn.status(404));
+        this.client = kudu.getKuduClient();
+        this.cacheDir = System.setProperty(CacheDirs.DIR_PROPERTY, folder.newFolder("cache").getAbsolutePath());
+    }
+
+    @After
+    public void tearDown() {
+        this.kudu.close();
+        if (cacheDir == null) {
+            System.clearProperty(CacheDirs.DIR_PROPERTY);
+        } else {
+            System.setProperty(CacheDirs.DIR_PROPERTY, cacheDir);
+        }
+    }
+
+    @Test
+    public void testRecordAfterCompletion() {
+        latest = "1";
+        Assert.assertTrue(store().begin().isEmpty());
+
+        final DeployManifestStore store = store();
+        Assert.assertTrue(store.begin().isEmpty());
+        latest = "2";
+        store.complete(HASHES);
+        Assert.assertEquals(HASHES, store().begin());
+    }
+
+    @Test
+    public void testInterruptedDeployment() {
+        deploy(HASHES);
+        // begun but never completed, e.g. upload failed
+        store().begin();
+        Assert.assertTrue(store().begin().isEmpty());
+    }
+
+    @Test
+    public void testDeployedByOthers() {
+        deploy(HASHES);
+        Assert.assertEquals(HASHES, store().begin());
+
+        deploy(HASHES);
+        // e.g. deployed from portal or ci
+        latest = "other";
+        Assert.assertTrue(store().begin().isEmpty());
+    }
+
+    @Test
+    public void testOverlappingDeployments() {
+        latest = "1";
+        final DeployManifestStore first = store();
+        final DeployManifestStore second = store();
+        first.begin();
+        second.begin();
+        first.complete(Collections.singletonMap("jar::app.jar", "first"));
+        second.complete(HASHES);
+        Assert.assertEquals(HASHES, store().begin());
+    }
+
+    @Test
+    public void testFingerprintUnavailable() {
+        deploy(HASHES);
+        available = false;
+        Assert.assertTrue(store().begin().isEmpty());
+
+        // no deployment recorded by kudu
+        available = true;
+        latest = null;
+        final DeployManifestStore unknown = store();
+        unknown.begin();
+        unknown.complete(HASHES);
+        Assert.assertTrue(store().begin().isEmpty());
+
+        final DeployManifestStore store = new DeployManifestStore(APP_ID, () -> {
+            throw new IllegalStateException("forbidden");
+        });
+        Assert.assertTrue(store.begin().isEmpty());
+        store.complete(HASHES);
+    }
+
+    @Test
+    public void testHashDirectory() throws IOException {
+        final File dir = folder.newFolder("staging");
+        Files.createDirectories(dir.toPath().resolve("lib"));
+        Files.write(dir.toPath().resolve("host.json"), "{}".getBytes(StandardCharsets.UTF_8));
+        Files.write(dir.toPath().resolve("lib/app.jar"), new byte[]{1, 2, 3});
+        Files.write(dir.toPath().resolve("local.settings.json"), "{}".getBytes(StandardCharsets.UTF_8));
+        final Map<String, String> hashes = DeployManifestStore.hash(dir, path -> !path.equals("local.settings.json"));
+        Assert.assertEquals(2, hashes.size());
+        Assert.assertEquals(DeployManifestStore.hash(dir.toPath().resolve("lib/app.jar").toFile()), hashes.get("lib/app.jar"));
+        Assert.assertNull(DeployManifestStore.hash(new File(dir, "absent")));
+    }
+
+    private DeployManifestStore store() {
+        return new DeployManifestStore(APP_ID, client::getLatestDeploymentId);
+    }
+
+    /**
+     * deploys {@code hashes} as a new kudu deployment.
+     */
+    private void deploy(Map<String, String> hashes) {
+        final DeployManifestStore store = store();
+        store.begin();
+        latest = UUID.randomUUID().toString();
+        store.complete(hashes);
+    }
+}
@@ -0,0 +1,191 @@
+/*
+ * Copyright (c) Microsoft Corporation. All rights reserved.
+ * Licensed under the MIT License. See License.txt in the project root for license information.
+ */
+
+package com.microsoft.azure.toolkit.lib.appservice.deploy;
+
+import com.azure.core.exception.HttpResponseException;
+import com.azure.core.http.HttpResponse;
+import com.microsoft.azure.toolkit.lib.appservice.model.DeployType;
+import com.microsoft.azure.toolkit.lib.appservice.model.WebAppArtifact;
+import com.microsoft.azure.toolkit.lib.common.messager.AzureMessager;
+import com.microsoft.azure.toolkit.lib.common.messager.IAzureMessager;
+import com.microsoft.azure.toolkit.lib.common.operation.AzureOperationAspect;
+import com.microsoft.azure.toolkit.lib.common.operation.Operation;
+import com.microsoft.azure.toolkit.lib.common.operation.OperationContext;
+import com.microsoft.azure.toolkit.lib.common.task.AzureTask;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.mockito.Mockito;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+public class OneDeploySchedulerTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testDeployInDeclaredOrder() throws Exception {
+        final WebAppArtifact statics = artifact("index.html", DeployType.STATIC, "index.html");
+        final WebAppArtifact war = artifact("app.war", DeployType.WAR, null);
+        final WebAppArtifact lib = artifact("lib.jar", DeployType.JAR_LIB, "lib.jar");
+        final WebAppArtifact startup = artifact("startup.sh", DeployType.SCRIPT_STARTUP, null);
+        final Recorder target = new Recorder(null);
+
+        final List<OneDeployScheduler.Result> results = OneDeployScheduler.builder().parallelism(4).build()
+            .deploy(target, Arrays.asList(statics, war, lib, startup));
+        // the war (which may clean the target folder) is not moved ahead of the static file declared before it.
+        Assert.assertEquals(Arrays.asList("index.html", "app.war", "lib.jar", "startup.sh"), target.deployed);
+        Assert.assertEquals(Arrays.asList(false, false, false, true), target.deployed.stream().map(target.restarts::get)
+            .map(r -> r.orElse(null)).collect(Collectors.toList()));
+        Assert.assertEquals(4, results.size());
+        Assert.assertEquals(war.getFile().length(), results.get(1).getBytes());
+    }
+
+    @Test
+    public void testRestartAfterSuppressedStages() throws Exception {
+        final WebAppArtifact war = artifact("app.war", DeployType.WAR, null);
+        final WebAppArtifact statics = artifact("index.html", DeployType.STATIC, "index.html");
+
+        // the war doesn't restart the app, so the static file declared after it has to, whatever the default of its deploy type is.
+        final Recorder concurrent = new Recorder(null);
+        OneDeployScheduler.builder().parallelism(2).build().deploy(concurrent, Arrays.asList(war, statics));
+        Assert.assertEquals(Optional.of(false), concurrent.restarts.get("app.war"));
+        Assert.assertEquals(Optional.of(true), concurrent.restarts.get("index.html"));
+
+        // sequential deployments keep the default restart behavior of each deploy type.
+        final Recorder sequential = new Recorder(null);
+        OneDeployScheduler.builder().parallelism(1).build().deploy(sequential, Arrays.asList(war, statics));
+        Assert.assertEquals(Optional.empty(), sequential.restarts.get("app.war"));
+        Assert.assertEquals(Optional.empty(), sequential.restarts.get("index.html"));
+    }
+
+    @Test
+    public void testPlan() throws Exception {
+        final WebAppArtifact a = artifact("a.jar", DeployType.JAR_LIB, "a.jar");
+        final WebAppArtifact b = artifact("b.txt", DeployType.STATIC, "b.txt");
+        final WebAppArtifact war = artifact("app.war", DeployType.WAR, null);
+        final WebAppArtifact c = artifact("c.jar", DeployType.JAR_LIB, "c.jar");
+        final WebAppArtifact d = artifact("d.txt", DeployType.STATIC, "d.txt");
+        final WebAppArtifact startup = artifact("startup.sh", DeployType.SCRIPT_STARTUP, null);
+        final WebAppArtifact e = artifact("e.txt", DeployType.STATIC, "e.txt");
+        final WebAppArtifact f = artifact("f.txt", DeployType.STATIC, "f.txt");
+
+        Assert.assertEquals(Arrays.asList(Arrays.asList(a, b), Arrays.asList(war), Arrays.asList(c, d), Arrays.asList(startup), Arrays.asList(e),
+            Arrays.asList(f)), OneDeployScheduler.plan(Arrays.asList(a, b, war, c, d, startup, e, f)));
+        Assert.assertEquals(Arrays.asList(Arrays.asList(a), Arrays.asList(war)), OneDeployScheduler.plan(Arrays.asList(a, war)));
+        Assert.assertEquals(Collections.emptyList(), OneDeployScheduler.plan(Collections.emptyList()));
+    }
+
+    @Test
+    public void testContextPropagation() throws Throwable {
+        final IAzureMessager messager = new AzureMessager.DummyMessager();
+        final Map<String, Operation> operations = new ConcurrentHashMap<>();
+        final Map<String, IAzureMessager> messagers = new ConcurrentHashMap<>();
+        final List<WebAppArtifact> artifacts = Arrays.asList(artifact("a.jar", DeployType.JAR_LIB, "a.jar"),
+            artifact("b.txt", DeployType.STATIC, "b.txt"), artifact("c.txt", DeployType.STATIC, "c.txt"));
+        final IOneDeploy target = new Recorder(null) {
+            @Override
+            public void deploy(DeployType deployType, File targetFile, String targetPath, Boolean restartSite) {
+                operations.put(targetFile.getName(), Operation.current());
+                messagers.put(targetFile.getName(), AzureMessager.getMessager());
+            }
+        };
+        final AzureTask<Void> outer = new AzureTask<>("outer", () -> {
+            OperationContext.current().setMessager(messager);
+            OneDeployScheduler.builder().parallelism(2).build().deploy(target, artifacts);
+        });
+        AzureOperationAspect.execute(outer, null);
+        Assert.assertEquals(3, operations.size());
+        operations.values().forEach(operation -> Assert.assertSame(outer, operation));
+        messagers.values().forEach(m -> Assert.assertSame(messager, m));
+    }
+
+    @Test
+    public void testDeployIndependentArtifactsConcurrently() throws Exception {
+        final List<WebAppArtifact> artifacts = Arrays.asList(artifact("a.jar", DeployType.JAR_LIB, "a.jar"),
+            artifact("b.jar", DeployType.JAR_LIB, "b.jar"), artifact("c.txt", DeployType.STATIC, "c.txt"), artifact("d.txt", DeployType.STATIC, "d.txt"));
+        // the first 3 artifacts can only finish if they are deployed concurrently
+        final Recorder target = new Recorder(new CountDownLatch(3));
+
+        OneDeployScheduler.builder().parallelism(3).build().deploy(target, artifacts);
+        Assert.assertEquals(3, target.maxConcurrency.get());
+        Assert.assertEquals("d.txt", target.deployed.get(3));
+        Assert.assertEquals(Optional.of(true), target.restarts.get("d.txt"));
+        Assert.assertEquals(Optional.of(false), target.restarts.get("a.jar"));
+    }
+
+    @Test
+    public void testRetryOnConflict() throws Exception {
+        final WebAppArtifact war = artifact("app.war", DeployType.WAR, null);
+        final HttpResponse response = Mockito.mock(HttpResponse.class);
+        Mockito.when(response.getStatusCode()).thenReturn(409);
+        final IOneDeploy target = Mockito.mock(IOneDeploy.class);
+        Mockito.doThrow(new HttpResponseException("conflict", response)).doNothing().when(target)
+            .deploy(war.getDeployType(), war.getFile(), null, null);
+
+        OneDeployScheduler.builder().conflictRetryDelay(Duration.ofMillis(10)).build().deploy(target, Arrays.asList(war));
+        Mockito.verify(target, Mockito.times(2)).deploy(war.getDeployType(), war.getFile(), null, null);
+
+        Mockito.when(response.getStatusCode()).thenReturn(400);
+        Mockito.doThrow(new HttpResponseException("bad request", response)).when(target).deploy(war.getDeployType(), war.getFile(), null, null);
+        Assert.assertThrows(HttpResponseException.class, () -> OneDeployScheduler.builder().build().deploy(target, Arrays.asList(war)));
+    }
+
+    private WebAppArtifact artifact(String name, DeployType type, String path) throws IOException {
+        final File file = folder.newFile(name);
+        Files.write(file.toPath(), name.getBytes());
+        return WebAppArtifact.builder().file(file).deployType(type).path(path).build();
+    }
+
+    private static class Recorder implements IOneDeploy {
+        private final List<String> deployed = new CopyOnWriteArrayList<>();
+        private final Map<String, Optional<Boolean>> restarts = new ConcurrentHashMap<>();
+        private final AtomicInteger concurrency = new AtomicInteger();
+        private final AtomicInteger maxConcurrency = new AtomicInteger();
+        private final CountDownLatch barrier;
+
+        Recorder(CountDownLatch barrier) {
+            this.barrier = barrier;
+        }
+
+        @Override
+        public void deploy(DeployType deployType, File targetFile, String targetPath) {
+            deploy(deployType, targetFile, targetPath, null);
+        }
+
+        @Override
+        public void deploy(DeployType deployType, File targetFile, String targetPath, Boolean restartSite) {
+            maxConcurrency.accumulateAndGet(concurrency.incrementAndGet(), Math::max);
+            try {
+                if (barrier != null && barrier.getCount() > 0) {
+                    barrier.countDown();
+                    Assert.assertTrue(barrier.await(10, TimeUnit.SECONDS));
+                }
+            } catch (final InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                concurrency.decrementAndGet();
+            }
+            deployed.add(targetFile.getName());
+            restarts.put(targetFile.getName(), Optional.ofNullable(restartSite));
+        }
+    }
+}
@@ -0,0 +1,72 @@
+/*
+ * Copyright (c) Microsoft Corporation. All rights reserved.
+ * Licensed under the MIT License. See License.txt in the project root for license information.
+ */
+
+package com.microsoft.azure.toolkit.lib.appservice.deploy;
+
+import com.microsoft.azure.toolkit.lib.appservice.file.KuduStandIn;
+import com.microsoft.azure.toolkit.lib.common.exception.AzureToolkitRuntimeException;
+import com.microsoft.azure.toolkit.lib.common.utils.ReadinessProbe;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.Map;
+
+public class RunFromZipFunctionDeployHandlerTest {
+    private static final String SETTINGS = "/api/settings";
+    private static final Map<String, String> RUN_FROM_PACKAGE = Collections.singletonMap("WEBSITE_RUN_FROM_PACKAGE", "1");
+
+    private KuduStandIn kudu;
+
+    @Before
+    public void setUp() throws Exception {
+        this.kudu = new KuduStandIn();
+    }
+
+    @After
+    public void tearDown() {
+        this.kudu.close();
+    }
+
+    @Test
+    public void testFastWarmUp() {
+        kudu.on(SETTINGS, request -> KuduStandIn.ok(RUN_FROM_PACKAGE));
+        final ReadinessProbe probe = probe(Duration.ofSeconds(10));
+        RunFromZipFunctionDeployHandler.awaitRunFromPackage(kudu.getKuduClient(), probe);
+        Assert.assertEquals(1, kudu.count(SETTINGS));
+        Assert.assertTrue(probe.getPhaseTimings().containsKey("kudu-app-settings"));
+    }
+
+    @Test
+    public void testSlowWarmUp() {
+        // the scm site restarts (503) and serves the old settings before it picks up the new one
+        kudu.on(SETTINGS, request -> request <= 2 ? KuduStandIn.status(503) : request <= 4 ? KuduStandIn.ok(Collections.emptyMap()) :
+            KuduStandIn.ok(RUN_FROM_PACKAGE));
+        RunFromZipFunctionDeployHandler.awaitRunFromPackage(kudu.getKuduClient(), probe(Duration.ofSeconds(10)));
+        Assert.assertEquals(5, kudu.count(SETTINGS));
+    }
+
+    @Test
+    public void testSettingsNotAccessible() {
+        kudu.on(SETTINGS, request -> KuduStandIn.status(403));
+        RunFromZipFunctionDeployHandler.awaitRunFromPackage(kudu.getKuduClient(), probe(Duration.ofSeconds(10)));
+        Assert.assertEquals(1, kudu.count(SETTINGS));
+    }
+
+    @Test
+    public void testSettingNotPickedUp() {
+        kudu.on(SETTINGS, request -> KuduStandIn.ok(Collections.emptyMap()));
+        Assert.assertThrows(AzureToolkitRuntimeException.class,
+            () -> RunFromZipFunctionDeployHandler.awaitRunFromPackage(kudu.getKuduClient(), probe(Duration.ofMillis(300))));
+        Assert.assertTrue(kudu.count(SETTINGS) > 1);
+    }
+
+    private static ReadinessProbe probe(Duration deadline) {
+        return ReadinessProbe.builder().initialDelay(Duration.ofMillis(10)).maxDelay(Duration.ofMillis(50)).deadline(deadline).build();
+    }
+}
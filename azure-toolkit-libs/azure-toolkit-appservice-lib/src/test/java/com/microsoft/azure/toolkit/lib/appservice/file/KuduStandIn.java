@@ -0,0 +1,110 @@
+/*
+ * Copyright (c) Microsoft Corporation. All rights reserved.
+ * Licensed under the MIT License. See License.txt in the project root for license information.
+ */
+
+package com.microsoft.azure.toolkit.lib.appservice.file;
+
+import com.azure.core.http.HttpPipelineBuilder;
+import com.microsoft.azure.toolkit.lib.appservice.function.FunctionAppBase;
+import com.microsoft.azure.toolkit.lib.common.utils.JsonUtils;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.apache.commons.io.IOUtils;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * in-process stand-in of kudu (and functions host) apis, serving the responses of registered handlers by request path,
+ * e.g. {@code /api/settings}, {@code /admin/host/status}. requests of unregistered paths get 404.
+ */
+public class KuduStandIn implements AutoCloseable {
+    private final HttpServer server;
+    private final Map<String, Handler> handlers = new ConcurrentHashMap<>();
+    private final Map<String, AtomicInteger> requests = new ConcurrentHashMap<>();
+
+    public KuduStandIn() throws IOException {
+        this.server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        this.server.createContext("/", this::handle);
+        this.server.start();
+    }
+
+    /**
+     * @param handler called with the number of requests of {@code path} so far (starting from 1), so that warm-ups can be simulated.
+     */
+    public KuduStandIn on(@Nonnull String path, @Nonnull Handler handler) {
+        this.handlers.put(path, handler);
+        return this;
+    }
+
+    public int count(@Nonnull String path) {
+        return this.requests.getOrDefault(path, new AtomicInteger()).get();
+    }
+
+    @Nonnull
+    public String getEndpoint() {
+        return "http://" + this.server.getAddress().getHostString() + ":" + this.server.getAddress().getPort();
+    }
+
+    @Nonnull
+    public AppServiceKuduClient getKuduClient() {
+        return AppServiceKuduClient.getClient(this.getEndpoint(), new HttpPipelineBuilder().build(), null);
+    }
+
+    @Nonnull
+    public AzureFunctionsFileClient getFunctionsClient(@Nonnull FunctionAppBase<?, ?, ?> app) {
+        return AzureFunctionsFileClient.getClient(this.getEndpoint(), new HttpPipelineBuilder().build(), app);
+    }
+
+    @Override
+    public void close() {
+        this.server.stop(0);
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        IOUtils.toByteArray(exchange.getRequestBody());
+        final String path = exchange.getRequestURI().getPath();
+        final int count = this.requests.computeIfAbsent(path, p -> new AtomicInteger()).incrementAndGet();
+        final Handler handler = this.handlers.get(path);
+        final Response response = handler == null ? status(404) : handler.handle(count);
+        final byte[] bytes = response.body == null ? new byte[0] : JsonUtils.toJson(response.body).getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().add("Content-Type", "application/json");
+        exchange.sendResponseHeaders(response.status, bytes.length == 0 ? -1 : bytes.length);
+        try (OutputStream output = exchange.getResponseBody()) {
+            output.write(bytes);
+        }
+    }
+
+    public static Response ok(@Nonnull Object body) {
+        return new Response(200, body);
+    }
+
+    public static Response status(int status) {
+        return new Response(status, null);
+    }
+
+    @FunctionalInterface
+    public interface Handler {
+        Response handle(int request);
+    }
+
+    public static class Response {
+        private final int status;
+        @Nullable
+        private final Object body;
+
+        Response(int status, @Nullable Object body) {
+            this.status = status;
+            this.body = body;
+        }
+    }
+}
@@ -0,0 +1,69 @@
+/*
+ * Copyright (c) Microsoft Corporation. All rights reserved.
+ * Licensed under the MIT License. See License.txt in the project root for license information.
+ */
+
+package com.microsoft.azure.toolkit.lib.appservice.function.core;
+
+import org.apache.commons.io.FileUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JMH benchmark of packaging synthetic function projects sequentially and in parallel (by {@value AzureFunctionPackagerBase#PARALLELISM_PROPERTY}).
+ * it's not a unit test (and never run by surefire), run it after {@code test-compile} of this module by e.g.
+ * <pre>
+ * mvn -pl azure-toolkit-appservice-lib test-compile exec:exec -Dexec.executable=java -Dexec.classpathScope=test \
+ *     -Dexec.args="-cp %classpath org.openjdk.jmh.Main AzureFunctionPackagerBenchmark"
+ * </pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class AzureFunctionPackagerBenchmark {
+    @Param({"10", "100", "1000"})
+    public int functions;
+
+    @Param({"1", "4"})
+    public int parallelism;
+
+    private File base;
+    private FunctionProject project;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        System.setProperty(AzureFunctionPackagerBase.PARALLELISM_PROPERTY, String.valueOf(this.parallelism));
+        this.base = Files.createTempDirectory("functions-benchmark").toFile();
+        this.project = AzureFunctionPackagerTest.project(this.base, AzureFunctionPackagerTest.functions(this.functions));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        System.clearProperty(AzureFunctionPackagerBase.PARALLELISM_PROPERTY);
+        FileUtils.deleteQuietly(this.base);
+    }
+
+    @Benchmark
+    public void packageProject() {
+        AzureFunctionPackager.getInstance().packageProject(this.project, false, null);
+    }
+}
@@ -0,0 +1,149 @@
+/*
+ * Copyright (c) Microsoft Corporation. All rights reserved.
+ * Licensed under the MIT License. See License.txt in the project root for license information.
+ */
+
+package com.microsoft.azure.toolkit.lib.appservice.function.core;
+
+import com.microsoft.azure.functions.annotation.FunctionName;
+import com.microsoft.azure.functions.annotation.HttpTrigger;
+import com.microsoft.azure.toolkit.lib.common.exception.AzureToolkitRuntimeException;
+import org.jboss.jandex.DotName;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+public class AzureFunctionPackagerTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @After
+    public void tearDown() {
+        System.clearProperty(AzureFunctionPackagerBase.PARALLELISM_PROPERTY);
+    }
+
+    @Test
+    public void testParallelOutputIsIdentical() throws IOException {
+        final Map<String, String> sequential = packageWith(1, 50);
+        final Map<String, String> parallel = packageWith(8, 50);
+        Assert.assertEquals(50, parallel.size());
+        Assert.assertEquals(sequential, parallel);
+    }
+
+    @Test
+    public void testDuplicateFunctionName() throws IOException {
+        System.setProperty(AzureFunctionPackagerBase.PARALLELISM_PROPERTY, "4");
+        final List<FunctionMethod> methods = new ArrayList<>(functions(10));
+        methods.add(function(3));
+        final FunctionProject project = project(folder.newFolder(), methods);
+        Assert.assertThrows(AzureToolkitRuntimeException.class, () -> AzureFunctionPackager.getInstance().generateConfigurationsInner(project, methods));
+    }
+
+    @Test
+    public void testConfigurationsAreSorted() throws IOException {
+        System.setProperty(AzureFunctionPackagerBase.PARALLELISM_PROPERTY, "4");
+        final List<FunctionMethod> methods = functions(20);
+        Collections.shuffle(methods);
+        final FunctionProject project = project(folder.newFolder(), methods);
+        final List<String> names = new ArrayList<>(AzureFunctionPackager.getInstance().generateConfigurationsInner(project, methods).keySet());
+        Assert.assertEquals(IntStream.range(0, 20).mapToObj(AzureFunctionPackagerTest::name).sorted().collect(Collectors.toList()), names);
+    }
+
+    @Test
+    public void testStepCostsAreRecorded() throws IOException {
+        packageWith(4, 10);
+        final Map<String, Long> costs = AzureFunctionPackager.getInstance().getLastStepCosts();
+        Assert.assertEquals(Arrays.asList("search", "generate", "validate", "settings", "save", "copy", "extension"), new ArrayList<>(costs.keySet()));
+        Assert.assertTrue(costs.values().stream().allMatch(cost -> cost >= 0));
+    }
+
+    /**
+     * @return content of generated function.json files by function name.
+     */
+    private Map<String, String> packageWith(int parallelism, int functions) throws IOException {
+        System.setProperty(AzureFunctionPackagerBase.PARALLELISM_PROPERTY, String.valueOf(parallelism));
+        final File base = folder.newFolder();
+        final FunctionProject project = project(base, functions(functions));
+        AzureFunctionPackager.getInstance().packageProject(project, false, null);
+        final Map<String, String> result = new TreeMap<>();
+        try (final Stream<Path> files = Files.walk(project.getStagingFolder().toPath())) {
+            for (final Path file : files.filter(f -> f.getFileName().toString().equals("function.json")).collect(Collectors.toList())) {
+                result.put(file.getParent().getFileName().toString(), new String(Files.readAllBytes(file)));
+            }
+        }
+        return result;
+    }
+
+    static FunctionProject project(File base, List<FunctionMethod> methods) throws IOException {
+        final File artifact = new File(base, "app.jar");
+        Files.write(artifact.toPath(), new byte[]{0});
+        final FunctionProject project = new FunctionProject() {
+            @Override
+            public List<FunctionMethod> findAnnotatedMethods() {
+                return methods;
+            }
+
+            @Override
+            public void installExtension(String funcPath) {
+                throw new UnsupportedOperationException();
+            }
+        };
+        project.setName("app");
+        project.setBaseDirectory(base);
+        project.setStagingFolder(new File(base, "staging"));
+        project.setArtifactFile(artifact);
+        project.setDependencies(Collections.emptyList());
+        return project;
+    }
+
+    static List<FunctionMethod> functions(int count) {
+        return IntStream.range(0, count).mapToObj(AzureFunctionPackagerTest::function).collect(Collectors.toList());
+    }
+
+    private static String name(int index) {
+        return "function-" + index;
+    }
+
+    private static FunctionMethod function(int index) {
+        final Map<String, Object> trigger = new HashMap<>();
+        trigger.put("name", "request");
+        trigger.put("route", "route/" + index);
+        trigger.put("methods", new String[]{"GET", "POST"});
+        final FunctionMethod method = new FunctionMethod();
+        method.setDeclaringTypeName(DotName.createSimple("com.example.Function" + index));
+        method.setName("run");
+        method.setReturnTypeName(DotName.createSimple("java.lang.String"));
+        method.setAnnotations(Collections.singletonList(annotation(FunctionName.class, Collections.singletonMap("value", name(index)))));
+        method.setParameterAnnotations(Arrays.<FunctionAnnotation[]>asList(new FunctionAnnotation[]{annotation(HttpTrigger.class, trigger)}));
+        return method;
+    }
+
+    private static FunctionAnnotation annotation(Class<?> type, Map<String, Object> properties) {
+        final FunctionAnnotationClass annotationClass = new FunctionAnnotationClass();
+        annotationClass.setFullName(DotName.createSimple(type.getName()));
+        annotationClass.setName(type.getSimpleName());
+        annotationClass.setAnnotations(Collections.emptyList());
+        final FunctionAnnotation annotation = new FunctionAnnotation();
+        annotation.setAnnotationClass(annotationClass);
+        annotation.setProperties(properties);
+        annotation.setDefaultProperties(Collections.singletonMap("authLevel", "ANONYMOUS"));
+        return annotation;
+    }
+}
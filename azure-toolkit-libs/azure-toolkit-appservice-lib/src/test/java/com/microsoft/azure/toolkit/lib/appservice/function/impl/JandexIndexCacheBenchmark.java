@@ -0,0 +1,110 @@
+/*
+ * Copyright (c) Microsoft Corporation. All rights reserved.
+ * Licensed under the MIT License. See License.txt in the project root for license information.
+ */
+
+package com.microsoft.azure.toolkit.lib.appservice.function.impl;
+
+import org.apache.commons.io.FileUtils;
+import org.jboss.jandex.IndexReader;
+import org.jboss.jandex.IndexView;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JMH benchmark of reading the jandex indexes of a synthetic class path (half of the jars are indexed), through class loaders (as it
+ * was) and by {@link JandexIndexCache} with cold and warm cache. it's not a unit test (and never run by surefire), run it after
+ * {@code test-compile} of this module by e.g.
+ * <pre>
+ * mvn -pl azure-toolkit-appservice-lib test-compile exec:exec -Dexec.executable=java -Dexec.classpathScope=test \
+ *     -Dexec.args="-cp %classpath org.openjdk.jmh.Main JandexIndexCacheBenchmark"
+ * </pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JandexIndexCacheBenchmark {
+    @Param({"200"})
+    public int jars;
+
+    private Path root;
+    private Path coldCache;
+    private Path warmCache;
+    private final List<URL> urls = new ArrayList<>();
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        this.root = Files.createTempDirectory("jandex-benchmark");
+        final Class<?>[] classes = JandexIndexCacheTest.CLASSES.toArray(new Class<?>[0]);
+        for (int i = 0; i < jars; i++) {
+            final Path jar = root.resolve("dependency-" + i + ".jar");
+            this.urls.add(JandexIndexCacheTest.jar(jar.toFile(), i % 2 == 0, classes).toURI().toURL());
+        }
+        final Path output = Files.createDirectories(root.resolve("classes"));
+        JandexIndexCacheTest.write(output.toFile(), classes);
+        this.urls.add(output.toUri().toURL());
+        this.coldCache = root.resolve("cold");
+        this.warmCache = Files.createDirectories(root.resolve("warm"));
+        new JandexIndexCache(this.warmCache).buildIndex(this.urls);
+    }
+
+    @Setup(Level.Invocation)
+    public void clearColdCache() throws IOException {
+        FileUtils.deleteDirectory(this.coldCache.toFile());
+        Files.createDirectories(this.coldCache);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        FileUtils.deleteQuietly(this.root.toFile());
+    }
+
+    @Benchmark
+    public int classLoaders() throws IOException {
+        int indexes = 0;
+        for (final URL url : this.urls) {
+            try (final URLClassLoader loader = new URLClassLoader(new URL[]{url}, null)) {
+                final InputStream input = loader.getResourceAsStream(JandexIndexCache.INDEX_ENTRY);
+                if (input != null) {
+                    new IndexReader(input).read();
+                    indexes++;
+                }
+            }
+        }
+        return indexes;
+    }
+
+    @Benchmark
+    public IndexView coldCache() {
+        return new JandexIndexCache(this.coldCache).buildIndex(this.urls);
+    }
+
+    @Benchmark
+    public IndexView warmCache() {
+        return new JandexIndexCache(this.warmCache).buildIndex(this.urls);
+    }
+}
@@ -0,0 +1,177 @@
+/*
+ * Copyright (c) Microsoft Corporation. All rights reserved.
+ * Licensed under the MIT License. See License.txt in the project root for license information.
+ */
+
+package com.microsoft.azure.toolkit.lib.appservice.function.impl;
+
+import com.microsoft.azure.functions.annotation.FunctionName;
+import com.microsoft.azure.functions.annotation.HttpTrigger;
+import org.apache.commons.io.IOUtils;
+import org.jboss.jandex.DotName;
+import org.jboss.jandex.Index;
+import org.jboss.jandex.IndexView;
+import org.jboss.jandex.IndexWriter;
+import org.jboss.jandex.Indexer;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URL;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.jar.JarFile;
+import java.util.jar.JarEntry;
+import java.util.jar.JarOutputStream;
+
+public class JandexIndexCacheTest {
+    static final List<Class<?>> CLASSES = Arrays.asList(JandexIndexCacheTest.class, FunctionName.class, HttpTrigger.class, Assert.class, IOUtils.class);
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testJarIndexIsCached() throws IOException {
+        final File cacheDir = folder.newFolder("cache");
+        final File jar = jar(folder.newFile("indexed.jar"), true, FunctionName.class);
+        final Index index = new JandexIndexCache(cacheDir.toPath()).getIndex(jar);
+        Assert.assertNotNull(index.getClassByName(DotName.createSimple(FunctionName.class.getName())));
+        Assert.assertEquals(2, list(cacheDir).size());
+
+        // the cached index is used without opening the jar
+        final Index cached = new JandexIndexCache(cacheDir.toPath()).getIndex(jar);
+        Assert.assertNotNull(cached.getClassByName(DotName.createSimple(FunctionName.class.getName())));
+
+        // changed jar is indexed again
+        jar(jar, true, HttpTrigger.class);
+        final Index changed = new JandexIndexCache(cacheDir.toPath()).getIndex(jar);
+        Assert.assertNull(changed.getClassByName(DotName.createSimple(FunctionName.class.getName())));
+        Assert.assertNotNull(changed.getClassByName(DotName.createSimple(HttpTrigger.class.getName())));
+    }
+
+    @Test
+    public void testJarWithoutIndex() throws IOException {
+        final File cacheDir = folder.newFolder("cache");
+        final File jar = jar(folder.newFile("plain.jar"), false, FunctionName.class);
+        Assert.assertNull(new JandexIndexCache(cacheDir.toPath()).getIndex(jar));
+        Assert.assertTrue(list(cacheDir).stream().anyMatch(name -> name.endsWith(".none")));
+        Assert.assertNull(new JandexIndexCache(cacheDir.toPath()).getIndex(jar));
+        Assert.assertNull(new JandexIndexCache(null).getIndex(jar));
+    }
+
+    @Test
+    public void testDirectoryIndexIsCached() throws IOException {
+        final File cacheDir = folder.newFolder("cache");
+        final File classes = folder.newFolder("classes");
+        write(classes, FunctionName.class);
+        final Index index = new JandexIndexCache(cacheDir.toPath()).getIndex(classes);
+        Assert.assertNotNull(index.getClassByName(DotName.createSimple(FunctionName.class.getName())));
+        Assert.assertEquals(1, list(cacheDir).size());
+
+        write(classes, HttpTrigger.class);
+        final IndexView view = new JandexIndexCache(cacheDir.toPath()).buildIndex(Arrays.asList(classes.toURI().toURL()));
+        Assert.assertNotNull(view.getClassByName(DotName.createSimple(HttpTrigger.class.getName())));
+        Assert.assertEquals(2, list(cacheDir).size());
+    }
+
+    @Test
+    public void testPersistedIndexOfDirectoryIsIgnored() throws IOException {
+        final File classes = folder.newFolder("classes");
+        write(classes, FunctionName.class);
+        // a stale index left by a previous build doesn't hide classes compiled since then
+        final File stale = jar(folder.newFile("stale.jar"), true, Assert.class);
+        try (final JarFile jar = new JarFile(stale)) {
+            Files.createDirectories(classes.toPath().resolve("META-INF"));
+            Files.write(classes.toPath().resolve(JandexIndexCache.INDEX_ENTRY), IOUtils.toByteArray(jar.getInputStream(jar.getEntry(JandexIndexCache.INDEX_ENTRY))));
+        }
+        final Index index = new JandexIndexCache(null).getIndex(classes);
+        Assert.assertNotNull(index.getClassByName(DotName.createSimple(FunctionName.class.getName())));
+        Assert.assertNull(index.getClassByName(DotName.createSimple(Assert.class.getName())));
+    }
+
+    @Test
+    public void testUnusedFilesAreEvicted() throws IOException {
+        final Path cacheDir = folder.newFolder("cache").toPath();
+        final File used = jar(folder.newFile("used.jar"), true, FunctionName.class);
+        final File unused = jar(folder.newFile("unused.jar"), true, HttpTrigger.class);
+        new JandexIndexCache(cacheDir).buildIndex(Arrays.asList(used.toURI().toURL(), unused.toURI().toURL()));
+        Assert.assertEquals(4, list(cacheDir.toFile()).size());
+        final FileTime old = FileTime.fromMillis(System.currentTimeMillis() - Duration.ofDays(2).toMillis());
+        for (final String name : list(cacheDir.toFile())) {
+            Files.setLastModifiedTime(cacheDir.resolve(name), old);
+        }
+        // files of the used jar are touched, and the others are evicted
+        new JandexIndexCache(cacheDir, Duration.ofDays(1)).buildIndex(Arrays.asList(used.toURI().toURL()));
+        Assert.assertEquals(2, list(cacheDir.toFile()).size());
+        Assert.assertNotNull(new JandexIndexCache(cacheDir).getIndex(used).getClassByName(DotName.createSimple(FunctionName.class.getName())));
+    }
+
+    @Test
+    public void testClassPathIndex() throws IOException {
+        final List<URL> urls = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            urls.add(jar(folder.newFile("dependency-" + i + ".jar"), i % 2 == 0, CLASSES.toArray(new Class<?>[0])).toURI().toURL());
+        }
+        final File classes = folder.newFolder("classes");
+        write(classes, CLASSES.toArray(new Class<?>[0]));
+        urls.add(classes.toURI().toURL());
+        final Path cacheDir = folder.newFolder("cache").toPath();
+
+        // only indexed jars and the class folder contribute to the index
+        final IndexView cold = new JandexIndexCache(cacheDir).buildIndex(urls);
+        final IndexView warm = new JandexIndexCache(cacheDir).buildIndex(urls);
+        Assert.assertEquals(3 * CLASSES.size(), cold.getKnownClasses().size());
+        Assert.assertEquals(cold.getKnownClasses().size(), warm.getKnownClasses().size());
+    }
+
+    static File jar(File file, boolean indexed, Class<?>... classes) throws IOException {
+        try (final JarOutputStream output = new JarOutputStream(Files.newOutputStream(file.toPath()))) {
+            final Indexer indexer = new Indexer();
+            for (final Class<?> clazz : classes) {
+                final byte[] bytes = bytes(clazz);
+                output.putNextEntry(new JarEntry(clazz.getName().replace('.', '/') + ".class"));
+                output.write(bytes);
+                indexer.index(new ByteArrayInputStream(bytes));
+            }
+            if (indexed) {
+                final ByteArrayOutputStream index = new ByteArrayOutputStream();
+                new IndexWriter(index).write(indexer.complete());
+                output.putNextEntry(new JarEntry(JandexIndexCache.INDEX_ENTRY));
+                output.write(index.toByteArray());
+            }
+        }
+        return file;
+    }
+
+    static void write(File dir, Class<?>... classes) throws IOException {
+        for (final Class<?> clazz : classes) {
+            final Path path = dir.toPath().resolve(clazz.getName().replace('.', '/') + ".class");
+            Files.createDirectories(path.getParent());
+            try (final OutputStream output = Files.newOutputStream(path)) {
+                output.write(bytes(clazz));
+            }
+        }
+    }
+
+    private static byte[] bytes(Class<?> clazz) throws IOException {
+        try (final InputStream input = clazz.getResourceAsStream(clazz.getSimpleName() + ".class")) {
+            return IOUtils.toByteArray(input);
+        }
+    }
+
+    private static List<String> list(File dir) {
+        return Arrays.asList(dir.list());
+    }
+}
@@ -0,0 +1,152 @@
+/*
+ * Copyright (c) Microsoft Corporation. All rights reserved.
+ * Licensed under the MIT License. See License.txt in the project root for license information.
+ */
+
+package com.microsoft.azure.toolkit.lib.appservice.task;
+
+import com.microsoft.azure.toolkit.lib.appservice.entity.FunctionEntity;
+import com.microsoft.azure.toolkit.lib.appservice.file.AzureFunctionsFileClient;
+import com.microsoft.azure.toolkit.lib.appservice.file.KuduStandIn;
+import com.microsoft.azure.toolkit.lib.appservice.function.FunctionApp;
+import com.microsoft.azure.toolkit.lib.appservice.model.FunctionHostStatus;
+import com.microsoft.azure.toolkit.lib.appservice.model.Runtime;
+import com.microsoft.azure.toolkit.lib.common.messager.IAzureMessage;
+import com.microsoft.azure.toolkit.lib.common.messager.IAzureMessager;
+import com.microsoft.azure.toolkit.lib.common.model.AzResourceModule;
+import com.microsoft.azure.toolkit.lib.common.operation.AzureOperationAspect;
+import com.microsoft.azure.toolkit.lib.common.operation.OperationContext;
+import com.microsoft.azure.toolkit.lib.common.task.AzureTask;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.mockito.Mockito;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class DeployFunctionAppTaskTest {
+    private static final String HOST_STATUS = "/admin/host/status";
+    private static final String TRIGGER_URL = "https://app.azurewebsites.net/api/hello";
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+    private KuduStandIn host;
+    private FunctionApp app;
+    private File staging;
+    private final AtomicInteger syncs = new AtomicInteger();
+    private final AtomicInteger listings = new AtomicInteger();
+    private final List<String> messages = new CopyOnWriteArrayList<>();
+
+    @BeforeClass
+    public static void setUpClass() {
+        // `AzResourceModule.NONE` must be initialized before `AzResource.NONE`, which is its parent.
+        Assert.assertNotNull(AzResourceModule.NONE);
+    }
+
+    @Before
+    public void setUp() throws Exception {
+        this.host = new KuduStandIn();
+        this.staging = folder.newFolder("staging");
+        Files.write(staging.toPath().resolve("host.json"), "{}".getBytes(StandardCharsets.UTF_8));
+        this.app = Mockito.mock(FunctionApp.class);
+        final AzureFunctionsFileClient client = host.getFunctionsClient(app);
+        Mockito.when(app.getName()).thenReturn("app");
+        Mockito.when(app.getRuntime()).thenReturn(Runtime.WINDOWS_JAVA8);
+        Mockito.when(app.getStatus()).thenReturn("Running");
+        Mockito.when(app.getHostName()).thenReturn("app.azurewebsites.net");
+        Mockito.when(app.getHostStatus()).thenAnswer(invocation -> client.getHostStatus());
+        Mockito.doAnswer(invocation -> syncs.incrementAndGet()).when(app).syncTriggers();
+    }
+
+    @After
+    public void tearDown() {
+        this.host.close();
+    }
+
+    @Test
+    public void testFastWarmUp() throws Throwable {
+        host.on(HOST_STATUS, request -> KuduStandIn.ok(hostStatus(FunctionHostStatus.RUNNING)));
+        listFunctionsAfter(1);
+        deploy();
+        Assert.assertEquals(1, host.count(HOST_STATUS));
+        Assert.assertEquals(1, syncs.get());
+        Assert.assertEquals(1, listings.get());
+        assertReady();
+    }
+
+    @Test
+    public void testSlowWarmUp() throws Throwable {
+        // host is restarting after deployment, and functions are indexed after triggers are synced
+        host.on(HOST_STATUS, request -> request <= 1 ? KuduStandIn.status(503) : KuduStandIn.ok(hostStatus(FunctionHostStatus.RUNNING)));
+        listFunctionsAfter(2);
+        deploy();
+        Assert.assertEquals(2, host.count(HOST_STATUS));
+        Assert.assertEquals(1, syncs.get());
+        Assert.assertEquals(2, listings.get());
+        assertReady();
+    }
+
+    @Test
+    public void testHostInErrorState() throws Throwable {
+        host.on(HOST_STATUS, request -> KuduStandIn.ok(hostStatus(FunctionHostStatus.ERROR)));
+        listFunctionsAfter(1);
+        deploy();
+        // stops waiting for a host which never gets running, triggers are synced anyway
+        Assert.assertEquals(1, host.count(HOST_STATUS));
+        Assert.assertEquals(1, syncs.get());
+        Assert.assertTrue(messages.stream().anyMatch(m -> m.startsWith("WARNING") && m.contains("Function host is in state Error")));
+        Assert.assertTrue(messages.stream().anyMatch(m -> m.contains(TRIGGER_URL)));
+    }
+
+    @Test
+    public void testHostStatusNotAccessible() throws Throwable {
+        host.on(HOST_STATUS, request -> KuduStandIn.status(403));
+        listFunctionsAfter(1);
+        deploy();
+        Assert.assertEquals(1, host.count(HOST_STATUS));
+        Assert.assertEquals(1, syncs.get());
+        assertReady();
+    }
+
+    private void listFunctionsAfter(int attempts) {
+        final FunctionEntity function = FunctionEntity.builder().name("hello").triggerUrl(TRIGGER_URL)
+            .bindingList(Collections.singletonList(FunctionEntity.BindingEntity.builder().type("httpTrigger").direction("in")
+                .properties(Collections.singletonMap("authLevel", "ANONYMOUS")).build())).build();
+        Mockito.when(app.listFunctions()).thenAnswer(invocation ->
+            listings.incrementAndGet() < attempts ? Collections.emptyList() : Arrays.asList(function));
+    }
+
+    private void deploy() throws Throwable {
+        final IAzureMessager messager = message -> messages.add(message.getType() + ": " + message.getContent());
+        final AzureTask<Void> task = new AzureTask<>("deploy", () -> {
+            OperationContext.current().setMessager(messager);
+            new DeployFunctionAppTask(app, staging, null).doExecute();
+        });
+        AzureOperationAspect.execute(task, null);
+        Mockito.verify(app).deploy(Mockito.any(File.class));
+    }
+
+    private void assertReady() {
+        Assert.assertTrue(messages.stream().anyMatch(m -> m.contains("Function app is ready in") && m.contains("function-host") &&
+            m.contains("sync-triggers") && m.contains("list-functions")));
+        Assert.assertTrue(messages.stream().anyMatch(m -> m.contains(TRIGGER_URL)));
+        Assert.assertTrue(messages.stream().noneMatch(m -> m.startsWith(IAzureMessage.Type.WARNING.name())));
+    }
+
+    private static FunctionHostStatus hostStatus(String state) {
+        final FunctionHostStatus status = new FunctionHostStatus();
+        status.setState(state);
+        return status;
+    }
+}
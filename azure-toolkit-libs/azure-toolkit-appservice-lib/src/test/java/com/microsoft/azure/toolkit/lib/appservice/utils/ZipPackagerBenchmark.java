@@ -0,0 +1,109 @@
+/*
+ * Copyright (c) Microsoft Corporation. All rights reserved.
+ * Licensed under the MIT License. See License.txt in the project root for license information.
+ */
+package com.microsoft.azure.toolkit.lib.appservice.utils;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.output.NullOutputStream;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.zeroturnaround.zip.ZipUtil;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JMH benchmark of packaging a staging folder without local.settings.json, by packing with zt-zip and then removing the entry from
+ * the package (as it was), by a single pass of {@link ZipPackager} to a file and by piping it to a stream. it's not a unit test (and
+ * never run by surefire), run it after {@code test-compile} of this module by e.g.
+ * <pre>
+ * mvn -pl azure-toolkit-appservice-lib test-compile exec:exec -Dexec.executable=java -Dexec.classpathScope=test \
+ *     -Dexec.args="-cp %classpath org.openjdk.jmh.Main ZipPackagerBenchmark -p megabytes=10,100,500"
+ * </pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class ZipPackagerBenchmark {
+    private static final String LOCAL_SETTINGS_FILE = "local.settings.json";
+
+    /**
+     * size of the staging folder, in jars of 1MB.
+     */
+    @Param({"10", "100"})
+    public int megabytes;
+
+    private Path root;
+    private File source;
+    private File target;
+    private ZipPackager packager;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        this.root = Files.createTempDirectory("zip-benchmark");
+        this.source = createStaging(root.resolve("staging"), megabytes, 1024 * 1024);
+        this.target = root.resolve("package.zip").toFile();
+        this.packager = ZipPackager.builder().source(source).exclude(LOCAL_SETTINGS_FILE).build();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        FileUtils.deleteQuietly(this.root.toFile());
+    }
+
+    @Benchmark
+    public File packAndRemoveEntry() {
+        // the package is written once by pack and once more by removeEntry, which also reads it back
+        ZipUtil.pack(this.source, this.target);
+        ZipUtil.removeEntry(this.target, LOCAL_SETTINGS_FILE);
+        return this.target;
+    }
+
+    @Benchmark
+    public File singlePass() throws IOException {
+        return this.packager.packTo(this.target);
+    }
+
+    @Benchmark
+    public long piped() throws IOException {
+        return this.packager.writeTo(NullOutputStream.NULL_OUTPUT_STREAM);
+    }
+
+    /**
+     * {@code count} jars of {@code size} bytes under lib/, plus host.json, function/function.json and local.settings.json.
+     */
+    private static File createStaging(Path root, int count, int size) throws IOException {
+        final Random random = new Random(count);
+        Files.createDirectories(root.resolve("lib"));
+        Files.createDirectories(root.resolve("function"));
+        Files.write(root.resolve("host.json"), "{\"version\": \"2.0\"}".getBytes(StandardCharsets.UTF_8));
+        Files.write(root.resolve("function/function.json"), "{}".getBytes(StandardCharsets.UTF_8));
+        Files.write(root.resolve(LOCAL_SETTINGS_FILE), "{\"IsEncrypted\": false}".getBytes(StandardCharsets.UTF_8));
+        for (int i = 0; i < count; i++) {
+            final byte[] content = new byte[size];
+            random.nextBytes(content);
+            Files.write(root.resolve("lib/lib-" + i + ".jar"), content);
+        }
+        return root.toFile();
+    }
+}
@@ -0,0 +1,136 @@
+/*
+ * Copyright (c) Microsoft Corporation. All rights reserved.
+ * Licensed under the MIT License. See License.txt in the project root for license information.
+ */
+package com.microsoft.azure.toolkit.lib.appservice.utils;
+
+import org.apache.commons.io.output.CountingOutputStream;
+import org.apache.commons.io.output.NullOutputStream;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.zeroturnaround.zip.ZipUtil;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+public class ZipPackagerTest {
+    private static final String LOCAL_SETTINGS_FILE = "local.settings.json";
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testExcludeWhileWalking() throws Exception {
+        final File source = createStaging(3, 1024);
+        Files.createDirectories(source.toPath().resolve("obj/cache"));
+        Files.write(source.toPath().resolve("obj/cache/file"), new byte[]{1});
+        Files.write(source.toPath().resolve("lib/" + LOCAL_SETTINGS_FILE), new byte[]{1});
+
+        final File zip = ZipPackager.builder().source(source).exclude(LOCAL_SETTINGS_FILE).exclude("obj")
+            .filter(path -> !path.endsWith(".tmp")).build().packTo(folder.newFile("package.zip"));
+        Assert.assertEquals(Arrays.asList("function/", "function/function.json", "host.json", "lib/", "lib/lib-0.jar", "lib/lib-1.jar",
+            "lib/lib-2.jar", "lib/" + LOCAL_SETTINGS_FILE), entries(zip));
+        ZipUtil.unpack(zip, folder.newFolder("unpacked"));
+        Assert.assertArrayEquals(Files.readAllBytes(source.toPath().resolve("lib/lib-1.jar")),
+            Files.readAllBytes(folder.getRoot().toPath().resolve("unpacked/lib/lib-1.jar")));
+    }
+
+    @Test
+    public void testDeterministicPackage() throws Exception {
+        final File source = createStaging(5, 4096);
+        final ZipPackager packager = ZipPackager.builder().source(source).exclude(LOCAL_SETTINGS_FILE).deterministic(true).build();
+        final byte[] first = pack(packager);
+        for (final File file : source.listFiles()) {
+            Files.setLastModifiedTime(file.toPath(), FileTime.fromMillis(System.currentTimeMillis() - 3600_000));
+        }
+        Assert.assertArrayEquals(first, pack(packager));
+
+        Files.write(source.toPath().resolve("host.json"), "{\"version\": \"3.0\"}".getBytes(StandardCharsets.UTF_8));
+        Assert.assertFalse(Arrays.equals(first, pack(packager)));
+    }
+
+    @Test
+    public void testWriteToStreamLeavesItOpen() throws Exception {
+        final File source = createStaging(2, 128);
+        final boolean[] closed = {false};
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        final OutputStream output = new OutputStream() {
+            @Override
+            public void write(int b) {
+                bytes.write(b);
+            }
+
+            @Override
+            public void close() {
+                closed[0] = true;
+            }
+        };
+        final long written = ZipPackager.builder().source(source).build().writeTo(output);
+        Assert.assertFalse(closed[0]);
+        Assert.assertEquals(bytes.size(), written);
+    }
+
+    @Test
+    public void testSameEntriesAsLegacyPackaging() throws Exception {
+        final File source = createStaging(3, 1024);
+        final File legacy = folder.newFile();
+        ZipUtil.pack(source, legacy);
+        ZipUtil.removeEntry(legacy, LOCAL_SETTINGS_FILE);
+
+        final ZipPackager packager = ZipPackager.builder().source(source).exclude(LOCAL_SETTINGS_FILE).build();
+        final File streaming = packager.packTo(folder.newFile());
+        Assert.assertEquals(entries(legacy), entries(streaming));
+        final CountingOutputStream counter = new CountingOutputStream(NullOutputStream.NULL_OUTPUT_STREAM);
+        Assert.assertEquals(streaming.length(), packager.writeTo(counter));
+        Assert.assertEquals(streaming.length(), counter.getByteCount());
+    }
+
+    private static byte[] pack(ZipPackager packager) throws IOException {
+        final ByteArrayOutputStream output = new ByteArrayOutputStream();
+        packager.writeTo(output);
+        return output.toByteArray();
+    }
+
+    private static List<String> entries(File zip) throws IOException {
+        final List<String> result = new ArrayList<>();
+        try (final ZipFile file = new ZipFile(zip)) {
+            file.stream().map(ZipEntry::getName).sorted().forEach(result::add);
+        }
+        return result;
+    }
+
+    /**
+     * {@code count} jars of {@code size} bytes under lib/, plus host.json, function/function.json and local.settings.json.
+     */
+    private File createStaging(int count, int size) throws IOException {
+        final File staging = folder.newFolder();
+        final Path root = staging.toPath();
+        final Random random = new Random(count);
+        Files.createDirectories(root.resolve("lib"));
+        Files.createDirectories(root.resolve("function"));
+        Files.write(root.resolve("host.json"), "{\"version\": \"2.0\"}".getBytes(StandardCharsets.UTF_8));
+        Files.write(root.resolve("function/function.json"), "{}".getBytes(StandardCharsets.UTF_8));
+        Files.write(root.resolve(LOCAL_SETTINGS_FILE), "{\"IsEncrypted\": false}".getBytes(StandardCharsets.UTF_8));
+        Files.write(root.resolve("function/build.tmp"), new byte[]{1});
+        for (int i = 0; i < count; i++) {
+            final byte[] content = new byte[size];
+            random.nextBytes(content);
+            Files.write(root.resolve("lib/lib-" + i + ".jar"), content);
+        }
+        return staging;
+    }
+}
@@ -0,0 +1,126 @@
+/*
+ * Copyright (c) Microsoft Corporation. All rights reserved.
+ * Licensed under the MIT License. See License.txt in the project root for license information.
+ */
+
+package com.microsoft.azure.toolkit.lib.legacy.appservice.handlers.artifact;
+
+import com.microsoft.azure.toolkit.lib.common.utils.CacheDirs;
+import org.apache.commons.io.FileUtils;
+import org.apache.ftpserver.FtpServer;
+import org.apache.ftpserver.FtpServerFactory;
+import org.apache.ftpserver.ftplet.Authority;
+import org.apache.ftpserver.listener.ListenerFactory;
+import org.apache.ftpserver.usermanager.PropertiesUserManagerFactory;
+import org.apache.ftpserver.usermanager.impl.BaseUser;
+import org.apache.ftpserver.usermanager.impl.WritePermission;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JMH benchmark of uploading a folder to an in-process ftp server by 1 and 4 connections, for a few large files and many small ones.
+ * it's not a unit test (and never run by surefire), run it after {@code test-compile} of this module by e.g.
+ * <pre>
+ * mvn -pl azure-toolkit-appservice-lib test-compile exec:exec -Dexec.executable=java -Dexec.classpathScope=test \
+ *     -Dexec.args="-cp %classpath org.openjdk.jmh.Main ParallelFTPUploaderBenchmark"
+ * </pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class ParallelFTPUploaderBenchmark {
+    private static final String TARGET = "/site/wwwroot";
+    private static final String USERNAME = "user";
+    private static final String PASSWORD = "password";
+
+    /**
+     * {@code <file count>x<file size in bytes>}
+     */
+    @Param({"1x4194304", "50x4096", "500x1024"})
+    public String files;
+
+    @Param({"1", "4"})
+    public int connections;
+
+    private Path root;
+    private File source;
+    private FtpServer server;
+    private ParallelFTPUploader uploader;
+    private String cacheDir;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        this.root = Files.createTempDirectory("ftp-benchmark");
+        final String[] parts = this.files.split("x");
+        this.source = createSource(root.resolve("source"), Integer.parseInt(parts[0]), Integer.parseInt(parts[1]));
+        final FtpServerFactory serverFactory = new FtpServerFactory();
+        final ListenerFactory listenerFactory = new ListenerFactory();
+        listenerFactory.setServerAddress("127.0.0.1");
+        listenerFactory.setPort(0);
+        serverFactory.addListener("default", listenerFactory.createListener());
+        final BaseUser user = new BaseUser();
+        user.setName(USERNAME);
+        user.setPassword(PASSWORD);
+        user.setHomeDirectory(Files.createDirectories(root.resolve("home")).toString());
+        user.setAuthorities(Collections.<Authority>singletonList(new WritePermission()));
+        serverFactory.setUserManager(new PropertiesUserManagerFactory().createUserManager());
+        serverFactory.getUserManager().save(user);
+        this.server = serverFactory.createServer();
+        this.server.start();
+        this.cacheDir = System.setProperty(CacheDirs.DIR_PROPERTY, Files.createDirectories(root.resolve("cache")).toString());
+        this.uploader = ParallelFTPUploader.builder().ftpServer("127.0.0.1:" + serverFactory.getListener("default").getPort())
+            .username(USERNAME).password(PASSWORD).connections(this.connections).skipUnchanged(false).build();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        this.server.stop();
+        if (cacheDir == null) {
+            System.clearProperty(CacheDirs.DIR_PROPERTY);
+        } else {
+            System.setProperty(CacheDirs.DIR_PROPERTY, cacheDir);
+        }
+        FileUtils.deleteQuietly(this.root.toFile());
+    }
+
+    @Benchmark
+    public ParallelFTPUploader.Result uploadDirectory() throws Exception {
+        return this.uploader.uploadDirectory(this.source, TARGET);
+    }
+
+    private static File createSource(Path source, int count, int size) throws IOException {
+        final Random random = new Random(count);
+        final Path lib = Files.createDirectories(source.resolve("lib/nested"));
+        Files.write(source.resolve("host.json"), "{\"version\": \"2.0\"}".getBytes(StandardCharsets.UTF_8));
+        Files.write(lib.resolve("function.json"), "{}".getBytes(StandardCharsets.UTF_8));
+        for (int i = 0; i < count; i++) {
+            final byte[] content = new byte[size];
+            random.nextBytes(content);
+            Files.write(lib.getParent().resolve("lib-" + i + ".jar"), content);
+        }
+        return source.toFile();
+    }
+}
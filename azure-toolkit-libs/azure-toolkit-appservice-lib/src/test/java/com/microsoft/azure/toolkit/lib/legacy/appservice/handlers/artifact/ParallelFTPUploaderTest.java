@@ -0,0 +1,208 @@
+/*
+ * Copyright (c) Microsoft Corporation. All rights reserved.
+ * Licensed under the MIT License. See License.txt in the project root for license information.
+ */
+
+package com.microsoft.azure.toolkit.lib.legacy.appservice.handlers.artifact;
+
+import com.microsoft.azure.toolkit.lib.common.exception.AzureExecutionException;
+import com.microsoft.azure.toolkit.lib.common.messager.AzureMessager;
+import com.microsoft.azure.toolkit.lib.common.messager.IAzureMessager;
+import com.microsoft.azure.toolkit.lib.common.operation.AzureOperationAspect;
+import com.microsoft.azure.toolkit.lib.common.operation.OperationContext;
+import com.microsoft.azure.toolkit.lib.common.task.AzureTask;
+import com.microsoft.azure.toolkit.lib.common.utils.CacheDirs;
+import org.apache.commons.net.ftp.FTPClient;
+import org.apache.ftpserver.FtpServer;
+import org.apache.ftpserver.FtpServerFactory;
+import org.apache.ftpserver.ftplet.Authority;
+import org.apache.ftpserver.listener.ListenerFactory;
+import org.apache.ftpserver.usermanager.PropertiesUserManagerFactory;
+import org.apache.ftpserver.usermanager.impl.BaseUser;
+import org.apache.ftpserver.usermanager.impl.WritePermission;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.mockito.ArgumentMatchers;
+import org.mockito.Mockito;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+public class ParallelFTPUploaderTest {
+    private static final String TARGET = "/site/wwwroot";
+    private static final String USERNAME = "user";
+    private static final String PASSWORD = "password";
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+    private FtpServer server;
+    private String address;
+    private File home;
+    private String cacheDir;
+
+    @Before
+    public void setUp() throws Exception {
+        this.home = folder.newFolder("home");
+        final FtpServerFactory serverFactory = new FtpServerFactory();
+        final ListenerFactory listenerFactory = new ListenerFactory();
+        listenerFactory.setServerAddress("127.0.0.1");
+        listenerFactory.setPort(0);
+        serverFactory.addListener("default", listenerFactory.createListener());
+        final BaseUser user = new BaseUser();
+        user.setName(USERNAME);
+        user.setPassword(PASSWORD);
+        user.setHomeDirectory(home.getAbsolutePath());
+        user.setAuthorities(Collections.<Authority>singletonList(new WritePermission()));
+        serverFactory.setUserManager(new PropertiesUserManagerFactory().createUserManager());
+        serverFactory.getUserManager().save(user);
+        this.server = serverFactory.createServer();
+        this.server.start();
+        this.address = "127.0.0.1:" + serverFactory.getListener("default").getPort();
+        this.cacheDir = System.setProperty(CacheDirs.DIR_PROPERTY, folder.newFolder("cache").getAbsolutePath());
+    }
+
+    @After
+    public void tearDown() {
+        this.server.stop();
+        if (cacheDir == null) {
+            System.clearProperty(CacheDirs.DIR_PROPERTY);
+        } else {
+            System.setProperty(CacheDirs.DIR_PROPERTY, cacheDir);
+        }
+    }
+
+    @Test
+    public void testUploadDirectory() throws Exception {
+        final File source = createSource(20, 1024);
+        final ParallelFTPUploader.Result result = uploader(4, false).uploadDirectory(source, TARGET);
+        Assert.assertEquals(22, result.getUploaded());
+        Assert.assertEquals(0, result.getSkipped());
+        assertUploaded(source);
+        Assert.assertTrue(new File(home, "site/wwwroot/empty").isDirectory());
+    }
+
+    @Test
+    public void testSkipUnchangedFiles() throws Exception {
+        final File source = createSource(10, 1024);
+        Assert.assertEquals(12, uploader(4, true).uploadDirectory(source, TARGET).getUploaded());
+        Files.write(new File(source, "host.json").toPath(), "{\"version\": \"3.0\"}".getBytes(StandardCharsets.UTF_8));
+        // remote file changed by others should be uploaded again even if local one is unchanged.
+        Files.write(new File(home, "site/wwwroot/lib/lib-0.jar").toPath(), new byte[]{1});
+
+        final ParallelFTPUploader.Result result = uploader(4, true).uploadDirectory(source, TARGET);
+        Assert.assertEquals(2, result.getUploaded());
+        Assert.assertEquals(10, result.getSkipped());
+        assertUploaded(source);
+    }
+
+    @Test
+    public void testFailedUploadDoesNotSaveManifest() throws Exception {
+        final File source = createSource(3, 16);
+        Assert.assertEquals(5, uploader(1, true).uploadDirectory(source, TARGET).getUploaded());
+        final ParallelFTPUploader failing = Mockito.spy(uploader(1, true));
+        Files.write(new File(source, "host.json").toPath(), "{\"version\": \"3.0\"}".getBytes(StandardCharsets.UTF_8));
+        Mockito.doThrow(new IOException("connection reset")).when(failing)
+            .uploadFile(ArgumentMatchers.any(FTPClient.class), ArgumentMatchers.any(Path.class), ArgumentMatchers.anyString());
+        Assert.assertThrows(AzureExecutionException.class, () -> failing.uploadDirectory(source, TARGET));
+
+        // nothing is known to be on the server after a failed upload, so all files are uploaded again
+        final ParallelFTPUploader.Result result = uploader(1, true).uploadDirectory(source, TARGET);
+        Assert.assertEquals(5, result.getUploaded());
+        Assert.assertEquals(0, result.getSkipped());
+        assertUploaded(source);
+    }
+
+    @Test
+    public void testContextPropagation() throws Throwable {
+        final File source = createSource(6, 16);
+        final IAzureMessager messager = new AzureMessager.DummyMessager();
+        final Map<String, IAzureMessager> messagers = new ConcurrentHashMap<>();
+        final ParallelFTPUploader uploader = Mockito.spy(uploader(3, false));
+        Mockito.doAnswer(invocation -> {
+            messagers.put(invocation.getArgument(1).toString(), AzureMessager.getMessager());
+            return invocation.callRealMethod();
+        }).when(uploader).uploadFile(ArgumentMatchers.any(FTPClient.class), ArgumentMatchers.any(Path.class), ArgumentMatchers.anyString());
+        AzureOperationAspect.execute(new AzureTask<>("upload", () -> {
+            OperationContext.current().setMessager(messager);
+            return uploader.uploadDirectory(source, TARGET);
+        }), null);
+        Assert.assertEquals(8, messagers.size());
+        messagers.values().forEach(m -> Assert.assertSame(messager, m));
+    }
+
+    @Test
+    public void testFailedFileIsRetried() throws Exception {
+        final File source = createSource(3, 16);
+        final ParallelFTPUploader uploader = Mockito.spy(uploader(1, false));
+        Mockito.doThrow(new IOException("connection reset")).doCallRealMethod().when(uploader)
+            .uploadFile(ArgumentMatchers.any(FTPClient.class), ArgumentMatchers.eq(new File(source, "host.json").toPath()), ArgumentMatchers.anyString());
+        Assert.assertEquals(5, uploader.uploadDirectory(source, TARGET).getUploaded());
+        assertUploaded(source);
+        // 1 control connection + 1 worker connection + 1 reconnection after failure
+        Mockito.verify(uploader, Mockito.times(3)).connect();
+    }
+
+    @Test
+    public void testUploadFiles() throws Exception {
+        final File source = createSource(3, 16);
+        final List<File> files = Arrays.asList(new File(source, "host.json"), new File(source, "lib/lib-0.jar"),
+            new File(source, "lib/nested/function.json"));
+        final ParallelFTPUploader.Result result = uploader(2, false).uploadFiles(files, TARGET + "/resources/");
+        Assert.assertEquals(3, result.getUploaded());
+        for (final File file : files) {
+            Assert.assertArrayEquals(Files.readAllBytes(file.toPath()), Files.readAllBytes(new File(home, "site/wwwroot/resources/" + file.getName()).toPath()));
+        }
+    }
+
+    private ParallelFTPUploader uploader(int connections, boolean skipUnchanged) {
+        return ParallelFTPUploader.builder().ftpServer(address).username(USERNAME).password(PASSWORD)
+            .connections(connections).skipUnchanged(skipUnchanged).retryDelay(Duration.ofMillis(10)).build();
+    }
+
+    /**
+     * {@code count} jars under lib/ and nested folders, plus host.json, lib/nested/function.json and an empty folder.
+     */
+    private File createSource(int count, int size) throws IOException {
+        final File source = folder.newFolder();
+        final Random random = new Random(count);
+        final Path lib = Files.createDirectories(source.toPath().resolve("lib/nested"));
+        Files.createDirectories(source.toPath().resolve("empty"));
+        Files.write(source.toPath().resolve("host.json"), "{\"version\": \"2.0\"}".getBytes(StandardCharsets.UTF_8));
+        Files.write(lib.resolve("function.json"), "{}".getBytes(StandardCharsets.UTF_8));
+        for (int i = 0; i < count; i++) {
+            final byte[] content = new byte[size];
+            random.nextBytes(content);
+            Files.write(lib.getParent().resolve("lib-" + i + ".jar"), content);
+        }
+        return source;
+    }
+
+    private void assertUploaded(File source) throws IOException {
+        final Path root = source.toPath();
+        final Path remote = home.toPath().resolve(TARGET.substring(1));
+        final List<Path> files;
+        try (Stream<Path> paths = Files.walk(root)) {
+            files = paths.filter(Files::isRegularFile).collect(Collectors.toList());
+        }
+        for (final Path file : files) {
+            final Path uploaded = remote.resolve(root.relativize(file));
+            Assert.assertArrayEquals(uploaded.toString(), Files.readAllBytes(file), Files.readAllBytes(uploaded));
+        }
+    }
+}
@@ -0,0 +1,252 @@
+/*
+ * Copyright (c) Microsoft Corporation. All rights reserved.
+ * Licensed under the MIT License. See License.txt in the project root for license information.
+ */
+
+package com.microsoft.azure.toolkit.lib.legacy.function;
+
+import com.microsoft.azure.storage.CloudStorageAccount;
+import com.microsoft.azure.storage.blob.BlobContainerPublicAccessType;
+import com.microsoft.azure.storage.blob.CloudBlockBlob;
+import com.microsoft.azure.toolkit.lib.common.exception.AzureExecutionException;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.apache.commons.codec.binary.Base64;
+import org.apache.commons.codec.digest.DigestUtils;
+import org.apache.commons.io.IOUtils;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.time.Duration;
+import java.time.Period;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+public class BlockBlobUploaderTest {
+    // well known key of storage emulator
+    private static final String ACCOUNT_KEY = "Eby8vdM02xNOcqFlqUwJPLlmEtlCDXJ1OUzFT50uSRZ6IFsuFq2UVErCz4I6tq/K1SZFPTOtr/KBHBeksoGMGw==";
+    private static final int BLOCK_SIZE = 64 * 1024;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+    private BlobStandIn storage;
+    private CloudStorageAccount account;
+
+    @Before
+    public void setUp() throws Exception {
+        this.storage = new BlobStandIn();
+        this.account = CloudStorageAccount.parse(String.format("DefaultEndpointsProtocol=http;AccountName=devstoreaccount1;AccountKey=%s;" +
+            "BlobEndpoint=http://127.0.0.1:%d/devstoreaccount1;", ACCOUNT_KEY, storage.server.getAddress().getPort()));
+    }
+
+    @After
+    public void tearDown() {
+        this.storage.server.stop(0);
+    }
+
+    @Test
+    public void testUploadInParallelBlocks() throws Exception {
+        final File file = createFile(BLOCK_SIZE * 5 / 2);
+        final CloudBlockBlob blob = AzureStorageHelper.uploadFileAsBlob(file, account, "packages", "app.zip", BlobContainerPublicAccessType.OFF, uploader(4));
+        Assert.assertEquals(3, storage.putBlocks.get());
+        Assert.assertArrayEquals(Files.readAllBytes(file.toPath()), storage.committed.get("packages/app.zip"));
+        Assert.assertEquals(Base64.encodeBase64String(DigestUtils.md5(Files.readAllBytes(file.toPath()))), storage.md5s.get("packages/app.zip"));
+
+        final String sas = AzureStorageHelper.getSASToken(blob, Period.ofYears(1));
+        Assert.assertTrue(sas.startsWith(blob.getUri().toString() + "?"));
+        Assert.assertTrue(sas.contains("sig="));
+    }
+
+    @Test
+    public void testSkipUploadIfBlobIsUpToDate() throws Exception {
+        final File file = createFile(BLOCK_SIZE * 2);
+        AzureStorageHelper.uploadFileAsBlob(file, account, "packages", "app.zip", BlobContainerPublicAccessType.OFF, uploader(4));
+        storage.putBlocks.set(0);
+        storage.commits.set(0);
+        final CloudBlockBlob blob = account.createCloudBlobClient().getContainerReference("packages").getBlockBlobReference("app.zip");
+        Assert.assertFalse(uploader(4).upload(file, blob));
+        Assert.assertEquals(0, storage.putBlocks.get());
+        Assert.assertEquals(0, storage.commits.get());
+
+        Files.write(file.toPath(), new byte[]{1, 2, 3});
+        Assert.assertTrue(uploader(4).upload(file, blob));
+        Assert.assertArrayEquals(new byte[]{1, 2, 3}, storage.committed.get("packages/app.zip"));
+    }
+
+    @Test
+    public void testFailedBlockIsRetried() throws Exception {
+        final File file = createFile(BLOCK_SIZE * 3);
+        storage.failures.set(1);
+        AzureStorageHelper.uploadFileAsBlob(file, account, "packages", "app.zip", BlobContainerPublicAccessType.OFF, uploader(1));
+        Assert.assertEquals(4, storage.putBlocks.get());
+        Assert.assertArrayEquals(Files.readAllBytes(file.toPath()), storage.committed.get("packages/app.zip"));
+    }
+
+    @Test
+    public void testResumeInterruptedUpload() throws Exception {
+        final File file = createFile(BLOCK_SIZE * 4 + 10);
+        storage.budget.set(2);
+        final BlockBlobUploader noRetry = BlockBlobUploader.builder().blockSize(BLOCK_SIZE).parallelism(1).maxAttempts(1).build();
+        try {
+            AzureStorageHelper.uploadFileAsBlob(file, account, "packages", "app.zip", BlobContainerPublicAccessType.OFF, noRetry);
+            Assert.fail();
+        } catch (final AzureExecutionException e) {
+            Assert.assertNull(storage.committed.get("packages/app.zip"));
+        }
+        storage.budget.set(Integer.MAX_VALUE);
+        storage.putBlocks.set(0);
+        AzureStorageHelper.uploadFileAsBlob(file, account, "packages", "app.zip", BlobContainerPublicAccessType.OFF, uploader(4));
+        Assert.assertEquals(3, storage.putBlocks.get());
+        Assert.assertArrayEquals(Files.readAllBytes(file.toPath()), storage.committed.get("packages/app.zip"));
+    }
+
+    private static BlockBlobUploader uploader(int parallelism) {
+        return BlockBlobUploader.builder().blockSize(BLOCK_SIZE).parallelism(parallelism).retryDelay(Duration.ofMillis(10)).build();
+    }
+
+    private File createFile(int size) throws IOException {
+        final byte[] content = new byte[size];
+        new Random(size).nextBytes(content);
+        final File file = folder.newFile();
+        Files.write(file.toPath(), content);
+        return file;
+    }
+
+    /**
+     * minimal in-memory stand-in of blob service (container creation, blob properties, put block, get/put block list).
+     */
+    private static class BlobStandIn {
+        private static final Pattern LATEST = Pattern.compile("<(Latest|Uncommitted|Committed)>([^<]+)</\\1>");
+        private final HttpServer server;
+        private final Map<String, byte[]> committed = new ConcurrentHashMap<>();
+        private final Map<String, String> md5s = new ConcurrentHashMap<>();
+        private final Map<String, Map<String, byte[]>> uncommitted = new ConcurrentHashMap<>();
+        private final AtomicInteger putBlocks = new AtomicInteger();
+        private final AtomicInteger commits = new AtomicInteger();
+        // number of following put block requests to fail
+        private final AtomicInteger failures = new AtomicInteger();
+        // number of following put block requests to accept, others fail
+        private final AtomicInteger budget = new AtomicInteger(Integer.MAX_VALUE);
+
+        BlobStandIn() throws IOException {
+            this.server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+            this.server.createContext("/", exchange -> {
+                try {
+                    this.handle(exchange);
+                } catch (final RuntimeException e) {
+                    respond(exchange, 500, null);
+                }
+            });
+            this.server.setExecutor(Executors.newCachedThreadPool());
+            this.server.start();
+        }
+
+        private void handle(HttpExchange exchange) throws IOException {
+            final String method = exchange.getRequestMethod();
+            final Map<String, String> query = parseQuery(exchange.getRequestURI().getRawQuery());
+            // path: /{account}/{container}/{blob}
+            final String[] parts = exchange.getRequestURI().getPath().split("/", 3);
+            final String name = parts.length > 2 ? parts[2] : "";
+            final byte[] body = IOUtils.toByteArray(exchange.getRequestBody());
+            if ("container".equals(query.get("restype"))) {
+                respond(exchange, "PUT".equals(method) ? 201 : 200, null);
+            } else if ("HEAD".equals(method)) {
+                final byte[] blob = committed.get(name);
+                if (blob == null) {
+                    respond(exchange, 404, null);
+                    return;
+                }
+                exchange.getResponseHeaders().add("x-ms-blob-type", "BlockBlob");
+                exchange.getResponseHeaders().add("Content-MD5", md5s.get(name));
+                exchange.getResponseHeaders().add("Content-Length", String.valueOf(blob.length));
+                respond(exchange, 200, null);
+            } else if ("PUT".equals(method) && "block".equals(query.get("comp"))) {
+                putBlocks.incrementAndGet();
+                if (budget.getAndDecrement() <= 0 || failures.getAndDecrement() > 0) {
+                    respond(exchange, 500, null);
+                    return;
+                }
+                final String md5 = exchange.getRequestHeaders().getFirst("Content-MD5");
+                if (md5 != null && !md5.equals(Base64.encodeBase64String(DigestUtils.md5(body)))) {
+                    respond(exchange, 400, null);
+                    return;
+                }
+                uncommitted.computeIfAbsent(name, k -> new ConcurrentHashMap<>()).put(query.get("blockid"), body);
+                respond(exchange, 201, null);
+            } else if ("GET".equals(method) && "blocklist".equals(query.get("comp"))) {
+                final Map<String, byte[]> blocks = uncommitted.getOrDefault(name, new HashMap<>());
+                if (blocks.isEmpty() && !committed.containsKey(name)) {
+                    respond(exchange, 404, "<?xml version=\"1.0\" encoding=\"utf-8\"?><Error><Code>BlobNotFound</Code><Message>not found</Message></Error>");
+                    return;
+                }
+                final StringBuilder xml = new StringBuilder("<?xml version=\"1.0\" encoding=\"utf-8\"?><BlockList><CommittedBlocks/><UncommittedBlocks>");
+                blocks.forEach((id, b) -> xml.append(String.format("<Block><Name>%s</Name><Size>%d</Size></Block>", id, b.length)));
+                respond(exchange, 200, xml.append("</UncommittedBlocks></BlockList>").toString());
+            } else if ("PUT".equals(method) && "blocklist".equals(query.get("comp"))) {
+                commits.incrementAndGet();
+                final Map<String, byte[]> blocks = uncommitted.getOrDefault(name, new HashMap<>());
+                final ByteArrayOutputStream content = new ByteArrayOutputStream();
+                final Matcher matcher = LATEST.matcher(new String(body, StandardCharsets.UTF_8));
+                while (matcher.find()) {
+                    content.write(blocks.get(matcher.group(2)));
+                }
+                committed.put(name, content.toByteArray());
+                md5s.put(name, exchange.getRequestHeaders().getFirst("x-ms-blob-content-md5"));
+                uncommitted.remove(name);
+                respond(exchange, 201, null);
+            } else {
+                respond(exchange, 400, null);
+            }
+        }
+
+        private static void respond(HttpExchange exchange, int status, String body) throws IOException {
+            // avoid reusing connections the stand-in has half closed, which the storage sdk only recovers from by slow retries
+            exchange.getResponseHeaders().add("Connection", "close");
+            exchange.getResponseHeaders().add("ETag", "\"0x" + Long.toHexString(System.nanoTime()) + "\"");
+            exchange.getResponseHeaders().add("Last-Modified", DateTimeFormatter.RFC_1123_DATE_TIME.format(ZonedDateTime.now(ZoneOffset.UTC)));
+            exchange.getResponseHeaders().add("x-ms-request-id", String.valueOf(System.nanoTime()));
+            final byte[] bytes = body == null ? new byte[0] : body.getBytes(StandardCharsets.UTF_8);
+            if (body != null) {
+                exchange.getResponseHeaders().add("Content-Type", "application/xml");
+            }
+            exchange.sendResponseHeaders(status, bytes.length == 0 ? -1 : bytes.length);
+            try (OutputStream output = exchange.getResponseBody()) {
+                output.write(bytes);
+            }
+        }
+
+        private static Map<String, String> parseQuery(String query) throws IOException {
+            final Map<String, String> result = new LinkedHashMap<>();
+            if (query != null) {
+                for (final String pair : query.split("&")) {
+                    final String[] kv = pair.split("=", 2);
+                    result.put(URLDecoder.decode(kv[0], "UTF-8"), kv.length > 1 ? URLDecoder.decode(kv[1], "UTF-8") : "");
+                }
+            }
+            return result;
+        }
+    }
+}
@@ -131,7 +131,14 @@ public abstract class Account implements IAccount {
     }
 
     private Mono<TokenCredentialManager> initializeTokenCredentialManager() {
-        return createTokenCredentialManager().doOnSuccess(tokenCredentialManager -> this.credentialManager = tokenCredentialManager);
+        return createTokenCredentialManager().doOnSuccess(tokenCredentialManager -> {
+            final PersistentTokenCache cache = PersistentTokenCache.getDefault();
+            if (Objects.nonNull(cache)) {
+                final String account = StringUtils.firstNonBlank(tokenCredentialManager.getEmail(), this.entity.getEmail());
+                tokenCredentialManager.enablePersistentTokenCache(cache, PersistentTokenCache.getAccountKey(getAuthType(), account, getClientId()));
+            }
+            this.credentialManager = tokenCredentialManager;
+        });
     }
 
     protected abstract Mono<TokenCredentialManager> createTokenCredentialManager();
@@ -0,0 +1,413 @@
+/*
+ * Copyright (c) Microsoft Corporation. All rights reserved.
+ * Licensed under the MIT License. See License.txt in the project root for license information.
+ */
+
+package com.microsoft.azure.toolkit.lib.auth;
+
+import com.azure.core.credential.AccessToken;
+import com.azure.core.credential.TokenCredential;
+import com.microsoft.aad.msal4jextensions.persistence.mac.KeyChainAccessException;
+import com.microsoft.aad.msal4jextensions.persistence.mac.KeyChainAccessor;
+import com.microsoft.azure.toolkit.lib.auth.model.AuthType;
+import com.microsoft.azure.toolkit.lib.common.utils.CacheDirs;
+import com.microsoft.azure.toolkit.lib.common.utils.JsonUtils;
+import com.sun.jna.platform.win32.Crypt32Util;
+import com.sun.jna.platform.win32.Win32Exception;
+import lombok.AllArgsConstructor;
+import lombok.NoArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.BooleanUtils;
+import org.apache.commons.lang3.StringUtils;
+import org.apache.commons.lang3.SystemUtils;
+import reactor.core.publisher.Mono;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.crypto.Cipher;
+import javax.crypto.SecretKey;
+import javax.crypto.SecretKeyFactory;
+import javax.crypto.spec.GCMParameterSpec;
+import javax.crypto.spec.PBEKeySpec;
+import javax.crypto.spec.SecretKeySpec;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.FileAttribute;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.security.GeneralSecurityException;
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * opt-in on-disk cache of access tokens shared by processes (e.g. maven invocations of a pipeline), enabled by system property
+ * {@value #ENABLED_PROPERTY}, tokens are stored in the {@link CacheDirs cache directory}.
+ * <ul>
+ *     <li>tokens are keyed by account type, account, tenant, client and scopes, and are not used within {@link #EXPIRY_MARGIN} of
+ *     their expiry. expired tokens are evicted on every update.</li>
+ *     <li>updates are serialized by a file lock, and the cache file is replaced atomically, so that readers never see partial
+ *     content.</li>
+ *     <li>the cache file is encrypted by AES-GCM with a key derived from a random secret and the current user. unreadable content
+ *     (e.g. corrupted or encrypted with a lost key) is treated as empty and replaced on the next update.</li>
+ * </ul>
+ * the secret is protected by the OS where supported, see {@link SecretStore}:
+ * <ul>
+ *     <li>Windows: it's encrypted by DPAPI for the current user in {@code tokens.key}.</li>
+ *     <li>macOS: it's kept in the login keychain of the current user, tokens are not persisted if the keychain is not accessible
+ *     (e.g. locked in a ssh session).</li>
+ *     <li>others (e.g. Linux, where the secret service is mostly unavailable in headless environments like CI): it's kept in
+ *     {@code tokens.key} which is readable only by the owner if the file system supports posix permissions. so the cache is
+ *     no safer than the file permissions, anyone who can read files of the user (e.g. root, or backups of the home directory)
+ *     can decrypt the tokens. that's similar to the token cache of Azure CLI, keep it disabled where it's not acceptable.</li>
+ * </ul>
+ */
+@Slf4j
+public class PersistentTokenCache {
+    public static final String ENABLED_PROPERTY = "azure.auth.tokenCache.persistent";
+    public static final Duration EXPIRY_MARGIN = Duration.ofMinutes(5);
+    private static final byte[] MAGIC = {'A', 'Z', 'T', 'C', 1};
+    private static final int IV_LENGTH = 12;
+    private static final int SECRET_LENGTH = 32;
+    private static final Map<Path, Object> LOCKS = new ConcurrentHashMap<>();
+    private static PersistentTokenCache defaultCache;
+
+    private final Path file;
+    private final SecretStore secrets;
+    private final SecureRandom random = new SecureRandom();
+    private volatile Key key;
+    private volatile Snapshot snapshot;
+
+    public PersistentTokenCache(@Nonnull Path dir) {
+        this(dir, SecretStore.getDefault(dir.resolve("tokens.key")));
+    }
+
+    PersistentTokenCache(@Nonnull Path dir, @Nonnull SecretStore secrets) {
+        this.file = dir.resolve("tokens.dat");
+        this.secrets = secrets;
+    }
+
+    /**
+     * @return the cache in the default directory, {@code null} if disabled.
+     */
+    @Nullable
+    public static synchronized PersistentTokenCache getDefault() {
+        if (!BooleanUtils.toBoolean(System.getProperty(ENABLED_PROPERTY))) {
+            return null;
+        }
+        if (Objects.isNull(defaultCache)) {
+            defaultCache = new PersistentTokenCache(CacheDirs.resolve("auth"));
+        }
+        return defaultCache;
+    }
+
+    /**
+     * @param account identity of the signed-in account (e.g. email of the user), tokens of different accounts of the same type and
+     *                client are not shared.
+     */
+    @Nonnull
+    public static String getAccountKey(@Nonnull AuthType type, @Nullable String account, @Nullable String clientId) {
+        return String.format("%s|%s|%s", type, StringUtils.lowerCase(StringUtils.defaultString(account)), StringUtils.defaultString(clientId));
+    }
+
+    /**
+     * @return credential getting tokens from this cache first, and caching tokens got from {@code credential}.
+     */
+    @Nonnull
+    public TokenCredential wrap(@Nonnull TokenCredential credential, @Nonnull String accountKey, @Nullable String tenantId) {
+        return request -> Mono.defer(() -> {
+            final String key = String.format("%s|%s|%s", accountKey, StringUtils.defaultString(tenantId), String.join(" ", request.getScopes()));
+            final AccessToken cached = this.get(key);
+            return Objects.nonNull(cached) ? Mono.just(cached) : credential.getToken(request).doOnNext(token -> this.put(key, token));
+        });
+    }
+
+    /**
+     * @return the cached token, {@code null} if absent or about to expire.
+     */
+    @Nullable
+    public AccessToken get(@Nonnull String key) {
+        final Entry entry = this.read(false).get(key);
+        if (Objects.isNull(entry) || !entry.isFresh()) {
+            return null;
+        }
+        return new AccessToken(entry.token, OffsetDateTime.ofInstant(Instant.ofEpochMilli(entry.expiresOn), ZoneOffset.UTC));
+    }
+
+    public void put(@Nonnull String key, @Nonnull AccessToken token) {
+        if (token.getExpiresAt().isEqual(OffsetDateTime.MAX) || StringUtils.isBlank(token.getToken())) {
+            return; // tokens with unknown expiry are not persisted
+        }
+        this.withLock(() -> {
+            final Map<String, Entry> tokens = new HashMap<>(this.read(true));
+            tokens.values().removeIf(e -> !e.isFresh());
+            tokens.put(key, new Entry(token.getToken(), token.getExpiresAt().toInstant().toEpochMilli()));
+            this.write(tokens);
+            return null;
+        });
+    }
+
+    public void clear() {
+        this.withLock(() -> {
+            this.write(new HashMap<>());
+            return null;
+        });
+    }
+
+    /**
+     * @param reload ignore the snapshot of the last read, which can be stale if the file is replaced within the resolution of the
+     *               modified time with the same size.
+     */
+    @Nonnull
+    private Map<String, Entry> read(boolean reload) {
+        try {
+            if (!Files.isRegularFile(this.file)) {
+                return new HashMap<>();
+            }
+            final String stamp = Files.getLastModifiedTime(this.file).toMillis() + "|" + Files.size(this.file);
+            final Snapshot current = this.snapshot;
+            if (!reload && Objects.nonNull(current) && current.stamp.equals(stamp)) {
+                return current.tokens;
+            }
+            final SecretKey secret = this.getKey(false);
+            final Content content = Objects.isNull(secret) ? null : JsonUtils.fromJson(new String(decrypt(Files.readAllBytes(this.file), secret),
+                StandardCharsets.UTF_8), Content.class);
+            final Map<String, Entry> tokens = Objects.isNull(content) || Objects.isNull(content.tokens) ? new HashMap<>() : content.tokens;
+            this.snapshot = new Snapshot(stamp, tokens);
+            return tokens;
+        } catch (final IOException | GeneralSecurityException | RuntimeException | LinkageError e) {
+            log.debug("failed to read token cache {}, it will be replaced on the next update", this.file, e);
+            return new HashMap<>();
+        }
+    }
+
+    private void write(@Nonnull Map<String, Entry> tokens) {
+        try {
+            final SecretKey secret = Objects.requireNonNull(this.getKey(true));
+            final byte[] bytes = encrypt(JsonUtils.toJson(new Content(tokens)).getBytes(StandardCharsets.UTF_8), secret);
+            final Path temp = Files.createTempFile(this.file.getParent(), this.file.getFileName().toString(), ".tmp");
+            try {
+                Files.write(temp, bytes);
+                Files.move(temp, this.file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } finally {
+                Files.deleteIfExists(temp);
+            }
+        } catch (final IOException | GeneralSecurityException | RuntimeException | LinkageError e) {
+            log.debug("failed to write token cache {}", this.file, e);
+        }
+    }
+
+    private byte[] encrypt(@Nonnull byte[] plain, @Nonnull SecretKey secret) throws GeneralSecurityException {
+        final byte[] iv = new byte[IV_LENGTH];
+        this.random.nextBytes(iv);
+        final Cipher cipher = Cipher.getInstance("AES/GCM/NoPadding");
+        cipher.init(Cipher.ENCRYPT_MODE, secret, new GCMParameterSpec(128, iv));
+        cipher.updateAAD(MAGIC);
+        final byte[] encrypted = cipher.doFinal(plain);
+        return ByteBuffer.allocate(MAGIC.length + IV_LENGTH + encrypted.length).put(MAGIC).put(iv).put(encrypted).array();
+    }
+
+    private static byte[] decrypt(@Nonnull byte[] bytes, @Nonnull SecretKey secret) throws GeneralSecurityException {
+        if (bytes.length < MAGIC.length + IV_LENGTH || !Arrays.equals(MAGIC, Arrays.copyOf(bytes, MAGIC.length))) {
+            throw new GeneralSecurityException("unknown format of token cache");
+        }
+        final Cipher cipher = Cipher.getInstance("AES/GCM/NoPadding");
+        cipher.init(Cipher.DECRYPT_MODE, secret, new GCMParameterSpec(128, bytes, MAGIC.length, IV_LENGTH));
+        cipher.updateAAD(MAGIC);
+        return cipher.doFinal(bytes, MAGIC.length + IV_LENGTH, bytes.length - MAGIC.length - IV_LENGTH);
+    }
+
+    /**
+     * @param create create the secret if absent or broken, must be called with lock.
+     * @return key derived from the local secret and the current user, {@code null} if the secret is absent.
+     */
+    @Nullable
+    private SecretKey getKey(boolean create) throws IOException, GeneralSecurityException {
+        byte[] secret = this.secrets.load();
+        if (Objects.isNull(secret) || secret.length != SECRET_LENGTH) {
+            if (!create) {
+                return null;
+            }
+            secret = new byte[SECRET_LENGTH];
+            this.random.nextBytes(secret);
+            this.secrets.save(secret);
+        }
+        final Key current = this.key;
+        if (Objects.nonNull(current) && Arrays.equals(current.secret, secret)) {
+            return current.key;
+        }
+        final char[] password = String.format("%s|%s", System.getProperty("user.name"), System.getProperty("user.home")).toCharArray();
+        final byte[] derived = SecretKeyFactory.getInstance("PBKDF2WithHmacSHA256").generateSecret(new PBEKeySpec(password, secret, 10000, 256)).getEncoded();
+        this.key = new Key(secret, new SecretKeySpec(derived, "AES"));
+        return this.key.key;
+    }
+
+    private <T> T withLock(@Nonnull Supplier<T> action) {
+        synchronized (LOCKS.computeIfAbsent(this.file, k -> new Object())) {
+            try {
+                Files.createDirectories(this.file.getParent());
+                try (final FileChannel channel = FileChannel.open(this.file.resolveSibling(this.file.getFileName() + ".lock"),
+                    StandardOpenOption.CREATE, StandardOpenOption.WRITE); final FileLock ignored = channel.lock()) {
+                    return action.get();
+                }
+            } catch (final IOException e) {
+                log.debug("failed to lock token cache {}, skip updating", this.file, e);
+                return null;
+            }
+        }
+    }
+
+    /**
+     * keeps the secret of the cache key.
+     */
+    interface SecretStore {
+        /**
+         * @return the secret, {@code null} if absent.
+         */
+        @Nullable
+        byte[] load() throws IOException;
+
+        void save(@Nonnull byte[] secret) throws IOException;
+
+        @Nonnull
+        static SecretStore getDefault(@Nonnull Path file) {
+            if (SystemUtils.IS_OS_WINDOWS) {
+                return new DpapiSecretStore(file);
+            } else if (SystemUtils.IS_OS_MAC) {
+                return new KeychainSecretStore(file);
+            }
+            return new FileSecretStore(file);
+        }
+    }
+
+    /**
+     * secret in a file readable only by the owner, if supported by the file system.
+     */
+    @AllArgsConstructor
+    static class FileSecretStore implements SecretStore {
+        private final Path file;
+
+        @Nullable
+        @Override
+        public byte[] load() throws IOException {
+            return Files.isRegularFile(this.file) ? Files.readAllBytes(this.file) : null;
+        }
+
+        @Override
+        public void save(@Nonnull byte[] secret) throws IOException {
+            Files.deleteIfExists(this.file);
+            Files.createFile(this.file, getOwnerOnlyAttributes(this.file));
+            Files.write(this.file, secret, StandardOpenOption.TRUNCATE_EXISTING);
+        }
+
+        @Nonnull
+        private static FileAttribute<?>[] getOwnerOnlyAttributes(@Nonnull Path file) {
+            final boolean posix = file.getFileSystem().supportedFileAttributeViews().contains("posix");
+            return posix ? new FileAttribute<?>[]{PosixFilePermissions.asFileAttribute(PosixFilePermissions.fromString("rw-------"))} : new FileAttribute<?>[0];
+        }
+    }
+
+    /**
+     * secret encrypted by DPAPI, which can be decrypted only by the current user of Windows.
+     */
+    static class DpapiSecretStore extends FileSecretStore {
+        DpapiSecretStore(@Nonnull Path file) {
+            super(file);
+        }
+
+        @Nullable
+        @Override
+        public byte[] load() throws IOException {
+            final byte[] protectedSecret = super.load();
+            try {
+                return Objects.isNull(protectedSecret) ? null : Crypt32Util.cryptUnprotectData(protectedSecret);
+            } catch (final Win32Exception e) {
+                throw new IOException("failed to decrypt secret of token cache by DPAPI", e);
+            }
+        }
+
+        @Override
+        public void save(@Nonnull byte[] secret) throws IOException {
+            try {
+                super.save(Crypt32Util.cryptProtectData(secret));
+            } catch (final Win32Exception e) {
+                throw new IOException("failed to encrypt secret of token cache by DPAPI", e);
+            }
+        }
+    }
+
+    /**
+     * secret in the login keychain of macOS, {@code file} is only touched by the keychain accessor on updates.
+     */
+    static class KeychainSecretStore implements SecretStore {
+        private static final String SERVICE = "Microsoft Azure Toolkit Token Cache";
+        private static final String ACCOUNT = "PersistentTokenCache";
+        private final KeyChainAccessor keychain;
+
+        KeychainSecretStore(@Nonnull Path file) {
+            this.keychain = new KeyChainAccessor(file.toString(), SERVICE, ACCOUNT);
+        }
+
+        @Nullable
+        @Override
+        public byte[] load() throws IOException {
+            try {
+                return this.keychain.read();
+            } catch (final KeyChainAccessException e) {
+                throw new IOException("failed to read secret of token cache from keychain", e);
+            }
+        }
+
+        @Override
+        public void save(@Nonnull byte[] secret) throws IOException {
+            try {
+                this.keychain.write(secret);
+            } catch (final KeyChainAccessException e) {
+                throw new IOException("failed to write secret of token cache into keychain", e);
+            }
+        }
+    }
+
+    @AllArgsConstructor
+    private static class Key {
+        private final byte[] secret;
+        private final SecretKey key;
+    }
+
+    @AllArgsConstructor
+    private static class Snapshot {
+        private final String stamp;
+        private final Map<String, Entry> tokens;
+    }
+
+    @NoArgsConstructor
+    @AllArgsConstructor
+    private static class Content {
+        private Map<String, Entry> tokens;
+    }
+
+    @NoArgsConstructor
+    @AllArgsConstructor
+    private static class Entry {
+        private String token;
+        private long expiresOn;
+
+        private boolean isFresh() {
+            return StringUtils.isNotBlank(this.token) && this.expiresOn - EXPIRY_MARGIN.toMillis() > System.currentTimeMillis();
+        }
+    }
+}
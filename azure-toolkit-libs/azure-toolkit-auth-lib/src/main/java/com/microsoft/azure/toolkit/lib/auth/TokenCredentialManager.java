@@ -25,10 +25,13 @@ import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 import reactor.core.scheduler.Schedulers;
 
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
 import java.time.Duration;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
+import java.util.Objects;
 import java.util.function.Function;
 import java.util.function.Supplier;
 import java.util.stream.Collectors;
@@ -50,8 +53,27 @@ public class TokenCredentialManager implements TenantProvider, SubscriptionProvi
     @Setter
     protected Function<String, TokenCredential> credentialSupplier;
 
+    @Nullable
+    private PersistentTokenCache persistentTokenCache;
+
+    private String accountKey;
+
     public TokenCredential createTokenCredentialForTenant(String tenantId) {
-        return credentialSupplier.apply(tenantId);
+        return withPersistentTokenCache(credentialSupplier.apply(tenantId), tenantId);
+    }
+
+    /**
+     * shares tokens of credentials created by this manager with other processes through {@code cache}.
+     *
+     * @param accountKey key of the account, see {@link PersistentTokenCache#getAccountKey}
+     */
+    public void enablePersistentTokenCache(@Nonnull PersistentTokenCache cache, @Nonnull String accountKey) {
+        this.persistentTokenCache = cache;
+        this.accountKey = accountKey;
+    }
+
+    private TokenCredential withPersistentTokenCache(TokenCredential credential, @Nullable String tenantId) {
+        return Objects.isNull(this.persistentTokenCache) ? credential : this.persistentTokenCache.wrap(credential, this.accountKey, tenantId);
     }
 
     public Mono<List<String>> listTenants() {
@@ -93,7 +115,7 @@ public class TokenCredentialManager implements TenantProvider, SubscriptionProvi
 
     private ResourceManager.Authenticated createAzureClient(AzureEnvironment env) {
         AzureProfile profile = new AzureProfile(env);
-        return configureAzure().authenticate(this.rootCredentialSupplier.get(), profile);
+        return configureAzure().authenticate(withPersistentTokenCache(this.rootCredentialSupplier.get(), null), profile);
     }
 
     /**
@@ -108,8 +130,8 @@ public class TokenCredentialManager implements TenantProvider, SubscriptionProvi
     }
 
     private static HttpPipelinePolicy createUserAgentPolicy() {
-        final String userAgent = Azure.az().config().getUserAgent();
         return (httpPipelineCallContext, httpPipelineNextPolicy) -> {
+            final String userAgent = Azure.az().config().getUserAgent();
             final String previousUserAgent = httpPipelineCallContext.getHttpRequest().getHeaders().getValue("User-Agent");
             httpPipelineCallContext.getHttpRequest().setHeader("User-Agent", String.format("%s %s", userAgent, previousUserAgent));
             return httpPipelineNextPolicy.process();
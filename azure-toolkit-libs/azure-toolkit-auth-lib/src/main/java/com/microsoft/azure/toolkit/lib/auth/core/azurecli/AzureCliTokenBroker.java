@@ -0,0 +1,283 @@
+/*
+ * Copyright (c) Microsoft Corporation. All rights reserved.
+ * Licensed under the MIT License. See License.txt in the project root for license information.
+ */
+
+package com.microsoft.azure.toolkit.lib.auth.core.azurecli;
+
+import com.azure.core.credential.AccessToken;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParseException;
+import com.microsoft.azure.toolkit.lib.auth.exception.AzureToolkitAuthenticationException;
+import com.microsoft.azure.toolkit.lib.auth.util.AzureCliUtils;
+import com.microsoft.azure.toolkit.lib.common.utils.JsonUtils;
+import com.microsoft.azure.toolkit.lib.common.utils.SingleFlight;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.StringUtils;
+import org.apache.commons.lang3.math.NumberUtils;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.OffsetDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeParseException;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * gets access tokens from Azure CLI, which costs seconds per invocation, so that
+ * <ul>
+ *     <li>tokens are cached by signed-in account, tenant and resource until {@link #EXPIRY_MARGIN} before they expire, the
+ *     signed-in account (user and default subscription) is read from the profile of Azure CLI, so that tokens of the previous
+ *     account are not used after {@code az login} or {@code az account set}.</li>
+ *     <li>concurrent requests for the same account, tenant and resource share one invocation.</li>
+ *     <li>tokens requested within {@code keepWarm} are refreshed in the background {@code refreshAhead} before they expire, so that
+ *     callers don't wait for Azure CLI when the tokens are about to expire.</li>
+ * </ul>
+ */
+@Slf4j
+public class AzureCliTokenBroker {
+    private static final String CLI_GET_ACCESS_TOKEN_CMD = "az account get-access-token --resource %s%s --output json";
+    private static final String CLOUD_SHELL_ENV_KEY = "ACC_CLOUD";
+    private static final String CONFIG_DIR_ENV_KEY = "AZURE_CONFIG_DIR";
+    /**
+     * cached tokens are not used within this margin of their expiry, aligned with the refresh offset of azure-core token caches.
+     */
+    public static final Duration EXPIRY_MARGIN = Duration.ofMinutes(5);
+    private static final AzureCliTokenBroker INSTANCE = new AzureCliTokenBroker(AzureCliUtils::executeAzureCli, new SignedInAccount(getProfile()),
+        Duration.ofMinutes(10), Duration.ofHours(1));
+
+    private final Function<String, String> cli;
+    private final Supplier<String> account;
+    private final Duration refreshAhead;
+    private final Duration keepWarm;
+    private final Map<String, AccessToken> tokens = new ConcurrentHashMap<>();
+    private final Map<String, SingleFlight<AccessToken>> flights = new ConcurrentHashMap<>();
+    private final Map<String, Long> lastRequested = new ConcurrentHashMap<>();
+    private final AtomicLong invocations = new AtomicLong();
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(new ThreadFactoryBuilder()
+        .setNameFormat("azure-cli-token-refresh-%d").setDaemon(true).build());
+
+    /**
+     * @param cli     executes the Azure CLI command and returns its output.
+     * @param account identifies the account signed in to Azure CLI.
+     */
+    AzureCliTokenBroker(@Nonnull Function<String, String> cli, @Nonnull Supplier<String> account, @Nonnull Duration refreshAhead,
+                        @Nonnull Duration keepWarm) {
+        this.cli = cli;
+        this.account = account;
+        this.refreshAhead = refreshAhead;
+        this.keepWarm = keepWarm;
+    }
+
+    public static AzureCliTokenBroker getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * @param tenantId tenant of the token, the default tenant of Azure CLI if {@code null}.
+     */
+    @Nonnull
+    public AccessToken getToken(@Nullable String tenantId, @Nonnull String resource) {
+        final String tenant = isInCloudShell() ? null : StringUtils.trimToNull(tenantId);
+        final String key = this.account.get() + "|" + StringUtils.defaultString(tenant) + "|" + resource;
+        this.lastRequested.put(key, System.nanoTime());
+        final AccessToken cached = this.tokens.get(key);
+        if (isFresh(cached)) {
+            return cached;
+        }
+        final AccessToken token = this.flights.computeIfAbsent(key, k -> new SingleFlight<>()).run(() -> {
+            // tokens may be cached by the flight which is just finished
+            final AccessToken current = this.tokens.get(key);
+            return isFresh(current) ? current : this.fetch(key, tenant, resource);
+        });
+        return Objects.nonNull(token) ? token : this.fetch(key, tenant, resource);
+    }
+
+    /**
+     * @return count of Azure CLI invocations.
+     */
+    public long getInvocations() {
+        return this.invocations.get();
+    }
+
+    @Nonnull
+    private AccessToken fetch(@Nonnull String key, @Nullable String tenant, @Nonnull String resource) {
+        final String command = String.format(CLI_GET_ACCESS_TOKEN_CMD, resource, Objects.isNull(tenant) ? "" : " -t " + tenant);
+        this.invocations.incrementAndGet();
+        final AccessToken token = parseToken(this.cli.apply(command));
+        if (token.getExpiresAt().isEqual(OffsetDateTime.MAX)) {
+            // tokens with unknown expiry are not cached
+            return token;
+        }
+        this.tokens.put(key, token);
+        final long delay = Duration.between(OffsetDateTime.now(), token.getExpiresAt().minus(this.refreshAhead)).toMillis();
+        if (delay > 0) {
+            this.scheduler.schedule(() -> this.refresh(key, tenant, resource, token), delay, TimeUnit.MILLISECONDS);
+        }
+        return token;
+    }
+
+    private void refresh(@Nonnull String key, @Nullable String tenant, @Nonnull String resource, @Nonnull AccessToken token) {
+        if (this.tokens.get(key) != token) {
+            // replaced by a newer token, which has its own refresh scheduled
+            return;
+        }
+        final Long requested = this.lastRequested.get(key);
+        if (Objects.isNull(requested) || System.nanoTime() - requested > this.keepWarm.toNanos()) {
+            log.debug("skip refreshing idle Azure CLI token of {}", key);
+            return;
+        }
+        if (!key.startsWith(this.account.get() + "|")) {
+            // Azure CLI is signed in to another account, whose token must not be cached as the previous one's.
+            log.debug("skip refreshing Azure CLI token of {}, which is signed out", key);
+            return;
+        }
+        try {
+            this.flights.computeIfAbsent(key, k -> new SingleFlight<>()).run(() -> this.fetch(key, tenant, resource));
+        } catch (final RuntimeException e) {
+            // the token will be fetched again when requested after it expires.
+            log.debug("failed to refresh Azure CLI token of {}", key, e);
+        }
+    }
+
+    private static boolean isFresh(@Nullable AccessToken token) {
+        return Objects.nonNull(token) && token.getExpiresAt().minus(EXPIRY_MARGIN).isAfter(OffsetDateTime.now());
+    }
+
+    /**
+     * parses output of {@code az account get-access-token}, the expiry is read from {@code expires_on} (epoch seconds, since Azure CLI
+     * 2.54) or {@code expiresOn} (local date time with or without fraction of second, or with offset), unknown expiry is
+     * {@link OffsetDateTime#MAX}. anything around the json object (e.g. warnings) is ignored.
+     */
+    @Nonnull
+    static AccessToken parseToken(@Nullable String output) {
+        final int start = StringUtils.indexOf(output, '{');
+        final int end = StringUtils.lastIndexOf(output, '}');
+        if (start < 0 || end < start) {
+            throw new AzureToolkitAuthenticationException(String.format("unexpected output of Azure CLI: %s", StringUtils.abbreviate(output, 200)));
+        }
+        final JsonObject result;
+        try {
+            result = JsonUtils.getGson().fromJson(output.substring(start, end + 1), JsonObject.class);
+        } catch (final JsonParseException e) {
+            throw new AzureToolkitAuthenticationException(String.format("failed to parse output of Azure CLI: %s", e.getMessage()));
+        }
+        final String accessToken = getString(result, "accessToken");
+        if (StringUtils.isBlank(accessToken)) {
+            throw new AzureToolkitAuthenticationException("no access token is returned by Azure CLI, please make sure you have signed in with 'az login'.");
+        }
+        return new AccessToken(accessToken, parseExpiry(getString(result, "expires_on"), getString(result, "expiresOn")));
+    }
+
+    @Nonnull
+    private static OffsetDateTime parseExpiry(@Nullable String epochSeconds, @Nullable String dateTime) {
+        final long seconds = NumberUtils.toLong(StringUtils.trim(epochSeconds), -1);
+        if (seconds > 0) {
+            return Instant.ofEpochSecond(seconds).atOffset(ZoneOffset.UTC);
+        }
+        if (StringUtils.isNotBlank(dateTime)) {
+            final String value = dateTime.trim().replace(' ', 'T');
+            try {
+                return OffsetDateTime.parse(value).withOffsetSameInstant(ZoneOffset.UTC);
+            } catch (final DateTimeParseException ignored) {
+                // local date time without offset, e.g. "2023-01-01 12:00:00.000000"
+            }
+            try {
+                return LocalDateTime.parse(value).atZone(ZoneId.systemDefault()).toOffsetDateTime().withOffsetSameInstant(ZoneOffset.UTC);
+            } catch (final DateTimeParseException e) {
+                log.debug("failed to parse expiry of Azure CLI token: {}", dateTime);
+            }
+        }
+        return OffsetDateTime.MAX;
+    }
+
+    @Nullable
+    private static String getString(@Nonnull JsonObject object, @Nonnull String name) {
+        final JsonElement element = object.get(name);
+        return Objects.isNull(element) || element.isJsonNull() ? null : element.getAsString();
+    }
+
+    private static boolean isInCloudShell() {
+        return System.getenv(CLOUD_SHELL_ENV_KEY) != null;
+    }
+
+    @Nonnull
+    private static Path getProfile() {
+        final String configDir = System.getenv(CONFIG_DIR_ENV_KEY);
+        final Path dir = StringUtils.isBlank(configDir) ? Paths.get(System.getProperty("user.home"), ".azure") : Paths.get(configDir);
+        return dir.resolve("azureProfile.json");
+    }
+
+    /**
+     * user and id of the default subscription in the profile of Azure CLI (updated by {@code az login} and {@code az account set}),
+     * the profile is read again only if it's modified, so that it costs no more than a file stat per token request. it's empty if
+     * the profile can not be read.
+     */
+    static class SignedInAccount implements Supplier<String> {
+        private final Path profile;
+        private FileTime modified;
+        private String account = "";
+
+        SignedInAccount(@Nonnull Path profile) {
+            this.profile = profile;
+        }
+
+        @Nonnull
+        @Override
+        public synchronized String get() {
+            final FileTime current;
+            try {
+                current = Files.getLastModifiedTime(this.profile);
+            } catch (final IOException e) {
+                this.modified = null;
+                this.account = "";
+                return this.account;
+            }
+            if (!current.equals(this.modified)) {
+                this.modified = current;
+                this.account = read(this.profile);
+            }
+            return this.account;
+        }
+
+        @Nonnull
+        private static String read(@Nonnull Path profile) {
+            try {
+                // the profile is written with BOM by Azure CLI
+                final String content = StringUtils.removeStart(new String(Files.readAllBytes(profile), StandardCharsets.UTF_8), "\uFEFF");
+                final JsonArray subscriptions = JsonUtils.getGson().fromJson(content, JsonObject.class).getAsJsonArray("subscriptions");
+                for (final JsonElement element : Objects.requireNonNull(subscriptions)) {
+                    final JsonObject subscription = element.getAsJsonObject();
+                    if (subscription.has("isDefault") && subscription.get("isDefault").getAsBoolean()) {
+                        final JsonObject user = subscription.getAsJsonObject("user");
+                        return StringUtils.defaultString(Objects.isNull(user) ? null : getString(user, "name")) + "/" + getString(subscription, "id");
+                    }
+                }
+            } catch (final IOException | RuntimeException e) {
+                log.debug("failed to read signed-in account from {}", profile, e);
+            }
+            return "";
+        }
+    }
+}
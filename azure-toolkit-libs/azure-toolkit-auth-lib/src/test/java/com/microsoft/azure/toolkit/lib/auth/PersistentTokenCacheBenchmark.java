@@ -0,0 +1,98 @@
+/*
+ * Copyright (c) Microsoft Corporation. All rights reserved.
+ * Licensed under the MIT License. See License.txt in the project root for license information.
+ */
+
+package com.microsoft.azure.toolkit.lib.auth;
+
+import com.azure.core.credential.AccessToken;
+import com.azure.core.credential.TokenCredential;
+import com.azure.core.credential.TokenRequestContext;
+import com.microsoft.azure.toolkit.lib.auth.model.AuthType;
+import org.apache.commons.io.FileUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import reactor.core.publisher.Mono;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JMH benchmark of the time to get the token for the first ARM call of a new process (a new {@link PersistentTokenCache} of the same
+ * directory), with cold and warm cache, the credential takes {@link #delay} milliseconds (e.g. Azure CLI) to get a token.
+ * it's not a unit test (and never run by surefire), run it after {@code test-compile} of this module by e.g.
+ * <pre>
+ * mvn -pl azure-toolkit-auth-lib test-compile exec:exec -Dexec.executable=java -Dexec.classpathScope=test \
+ *     -Dexec.args="-cp %classpath org.openjdk.jmh.Main PersistentTokenCacheBenchmark"
+ * </pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class PersistentTokenCacheBenchmark {
+    private static final String ARM_SCOPE = "https://management.core.windows.net//.default";
+
+    @Param({"1000"})
+    public long delay;
+
+    private Path root;
+    private Path cold;
+    private Path warm;
+    private TokenCredential credential;
+    private final String account = PersistentTokenCache.getAccountKey(AuthType.AZURE_CLI, "user@example.com", "client");
+    private final TokenRequestContext request = new TokenRequestContext().addScopes(ARM_SCOPE);
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        this.root = Files.createTempDirectory("token-benchmark");
+        this.cold = root.resolve("cold");
+        this.warm = Files.createDirectories(root.resolve("warm"));
+        this.credential = request -> Mono.fromCallable(() -> {
+            Thread.sleep(this.delay);
+            return PersistentTokenCacheTest.token("arm-token", Duration.ofHours(1));
+        });
+        this.firstToken(this.warm);
+    }
+
+    @Setup(Level.Invocation)
+    public void clearColdCache() throws IOException {
+        FileUtils.deleteDirectory(this.cold.toFile());
+        Files.createDirectories(this.cold);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        FileUtils.deleteQuietly(this.root.toFile());
+    }
+
+    @Benchmark
+    public AccessToken coldCache() {
+        return this.firstToken(this.cold);
+    }
+
+    @Benchmark
+    public AccessToken warmCache() {
+        return this.firstToken(this.warm);
+    }
+
+    private AccessToken firstToken(Path dir) {
+        return new PersistentTokenCache(dir).wrap(this.credential, this.account, "tenant").getToken(this.request).block();
+    }
+}
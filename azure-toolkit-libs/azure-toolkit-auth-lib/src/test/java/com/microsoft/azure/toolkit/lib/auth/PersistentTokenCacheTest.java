@@ -0,0 +1,162 @@
+/*
+ * Copyright (c) Microsoft Corporation. All rights reserved.
+ * Licensed under the MIT License. See License.txt in the project root for license information.
+ */
+
+package com.microsoft.azure.toolkit.lib.auth;
+
+import com.azure.core.credential.AccessToken;
+import com.azure.core.credential.TokenCredential;
+import com.azure.core.credential.TokenRequestContext;
+import com.microsoft.azure.toolkit.lib.auth.model.AuthType;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import reactor.core.publisher.Mono;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class PersistentTokenCacheTest {
+    private static final String ARM_SCOPE = "https://management.core.windows.net//.default";
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testSharedAndEncrypted() throws Exception {
+        final Path dir = folder.newFolder().toPath();
+        new PersistentTokenCache(dir).put("key", token("secret-token", Duration.ofHours(1)));
+        new PersistentTokenCache(dir).put("expiring", token("expiring-token", Duration.ofMinutes(1)));
+
+        final PersistentTokenCache cache = new PersistentTokenCache(dir);
+        Assert.assertEquals("secret-token", cache.get("key").getToken());
+        // tokens about to expire are neither used nor kept
+        Assert.assertNull(cache.get("expiring"));
+        cache.put("another", token("another-token", Duration.ofHours(1)));
+        Assert.assertEquals("another-token", new PersistentTokenCache(dir).get("another").getToken());
+
+        final String content = new String(Files.readAllBytes(dir.resolve("tokens.dat")), StandardCharsets.ISO_8859_1);
+        Assert.assertFalse(content.contains("secret-token"));
+        Assert.assertFalse(content.contains("expiring-token"));
+    }
+
+    @Test
+    public void testCorruptionRecovery() throws Exception {
+        final Path dir = folder.newFolder().toPath();
+        new PersistentTokenCache(dir).put("key", token("token", Duration.ofHours(1)));
+
+        Files.write(dir.resolve("tokens.dat"), "garbage".getBytes(StandardCharsets.UTF_8));
+        final PersistentTokenCache cache = new PersistentTokenCache(dir);
+        Assert.assertNull(cache.get("key"));
+        cache.put("key", token("token-1", Duration.ofHours(1)));
+        Assert.assertEquals("token-1", new PersistentTokenCache(dir).get("key").getToken());
+
+        // broken secret, content encrypted with the previous secret is discarded
+        Files.write(dir.resolve("tokens.key"), new byte[]{1, 2, 3});
+        Assert.assertNull(new PersistentTokenCache(dir).get("key"));
+        new PersistentTokenCache(dir).put("another", token("token-2", Duration.ofHours(1)));
+        Assert.assertNull(new PersistentTokenCache(dir).get("key"));
+        Assert.assertEquals("token-2", new PersistentTokenCache(dir).get("another").getToken());
+    }
+
+    @Test
+    public void testConcurrentProcesses() throws Exception {
+        final Path dir = folder.newFolder().toPath();
+        final String java = Paths.get(System.getProperty("java.home"), "bin", "java").toString();
+        final List<Process> processes = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            processes.add(new ProcessBuilder(java, "-cp", System.getProperty("java.class.path"), PersistentTokenCacheTest.class.getName(),
+                dir.toString(), "process-" + i, "25").redirectErrorStream(true).redirectOutput(new File(folder.getRoot(), "process-" + i + ".log")).start());
+        }
+        for (final Process process : processes) {
+            Assert.assertTrue(process.waitFor(2, TimeUnit.MINUTES));
+            Assert.assertEquals(0, process.exitValue());
+        }
+        final PersistentTokenCache cache = new PersistentTokenCache(dir);
+        for (int i = 0; i < 4; i++) {
+            for (int j = 0; j < 25; j++) {
+                Assert.assertEquals("process-" + i + "-" + j, cache.get("process-" + i + "-" + j).getToken());
+            }
+        }
+    }
+
+    @Test
+    public void testWrap() throws Exception {
+        final Path dir = folder.newFolder().toPath();
+        final AtomicInteger authentications = new AtomicInteger();
+        final TokenCredential credential = request -> Mono.fromCallable(() -> token("arm-token-" + authentications.incrementAndGet(), Duration.ofHours(1)));
+        final String account = PersistentTokenCache.getAccountKey(AuthType.AZURE_CLI, "user@example.com", "client");
+        final TokenRequestContext request = new TokenRequestContext().addScopes(ARM_SCOPE);
+
+        Assert.assertEquals("arm-token-1", new PersistentTokenCache(dir).wrap(credential, account, "tenant").getToken(request).block().getToken());
+        // a new process with the same cache directory
+        Assert.assertEquals("arm-token-1", new PersistentTokenCache(dir).wrap(credential, account, "tenant").getToken(request).block().getToken());
+        Assert.assertEquals(1, authentications.get());
+
+        // tokens are not shared with other accounts or tenants
+        final String another = PersistentTokenCache.getAccountKey(AuthType.AZURE_CLI, "another@example.com", "client");
+        Assert.assertEquals("arm-token-2", new PersistentTokenCache(dir).wrap(credential, another, "tenant").getToken(request).block().getToken());
+        Assert.assertEquals("arm-token-3", new PersistentTokenCache(dir).wrap(credential, account, "another-tenant").getToken(request).block().getToken());
+        Assert.assertEquals(3, authentications.get());
+    }
+
+    @Test
+    public void testWrapReadsOnSubscription() throws Exception {
+        final Path dir = folder.newFolder().toPath();
+        final TokenCredential credential = request -> Mono.error(new IllegalStateException("not cached"));
+        final String account = PersistentTokenCache.getAccountKey(AuthType.AZURE_CLI, "user@example.com", "client");
+        final TokenRequestContext request = new TokenRequestContext().addScopes(ARM_SCOPE);
+        final Mono<AccessToken> token = new PersistentTokenCache(dir).wrap(credential, account, "tenant").getToken(request);
+
+        // cached by another process after the request is created
+        new PersistentTokenCache(dir).put(account + "|tenant|" + ARM_SCOPE, token("arm-token", Duration.ofHours(1)));
+        Assert.assertEquals("arm-token", token.block().getToken());
+    }
+
+    @Test
+    public void testSecretStore() throws Exception {
+        final Path dir = folder.newFolder().toPath();
+        final byte[][] stored = {null};
+        final PersistentTokenCache.SecretStore store = new PersistentTokenCache.SecretStore() {
+            @Override
+            public byte[] load() {
+                return stored[0];
+            }
+
+            @Override
+            public void save(byte[] secret) {
+                stored[0] = secret;
+            }
+        };
+        new PersistentTokenCache(dir, store).put("key", token("secret-token", Duration.ofHours(1)));
+        Assert.assertEquals("secret-token", new PersistentTokenCache(dir, store).get("key").getToken());
+        Assert.assertFalse(Files.exists(dir.resolve("tokens.key")));
+        // the secret is not available to others
+        Assert.assertNull(new PersistentTokenCache(dir).get("key"));
+    }
+
+    /**
+     * puts tokens into the cache from a separate process, args: cache directory, key prefix, count of tokens.
+     */
+    public static void main(String[] args) {
+        final PersistentTokenCache cache = new PersistentTokenCache(Paths.get(args[0]));
+        for (int i = 0; i < Integer.parseInt(args[2]); i++) {
+            cache.put(args[1] + "-" + i, token(args[1] + "-" + i, Duration.ofHours(1)));
+        }
+    }
+
+    static AccessToken token(String token, Duration expiresIn) {
+        return new AccessToken(token, OffsetDateTime.now().plus(expiresIn));
+    }
+}
@@ -0,0 +1,185 @@
+/*
+ * Copyright (c) Microsoft Corporation. All rights reserved.
+ * Licensed under the MIT License. See License.txt in the project root for license information.
+ */
+
+package com.microsoft.azure.toolkit.lib.auth.core.azurecli;
+
+import com.azure.core.credential.AccessToken;
+import com.microsoft.azure.toolkit.lib.auth.exception.AzureToolkitAuthenticationException;
+import com.microsoft.azure.toolkit.lib.common.utils.CommandUtils;
+import org.junit.Assert;
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.OffsetDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicReference;
+
+public class AzureCliTokenBrokerTest {
+    private static final String RESOURCE = "https://management.core.windows.net/";
+    // fake `az` which counts invocations, takes a while and returns a token expiring in an hour.
+    private static final String FAKE_AZ = "#!/bin/sh\n" +
+        "echo \"$*\" >> \"$(dirname \"$0\")/invocations\"\n" +
+        "count=$(wc -l < \"$(dirname \"$0\")/invocations\" | tr -d ' ')\n" +
+        "sleep 0.5\n" +
+        "echo 'WARNING: this is a fake az' >&2\n" +
+        "echo \"{\\\"accessToken\\\": \\\"token-$count\\\", \\\"expiresOn\\\": \\\"2000-01-01 00:00:00.000000\\\", " +
+        "\\\"expires_on\\\": $(( $(date +%s) + 3600 )), \\\"tokenType\\\": \\\"Bearer\\\"}\"\n";
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+    private File bin;
+    private final AtomicReference<String> account = new AtomicReference<>("user@contoso.com/subscription-1");
+
+    @Before
+    public void setUp() throws IOException {
+        Assume.assumeFalse(CommandUtils.isWindows());
+        this.bin = folder.newFolder("bin");
+        final File az = new File(this.bin, "az");
+        Files.write(az.toPath(), FAKE_AZ.getBytes(StandardCharsets.UTF_8));
+        Assert.assertTrue(az.setExecutable(true));
+    }
+
+    @Test
+    public void testConcurrentRequestsAreCoalesced() throws Exception {
+        final AzureCliTokenBroker broker = broker(Duration.ofMinutes(10), Duration.ofHours(1));
+        final ExecutorService pool = Executors.newFixedThreadPool(8);
+        try {
+            final List<Future<AccessToken>> futures = new ArrayList<>();
+            for (int i = 0; i < 8; i++) {
+                futures.add(pool.submit(() -> broker.getToken("tenant-a", RESOURCE)));
+            }
+            final Set<String> tokens = ConcurrentHashMap.newKeySet();
+            for (final Future<AccessToken> future : futures) {
+                tokens.add(future.get().getToken());
+            }
+            Assert.assertEquals(Collections.singleton("token-1"), tokens);
+        } finally {
+            pool.shutdownNow();
+        }
+        Assert.assertEquals(1, broker.getInvocations());
+        Assert.assertEquals("token-1", broker.getToken("tenant-a", RESOURCE).getToken());
+        Assert.assertEquals(1, broker.getInvocations());
+
+        // tokens are cached by tenant and resource
+        Assert.assertEquals("token-2", broker.getToken("tenant-b", RESOURCE).getToken());
+        Assert.assertEquals("token-3", broker.getToken("tenant-a", "https://storage.azure.com/").getToken());
+        Assert.assertEquals(Arrays.asList("account get-access-token --resource " + RESOURCE + " -t tenant-a --output json",
+            "account get-access-token --resource " + RESOURCE + " -t tenant-b --output json",
+            "account get-access-token --resource https://storage.azure.com/ -t tenant-a --output json"), invocations());
+    }
+
+    @Test
+    public void testTokensAreCachedByAccount() throws Exception {
+        final AzureCliTokenBroker broker = broker(Duration.ofMinutes(10), Duration.ofHours(1));
+        Assert.assertEquals("token-1", broker.getToken("tenant-a", RESOURCE).getToken());
+        // signed in to another account by `az login`
+        this.account.set("admin@contoso.com/subscription-2");
+        Assert.assertEquals("token-2", broker.getToken("tenant-a", RESOURCE).getToken());
+        this.account.set("user@contoso.com/subscription-1");
+        Assert.assertEquals("token-1", broker.getToken("tenant-a", RESOURCE).getToken());
+        Assert.assertEquals(2, broker.getInvocations());
+    }
+
+    @Test
+    public void testSignedInAccount() throws Exception {
+        final File profile = new File(folder.getRoot(), "azureProfile.json");
+        final AzureCliTokenBroker.SignedInAccount account = new AzureCliTokenBroker.SignedInAccount(profile.toPath());
+        Assert.assertEquals("", account.get());
+        writeProfile(profile, "subscription-1", "subscription-2", 1000);
+        Assert.assertEquals("user@contoso.com/subscription-2", account.get());
+        // `az account set` modifies the profile
+        writeProfile(profile, "subscription-2", "subscription-1", 2000);
+        Assert.assertEquals("user@contoso.com/subscription-1", account.get());
+        Files.write(profile.toPath(), "not json".getBytes(StandardCharsets.UTF_8));
+        Files.setLastModifiedTime(profile.toPath(), FileTime.fromMillis(3000));
+        Assert.assertEquals("", account.get());
+    }
+
+    @Test
+    public void testProactiveRefresh() throws Exception {
+        // refreshed about 2 seconds after the token is fetched
+        final AzureCliTokenBroker broker = broker(Duration.ofSeconds(3598), Duration.ofHours(1));
+        Assert.assertEquals("token-1", broker.getToken(null, RESOURCE).getToken());
+        String token = "token-1";
+        for (int i = 0; i < 100 && token.equals("token-1"); i++) {
+            Thread.sleep(100);
+            // the cached token is returned without waiting for the refresh
+            token = broker.getToken(null, RESOURCE).getToken();
+        }
+        Assert.assertEquals("token-2", token);
+        Assert.assertEquals(2, broker.getInvocations());
+    }
+
+    @Test
+    public void testIdleTokenIsNotRefreshed() throws Exception {
+        final AzureCliTokenBroker broker = broker(Duration.ofSeconds(3599), Duration.ZERO);
+        Assert.assertEquals("token-1", broker.getToken(null, RESOURCE).getToken());
+        Thread.sleep(2500);
+        Assert.assertEquals(1, broker.getInvocations());
+    }
+
+    @Test
+    public void testParseToken() {
+        final OffsetDateTime expected = LocalDateTime.of(2030, 1, 2, 3, 4, 5).atZone(ZoneId.systemDefault()).toOffsetDateTime()
+            .withOffsetSameInstant(ZoneOffset.UTC);
+        Assert.assertEquals(expected, AzureCliTokenBroker.parseToken("{\"accessToken\": \"t\", \"expiresOn\": \"2030-01-02 03:04:05.123456\"}")
+            .getExpiresAt().withNano(0));
+        Assert.assertEquals(expected, AzureCliTokenBroker.parseToken("{\"accessToken\": \"t\", \"expiresOn\": \"2030-01-02 03:04:05\"}").getExpiresAt());
+        Assert.assertEquals(OffsetDateTime.parse("2030-01-02T03:04:05Z"),
+            AzureCliTokenBroker.parseToken("{\"accessToken\": \"t\", \"expiresOn\": \"2030-01-02T05:04:05+02:00\"}").getExpiresAt());
+        // expires_on takes precedence, and anything around the json object is ignored
+        final AccessToken token = AzureCliTokenBroker.parseToken("WARNING: something\n{\"accessToken\": \"t\", \"expiresOn\": \"invalid\", " +
+            "\"expires_on\": 1893553445}\n");
+        Assert.assertEquals(OffsetDateTime.parse("2030-01-02T03:04:05Z"), token.getExpiresAt());
+        Assert.assertEquals("t", token.getToken());
+        Assert.assertEquals(OffsetDateTime.MAX, AzureCliTokenBroker.parseToken("{\"accessToken\": \"t\"}").getExpiresAt());
+        Assert.assertThrows(AzureToolkitAuthenticationException.class, () -> AzureCliTokenBroker.parseToken("ERROR: Please run 'az login'"));
+        Assert.assertThrows(AzureToolkitAuthenticationException.class, () -> AzureCliTokenBroker.parseToken("{\"expires_on\": 1893553445}"));
+    }
+
+    private AzureCliTokenBroker broker(Duration refreshAhead, Duration keepWarm) {
+        final String path = this.bin.getAbsolutePath() + File.pathSeparator + System.getenv("PATH");
+        return new AzureCliTokenBroker(command -> {
+            try {
+                return CommandUtils.exec(command, Collections.singletonMap("PATH", path));
+            } catch (final IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }, this.account::get, refreshAhead, keepWarm);
+    }
+
+    private static void writeProfile(File profile, String subscription, String defaultSubscription, long modified) throws IOException {
+        final String format = "{\"id\": \"%s\", \"isDefault\": %s, \"user\": {\"name\": \"user@contoso.com\", \"type\": \"user\"}}";
+        final String content = "\uFEFF{\"subscriptions\": [" + String.format(format, subscription, false) + ", " +
+            String.format(format, defaultSubscription, true) + "]}";
+        Files.write(profile.toPath(), content.getBytes(StandardCharsets.UTF_8));
+        Files.setLastModifiedTime(profile.toPath(), FileTime.fromMillis(modified));
+    }
+
+    private List<String> invocations() throws IOException {
+        return Files.readAllLines(new File(this.bin, "invocations").toPath());
+    }
+}
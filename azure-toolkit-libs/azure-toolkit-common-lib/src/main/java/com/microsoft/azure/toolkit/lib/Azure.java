@@ -11,15 +11,20 @@ import com.microsoft.azure.toolkit.lib.common.model.AbstractAzResource;
 import com.microsoft.azure.toolkit.lib.common.model.AbstractAzService;
 import com.microsoft.azure.toolkit.lib.common.operation.AzureOperation;
 import com.microsoft.azure.toolkit.lib.resource.AzureResources;
+import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.lang3.StringUtils;
 
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
 import java.util.ServiceLoader;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.stream.Collectors;
 
 @Slf4j
@@ -31,7 +36,7 @@ public class Azure {
         this.configuration = new AzureConfiguration();
     }
 
-    public static synchronized <T extends AzService> T az(final Class<T> clazz) {
+    public static <T extends AzService> T az(final Class<T> clazz) {
         final T service = Optional.ofNullable(getService(clazz)).orElseGet(() -> {
             ServiceManager.reload();
             return getService(clazz);
@@ -40,9 +45,21 @@ public class Azure {
         return Optional.ofNullable(service).orElseThrow(() -> new AzureToolkitRuntimeException(message));
     }
 
+    /**
+     * register a service explicitly, which takes precedence over the ones loaded by {@link ServiceLoader}, e.g. to
+     * stand in for a real service in tests.
+     */
+    public static void register(@Nonnull final AzService service) {
+        ServiceManager.register(service);
+    }
+
+    public static void unregister(@Nonnull final AzService service) {
+        ServiceManager.unregister(service);
+    }
+
     @Nullable
     private static <T extends AzService> T getService(Class<T> clazz) {
-        return ServiceManager.getServices().stream().filter(clazz::isInstance).map(clazz::cast).findAny().orElse(null);
+        return ServiceManager.getSnapshot().resolve(clazz);
     }
 
     @Nullable
@@ -97,21 +114,72 @@ public class Azure {
         return this.configuration;
     }
 
+    /**
+     * services are published as immutable snapshots, so that lookups never block on each other.
+     * each service class is resolved only once until services are reloaded or (un)registered.
+     */
     private static class ServiceManager {
         private static final ServiceLoader<AzService> loader = ServiceLoader.load(AzService.class, Azure.class.getClassLoader());
-        private static final List<AzService> services = new ArrayList<>();
+        private static final List<AzService> registered = new ArrayList<>();
+        private static List<AzService> loaded = Collections.emptyList();
+        private static volatile Snapshot snapshot = null;
 
-        public static synchronized List<AzService> getServices() {
-            if (services.isEmpty()) {
-                reload();
+        @Nonnull
+        public static List<AzService> getServices() {
+            return getSnapshot().services;
+        }
+
+        @Nonnull
+        private static Snapshot getSnapshot() {
+            final Snapshot current = snapshot;
+            if (Objects.nonNull(current)) {
+                return current;
+            }
+            synchronized (ServiceManager.class) {
+                if (Objects.isNull(snapshot)) {
+                    reload();
+                }
+                return snapshot;
             }
-            return services;
         }
 
         public static synchronized void reload() {
+            final List<AzService> result = new ArrayList<>();
             ServiceManager.loader.reload();
-            services.clear();
-            ServiceManager.loader.forEach(services::add);
+            ServiceManager.loader.forEach(result::add);
+            loaded = result;
+            publish();
+        }
+
+        public static synchronized void register(@Nonnull final AzService service) {
+            registered.add(0, service);
+            publish();
+        }
+
+        public static synchronized void unregister(@Nonnull final AzService service) {
+            registered.remove(service);
+            publish();
+        }
+
+        private static void publish() {
+            final List<AzService> result = new ArrayList<>(registered);
+            result.addAll(loaded);
+            snapshot = new Snapshot(Collections.unmodifiableList(result));
+        }
+    }
+
+    @RequiredArgsConstructor
+    private static class Snapshot {
+        private final List<AzService> services;
+        private final Map<Class<?>, AzService> resolved = new ConcurrentHashMap<>();
+
+        @Nullable
+        <T extends AzService> T resolve(@Nonnull Class<T> clazz) {
+            AzService service = this.resolved.get(clazz);
+            if (Objects.isNull(service)) { // avoid locking on `computeIfAbsent` for resolved ones.
+                service = this.resolved.computeIfAbsent(clazz, c -> this.services.stream().filter(c::isInstance).findAny().orElse(null));
+            }
+            return Objects.isNull(service) ? null : clazz.cast(service);
         }
     }
 }
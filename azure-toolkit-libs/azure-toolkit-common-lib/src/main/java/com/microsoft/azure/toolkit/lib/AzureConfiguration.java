@@ -5,15 +5,19 @@
 
 package com.microsoft.azure.toolkit.lib;
 
+import com.microsoft.azure.toolkit.lib.common.http.HttpTransportConfig;
 import com.microsoft.azure.toolkit.lib.common.proxy.ProxyInfo;
 import lombok.Getter;
 import lombok.Setter;
 
+import javax.annotation.Nonnull;
+import java.util.function.Supplier;
+
 @Getter
 @Setter
 public class AzureConfiguration {
     private String logLevel;
-    private String userAgent;
+    private Supplier<String> userAgent = () -> null;
     private String cloud;
     private String machineId;
     private String product;
@@ -27,6 +31,22 @@ public class AzureConfiguration {
     private int httpProxyPort;
     private String proxyUsername;
     private String proxyPassword;
+    private HttpTransportConfig httpTransport = new HttpTransportConfig();
+
+    public String getUserAgent() {
+        return this.userAgent.get();
+    }
+
+    public void setUserAgent(String userAgent) {
+        this.userAgent = () -> userAgent;
+    }
+
+    /**
+     * user agent is evaluated on every request sent by clients, so that it can contain information resolved lazily (e.g. installation id).
+     */
+    public void setUserAgent(@Nonnull Supplier<String> userAgent) {
+        this.userAgent = userAgent;
+    }
 
     public void setProxyInfo(ProxyInfo proxy) {
         this.setProxySource(proxy.getSource());
@@ -1,11 +1,14 @@
 package com.microsoft.azure.toolkit.lib.common.cache;
 
 import com.google.common.cache.Cache;
-import com.google.common.cache.CacheBuilder;
-import com.google.common.cache.CacheLoader;
-import com.google.common.cache.LoadingCache;
+import com.google.common.cache.CacheStats;
+import com.microsoft.azure.toolkit.lib.common.task.AzureTaskManager;
+import com.microsoft.azure.toolkit.lib.common.utils.aspect.CompiledTemplate;
 import com.microsoft.azure.toolkit.lib.common.utils.aspect.ExpressionUtils;
 import com.microsoft.azure.toolkit.lib.common.utils.aspect.MethodInvocation;
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
 import lombok.extern.java.Log;
 import org.apache.commons.lang3.StringUtils;
 import org.aspectj.lang.ProceedingJoinPoint;
@@ -16,28 +19,40 @@ import org.aspectj.lang.reflect.MethodSignature;
 
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.time.Duration;
+import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutionException;
-import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.logging.Level;
 
 @Aspect
 @Log
 public class CacheManager {
-    private static final CacheLoader<String, Cache<Object, Object>> loader = new CacheLoader<String, Cache<Object, Object>>() {
-        @Override
-        public Cache<Object, Object> load(@Nonnull String key) {
-            return CacheBuilder.newBuilder()
-                    .softValues()
-                    .expireAfterAccess(4, TimeUnit.HOURS) // TODO: justify
-                    .build();
-        }
-    };
-    private static final LoadingCache<String, Cache<Object, Object>> caches = CacheBuilder.newBuilder()
-            .softValues()
-            .expireAfterAccess(4, TimeUnit.HOURS) // TODO: justify
-            .build(loader);
+    private static final Duration PRUNE_INTERVAL = Duration.ofMinutes(1);
+    /**
+     * statistics of dropped caches, keyed by declared cache names (templates of dynamic names are not rendered).
+     */
+    private static final Map<String, CacheStats> retiredStats = new ConcurrentHashMap<>();
+    /**
+     * named caches are held strongly, so that they live as long as their policies intend. they are dropped when invalidated, or
+     * pruned once all their entries are expired/evicted and they are not used for a while, e.g. those of dynamic names.
+     */
+    private static final Map<String, NamedCache> caches = new ConcurrentHashMap<>();
+    private static final AtomicLong nextPrune = new AtomicLong(System.nanoTime() + PRUNE_INTERVAL.toNanos());
+
+    private static final Map<Method, CompiledCacheSpec> specs = new ConcurrentHashMap<>();
+    /**
+     * set while a stale entry is reloaded by re-invoking its method, so that the invocation bypasses the cache, see {@link #reload}.
+     */
+    private static final ThreadLocal<Boolean> reloading = ThreadLocal.withInitial(() -> false);
 
     @Pointcut("execution(@com.microsoft.azure.toolkit.lib.common.cache.Cacheable * *..*.*(..))")
     public void cacheable() {
@@ -49,29 +64,37 @@ public class CacheManager {
 
     @Around("cacheable()")
     public Object aroundCacheable(@Nonnull final ProceedingJoinPoint point) throws Throwable {
+        if (reloading.get()) {
+            reloading.remove(); // only the re-invoked method itself bypasses the cache, not the cacheable methods it calls.
+            return point.proceed();
+        }
         final MethodSignature signature = (MethodSignature) point.getSignature();
         final MethodInvocation invocation = MethodInvocation.from(point);
-        final Cacheable annotation = signature.getMethod().getAnnotation(Cacheable.class);
+        final CompiledCacheSpec spec = specs.computeIfAbsent(signature.getMethod(), CompiledCacheSpec::ofCacheable);
 
-        final String cacheName = StringUtils.firstNonBlank(annotation.cacheName(), annotation.value());
-        final String name = ExpressionUtils.render(cacheName, invocation);
-        final String key = ExpressionUtils.render(annotation.key(), invocation);
+        final String name = spec.getName().render(invocation);
+        final String key = spec.getKey().render(invocation);
 
         if (Objects.isNull(name) || Objects.isNull(key)) {
             log.severe(String.format("invalid @Cacheable on method(%s)", signature.getName()));
             return point.proceed();
         }
-        final String condition = annotation.condition();
-        final boolean toUseCache = StringUtils.isBlank(condition) || ExpressionUtils.evaluate(condition, invocation, true);
-        final Cache<Object, Object> cache = caches.get(name);
+        final boolean toUseCache = spec.evaluateCondition(invocation);
+        pruneIfDue();
+        // overrides are defined for declared names, since rendered ones (e.g. per subscription) are unknown until runtime.
+        final NamedCache named = caches.computeIfAbsent(name, n -> new NamedCache(spec.getDeclaredName(), spec.getPolicy(),
+            CachePolicy.resolve(spec.getDeclaredName(), spec.getPolicy())));
+        named.touch();
+        named.checkDeclaredPolicy(name, spec.getPolicy(), signature.getName());
+        final Cache<Object, Object> cache = named.getCache();
         if (toUseCache) {
             log.fine(String.format("loading data from cache[%s.%s] on method[%s]", name, key, signature.getName()));
-            return readCache(cache, key, point);
+            return readCache(cache, key, point, named.getPolicy());
         }
         log.fine(String.format("skipping cache[%s.%s] on method[%s]", name, key, signature.getName()));
         final Object result = point.proceed();
         if (Objects.nonNull(result)) {
-            cache.put(key, Optional.of(result));
+            cache.put(key, new CacheEntry(Optional.of(result)));
         }
         return result;
     }
@@ -80,13 +103,11 @@ public class CacheManager {
     public Object aroundCacheEvict(@Nonnull final ProceedingJoinPoint point) throws Throwable {
         final MethodSignature signature = (MethodSignature) point.getSignature();
         final MethodInvocation invocation = MethodInvocation.from(point);
-        final CacheEvict annotation = signature.getMethod().getAnnotation(CacheEvict.class);
+        final CompiledCacheSpec spec = specs.computeIfAbsent(signature.getMethod(), CompiledCacheSpec::ofCacheEvict);
 
-        final String cacheName = StringUtils.firstNonBlank(annotation.cacheName(), annotation.value());
-        final String name = ExpressionUtils.render(cacheName, invocation);
-        final String key = ExpressionUtils.render(annotation.key(), invocation);
-        final String condition = annotation.condition();
-        final boolean toEvictCache = StringUtils.isBlank(condition) || ExpressionUtils.evaluate(condition, invocation, true);
+        final String name = spec.getName().render(invocation);
+        final String key = spec.getKey().render(invocation);
+        final boolean toEvictCache = spec.evaluateCondition(invocation);
 
         if (toEvictCache) {
             log.fine(String.format("evict cache[%s.%s] on method[%s]", name, key, signature.getName()));
@@ -95,40 +116,235 @@ public class CacheManager {
         return point.proceed();
     }
 
-    public static void evictCache(@Nullable final String name, @Nullable final String key) throws ExecutionException {
+    public static void evictCache(@Nullable final String name, @Nullable final String key) {
         if (StringUtils.isBlank(name)) {
             log.warning("cache name is not specified when invalidating cache");
         } else if (StringUtils.equals(CacheEvict.ALL, name)) { // invalidate all cache entries if cache name not specified
             log.fine("invalidate all caches");
-            caches.invalidateAll();
+            caches.keySet().forEach(CacheManager::retire);
         } else {
             if (StringUtils.isBlank(key)) {
                 log.warning(String.format("key is not specified when invalidating cache[%s]", name));
             } else if (StringUtils.equals(CacheEvict.ALL, key)) { // invalidate all cache entries of named cache if only cache name is specified
                 log.fine(String.format("invalidate all entries in cache[%s]", name));
-                caches.invalidate(name);
+                retire(name);
             } else { // invalidate key specified cache entry of named cache if both cache name and key are specified
                 log.fine(String.format("invalidate cache entry[%s.%s]", name, key));
-                caches.get(name).invalidate(key);
+                Optional.ofNullable(caches.get(name)).ifPresent(c -> c.getCache().invalidate(key));
             }
         }
     }
 
-    private Object readCache(Cache<Object, Object> cache, String key, ProceedingJoinPoint point) throws Throwable {
-        final Optional<?> result = (Optional<?>) cache.get(key, () -> {
-            try {
-                log.fine(String.format("cache[%s] miss on method[%s]", key, point.getSignature().getName()));
-                return Optional.ofNullable(point.proceed());
-            } catch (final Throwable throwable) {
-                log.log(Level.FINE, String.format("error occurs on loading data into cache[%s] on method[%s]", key, point.getSignature().getName()), throwable);
-                return Optional.of(throwable);
+    /**
+     * drops the named cache, and keeps its statistics.
+     */
+    private static void retire(@Nonnull final String name) {
+        Optional.ofNullable(caches.remove(name)).ifPresent(CacheManager::retire);
+    }
+
+    private static void retire(@Nonnull final NamedCache cache) {
+        retiredStats.merge(cache.getDeclaredName(), cache.getCache().stats(), CacheStats::plus);
+    }
+
+    private static void pruneIfDue() {
+        final long now = System.nanoTime();
+        final long due = nextPrune.get();
+        if (now - due >= 0 && nextPrune.compareAndSet(due, now + PRUNE_INTERVAL.toNanos())) {
+            prune(PRUNE_INTERVAL);
+        }
+    }
+
+    /**
+     * drops caches which have no entries and are not used in {@code idle}.
+     */
+    static void prune(@Nonnull final Duration idle) {
+        caches.forEach((name, cache) -> {
+            cache.getCache().cleanUp();
+            if (cache.getCache().size() == 0 && cache.isIdle(idle) && caches.remove(name, cache)) {
+                log.fine(String.format("prune empty cache[%s]", name));
+                retire(cache);
             }
         });
-        if (result.isPresent() && result.get() instanceof Throwable) {
-            cache.invalidate(key);
-            throw (Throwable) result.get();
-        } else {
-            return result.orElse(null);
+    }
+
+    static int countCaches() {
+        return caches.size();
+    }
+
+    /**
+     * statistics(hits, misses, load time, evictions...) of all named caches since start, including the invalidated/pruned ones,
+     * keyed by declared cache names, so that caches of the same dynamic name (e.g. per subscription) are summed up.
+     */
+    @Nonnull
+    public static Map<String, CacheStats> getStatistics() {
+        final Map<String, CacheStats> result = new TreeMap<>(retiredStats);
+        caches.values().forEach(cache -> result.merge(cache.getDeclaredName(), cache.getCache().stats(), CacheStats::plus));
+        return result;
+    }
+
+    private Object readCache(Cache<Object, Object> cache, String key, ProceedingJoinPoint point, CachePolicy policy) throws Throwable {
+        final CacheEntry entry;
+        try {
+            entry = (CacheEntry) cache.get(key, () -> {
+                try {
+                    log.fine(String.format("cache[%s] miss on method[%s]", key, point.getSignature().getName()));
+                    return new CacheEntry(Optional.ofNullable(point.proceed()));
+                } catch (final Throwable throwable) {
+                    log.log(Level.FINE, String.format("error occurs on loading data into cache[%s] on method[%s]", key, point.getSignature().getName()), throwable);
+                    // rethrown (wrapped as it may not be an exception), so that nothing is cached and it's counted as load exception.
+                    throw new LoadException(throwable);
+                }
+            });
+        } catch (final ExecutionException e) {
+            throw e.getCause() instanceof LoadException ? e.getCause().getCause() : e;
+        }
+        final Optional<?> result = entry.getValue();
+        if (entry.isStale(policy.getRefreshAfterWrite()) && entry.refreshing.compareAndSet(false, true)) {
+            log.fine(String.format("refreshing stale cache[%s] on method[%s]", key, point.getSignature().getName()));
+            // the join point can not be proceeded once this advice returns, so the method is re-invoked with the same target and args.
+            final Method method = ((MethodSignature) point.getSignature()).getMethod();
+            final Object target = point.getTarget();
+            final Object[] args = point.getArgs();
+            AzureTaskManager.getInstance().runOnPooledThread(() -> {
+                try {
+                    final CacheEntry refreshed = new CacheEntry(Optional.ofNullable(reload(target, method, args)));
+                    // replace only the stale entry, so that entries evicted/rewritten during refreshing are not overwritten.
+                    if (!cache.asMap().replace(key, entry, refreshed)) {
+                        log.fine(String.format("discard refreshed cache[%s] on method[%s], since it's evicted or updated", key, method.getName()));
+                    }
+                } catch (final Throwable throwable) {
+                    log.log(Level.FINE, String.format("error occurs on refreshing cache[%s] on method[%s]", key, method.getName()), throwable);
+                    entry.refreshing.set(false);
+                }
+            });
+        }
+        return result.orElse(null);
+    }
+
+    /**
+     * invokes the cacheable {@code method} through all its advices (e.g. operations) again, only the cache of itself is bypassed.
+     */
+    @Nullable
+    private static Object reload(@Nullable final Object target, @Nonnull final Method method, @Nonnull final Object[] args) throws Throwable {
+        if (!method.isAccessible()) {
+            method.setAccessible(true);
+        }
+        reloading.set(true);
+        try {
+            return method.invoke(target, args);
+        } catch (final InvocationTargetException e) {
+            throw e.getCause();
+        } finally {
+            reloading.remove();
+        }
+    }
+
+    /**
+     * a named cache and its policy, which is resolved once when the cache is created by the first method using it.
+     */
+    @Getter
+    private static class NamedCache {
+        /**
+         * name declared by {@link Cacheable}, which is a template if the name is dynamic.
+         */
+        @Nonnull
+        private final String declaredName;
+        @Nonnull
+        private final CachePolicy declared;
+        @Nonnull
+        private final CachePolicy policy;
+        @Nonnull
+        private final Cache<Object, Object> cache;
+        @Getter(AccessLevel.NONE)
+        private final Set<CachePolicy> conflicts = ConcurrentHashMap.newKeySet();
+        @Getter(AccessLevel.NONE)
+        private volatile long lastAccess = System.nanoTime();
+
+        NamedCache(@Nonnull String declaredName, @Nonnull CachePolicy declared, @Nonnull CachePolicy policy) {
+            this.declaredName = declaredName;
+            this.declared = declared;
+            this.policy = policy;
+            this.cache = policy.newCache();
+        }
+
+        void touch() {
+            this.lastAccess = System.nanoTime();
+        }
+
+        boolean isIdle(@Nonnull Duration idle) {
+            return System.nanoTime() - this.lastAccess >= idle.toNanos();
+        }
+
+        /**
+         * warns (once per policy) if a method declares a policy different from the one this cache is created with.
+         */
+        void checkDeclaredPolicy(@Nonnull String name, @Nonnull CachePolicy declared, @Nonnull String method) {
+            if (declared != this.declared && !declared.equals(this.declared) && this.conflicts.add(declared)) {
+                log.warning(String.format("policy(%s) declared on method[%s] is ignored, since cache[%s] is created with policy(%s)",
+                    declared, method, name, this.declared));
+            }
+        }
+    }
+
+    private static class LoadException extends Exception {
+        LoadException(@Nonnull Throwable cause) {
+            super(cause);
+        }
+    }
+
+    @RequiredArgsConstructor
+    static class CacheEntry {
+        @Getter
+        private final Optional<?> value;
+        private final long writeTime = System.nanoTime();
+        private final AtomicBoolean refreshing = new AtomicBoolean(false);
+
+        boolean isStale(@Nullable Duration refreshAfterWrite) {
+            return Objects.nonNull(refreshAfterWrite) && System.nanoTime() - this.writeTime > refreshAfterWrite.toNanos();
+        }
+    }
+
+    /**
+     * name/key/condition templates of a {@link Cacheable} or {@link CacheEvict} annotated method, compiled on first invocation.
+     */
+    @Getter
+    @RequiredArgsConstructor(access = AccessLevel.PRIVATE)
+    private static class CompiledCacheSpec {
+        @Nonnull
+        private final String declaredName;
+        @Nonnull
+        private final CompiledTemplate name;
+        @Nonnull
+        private final CompiledTemplate key;
+        @Nullable
+        private final CompiledTemplate condition;
+        @Nonnull
+        private final CachePolicy policy;
+
+        boolean evaluateCondition(@Nonnull final MethodInvocation invocation) {
+            if (Objects.isNull(this.condition)) {
+                return true;
+            }
+            return ExpressionUtils.evaluate(this.condition, invocation, true);
+        }
+
+        static CompiledCacheSpec ofCacheable(@Nonnull final Method method) {
+            final Cacheable annotation = method.getAnnotation(Cacheable.class);
+            return of(StringUtils.firstNonBlank(annotation.cacheName(), annotation.value()), annotation.key(), annotation.condition(),
+                CachePolicy.from(annotation));
+        }
+
+        static CompiledCacheSpec ofCacheEvict(@Nonnull final Method method) {
+            final CacheEvict annotation = method.getAnnotation(CacheEvict.class);
+            return of(StringUtils.firstNonBlank(annotation.cacheName(), annotation.value()), annotation.key(), annotation.condition(),
+                CachePolicy.defaultPolicy());
+        }
+
+        private static CompiledCacheSpec of(@Nullable final String name, @Nullable final String key, @Nullable final String condition,
+                                            @Nonnull final CachePolicy policy) {
+            final CompiledTemplate compiledCondition = StringUtils.isBlank(condition) ? null : ExpressionUtils.compileExpression(condition);
+            return new CompiledCacheSpec(StringUtils.defaultString(name), ExpressionUtils.compile(name), ExpressionUtils.compile(key),
+                compiledCondition, policy);
         }
     }
 }
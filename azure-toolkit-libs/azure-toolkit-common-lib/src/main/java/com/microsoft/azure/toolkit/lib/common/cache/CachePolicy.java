@@ -0,0 +1,179 @@
+/*
+ * Copyright (c) Microsoft Corporation. All rights reserved.
+ * Licensed under the MIT License. See License.txt in the project root for license information.
+ */
+
+package com.microsoft.azure.toolkit.lib.common.cache;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.Weigher;
+import lombok.Builder;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.ToString;
+import lombok.extern.java.Log;
+import org.apache.commons.lang3.StringUtils;
+import org.apache.commons.lang3.math.NumberUtils;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.Duration;
+import java.time.format.DateTimeParseException;
+import java.util.Collection;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+
+/**
+ * eviction policy of a named cache managed by {@link CacheManager}.
+ * policies are declared by {@link Cacheable} and can be overridden by properties, loaded from the file specified by system
+ * property {@value #POLICIES_FILE_PROPERTY} or from {@value #POLICIES_RESOURCE} in classpath, e.g.
+ * <pre>
+ * # applies to all caches
+ * default.expireAfterAccess=PT1H
+ * Regions.maximumSize=100
+ * Subscription.expireAfterWrite=PT10M
+ * Subscription.refreshAfterWrite=PT1M
+ * # applies to all caches of the dynamic name, e.g. per subscription
+ * resources/$subscriptionId.maximumWeight=10000
+ * </pre>
+ * overrides are keyed by the names declared by {@link Cacheable} (templates of dynamic names are not rendered), durations are in ISO-8601
+ * format or in seconds.
+ * a named cache is created with the policy of the method first using it, methods sharing a cache should declare the same policy.
+ */
+@Log
+@Getter
+@ToString
+@EqualsAndHashCode
+@Builder(toBuilder = true)
+public class CachePolicy {
+    public static final String POLICIES_FILE_PROPERTY = "azure.toolkit.cache.policies";
+    public static final String POLICIES_RESOURCE = "/azure-toolkit-cache.properties";
+    private static final String DEFAULT = "default";
+    private static final Duration DEFAULT_EXPIRE_AFTER_ACCESS = Duration.ofHours(4);
+    private static final Properties overrides = loadOverrides();
+
+    /**
+     * weighs a cached value by its number of elements if it's a collection/map.
+     */
+    private static final Weigher<Object, Object> ELEMENTS_WEIGHER = (key, value) -> {
+        final Object v = value instanceof CacheManager.CacheEntry ? ((CacheManager.CacheEntry) value).getValue().orElse(null) : value;
+        if (v instanceof Collection) {
+            return Math.max(1, ((Collection<?>) v).size());
+        } else if (v instanceof Map) {
+            return Math.max(1, ((Map<?, ?>) v).size());
+        }
+        return 1;
+    };
+
+    @Builder.Default
+    private final long maximumSize = -1;
+    @Builder.Default
+    private final long maximumWeight = -1;
+    @Nullable
+    private final Duration expireAfterAccess;
+    @Nullable
+    private final Duration expireAfterWrite;
+    @Nullable
+    private final Duration refreshAfterWrite;
+
+    @Nonnull
+    Cache<Object, Object> newCache() {
+        final CacheBuilder<Object, Object> builder = CacheBuilder.newBuilder().recordStats();
+        if (this.maximumSize >= 0) {
+            builder.maximumSize(this.maximumSize);
+        } else if (this.maximumWeight >= 0) {
+            builder.maximumWeight(this.maximumWeight).weigher(ELEMENTS_WEIGHER);
+        } else { // unbounded caches are left to GC under memory pressure.
+            builder.softValues();
+        }
+        if (Objects.isNull(this.expireAfterAccess) && Objects.isNull(this.expireAfterWrite)) {
+            builder.expireAfterAccess(DEFAULT_EXPIRE_AFTER_ACCESS.toMillis(), TimeUnit.MILLISECONDS);
+        }
+        Optional.ofNullable(this.expireAfterAccess).ifPresent(d -> builder.expireAfterAccess(d.toMillis(), TimeUnit.MILLISECONDS));
+        Optional.ofNullable(this.expireAfterWrite).ifPresent(d -> builder.expireAfterWrite(d.toMillis(), TimeUnit.MILLISECONDS));
+        return builder.build();
+    }
+
+    @Nonnull
+    public static CachePolicy from(@Nonnull Cacheable annotation) {
+        final TimeUnit unit = annotation.timeUnit();
+        return CachePolicy.builder()
+            .maximumSize(annotation.maximumSize())
+            .maximumWeight(annotation.maximumWeight())
+            .expireAfterAccess(toDuration(annotation.expireAfterAccess(), unit))
+            .expireAfterWrite(toDuration(annotation.expireAfterWrite(), unit))
+            .refreshAfterWrite(toDuration(annotation.refreshAfterWrite(), unit))
+            .build();
+    }
+
+    @Nonnull
+    public static CachePolicy defaultPolicy() {
+        return CachePolicy.builder().build();
+    }
+
+    /**
+     * apply the overrides of the named cache (or the default overrides) defined in properties on top of {@code declared}.
+     *
+     * @param cacheName the name declared by {@link Cacheable}, which is a template if the name is dynamic.
+     */
+    @Nonnull
+    public static CachePolicy resolve(@Nonnull String cacheName, @Nonnull CachePolicy declared) {
+        if (overrides.isEmpty()) {
+            return declared;
+        }
+        return override(override(declared.toBuilder(), DEFAULT), cacheName).build();
+    }
+
+    @Nonnull
+    private static CachePolicyBuilder override(@Nonnull CachePolicyBuilder builder, @Nonnull String prefix) {
+        Optional.ofNullable(overrides.getProperty(prefix + ".maximumSize")).map(v -> NumberUtils.toLong(v, -1)).ifPresent(builder::maximumSize);
+        Optional.ofNullable(overrides.getProperty(prefix + ".maximumWeight")).map(v -> NumberUtils.toLong(v, -1)).ifPresent(builder::maximumWeight);
+        Optional.ofNullable(overrides.getProperty(prefix + ".expireAfterAccess")).map(CachePolicy::parseDuration).ifPresent(builder::expireAfterAccess);
+        Optional.ofNullable(overrides.getProperty(prefix + ".expireAfterWrite")).map(CachePolicy::parseDuration).ifPresent(builder::expireAfterWrite);
+        Optional.ofNullable(overrides.getProperty(prefix + ".refreshAfterWrite")).map(CachePolicy::parseDuration).ifPresent(builder::refreshAfterWrite);
+        return builder;
+    }
+
+    @Nullable
+    private static Duration toDuration(long value, @Nonnull TimeUnit unit) {
+        return value < 0 ? null : Duration.ofMillis(unit.toMillis(value));
+    }
+
+    @Nullable
+    private static Duration parseDuration(@Nonnull String value) {
+        final String trimmed = value.trim();
+        if (NumberUtils.isDigits(trimmed)) {
+            return Duration.ofSeconds(Long.parseLong(trimmed));
+        }
+        try {
+            return Duration.parse(trimmed);
+        } catch (final DateTimeParseException e) {
+            log.warning(String.format("invalid cache policy duration: %s", value));
+            return null;
+        }
+    }
+
+    @Nonnull
+    private static Properties loadOverrides() {
+        final Properties properties = new Properties();
+        final String file = System.getProperty(POLICIES_FILE_PROPERTY);
+        try (InputStream input = StringUtils.isNotBlank(file) && new File(file).isFile() ?
+            new FileInputStream(file) : CachePolicy.class.getResourceAsStream(POLICIES_RESOURCE)) {
+            if (Objects.nonNull(input)) {
+                properties.load(input);
+            }
+        } catch (final IOException e) {
+            log.log(Level.WARNING, "failed to load cache policies", e);
+        }
+        return properties;
+    }
+}
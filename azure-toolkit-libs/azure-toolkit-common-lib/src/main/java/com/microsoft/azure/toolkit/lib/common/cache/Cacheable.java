@@ -11,6 +11,7 @@ import java.lang.annotation.Inherited;
 import java.lang.annotation.Retention;
 import java.lang.annotation.RetentionPolicy;
 import java.lang.annotation.Target;
+import java.util.concurrent.TimeUnit;
 
 @Target(value = {ElementType.METHOD})
 @Retention(value = RetentionPolicy.RUNTIME)
@@ -42,4 +43,34 @@ public @interface Cacheable {
      * e.g. groovy expression: {@code "this.isLoading()" } {@code "this.loading" },  {@code "this.subscriptionId=='xxx'" }
      */
     String condition() default "";
+
+    /**
+     * maximum number of entries in the named cache, negative means unbounded(values are softly referenced).
+     */
+    long maximumSize() default -1;
+
+    /**
+     * maximum total weight of the named cache, a value weighs its number of elements if it's a collection/map, otherwise 1.
+     * negative means unbounded, ignored if {@link #maximumSize()} is specified.
+     */
+    long maximumWeight() default -1;
+
+    /**
+     * entries expire after this duration(in {@link #timeUnit()}) since last access, negative means not specified.
+     * entries expire after 4 hours since last access if neither this nor {@link #expireAfterWrite()} is specified.
+     */
+    long expireAfterAccess() default -1;
+
+    /**
+     * entries expire after this duration(in {@link #timeUnit()}) since they are written, negative means not specified.
+     */
+    long expireAfterWrite() default -1;
+
+    /**
+     * entries older than this duration(in {@link #timeUnit()}) are reloaded in background while the stale value is returned,
+     * negative means never.
+     */
+    long refreshAfterWrite() default -1;
+
+    TimeUnit timeUnit() default TimeUnit.SECONDS;
 }
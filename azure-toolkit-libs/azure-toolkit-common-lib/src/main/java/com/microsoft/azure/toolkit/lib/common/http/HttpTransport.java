@@ -0,0 +1,184 @@
+/*
+ * Copyright (c) Microsoft Corporation. All rights reserved.
+ * Licensed under the MIT License. See License.txt in the project root for license information.
+ */
+
+package com.microsoft.azure.toolkit.lib.common.http;
+
+import com.microsoft.azure.toolkit.lib.Azure;
+import io.netty.resolver.AddressResolverGroup;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.ToString;
+import lombok.extern.slf4j.Slf4j;
+import reactor.core.publisher.Mono;
+import reactor.netty.Connection;
+import reactor.netty.ConnectionObserver;
+import reactor.netty.http.HttpProtocol;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
+import reactor.netty.transport.TransportConfig;
+
+import javax.annotation.Nonnull;
+import java.net.SocketAddress;
+import java.time.Duration;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * the http transport (connection pool) shared by all sdk clients and direct http calls of the toolkit,
+ * configured by {@link com.microsoft.azure.toolkit.lib.AzureConfiguration#getHttpTransport()} when first used.
+ * pool settings changed after that are ignored (with a warning), since sdk clients already hold the pool.
+ */
+@Slf4j
+public final class HttpTransport {
+    private static final String POOL_NAME = "azure-toolkit";
+    private static volatile HttpTransport instance;
+
+    @Getter
+    private final HttpTransportConfig config;
+    @Getter
+    private final HttpTransportMetrics metrics;
+    private final ConnectionProvider provider;
+    private final PoolSettings settings;
+    private final Set<PoolSettings> ignored = ConcurrentHashMap.newKeySet();
+
+    private HttpTransport(@Nonnull HttpTransportConfig config) {
+        this.config = config;
+        this.settings = PoolSettings.of(config);
+        this.metrics = new HttpTransportMetrics();
+        final ConnectionProvider.Builder builder = ConnectionProvider.builder(POOL_NAME)
+            .maxConnections(config.getMaxConnections())
+            .pendingAcquireTimeout(config.getPendingAcquireTimeout())
+            .maxIdleTime(config.getMaxIdleTime())
+            .evictInBackground(config.getEvictionInterval())
+            .metrics(true, () -> this.metrics);
+        if (config.getPendingAcquireMaxCount() > 0) {
+            builder.pendingAcquireMaxCount(config.getPendingAcquireMaxCount());
+        }
+        this.provider = new MeteredConnectionProvider(builder.build(), this.metrics);
+        log.debug("http transport: maxConnections={}, maxIdleTime={}, http2={}", config.getMaxConnections(), config.getMaxIdleTime(), config.isHttp2Enabled());
+    }
+
+    @Nonnull
+    public static HttpTransport getInstance() {
+        final HttpTransportConfig config = Azure.az().config().getHttpTransport();
+        if (instance == null) {
+            synchronized (HttpTransport.class) {
+                if (instance == null) {
+                    instance = new HttpTransport(Objects.isNull(config) ? new HttpTransportConfig() : config);
+                }
+            }
+        }
+        if (Objects.nonNull(config)) {
+            instance.checkConfig(config);
+        }
+        return instance;
+    }
+
+    /**
+     * @return false and warns (once per settings) if pool settings of {@code config} differ from the ones the pool is created with.
+     */
+    boolean checkConfig(@Nonnull HttpTransportConfig config) {
+        final PoolSettings current = PoolSettings.of(config);
+        if (current.equals(this.settings)) {
+            return true;
+        }
+        if (this.ignored.add(current)) {
+            log.warn("http connection pool settings {} are ignored, since the shared pool is already created with {}, " +
+                "they should be applied before the first http request.", current, this.settings);
+        }
+        return false;
+    }
+
+    /**
+     * @return a new reactor netty client backed by the shared connection pool.
+     */
+    @Nonnull
+    public HttpClient createHttpClient() {
+        final HttpClient client = HttpClient.create(this.provider).metrics(true, () -> this.metrics);
+        return this.config.isHttp2Enabled() ? client.protocol(HttpProtocol.H2, HttpProtocol.HTTP11) : client;
+    }
+
+    @Nonnull
+    public static Map<String, HttpTransportMetrics.HostStatistics> getStatistics() {
+        return getInstance().metrics.getStatistics();
+    }
+
+    /**
+     * settings baked into the connection pool when it's created.
+     */
+    @ToString
+    @EqualsAndHashCode
+    @RequiredArgsConstructor
+    private static class PoolSettings {
+        private final int maxConnections;
+        private final int pendingAcquireMaxCount;
+        private final Duration pendingAcquireTimeout;
+        private final Duration maxIdleTime;
+        private final Duration evictionInterval;
+
+        static PoolSettings of(@Nonnull HttpTransportConfig config) {
+            return new PoolSettings(config.getMaxConnections(), config.getPendingAcquireMaxCount(), config.getPendingAcquireTimeout(),
+                config.getMaxIdleTime(), config.getEvictionInterval());
+        }
+    }
+
+    /**
+     * records how long it takes to acquire a connection from the pool, including waiting for a free connection.
+     */
+    @RequiredArgsConstructor
+    private static class MeteredConnectionProvider implements ConnectionProvider {
+        private final ConnectionProvider delegate;
+        private final HttpTransportMetrics metrics;
+
+        @Override
+        public Mono<? extends Connection> acquire(TransportConfig config, ConnectionObserver observer,
+                                                  Supplier<? extends SocketAddress> remoteAddress, AddressResolverGroup<?> resolverGroup) {
+            return Mono.defer(() -> {
+                final long start = System.nanoTime();
+                return this.delegate.acquire(config, observer, remoteAddress, resolverGroup)
+                    .doOnSuccess(c -> this.metrics.recordAcquire(remoteAddress.get(), System.nanoTime() - start));
+            });
+        }
+
+        @Override
+        public void disposeWhen(@Nonnull SocketAddress address) {
+            this.delegate.disposeWhen(address);
+        }
+
+        @Override
+        public void dispose() {
+            this.delegate.dispose();
+        }
+
+        @Override
+        public Mono<Void> disposeLater() {
+            return this.delegate.disposeLater();
+        }
+
+        @Override
+        public boolean isDisposed() {
+            return this.delegate.isDisposed();
+        }
+
+        @Override
+        public int maxConnections() {
+            return this.delegate.maxConnections();
+        }
+
+        @Override
+        public Map<SocketAddress, Integer> maxConnectionsPerHost() {
+            return this.delegate.maxConnectionsPerHost();
+        }
+
+        @Override
+        public String name() {
+            return this.delegate.name();
+        }
+    }
+}
@@ -0,0 +1,74 @@
+/*
+ * Copyright (c) Microsoft Corporation. All rights reserved.
+ * Licensed under the MIT License. See License.txt in the project root for license information.
+ */
+
+package com.microsoft.azure.toolkit.lib.common.http;
+
+import lombok.Getter;
+import lombok.Setter;
+import lombok.extern.java.Log;
+import org.apache.commons.lang3.BooleanUtils;
+import org.apache.commons.lang3.StringUtils;
+import org.apache.commons.lang3.math.NumberUtils;
+import reactor.netty.resources.ConnectionProvider;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.time.Duration;
+import java.time.format.DateTimeParseException;
+
+/**
+ * limits of the shared http transport, defaults can be overridden by system properties prefixed with
+ * {@value #PROPERTY_PREFIX}, e.g. {@code -Dazure.http.maxConnections=100 -Dazure.http.maxIdleTime=PT30S}.
+ * durations are in ISO-8601 format or in seconds.
+ */
+@Log
+@Getter
+@Setter
+public class HttpTransportConfig {
+    public static final String PROPERTY_PREFIX = "azure.http.";
+
+    /**
+     * max connections per host
+     */
+    private int maxConnections = intProperty("maxConnections", ConnectionProvider.DEFAULT_POOL_MAX_CONNECTIONS);
+    /**
+     * max pending acquires per host, {@code -1} to use the default (2 * max connections)
+     */
+    private int pendingAcquireMaxCount = intProperty("pendingAcquireMaxCount", -1);
+    @Nonnull
+    private Duration pendingAcquireTimeout = durationProperty("pendingAcquireTimeout", Duration.ofMillis(ConnectionProvider.DEFAULT_POOL_ACQUIRE_TIMEOUT));
+    /**
+     * idle connections are closed (checked every {@code evictionInterval}) before they are dropped silently by load balancers.
+     */
+    @Nonnull
+    private Duration maxIdleTime = durationProperty("maxIdleTime", Duration.ofSeconds(60));
+    @Nonnull
+    private Duration evictionInterval = durationProperty("evictionInterval", Duration.ofSeconds(30));
+    /**
+     * response timeout of sdk requests, {@code null} to use the sdk default.
+     */
+    @Nullable
+    private Duration responseTimeout = durationProperty("responseTimeout", null);
+    private boolean http2Enabled = BooleanUtils.toBoolean(System.getProperty(PROPERTY_PREFIX + "http2"));
+
+    private static int intProperty(@Nonnull String name, int defaultValue) {
+        return NumberUtils.toInt(System.getProperty(PROPERTY_PREFIX + name), defaultValue);
+    }
+
+    private static Duration durationProperty(@Nonnull String name, @Nullable Duration defaultValue) {
+        final String value = StringUtils.trim(System.getProperty(PROPERTY_PREFIX + name));
+        if (StringUtils.isBlank(value)) {
+            return defaultValue;
+        } else if (NumberUtils.isDigits(value)) {
+            return Duration.ofSeconds(Long.parseLong(value));
+        }
+        try {
+            return Duration.parse(value);
+        } catch (final DateTimeParseException e) {
+            log.warning(String.format("invalid duration of http transport property(%s): %s", name, value));
+            return defaultValue;
+        }
+    }
+}
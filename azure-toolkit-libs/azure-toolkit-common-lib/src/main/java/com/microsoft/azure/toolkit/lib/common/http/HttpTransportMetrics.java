@@ -0,0 +1,148 @@
+/*
+ * Copyright (c) Microsoft Corporation. All rights reserved.
+ * Licensed under the MIT License. See License.txt in the project root for license information.
+ */
+
+package com.microsoft.azure.toolkit.lib.common.http;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import reactor.netty.http.client.HttpClientMetricsRecorder;
+import reactor.netty.resources.ConnectionPoolMetrics;
+import reactor.netty.resources.ConnectionProvider;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.time.Duration;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * per host metrics of the shared http transport: connections of the pool, acquire latency and traffic.
+ */
+public class HttpTransportMetrics implements ConnectionProvider.MeterRegistrar, HttpClientMetricsRecorder {
+    private final Map<String, HostMetrics> hosts = new ConcurrentHashMap<>();
+
+    @Override
+    public void registerMetrics(@Nonnull String poolName, @Nonnull String id, @Nonnull SocketAddress remoteAddress, @Nonnull ConnectionPoolMetrics metrics) {
+        this.host(remoteAddress).pools.put(id, metrics);
+    }
+
+    void recordAcquire(@Nullable SocketAddress remoteAddress, long nanos) {
+        final HostMetrics host = this.host(remoteAddress);
+        host.acquires.incrementAndGet();
+        host.acquireNanos.addAndGet(nanos);
+    }
+
+    @Override
+    public void recordDataReceived(@Nonnull SocketAddress remoteAddress, @Nonnull String uri, long bytes) {
+        this.host(remoteAddress).bytesIn.addAndGet(bytes);
+    }
+
+    @Override
+    public void recordDataSent(@Nonnull SocketAddress remoteAddress, @Nonnull String uri, long bytes) {
+        this.host(remoteAddress).bytesOut.addAndGet(bytes);
+    }
+
+    @Override
+    public void incrementErrorsCount(@Nonnull SocketAddress remoteAddress, @Nonnull String uri) {
+        this.host(remoteAddress).errors.incrementAndGet();
+    }
+
+    // traffic is recorded per uri above, channel level records would count it twice.
+    @Override
+    public void recordDataReceived(@Nonnull SocketAddress remoteAddress, long bytes) {
+    }
+
+    @Override
+    public void recordDataSent(@Nonnull SocketAddress remoteAddress, long bytes) {
+    }
+
+    @Override
+    public void incrementErrorsCount(@Nonnull SocketAddress remoteAddress) {
+    }
+
+    @Override
+    public void recordDataReceivedTime(SocketAddress remoteAddress, String uri, String method, String status, Duration time) {
+    }
+
+    @Override
+    public void recordDataSentTime(SocketAddress remoteAddress, String uri, String method, Duration time) {
+    }
+
+    @Override
+    public void recordResponseTime(SocketAddress remoteAddress, String uri, String method, String status, Duration time) {
+    }
+
+    @Override
+    public void recordTlsHandshakeTime(SocketAddress remoteAddress, Duration time, String status) {
+    }
+
+    @Override
+    public void recordConnectTime(SocketAddress remoteAddress, Duration time, String status) {
+    }
+
+    @Override
+    public void recordResolveAddressTime(SocketAddress remoteAddress, Duration time, String status) {
+    }
+
+    /**
+     * @return snapshot of metrics by host
+     */
+    @Nonnull
+    public Map<String, HostStatistics> getStatistics() {
+        final Map<String, HostStatistics> result = new TreeMap<>();
+        this.hosts.forEach((host, metrics) -> result.put(host, metrics.snapshot()));
+        return result;
+    }
+
+    @Nonnull
+    private HostMetrics host(@Nullable SocketAddress address) {
+        return this.hosts.computeIfAbsent(toHost(address), h -> new HostMetrics());
+    }
+
+    @Nonnull
+    private static String toHost(@Nullable SocketAddress address) {
+        if (address instanceof InetSocketAddress) {
+            final InetSocketAddress inet = (InetSocketAddress) address;
+            return String.format("%s:%d", inet.getHostString(), inet.getPort());
+        }
+        return Objects.toString(address);
+    }
+
+    private static class HostMetrics {
+        private final Map<String, ConnectionPoolMetrics> pools = new ConcurrentHashMap<>();
+        private final AtomicLong acquires = new AtomicLong();
+        private final AtomicLong acquireNanos = new AtomicLong();
+        private final AtomicLong bytesIn = new AtomicLong();
+        private final AtomicLong bytesOut = new AtomicLong();
+        private final AtomicLong errors = new AtomicLong();
+
+        HostStatistics snapshot() {
+            final int active = this.pools.values().stream().mapToInt(ConnectionPoolMetrics::acquiredSize).sum();
+            final int idle = this.pools.values().stream().mapToInt(ConnectionPoolMetrics::idleSize).sum();
+            final int pending = this.pools.values().stream().mapToInt(ConnectionPoolMetrics::pendingAcquireSize).sum();
+            final long count = this.acquires.get();
+            final Duration average = Duration.ofNanos(count == 0 ? 0 : this.acquireNanos.get() / count);
+            return new HostStatistics(active, idle, pending, count, average, this.bytesIn.get(), this.bytesOut.get(), this.errors.get());
+        }
+    }
+
+    @Getter
+    @RequiredArgsConstructor
+    public static class HostStatistics {
+        private final int activeConnections;
+        private final int idleConnections;
+        private final int pendingAcquires;
+        private final long acquireCount;
+        private final Duration averageAcquireTime;
+        private final long bytesIn;
+        private final long bytesOut;
+        private final long errors;
+    }
+}
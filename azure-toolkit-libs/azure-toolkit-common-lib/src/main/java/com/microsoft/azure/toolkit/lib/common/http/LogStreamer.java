@@ -0,0 +1,334 @@
+/*
+ * Copyright (c) Microsoft Corporation. All rights reserved.
+ * Licensed under the MIT License. See License.txt in the project root for license information.
+ */
+
+package com.microsoft.azure.toolkit.lib.common.http;
+
+import io.netty.handler.codec.http.HttpHeaders;
+import io.netty.handler.timeout.ReadTimeoutException;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.math.NumberUtils;
+import reactor.core.publisher.BufferOverflowStrategy;
+import reactor.core.publisher.Flux;
+import reactor.netty.http.client.HttpClient;
+import reactor.util.retry.Retry;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+/**
+ * streams log lines from one or more sources (e.g. instances of an app) with bounded memory:
+ * <ul>
+ *     <li>lines are buffered up to {@code bufferSize} (system property {@value #BUFFER_SIZE_PROPERTY}) for slow consumers, the
+ *     oldest lines are dropped when the buffer is full instead of slowing down or growing without bound.</li>
+ *     <li>sources disconnected by transient failures (or closed by the server when {@code follow} is set) are reconnected with
+ *     backoff, resuming from the time of the last received line. lines replayed by the reconnection are skipped if the
+ *     source knows when they are logged, see {@link Source#timestampOf(String)}.</li>
+ *     <li>received and dropped lines are counted in {@link Metrics}.</li>
+ * </ul>
+ */
+@Slf4j
+@Builder
+public class LogStreamer {
+    public static final String BUFFER_SIZE_PROPERTY = "azure.logstream.bufferSize";
+    private static final Pattern LEADING_TIMESTAMP = Pattern.compile("^(\\d{4}-\\d{2}-\\d{2})[T ](\\d{2}:\\d{2}:\\d{2}(?:[.,]\\d{1,9})?)(Z|[+-]\\d{2}:?\\d{2})?");
+
+    @Builder.Default
+    private final int bufferSize = Math.max(1, NumberUtils.toInt(System.getProperty(BUFFER_SIZE_PROPERTY), 10000));
+    /**
+     * max consecutive reconnects without receiving any line.
+     */
+    @Builder.Default
+    private final int maxReconnects = 5;
+    @Builder.Default
+    private final Duration reconnectDelay = Duration.ofSeconds(1);
+    /**
+     * reconnect when the server ends the stream, for followed streams.
+     */
+    @Builder.Default
+    private final boolean follow = true;
+    @Getter
+    private final Metrics metrics = new Metrics();
+
+    @Nonnull
+    public Flux<String> stream(@Nonnull Source source) {
+        return this.bounded(this.connect(source));
+    }
+
+    /**
+     * streams all {@code sources} into one flux, each line is prefixed by the name of its source, e.g. {@code [instance-0] }.
+     */
+    @Nonnull
+    public Flux<String> stream(@Nonnull Map<String, Source> sources) {
+        final List<Flux<String>> streams = sources.entrySet().stream()
+            .map(e -> this.connect(e.getValue()).map(line -> String.format("[%s] %s", e.getKey(), line)))
+            .collect(Collectors.toList());
+        return this.bounded(Flux.merge(streams));
+    }
+
+    private Flux<String> bounded(@Nonnull Flux<String> lines) {
+        return Flux.defer(() -> {
+            this.metrics.start();
+            return lines.doOnNext(line -> this.metrics.received.incrementAndGet())
+                .onBackpressureBuffer(this.bufferSize, line -> this.metrics.dropped.incrementAndGet(), BufferOverflowStrategy.DROP_OLDEST);
+        });
+    }
+
+    private Flux<String> connect(@Nonnull Source source) {
+        final AtomicReference<Instant> lastLineAt = new AtomicReference<>();
+        final ReplayFilter replays = new ReplayFilter(source);
+        final Flux<String> connection = Flux.defer(() -> {
+            final Flux<String> lines = source.connect(lastLineAt.get())
+                .filter(replays.reconnected())
+                .doOnNext(line -> lastLineAt.set(Instant.now()));
+            return this.follow ? lines.concatWith(Flux.error(new Disconnected(true))) : lines;
+        });
+        return connection
+            .retryWhen(Retry.backoff(this.maxReconnects, this.reconnectDelay)
+                .transientErrors(true)
+                .filter(LogStreamer::isTransient)
+                .doBeforeRetry(signal -> {
+                    this.metrics.reconnects.incrementAndGet();
+                    log.debug("[log stream]: reconnecting after {}", signal.failure().toString());
+                })
+                .onRetryExhaustedThrow((spec, signal) -> signal.failure()))
+            .onErrorResume(Disconnected.class, e -> Flux.empty());
+    }
+
+    private static boolean isTransient(@Nonnull Throwable e) {
+        // `ReadTimeoutException` is raised by the response timeout of http sources, e.g. when nothing is logged for a while.
+        return e instanceof Disconnected ? ((Disconnected) e).reconnect :
+            e instanceof IOException || e instanceof TimeoutException || e instanceof ReadTimeoutException;
+    }
+
+    /**
+     * @return time of the timestamp leading {@code line} in ISO 8601 like formats, e.g. {@code 2023-01-01T08:00:00.123+08:00} or
+     * {@code 2023-01-01 08:00:00.123} (default formats of spring boot 3 and 2), timestamps without offset are taken as UTC, which
+     * is enough to compare lines of the same source.
+     */
+    @Nullable
+    public static Instant leadingTimestamp(@Nonnull String line) {
+        final Matcher matcher = LEADING_TIMESTAMP.matcher(line);
+        if (!matcher.find()) {
+            return null;
+        }
+        try {
+            final LocalDateTime time = LocalDateTime.parse(matcher.group(1) + "T" + matcher.group(2).replace(',', '.'));
+            return time.toInstant(matcher.group(3) == null ? ZoneOffset.UTC : ZoneOffset.of(matcher.group(3)));
+        } catch (final RuntimeException e) {
+            return null;
+        }
+    }
+
+    /**
+     * @param endpoint endpoint to (re)connect, given the time of the last received line ({@code null} for the first connection).
+     * @return source streaming from {@code endpoint} through the shared {@link HttpTransport}.
+     */
+    @Nonnull
+    public static Source http(@Nonnull Function<Instant, URI> endpoint, @Nonnull Consumer<? super HttpHeaders> headers) {
+        return http(HttpTransport.getInstance().createHttpClient().keepAlive(true), endpoint, headers);
+    }
+
+    /**
+     * @return source emitting lines (including the line terminator) of the response body of GET {@code endpoint}, responses other
+     * than 200 end the stream without reconnecting, except 429 and 5xx, which are treated as transient disconnects.
+     */
+    @Nonnull
+    public static Source http(@Nonnull HttpClient client, @Nonnull Function<Instant, URI> endpoint, @Nonnull Consumer<? super HttpHeaders> headers) {
+        return resumeFrom -> client.headers(headers)
+            .responseTimeout(Duration.ofMinutes(10))
+            .get()
+            .uri(endpoint.apply(resumeFrom))
+            .response((resp, content) -> {
+                final int status = resp.status().code();
+                if (status == 200) {
+                    return lines(content.asByteArray());
+                } else if (status == 429 || status >= 500) {
+                    return Flux.error(new Disconnected(true));
+                }
+                log.debug("[log stream]: {} responded with status {}", resp.uri(), status);
+                return Flux.error(new Disconnected(false));
+            });
+    }
+
+    /**
+     * splits {@code chunks} into lines by '\n', the line terminator is kept so that the lines add up to the original content.
+     */
+    @Nonnull
+    static Flux<String> lines(@Nonnull Flux<byte[]> chunks) {
+        return Flux.defer(() -> {
+            final ByteArrayOutputStream pending = new ByteArrayOutputStream();
+            return chunks.concatMapIterable(chunk -> {
+                final List<String> lines = new ArrayList<>();
+                int start = 0;
+                for (int i = 0; i < chunk.length; i++) {
+                    if (chunk[i] == '\n') {
+                        pending.write(chunk, start, i + 1 - start);
+                        lines.add(new String(pending.toByteArray(), StandardCharsets.UTF_8));
+                        pending.reset();
+                        start = i + 1;
+                    }
+                }
+                pending.write(chunk, start, chunk.length - start);
+                return lines;
+            }).concatWith(Flux.defer(() -> pending.size() > 0 ? Flux.just(new String(pending.toByteArray(), StandardCharsets.UTF_8)) : Flux.empty()));
+        });
+    }
+
+    @FunctionalInterface
+    public interface Source {
+        /**
+         * @param resumeFrom time of the last received line, {@code null} for the first connection.
+         * @return lines of the stream, completes when disconnected.
+         */
+        @Nonnull
+        Flux<String> connect(@Nullable Instant resumeFrom);
+
+        /**
+         * @return time {@code line} is logged at, {@code null} if unknown. it's used to skip lines replayed after reconnecting.
+         */
+        @Nullable
+        default Instant timestampOf(@Nonnull String line) {
+            return null;
+        }
+
+        /**
+         * @return this source whose lines are timestamped by {@code timestamps}, e.g. {@link LogStreamer#leadingTimestamp(String)}.
+         */
+        @Nonnull
+        default Source withTimestamps(@Nonnull Function<String, Instant> timestamps) {
+            final Source origin = this;
+            return new Source() {
+                @Nonnull
+                @Override
+                public Flux<String> connect(@Nullable Instant resumeFrom) {
+                    return origin.connect(resumeFrom);
+                }
+
+                @Nullable
+                @Override
+                public Instant timestampOf(@Nonnull String line) {
+                    return timestamps.apply(line);
+                }
+            };
+        }
+    }
+
+    /**
+     * skips lines replayed at the start of a reconnection: lines logged before the last received one, or at the same time and
+     * already received. lines without timestamp (e.g. stack traces) are taken as logged at the time of the previous line, and
+     * are kept if there is no such line.
+     */
+    private static class ReplayFilter {
+        private final Source source;
+        private final Set<String> receivedAtLast = new HashSet<>();
+        private Instant last;
+
+        ReplayFilter(@Nonnull Source source) {
+            this.source = source;
+        }
+
+        /**
+         * @return filter of the lines of a new connection, it stops skipping at the first line logged after the last received
+         * one. connections of a source are sequential, so it's not synchronized.
+         */
+        Predicate<String> reconnected() {
+            final boolean[] replaying = {this.last != null};
+            final Instant[] previous = {null};
+            return line -> {
+                final Instant timestamp = Optional.ofNullable(this.source.timestampOf(line)).orElse(previous[0]);
+                previous[0] = timestamp;
+                if (timestamp == null) {
+                    return true;
+                }
+                final int order = this.last == null ? 1 : timestamp.compareTo(this.last);
+                if (replaying[0] && (order < 0 || order == 0 && this.receivedAtLast.contains(line))) {
+                    return false;
+                }
+                replaying[0] = replaying[0] && order <= 0;
+                if (order > 0) {
+                    this.last = timestamp;
+                    this.receivedAtLast.clear();
+                }
+                if (order >= 0) {
+                    this.receivedAtLast.add(line);
+                }
+                return true;
+            };
+        }
+    }
+
+    public static class Metrics {
+        private final AtomicLong received = new AtomicLong();
+        private final AtomicLong dropped = new AtomicLong();
+        private final AtomicLong reconnects = new AtomicLong();
+        private final AtomicLong startNanos = new AtomicLong();
+
+        private void start() {
+            this.startNanos.compareAndSet(0, System.nanoTime());
+        }
+
+        public long getReceivedLines() {
+            return this.received.get();
+        }
+
+        /**
+         * @return lines dropped because the consumer can not keep up.
+         */
+        public long getDroppedLines() {
+            return this.dropped.get();
+        }
+
+        public long getReconnects() {
+            return this.reconnects.get();
+        }
+
+        /**
+         * @return received lines per second since the stream is subscribed.
+         */
+        public double getLinesPerSecond() {
+            final long start = this.startNanos.get();
+            final long elapsed = System.nanoTime() - start;
+            return start == 0 || elapsed <= 0 ? 0 : this.received.get() * 1e9 / elapsed;
+        }
+    }
+
+    /**
+     * the stream is disconnected (or ended by the server), it ends quietly if not reconnected.
+     */
+    private static class Disconnected extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+        private final boolean reconnect;
+
+        Disconnected(boolean reconnect) {
+            super("log stream is disconnected", null, false, false);
+            this.reconnect = reconnect;
+        }
+    }
+}
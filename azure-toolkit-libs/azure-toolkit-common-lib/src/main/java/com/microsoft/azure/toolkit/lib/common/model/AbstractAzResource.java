@@ -16,6 +16,7 @@ import com.microsoft.azure.toolkit.lib.common.exception.AzureToolkitRuntimeExcep
 import com.microsoft.azure.toolkit.lib.common.operation.AzureOperation;
 import com.microsoft.azure.toolkit.lib.common.task.AzureTaskManager;
 import com.microsoft.azure.toolkit.lib.common.utils.Debouncer;
+import com.microsoft.azure.toolkit.lib.common.utils.SingleFlight;
 import com.microsoft.azure.toolkit.lib.common.utils.TailingDebouncer;
 import com.microsoft.azure.toolkit.lib.resource.AzureResources;
 import com.microsoft.azure.toolkit.lib.resource.GenericResourceModule;
@@ -59,7 +60,9 @@ public abstract class AbstractAzResource<T extends AbstractAzResource<T, P, R>,
     final AtomicReference<R> remoteRef;
     @Nonnull
     @ToString.Include
-    final AtomicLong syncTimeRef; // 0:loading, <0:invalidated
+    final AtomicLong syncTimeRef; // <0:invalidated
+    @Nonnull
+    final SingleFlight<R> loader;
     @Nonnull
     @ToString.Include
     final AtomicReference<String> statusRef;
@@ -72,6 +75,7 @@ public abstract class AbstractAzResource<T extends AbstractAzResource<T, P, R>,
         this.module = module;
         this.remoteRef = new AtomicReference<>();
         this.syncTimeRef = new AtomicLong(-1);
+        this.loader = new SingleFlight<>();
         this.statusRef = new AtomicReference<>(Status.UNKNOWN);
     }
 
@@ -94,6 +98,7 @@ public abstract class AbstractAzResource<T extends AbstractAzResource<T, P, R>,
         this.remoteRef = origin.remoteRef;
         this.statusRef = origin.statusRef;
         this.syncTimeRef = origin.syncTimeRef;
+        this.loader = origin.loader;
     }
 
     public boolean exists() {
@@ -120,31 +125,30 @@ public abstract class AbstractAzResource<T extends AbstractAzResource<T, P, R>,
     @Override
     @Nullable
     public final R getRemote() {
-        synchronized (this.syncTimeRef) {
-            while (this.syncTimeRef.get() == 0) {
-                try {
-                    this.syncTimeRef.wait();
-                } catch (InterruptedException e) {
-                    e.printStackTrace();
-                    this.syncTimeRef.set(-1);
-                }
-            }
-            if (this.syncTimeRef.compareAndSet(-1, 0)) {
-                log.debug("[{}:{}]:getRemote->reload()", this.module.getName(), this.getName());
-                this.reloadRemote();
+        if (this.syncTimeRef.get() < 0) {
+            final R remote = this.remoteRef.get();
+            if (Objects.nonNull(remote) && this.loader.isInFlight()) {
+                log.debug("[{}:{}]:getRemote->reloading, serve last synced remote", this.module.getName(), this.getName());
+                return remote;
             }
-            return this.remoteRef.get();
+            this.loader.run(() -> {
+                if (Objects.isNull(remote)) { // remotes of indexed resources are loaded in batch by revalidation of the module.
+                    this.module.awaitIndexRevalidation();
+                }
+                if (this.syncTimeRef.get() < 0) {
+                    log.debug("[{}:{}]:getRemote->reload()", this.module.getName(), this.getName());
+                    this.reloadRemote();
+                }
+                return this.remoteRef.get();
+            });
         }
+        return this.remoteRef.get();
     }
 
     @AzureOperation(name = "resource.reload.resource|type", params = {"this.getName()", "this.getResourceTypeName()"}, type = AzureOperation.Type.SERVICE)
     private void reloadRemote() {
         log.debug("[{}:{}]:reload()", this.module.getName(), this.getName());
         if (this.isDraftForCreating()) {
-            synchronized (this.syncTimeRef) {
-                this.syncTimeRef.compareAndSet(0, -1);
-                this.syncTimeRef.notifyAll();
-            }
             return;
         }
         Azure.az(IAzureAccount.class).account();
@@ -187,13 +191,10 @@ public abstract class AbstractAzResource<T extends AbstractAzResource<T, P, R>,
 
     protected void setRemote(@Nullable R newRemote) {
         final R oldRemote = this.remoteRef.get();
-        synchronized (this.syncTimeRef) {
-            log.debug("[{}:{}]:setRemote({})", this.module.getName(), this.getName(), newRemote);
-            log.debug("[{}:{}]:setRemote->this.remoteRef.set({})", this.module.getName(), this.getName(), newRemote);
-            this.remoteRef.set(newRemote);
-            this.syncTimeRef.set(System.currentTimeMillis());
-            this.syncTimeRef.notifyAll();
-        }
+        log.debug("[{}:{}]:setRemote({})", this.module.getName(), this.getName(), newRemote);
+        log.debug("[{}:{}]:setRemote->this.remoteRef.set({})", this.module.getName(), this.getName(), newRemote);
+        this.remoteRef.set(newRemote);
+        this.syncTimeRef.set(System.currentTimeMillis());
         if (Objects.nonNull(newRemote)) {
             log.debug("[{}:{}]:setRemote->setStatus(LOADING)", this.module.getName(), this.getName());
             this.setStatus(Status.LOADING);
@@ -246,6 +247,7 @@ public abstract class AbstractAzResource<T extends AbstractAzResource<T, P, R>,
     }
 
     public void deleteFromLocal() {
+        ResourceIndexCache.invalidate(this.getModule());
         log.debug("[{}:{}]:delete->this.setStatus(DELETED)", this.module.getName(), this.getName());
         this.setStatus(Status.DELETED);
         log.debug("[{}:{}]:delete->module.deleteResourceFromLocal({})", this.module.getName(), this.getName(), this.getName());
@@ -296,7 +298,7 @@ public abstract class AbstractAzResource<T extends AbstractAzResource<T, P, R>,
     @Nonnull
     public String getStatus() {
         final String status = this.statusRef.get();
-        if ((this.syncTimeRef.get() < 0)) {
+        if (this.syncTimeRef.get() < 0 && !this.loader.isInFlight()) {
             log.debug("[{}:{}]:getStatus->reloadStatus()", this.module.getName(), this.getName());
             AzureTaskManager.getInstance().runOnPooledThread(this::reloadStatus);
             return this.statusRef.get();
@@ -328,6 +330,9 @@ public abstract class AbstractAzResource<T extends AbstractAzResource<T, P, R>,
     protected void doModify(@Nonnull Runnable body, @Nullable String status) {
         // TODO: lock so that can not modify if modifying.
         this.setStatus(Optional.ofNullable(status).orElse(Status.PENDING));
+        if (!StringUtils.equals(status, Status.LOADING)) {
+            ResourceIndexCache.invalidate(this.getModule());
+        }
         try {
             body.run();
             log.debug("[{}:{}]:doModify->refreshRemote()", this.module.getName(), this.getName());
@@ -336,10 +341,6 @@ public abstract class AbstractAzResource<T extends AbstractAzResource<T, P, R>,
             this.setRemote(refreshed);
         } catch (Throwable t) {
             this.setStatus(Status.UNKNOWN);
-            synchronized (this.syncTimeRef) {
-                this.syncTimeRef.compareAndSet(0, -1);
-                this.syncTimeRef.notifyAll();
-            }
             throw t;
         }
     }
@@ -353,6 +354,9 @@ public abstract class AbstractAzResource<T extends AbstractAzResource<T, P, R>,
     public R doModify(@Nonnull Callable<R> body, @Nullable String status) {
         // TODO: lock so that can not modify if modifying.
         this.setStatus(Optional.ofNullable(status).orElse(Status.PENDING));
+        if (!StringUtils.equals(status, Status.LOADING)) {
+            ResourceIndexCache.invalidate(this.getModule());
+        }
         try {
             final R remote = body.call();
             log.debug("[{}:{}]:doModify->setRemote({})", this.module.getName(), this.getName(), remote);
@@ -360,10 +364,6 @@ public abstract class AbstractAzResource<T extends AbstractAzResource<T, P, R>,
             return remote;
         } catch (Throwable t) {
             this.setStatus(Status.UNKNOWN);
-            synchronized (this.syncTimeRef) {
-                this.syncTimeRef.compareAndSet(0, -1);
-                this.syncTimeRef.notifyAll();
-            }
             throw new AzureToolkitRuntimeException(t);
         }
     }
@@ -20,7 +20,10 @@ import com.microsoft.azure.toolkit.lib.common.event.AzureEventBus;
 import com.microsoft.azure.toolkit.lib.common.exception.AzureToolkitRuntimeException;
 import com.microsoft.azure.toolkit.lib.common.messager.AzureMessager;
 import com.microsoft.azure.toolkit.lib.common.operation.AzureOperation;
+import com.microsoft.azure.toolkit.lib.common.operation.OperationThreadContext;
+import com.microsoft.azure.toolkit.lib.common.task.AzureTaskManager;
 import com.microsoft.azure.toolkit.lib.common.utils.Debouncer;
+import com.microsoft.azure.toolkit.lib.common.utils.SingleFlight;
 import com.microsoft.azure.toolkit.lib.common.utils.TailingDebouncer;
 import com.microsoft.azure.toolkit.lib.resource.GenericResource;
 import com.microsoft.azure.toolkit.lib.resource.GenericResourceModule;
@@ -65,13 +68,31 @@ public abstract class AbstractAzResourceModule<T extends AbstractAzResource<T, P
     @Nonnull
     @EqualsAndHashCode.Include
     protected final P parent;
+    /**
+     * {@code >0}: time of last sync with Azure; {@code <0}: invalidated, {@code -1} if never synced,
+     * otherwise the negated time of last sync, whose resources are still served while reloading.
+     */
     @Nonnull
     @ToString.Include
     @Getter(AccessLevel.NONE)
     private final AtomicLong syncTimeRef = new AtomicLong(-1);
     @Nonnull
     @Getter(AccessLevel.NONE)
-    private final Map<String, Optional<T>> resources = new CaseInsensitiveMap<>();
+    private final SingleFlight<Void> loader = new SingleFlight<>();
+    /**
+     * copy-on-write snapshot of local resources, read without locking and replaced as a whole under {@link #lock}.
+     */
+    @Nonnull
+    @Getter(AccessLevel.NONE)
+    private volatile Map<String, Optional<T>> resources = Collections.unmodifiableMap(new CaseInsensitiveMap<>());
+    @Nonnull
+    @Getter(AccessLevel.NONE)
+    private final Object lock = new Object();
+    /**
+     * whether local resources are placeholders loaded from {@link ResourceIndexCache} and not yet revalidated.
+     */
+    @Getter(AccessLevel.NONE)
+    private volatile boolean indexed;
     @Nonnull
     @Getter(AccessLevel.NONE)
     private final Debouncer fireEvents = new TailingDebouncer(this::fireChildrenChangedEvent, 300);
@@ -80,7 +101,7 @@ public abstract class AbstractAzResourceModule<T extends AbstractAzResource<T, P
     @AzureOperation(name = "resource.refresh.type", params = {"this.getResourceTypeName()"}, type = AzureOperation.Type.SERVICE)
     public void refresh() {
         log.debug("[{}]:refresh()", this.name);
-        this.syncTimeRef.set(-1);
+        this.syncTimeRef.updateAndGet(t -> t > 0 ? -t : t);
         AzureEventBus.emit("module.refreshed.module", this);
     }
 
@@ -93,23 +114,16 @@ public abstract class AbstractAzResourceModule<T extends AbstractAzResource<T, P
             return Collections.emptyList();
         }
         Azure.az(IAzureAccount.class).account();
-        synchronized (this.syncTimeRef) {
-            while (this.syncTimeRef.get() == 0) {
-                try {
-                    this.syncTimeRef.wait();
-                } catch (InterruptedException e) {
-                    e.printStackTrace();
-                    this.syncTimeRef.set(-1);
-                }
-            }
-            if (this.syncTimeRef.compareAndSet(-1, 0)) {
-                log.debug("[{}]:list->this.reload()", this.name);
-                this.reloadResources();
-            }
-            log.debug("[{}]:list->this.resources.values()", this.name);
-            return this.resources.values().stream().filter(Optional::isPresent).map(Optional::get)
-                .sorted(Comparator.comparing(AbstractAzResource::getName)).collect(Collectors.toList());
+        final long syncTime = this.syncTimeRef.get();
+        if (syncTime == -1 && !this.loader.isInFlight() && this.loadResourcesFromIndex()) {
+            log.debug("[{}]:list->revalidating, serve indexed resources", this.name);
+        } else if (syncTime < -1 && this.loader.isInFlight()) {
+            log.debug("[{}]:list->reloading, serve last synced resources", this.name);
+        } else if (syncTime < 0) {
+            this.loader.run(this::reloadResourcesIfInvalidated);
         }
+        log.debug("[{}]:list->this.resources.values()", this.name);
+        return this.listLocalResources();
     }
 
     @Nonnull
@@ -118,6 +132,55 @@ public abstract class AbstractAzResourceModule<T extends AbstractAzResource<T, P
             .sorted(Comparator.comparing(AbstractAzResource::getName)).collect(Collectors.toList());
     }
 
+    @Nullable
+    private Void reloadResourcesIfInvalidated() {
+        if (this.syncTimeRef.get() < 0) {
+            log.debug("[{}]:list->this.reload()", this.name);
+            this.reloadResources();
+        }
+        return null;
+    }
+
+    /**
+     * show resources persisted by last process (if enabled) before they are revalidated in background.
+     */
+    private boolean loadResourcesFromIndex() {
+        if (!ResourceIndexCache.isEnabled()) {
+            return false;
+        }
+        final ResourceIndexCache.Index index = ResourceIndexCache.load(this);
+        if (Objects.isNull(index)) {
+            return false;
+        }
+        synchronized (this.lock) {
+            if (this.syncTimeRef.get() != -1) {
+                return true;
+            }
+            final Map<String, Optional<T>> updated = new CaseInsensitiveMap<>(this.resources);
+            index.getResources().stream().filter(e -> StringUtils.isNotBlank(e.getName()) && !updated.containsKey(e.getName()))
+                .forEach(e -> updated.put(e.getName(), Optional.of(this.newResource(e.getName(), e.getResourceGroup()))));
+            this.resources = Collections.unmodifiableMap(updated);
+            this.syncTimeRef.set(-Math.max(index.getTimestamp(), 2));
+            this.indexed = true;
+        }
+        log.debug("[{}]:loadResourcesFromIndex->revalidate in background", this.name);
+        final OperationThreadContext context = OperationThreadContext.current().derive();
+        AzureTaskManager.getInstance().runOnPooledThread(() -> context.run(() -> this.loader.run(this::reloadResourcesIfInvalidated)));
+        return true;
+    }
+
+    /**
+     * waits for the revalidation of resources loaded from index (if any), joining the in-flight one, so that remotes of placeholders
+     * are loaded by one listing instead of one request per resource. placeholders fall back to their own requests if it fails.
+     */
+    void awaitIndexRevalidation() {
+        if (this.indexed) {
+            log.debug("[{}]:awaitIndexRevalidation()", this.name);
+            this.loader.run(this::reloadResourcesIfInvalidated);
+            this.indexed = false;
+        }
+    }
+
     private void reloadResources() {
         log.debug("[{}]:reload()", this.name);
         Stream<R> loaded;
@@ -126,22 +189,22 @@ public abstract class AbstractAzResourceModule<T extends AbstractAzResource<T, P
             loaded = this.loadResourcesFromAzure();
         } catch (Throwable t) {
             log.debug("[{}]:reload->loadResourcesFromAzure()=EXCEPTION", this.name, t);
-            synchronized (this.syncTimeRef) {
-                this.syncTimeRef.compareAndSet(0, -1);
-                this.syncTimeRef.notifyAll();
-            }
             AzureMessager.getMessager().error(t);
             return;
         }
         final Map<String, T> loadedResources = loaded.map(this::newResource).collect(Collectors.toMap(AbstractAzResource::getName, r -> r));
         this.setResources(loadedResources);
+        if (ResourceIndexCache.isEnabled()) {
+            ResourceIndexCache.save(this, this.listLocalResources());
+        }
     }
 
     private void setResources(Map<String, T> loadedResources) {
-        synchronized (this.syncTimeRef) {
-            final Set<String> localResources = this.resources.values().stream().filter(Optional::isPresent).map(Optional::get)
+        synchronized (this.lock) {
+            final Map<String, Optional<T>> resources = this.resources;
+            final Set<String> localResources = resources.values().stream().filter(Optional::isPresent).map(Optional::get)
                 .map(AbstractAzResource::getName).collect(Collectors.toSet());
-            final Set<String> creating = this.resources.values().stream().filter(Optional::isPresent).map(Optional::get)
+            final Set<String> creating = resources.values().stream().filter(Optional::isPresent).map(Optional::get)
                 .filter(r -> AzResource.Status.CREATING.equals(r.getStatus())).map(AbstractAzResource::getName).collect(Collectors.toSet());
             log.debug("[{}]:reload().creating={}", this.name, creating);
             final Sets.SetView<String> refreshed = Sets.intersection(localResources, loadedResources.keySet());
@@ -152,16 +215,18 @@ public abstract class AbstractAzResourceModule<T extends AbstractAzResource<T, P
             log.debug("[{}]:reload().added={}", this.name, added);
 
             log.debug("[{}]:reload.refreshed->resource.setRemote", this.name);
-            refreshed.forEach(name -> this.resources.get(name).ifPresent(r -> r.setRemote(loadedResources.get(name).getRemote())));
+            refreshed.forEach(name -> resources.get(name).ifPresent(r -> r.setRemote(loadedResources.get(name).getRemote())));
             log.debug("[{}]:reload.deleted->deleteResourceFromLocal", this.name);
-            deleted.forEach(name -> this.resources.get(name).ifPresent(r -> {
+            deleted.forEach(name -> resources.get(name).ifPresent(r -> {
                 r.setRemote(null);
                 r.deleteFromLocal();
             }));
             log.debug("[{}]:reload.added->addResourceToLocal", this.name);
-            added.forEach(name -> this.addResourceToLocal(name, loadedResources.get(name), true));
+            final Map<String, Optional<T>> updated = new CaseInsensitiveMap<>(this.resources);
+            added.forEach(name -> updated.put(name, Optional.of(loadedResources.get(name))));
+            this.resources = Collections.unmodifiableMap(updated);
             this.syncTimeRef.set(System.currentTimeMillis());
-            this.syncTimeRef.notifyAll();
+            this.indexed = false;
         }
     }
 
@@ -173,10 +238,10 @@ public abstract class AbstractAzResourceModule<T extends AbstractAzResource<T, P
 
     public void clear() {
         log.debug("[{}]:clear()", this.name);
-        synchronized (this.syncTimeRef) {
-            this.resources.clear();
+        synchronized (this.lock) {
+            this.resources = Collections.unmodifiableMap(new CaseInsensitiveMap<>());
             this.syncTimeRef.set(-1);
-            this.syncTimeRef.notifyAll();
+            this.indexed = false;
         }
     }
 
@@ -189,6 +254,8 @@ public abstract class AbstractAzResourceModule<T extends AbstractAzResource<T, P
             return null;
         }
         Azure.az(IAzureAccount.class).account();
+        // indexed resources may have been deleted since they are persisted, those missing from the revalidation are loaded below.
+        this.awaitIndexRevalidation();
         if (!this.resources.containsKey(name)) {
             R remote = null;
             try {
@@ -214,7 +281,7 @@ public abstract class AbstractAzResourceModule<T extends AbstractAzResource<T, P
             }
         }
         log.debug("[{}]:get({}, {})->this.resources.get({})", this.name, name, resourceGroup, name);
-        return this.resources.get(name).orElse(null);
+        return this.resources.getOrDefault(name, Optional.empty()).orElse(null);
     }
 
     @Nullable
@@ -253,7 +320,7 @@ public abstract class AbstractAzResourceModule<T extends AbstractAzResource<T, P
     @Nonnull
     public T getOrInit(@Nonnull String name, @Nullable String resourceGroup) {
         log.debug("[{}]:getOrDraft({}, {})", this.name, name, resourceGroup);
-        synchronized (this.syncTimeRef) {
+        synchronized (this.lock) {
             return this.resources.getOrDefault(name, Optional.empty()).orElseGet(() -> {
                 final T resource = this.newResource(name, resourceGroup);
                 log.debug("[{}]:get({}, {})->addResourceToLocal({}, resource)", this.name, name, resourceGroup, name);
@@ -348,8 +415,10 @@ public abstract class AbstractAzResourceModule<T extends AbstractAzResource<T, P
     T deleteResourceFromLocal(@Nonnull String name, boolean... silent) {
         log.debug("[{}]:deleteResourceFromLocal({})", this.name, name);
         log.debug("[{}]:deleteResourceFromLocal->this.resources.remove({})", this.name, name);
-        synchronized (this.syncTimeRef) {
-            final Optional<T> removed = this.resources.remove(name);
+        synchronized (this.lock) {
+            final Map<String, Optional<T>> updated = new CaseInsensitiveMap<>(this.resources);
+            final Optional<T> removed = updated.remove(name);
+            this.resources = Collections.unmodifiableMap(updated);
             if (Objects.nonNull(removed) && removed.isPresent() && (silent.length == 0 || !silent[0])) {
                 log.debug("[{}]:deleteResourceFromLocal->fireResourcesChangedEvent()", this.name);
                 fireEvents.debounce();
@@ -360,12 +429,14 @@ public abstract class AbstractAzResourceModule<T extends AbstractAzResource<T, P
 
     private void addResourceToLocal(@Nonnull String name, @Nullable T resource, boolean... silent) {
         log.debug("[{}]:addResourceToLocal({}, {})", this.name, name, resource);
-        synchronized (this.syncTimeRef) {
+        synchronized (this.lock) {
             final Optional<T> oldResource = this.resources.getOrDefault(name, Optional.empty());
             final Optional<T> newResource = Optional.ofNullable(resource);
             if (!oldResource.isPresent()) {
                 log.debug("[{}]:addResourceToLocal->this.resources.put({}, {})", this.name, name, resource);
-                this.resources.put(name, newResource);
+                final Map<String, Optional<T>> updated = new CaseInsensitiveMap<>(this.resources);
+                updated.put(name, newResource);
+                this.resources = Collections.unmodifiableMap(updated);
                 if (newResource.isPresent() && (silent.length == 0 || !silent[0])) {
                     log.debug("[{}]:addResourceToLocal->fireResourcesChangedEvent()", this.name);
                     fireEvents.debounce();
@@ -422,7 +493,10 @@ public abstract class AbstractAzResourceModule<T extends AbstractAzResource<T, P
             return this.<SupportsGettingByName<R>>cast(client).getByName(name);
         } else { // fallback to filter the named resource from all resources in current module.
             log.debug("[{}]:loadResourceFromAzure->this.list().filter({}).getRemote()", this.name, name);
-            return this.list().stream().filter(r -> StringUtils.equals(name, r.getName())).findAny().map(AbstractAzResource::getRemote).orElse(null);
+            if (this.syncTimeRef.get() < 0) { // wait for in-flight reload instead of taking unresolved resources from index.
+                this.loader.run(this::reloadResourcesIfInvalidated);
+            }
+            return this.listLocalResources().stream().filter(r -> StringUtils.equals(name, r.getName())).findAny().map(AbstractAzResource::getRemote).orElse(null);
         }
     }
 
@@ -20,6 +20,7 @@ import com.microsoft.azure.toolkit.lib.Azure;
 import com.microsoft.azure.toolkit.lib.AzureConfiguration;
 import com.microsoft.azure.toolkit.lib.account.IAccount;
 import com.microsoft.azure.toolkit.lib.account.IAzureAccount;
+import com.microsoft.azure.toolkit.lib.common.http.HttpTransport;
 import com.microsoft.azure.toolkit.lib.common.operation.AzureOperation;
 import io.netty.resolver.AddressResolverGroup;
 import io.netty.resolver.DefaultAddressResolverGroup;
@@ -31,6 +32,7 @@ import java.net.InetSocketAddress;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
 import static com.microsoft.azure.toolkit.lib.Azure.az;
@@ -80,32 +82,53 @@ public abstract class AbstractAzServiceSubscription<T extends AbstractAzResource
 
     @Nonnull
     public static ResourceManager getResourceManager(@Nonnull final String subscriptionId) {
-        final IAccount account = az(IAzureAccount.class).account();
-        final AzureConfiguration config = Azure.az().config();
-        final String userAgent = config.getUserAgent();
-        final HttpLogDetailLevel logDetailLevel = config.getLogLevel() == null ?
-            HttpLogDetailLevel.NONE : HttpLogDetailLevel.valueOf(config.getLogLevel());
-        final AzureProfile azureProfile = new AzureProfile(account.getEnvironment());
-
-        final Providers providers = ResourceManager.configure()
-            .withHttpClient(getDefaultHttpClient())
-            .withPolicy(getUserAgentPolicy(userAgent))
-            .authenticate(account.getTokenCredential(subscriptionId), azureProfile)
-            .withSubscription(subscriptionId).providers();
-        return ResourceManager.configure()
-            .withHttpClient(getDefaultHttpClient())
-            .withLogLevel(logDetailLevel)
-            .withPolicy(getUserAgentPolicy(userAgent)) // set user agent with policy
-            .withPolicy(new ProviderRegistrationPolicy(providers)) // add policy to auto register resource providers
-            .authenticate(account.getTokenCredential(subscriptionId), azureProfile)
-            .withSubscription(subscriptionId);
+        return ServiceManagerCache.get(subscriptionId, ResourceManager.class, id -> {
+            final IAccount account = az(IAzureAccount.class).account();
+            final AzureConfiguration config = Azure.az().config();
+            final HttpLogDetailLevel logDetailLevel = config.getLogLevel() == null ?
+                HttpLogDetailLevel.NONE : HttpLogDetailLevel.valueOf(config.getLogLevel());
+            final AzureProfile azureProfile = new AzureProfile(account.getEnvironment());
+            return ResourceManager.configure()
+                .withHttpClient(getDefaultHttpClient())
+                .withLogLevel(logDetailLevel)
+                .withPolicy(getUserAgentPolicy(config::getUserAgent)) // set user agent with policy
+                .withPolicy(new ProviderRegistrationPolicy(getProviders(id))) // add policy to auto register resource providers
+                .authenticate(account.getTokenCredential(id), azureProfile)
+                .withSubscription(id);
+        });
+    }
+
+    /**
+     * resource providers of the subscription, shared by {@link ProviderRegistrationPolicy} of all managers of the subscription.
+     */
+    @Nonnull
+    public static Providers getProviders(@Nonnull final String subscriptionId) {
+        return ServiceManagerCache.get(subscriptionId, Providers.class, id -> {
+            final IAccount account = az(IAzureAccount.class).account();
+            final AzureConfiguration config = Azure.az().config();
+            final AzureProfile azureProfile = new AzureProfile(account.getEnvironment());
+            return ResourceManager.configure()
+                .withHttpClient(getDefaultHttpClient())
+                .withPolicy(getUserAgentPolicy(config::getUserAgent))
+                .authenticate(account.getTokenCredential(id), azureProfile)
+                .withSubscription(id).providers();
+        });
     }
 
     @Nonnull
     public static HttpPipelinePolicy getUserAgentPolicy(@Nonnull String userAgent) {
+        return getUserAgentPolicy(() -> userAgent);
+    }
+
+    /**
+     * @param userAgent evaluated on every request, since managers are cached (by {@link ServiceManagerCache}) while the user agent
+     *                  may change, e.g. once the installation id is resolved.
+     */
+    @Nonnull
+    public static HttpPipelinePolicy getUserAgentPolicy(@Nonnull Supplier<String> userAgent) {
         return (httpPipelineCallContext, httpPipelineNextPolicy) -> {
             final String previousUserAgent = httpPipelineCallContext.getHttpRequest().getHeaders().getValue("User-Agent");
-            httpPipelineCallContext.getHttpRequest().setHeader("User-Agent", String.format("%s %s", userAgent, previousUserAgent));
+            httpPipelineCallContext.getHttpRequest().setHeader("User-Agent", String.format("%s %s", userAgent.get(), previousUserAgent));
             return httpPipelineNextPolicy.process();
         };
     }
@@ -131,11 +154,12 @@ public abstract class AbstractAzServiceSubscription<T extends AbstractAzResource
             } else {
                 resolverGroup = DefaultAddressResolverGroup.INSTANCE;
             }
-            reactor.netty.http.client.HttpClient nettyHttpClient =
-                reactor.netty.http.client.HttpClient.create()
+            final HttpTransport transport = HttpTransport.getInstance();
+            reactor.netty.http.client.HttpClient nettyHttpClient = transport.createHttpClient()
                     .resolver(resolverGroup);
             NettyAsyncHttpClientBuilder builder = new NettyAsyncHttpClientBuilder(nettyHttpClient);
             Optional.ofNullable(proxyOptions).map(builder::proxy);
+            Optional.ofNullable(transport.getConfig().getResponseTimeout()).map(builder::responseTimeout);
             defaultHttpClient = builder.build();
             return defaultHttpClient;
         }
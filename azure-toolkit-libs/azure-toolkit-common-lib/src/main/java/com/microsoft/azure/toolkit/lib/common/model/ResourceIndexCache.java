@@ -0,0 +1,125 @@
+/*
+ * Copyright (c) Microsoft Corporation. All rights reserved.
+ * Licensed under the MIT License. See License.txt in the project root for license information.
+ */
+
+package com.microsoft.azure.toolkit.lib.common.model;
+
+import com.google.common.hash.Hashing;
+import com.microsoft.azure.toolkit.lib.common.utils.CacheDirs;
+import com.microsoft.azure.toolkit.lib.common.utils.JsonUtils;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.BooleanUtils;
+import org.apache.commons.lang3.StringUtils;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.Objects;
+import java.util.stream.Collectors;
+
+/**
+ * opt-in on-disk index of the resources (name and resource group) listed by {@link AbstractAzResourceModule modules},
+ * so that a cold process (e.g. a maven build) can show the resources of a module before listing them from Azure again.
+ * enabled by system property {@value #ENABLED_PROPERTY}, indexes are stored in the {@link CacheDirs cache directory}.
+ */
+@Slf4j
+final class ResourceIndexCache {
+    static final String ENABLED_PROPERTY = "azure.toolkit.cache.persistent";
+    private static final int VERSION = 1;
+    private static final Duration TTL = Duration.ofDays(1);
+
+    private ResourceIndexCache() {
+    }
+
+    static boolean isEnabled() {
+        return BooleanUtils.toBoolean(System.getProperty(ENABLED_PROPERTY));
+    }
+
+    /**
+     * @return the persisted index of the module, {@code null} if absent, expired, of another version or corrupted.
+     */
+    @Nullable
+    static Index load(@Nonnull AbstractAzResourceModule<?, ?, ?> module) {
+        final Path file = getFile(module);
+        if (Objects.isNull(file) || !Files.isRegularFile(file)) {
+            return null;
+        }
+        try {
+            final Index index = JsonUtils.fromJson(new String(Files.readAllBytes(file), StandardCharsets.UTF_8), Index.class);
+            if (Objects.nonNull(index) && index.version == VERSION && StringUtils.equalsIgnoreCase(index.module, getKey(module)) &&
+                Objects.nonNull(index.resources) && System.currentTimeMillis() - index.timestamp < TTL.toMillis()) {
+                return index;
+            }
+        } catch (final Throwable t) { // tolerate corrupted index.
+            log.debug("failed to load resource index of module({})", module.getName(), t);
+        }
+        invalidate(module);
+        return null;
+    }
+
+    static void save(@Nonnull AbstractAzResourceModule<?, ?, ?> module, @Nonnull List<? extends AbstractAzResource<?, ?, ?>> resources) {
+        final Path file = getFile(module);
+        if (Objects.isNull(file)) {
+            return;
+        }
+        final List<Entry> entries = resources.stream().map(r -> new Entry(r.getName(), r.getResourceGroupName())).collect(Collectors.toList());
+        final Index index = new Index(VERSION, getKey(module), System.currentTimeMillis(), entries);
+        try {
+            CacheDirs.writeAtomically(file, JsonUtils.toJson(index).getBytes(StandardCharsets.UTF_8));
+        } catch (final Throwable t) {
+            log.debug("failed to save resource index of module({})", module.getName(), t);
+        }
+    }
+
+    static void invalidate(@Nonnull AbstractAzResourceModule<?, ?, ?> module) {
+        final Path file = getFile(module);
+        if (Objects.nonNull(file)) {
+            try {
+                Files.deleteIfExists(file);
+            } catch (final IOException e) {
+                log.debug("failed to delete resource index of module({})", module.getName(), e);
+            }
+        }
+    }
+
+    @Nullable
+    private static Path getFile(@Nonnull AbstractAzResourceModule<?, ?, ?> module) {
+        if (!isEnabled() || module.getParent() == AzResource.NONE) {
+            return null;
+        }
+        final String hash = Hashing.sha256().hashString(getKey(module).toLowerCase(), StandardCharsets.UTF_8).toString();
+        return CacheDirs.resolve("resources", hash + ".json");
+    }
+
+    @Nonnull
+    private static String getKey(@Nonnull AbstractAzResourceModule<?, ?, ?> module) {
+        return String.format("%s/%s", module.getParent().getId(), module.getName());
+    }
+
+    @Getter
+    @NoArgsConstructor
+    @AllArgsConstructor
+    static class Index {
+        private int version;
+        private String module;
+        private long timestamp;
+        private List<Entry> resources;
+    }
+
+    @Getter
+    @NoArgsConstructor
+    @AllArgsConstructor
+    static class Entry {
+        private String name;
+        private String resourceGroup;
+    }
+}
@@ -0,0 +1,94 @@
+/*
+ * Copyright (c) Microsoft Corporation. All rights reserved.
+ * Licensed under the MIT License. See License.txt in the project root for license information.
+ */
+
+package com.microsoft.azure.toolkit.lib.common.model;
+
+import com.microsoft.azure.toolkit.lib.Azure;
+import com.microsoft.azure.toolkit.lib.account.IAccount;
+import com.microsoft.azure.toolkit.lib.account.IAzureAccount;
+import com.microsoft.azure.toolkit.lib.common.event.AzureEventBus;
+import lombok.EqualsAndHashCode;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+import javax.annotation.Nonnull;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * subscription scoped cache of track2 managers (e.g. {@code ResourceManager}, {@code AppServiceManager}), so that
+ * http pipelines and policy chains are built once per subscription instead of on every load.
+ * managers are bound to the account they are authenticated with and the http log level they are built with, and dropped on
+ * signing in/out. user agent is resolved per request by the managers themselves.
+ */
+@Slf4j
+public final class ServiceManagerCache {
+    private static final Map<Key, Entry> managers = new ConcurrentHashMap<>();
+    private static final Map<String, AtomicLong> constructions = new ConcurrentHashMap<>();
+
+    static {
+        AzureEventBus.on("account.login.account", new AzureEventBus.EventListener(e -> clear()));
+        AzureEventBus.on("account.logout.account", new AzureEventBus.EventListener(e -> clear()));
+    }
+
+    private ServiceManagerCache() {
+    }
+
+    /**
+     * @return the cached manager of {@code type} for the subscription, created by {@code factory} if absent
+     * or created with another account or log level.
+     */
+    @Nonnull
+    public static <M> M get(@Nonnull String subscriptionId, @Nonnull Class<M> type, @Nonnull Function<String, M> factory) {
+        final IAccount account = Azure.az(IAzureAccount.class).account();
+        final String logLevel = Azure.az().config().getLogLevel();
+        final Key key = new Key(type, subscriptionId.toLowerCase());
+        final Entry entry = managers.get(key);
+        if (entry != null && entry.isValid(account, logLevel)) {
+            return type.cast(entry.manager);
+        }
+        // created outside of the map's lock since factories may get other managers (e.g. providers) from this cache.
+        log.debug("create {} for subscription({})", type.getSimpleName(), subscriptionId);
+        constructions.computeIfAbsent(type.getSimpleName(), t -> new AtomicLong()).incrementAndGet();
+        final Entry created = new Entry(account, logLevel, factory.apply(subscriptionId));
+        return type.cast(managers.merge(key, created, (old, n) -> old.isValid(account, logLevel) ? old : n).manager);
+    }
+
+    public static void clear() {
+        managers.clear();
+    }
+
+    /**
+     * @return number of managers constructed (by manager type) since started.
+     */
+    @Nonnull
+    public static Map<String, Long> getConstructions() {
+        final Map<String, Long> result = new TreeMap<>();
+        constructions.forEach((type, count) -> result.put(type, count.get()));
+        return result;
+    }
+
+    @EqualsAndHashCode
+    @RequiredArgsConstructor
+    private static class Key {
+        private final Class<?> type;
+        private final String subscriptionId;
+    }
+
+    @RequiredArgsConstructor
+    private static class Entry {
+        private final IAccount account;
+        private final String logLevel;
+        private final Object manager;
+
+        private boolean isValid(IAccount account, String logLevel) {
+            return this.account == account && Objects.equals(this.logLevel, logLevel);
+        }
+    }
+}
@@ -7,16 +7,21 @@ package com.microsoft.azure.toolkit.lib.common.operation;
 
 import com.microsoft.azure.toolkit.lib.common.messager.AzureMessager;
 import com.microsoft.azure.toolkit.lib.common.messager.IAzureMessager;
+import com.microsoft.azure.toolkit.lib.common.telemetry.AzureTelemetry;
 import lombok.Getter;
 import lombok.Setter;
 import lombok.extern.slf4j.Slf4j;
 
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
+import java.time.Instant;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
 
 @Slf4j
 public class OperationContext {
@@ -27,8 +32,22 @@ public class OperationContext {
     private IAzureMessager messager = null;
     @Getter
     private final Map<String, Object> messageProperties = new ConcurrentHashMap<>();
-    @Getter
     private final Map<String, String> telemetryProperties = new ConcurrentHashMap<>();
+    private final AtomicInteger telemetryModCount = new AtomicInteger();
+    @Nullable
+    private volatile TelemetrySnapshot telemetrySnapshot;
+    /**
+     * epoch nanos when the operation is created, entered and exited, 0 if not yet, rendered as telemetry properties only when read.
+     */
+    @Getter
+    @Setter
+    private volatile long createAt;
+    @Getter
+    @Setter
+    private volatile long enterAt;
+    @Getter
+    @Setter
+    private volatile long exitAt;
 
     public OperationContext(@Nonnull Operation operation) {
         this.operation = operation;
@@ -40,10 +59,50 @@ public class OperationContext {
 
     public void setTelemetryProperty(String key, String val) {
         this.telemetryProperties.put(key, val);
+        this.telemetryModCount.incrementAndGet();
     }
 
     public void setTelemetryProperties(Map<String, String> properties) {
         this.telemetryProperties.putAll(properties);
+        this.telemetryModCount.incrementAndGet();
+    }
+
+    /**
+     * @return copy of the telemetry properties, including the timestamps ({@link AzureTelemetry#OP_CREATE_AT} etc.).
+     */
+    @Nonnull
+    public Map<String, String> getTelemetryProperties() {
+        final Map<String, String> properties = new HashMap<>(this.telemetryProperties);
+        putTimestamps(properties, this.createAt, this.enterAt, this.exitAt);
+        return properties;
+    }
+
+    /**
+     * @return unmodifiable copy of the telemetry properties excluding the timestamps, which is shared until the properties are changed.
+     */
+    @Nonnull
+    public Map<String, String> getTelemetrySnapshot() {
+        final TelemetrySnapshot current = this.telemetrySnapshot;
+        final int modCount = this.telemetryModCount.get();
+        if (Objects.nonNull(current) && current.modCount == modCount) {
+            return current.properties;
+        }
+        final Map<String, String> properties = this.telemetryProperties.isEmpty() ? Collections.emptyMap() :
+            Collections.unmodifiableMap(new HashMap<>(this.telemetryProperties));
+        this.telemetrySnapshot = new TelemetrySnapshot(modCount, properties);
+        return properties;
+    }
+
+    public static void putTimestamps(@Nonnull Map<String, String> properties, long createAt, long enterAt, long exitAt) {
+        putTimestamp(properties, AzureTelemetry.OP_CREATE_AT, createAt);
+        putTimestamp(properties, AzureTelemetry.OP_ENTER_AT, enterAt);
+        putTimestamp(properties, AzureTelemetry.OP_EXIT_AT, exitAt);
+    }
+
+    private static void putTimestamp(@Nonnull Map<String, String> properties, @Nonnull String key, long epochNanos) {
+        if (epochNanos != 0) {
+            properties.put(key, Instant.ofEpochSecond(0, epochNanos).toString());
+        }
     }
 
     public String getProperty(String key) {
@@ -94,4 +153,14 @@ public class OperationContext {
         log.warn("default to NULL OperationContext, because operation or its action operation is null:{}", op);
         return NULL;
     }
+
+    private static class TelemetrySnapshot {
+        private final int modCount;
+        private final Map<String, String> properties;
+
+        private TelemetrySnapshot(int modCount, @Nonnull Map<String, String> properties) {
+            this.modCount = modCount;
+            this.properties = properties;
+        }
+    }
 }
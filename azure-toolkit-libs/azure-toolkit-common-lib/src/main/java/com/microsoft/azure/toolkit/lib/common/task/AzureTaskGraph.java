@@ -0,0 +1,223 @@
+/*
+ * Copyright (c) Microsoft Corporation. All rights reserved.
+ * Licensed under the MIT License. See License.txt in the project root for license information.
+ */
+
+package com.microsoft.azure.toolkit.lib.common.task;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.microsoft.azure.toolkit.lib.common.operation.OperationThreadContext;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.math.NumberUtils;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Collectors;
+
+/**
+ * runs {@link AzureTask}s by their dependencies instead of one by one:
+ * <ul>
+ *     <li>tasks whose dependencies are all succeeded run concurrently on up to {@code parallelism} (system property
+ *     {@value #PARALLELISM_PROPERTY}) threads, in the operation context (and so the messager) of the thread calling {@link #execute()}.</li>
+ *     <li>once a task fails, all tasks not started yet are cancelled (not only its dependents, as the whole graph is to fail),
+ *     running tasks are not interrupted, and the first failure is thrown after they are finished.</li>
+ *     <li>tasks run one by one in the order they are added on the calling thread if {@code parallelism} is 1.</li>
+ * </ul>
+ * dependencies must be added before their dependents, so that the graph is always acyclic.
+ */
+@Slf4j
+public class AzureTaskGraph {
+    public static final String PARALLELISM_PROPERTY = "azure.task.parallelism";
+    private static final int DEFAULT_PARALLELISM = 4;
+
+    private final int parallelism;
+    private final Map<AzureTask<?>, Node> nodes = new LinkedHashMap<>();
+    private final List<Throwable> failures = new ArrayList<>();
+    private boolean executed = false;
+
+    public AzureTaskGraph() {
+        this(NumberUtils.toInt(System.getProperty(PARALLELISM_PROPERTY), DEFAULT_PARALLELISM));
+    }
+
+    public AzureTaskGraph(int parallelism) {
+        this.parallelism = Math.max(1, parallelism);
+    }
+
+    /**
+     * @param dependencies tasks which must succeed before {@code task} starts, {@code null} dependencies (e.g. optional tasks) are ignored.
+     */
+    @Nonnull
+    public synchronized <T> AzureTask<T> add(@Nonnull AzureTask<T> task, @Nullable AzureTask<?>... dependencies) {
+        if (this.nodes.containsKey(task)) {
+            throw new IllegalArgumentException(String.format("task %s is already added.", task));
+        }
+        final List<Node> requires = new ArrayList<>();
+        for (final AzureTask<?> dependency : Objects.isNull(dependencies) ? new AzureTask<?>[0] : dependencies) {
+            if (Objects.nonNull(dependency)) {
+                final Node node = this.nodes.get(dependency);
+                if (Objects.isNull(node)) {
+                    throw new IllegalArgumentException(String.format("dependency %s of task %s is not added.", dependency, task));
+                }
+                requires.add(node);
+            }
+        }
+        this.nodes.put(task, new Node(task, requires));
+        return task;
+    }
+
+    /**
+     * @return tasks in the order they are added, in which dependencies always precede their dependents.
+     */
+    @Nonnull
+    public synchronized List<AzureTask<?>> getTasks() {
+        return Collections.unmodifiableList(new ArrayList<>(this.nodes.keySet()));
+    }
+
+    /**
+     * @return direct dependencies of {@code task}.
+     */
+    @Nonnull
+    public synchronized List<AzureTask<?>> getDependencies(@Nonnull AzureTask<?> task) {
+        return getNode(task).dependencies.stream().map(n -> n.task).collect(Collectors.toList());
+    }
+
+    @Nonnull
+    public synchronized Status getStatus(@Nonnull AzureTask<?> task) {
+        return getNode(task).status;
+    }
+
+    /**
+     * runs all tasks and waits for them to finish, a graph can be executed only once.
+     */
+    public void execute() throws Exception {
+        synchronized (this) {
+            if (this.executed) {
+                throw new IllegalStateException("task graph is already executed.");
+            }
+            this.executed = true;
+        }
+        final int threads = Math.min(this.parallelism, this.nodes.size());
+        if (threads <= 1) {
+            for (final Node node : this.getNodes()) {
+                if (node.status == Status.PENDING) {
+                    synchronized (this) {
+                        node.status = Status.RUNNING;
+                    }
+                    this.run(node);
+                }
+            }
+        } else {
+            this.executeConcurrently(threads);
+        }
+        final Throwable failure;
+        synchronized (this) {
+            if (this.failures.isEmpty()) {
+                return;
+            }
+            failure = this.failures.get(0);
+            this.failures.stream().skip(1).forEach(failure::addSuppressed);
+        }
+        if (failure instanceof Error) {
+            throw (Error) failure;
+        }
+        throw failure instanceof Exception ? (Exception) failure : new IllegalStateException(failure);
+    }
+
+    private void executeConcurrently(int threads) throws InterruptedException {
+        final ExecutorService pool = Executors.newFixedThreadPool(threads, new ThreadFactoryBuilder()
+            .setNameFormat("azure-task-graph-%d").setDaemon(true).build());
+        final List<Future<?>> futures = new ArrayList<>();
+        try {
+            synchronized (this) {
+                while (true) {
+                    for (final Node node : this.nodes.values()) {
+                        if (node.status == Status.PENDING && node.dependencies.stream().allMatch(d -> d.status == Status.SUCCEEDED)) {
+                            node.status = Status.RUNNING;
+                            // derived on the calling thread, so that tasks run in its operation and messager.
+                            final OperationThreadContext context = OperationThreadContext.current().derive();
+                            futures.add(pool.submit(() -> context.run(() -> this.run(node))));
+                        }
+                    }
+                    if (this.nodes.values().stream().noneMatch(n -> n.status == Status.RUNNING)) {
+                        return;
+                    }
+                    this.wait();
+                }
+            }
+        } catch (final InterruptedException e) {
+            synchronized (this) {
+                this.nodes.values().stream().filter(n -> n.status == Status.PENDING).forEach(this::cancel);
+            }
+            futures.forEach(f -> f.cancel(true));
+            throw e;
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    private void run(@Nonnull Node node) {
+        final long start = System.nanoTime();
+        Throwable failure = null;
+        try {
+            node.task.getBody().call();
+        } catch (final Throwable t) {
+            failure = t;
+        }
+        synchronized (this) {
+            if (Objects.isNull(failure)) {
+                node.status = Status.SUCCEEDED;
+            } else {
+                node.status = Status.FAILED;
+                this.failures.add(failure);
+                this.nodes.values().stream().filter(n -> n.status == Status.PENDING).forEach(this::cancel);
+            }
+            log.debug("task {} is {} in {}ms.", node.task, node.status, (System.nanoTime() - start) / 1_000_000);
+            this.notifyAll();
+        }
+    }
+
+    private void cancel(@Nonnull Node node) {
+        node.status = Status.CANCELLED;
+        if (Objects.nonNull(node.task.getMonitor())) {
+            node.task.getMonitor().cancel();
+        }
+    }
+
+    @Nonnull
+    private synchronized List<Node> getNodes() {
+        return new ArrayList<>(this.nodes.values());
+    }
+
+    @Nonnull
+    private Node getNode(@Nonnull AzureTask<?> task) {
+        final Node node = this.nodes.get(task);
+        if (Objects.isNull(node)) {
+            throw new IllegalArgumentException(String.format("task %s is not added.", task));
+        }
+        return node;
+    }
+
+    public enum Status {
+        PENDING, RUNNING, SUCCEEDED, FAILED, CANCELLED
+    }
+
+    private static class Node {
+        private final AzureTask<?> task;
+        private final List<Node> dependencies;
+        private Status status = Status.PENDING;
+
+        private Node(@Nonnull AzureTask<?> task, @Nonnull List<Node> dependencies) {
+            this.task = task;
+            this.dependencies = dependencies;
+        }
+    }
+}
@@ -5,27 +5,26 @@
 
 package com.microsoft.azure.toolkit.lib.common.telemetry;
 
-import com.microsoft.azure.toolkit.lib.common.operation.MethodOperation;
+import com.microsoft.azure.toolkit.lib.common.operation.AzureOperation;
 import com.microsoft.azure.toolkit.lib.common.operation.Operation;
-import com.microsoft.azure.toolkit.lib.common.operation.OperationContext;
-import com.microsoft.azure.toolkit.lib.common.telemetry.AzureTelemetry.Properties;
-import com.microsoft.azure.toolkit.lib.common.telemetry.AzureTelemetry.Property;
 import lombok.Getter;
 import lombok.Setter;
-import lombok.SneakyThrows;
 import org.apache.commons.lang3.exception.ExceptionUtils;
-import org.apache.commons.lang3.tuple.Triple;
+import org.apache.commons.lang3.math.NumberUtils;
 
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
-import java.lang.reflect.Parameter;
 import java.time.Instant;
 import java.util.HashMap;
-import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
 
+/**
+ * tracks telemetries of operations: lifecycle timestamps are recorded as epoch nanos, and an exited operation is captured as an
+ * {@link OperationSpan} into a lock-free ring buffer (system property {@value #BUFFER_SIZE_PROPERTY}), which is rendered into telemetry
+ * properties and sent by a background exporter. operations can be sampled by system property {@value #SAMPLING_RATE_PROPERTY}.
+ */
 public class AzureTelemeter {
     public static final String SERVICE_NAME = "serviceName";
     public static final String OPERATION_NAME = "operationName";
@@ -33,6 +32,12 @@ public class AzureTelemeter {
     public static final String OP_NAME = "op_name";
     public static final String OP_TYPE = "op_type";
     public static final String OP_PARENT_ID = "op_parentId";
+    public static final String OP_SAMPLING_RATE = "op_sampling_rate";
+    /**
+     * rate (0 ~ 1) of operations (sampled by root operation) to be tracked, actions and errors are always tracked.
+     */
+    public static final String SAMPLING_RATE_PROPERTY = "azure.telemetry.sampling";
+    public static final String BUFFER_SIZE_PROPERTY = "azure.telemetry.bufferSize";
 
     public static final String ERROR_CODE = "error.error_code";
     public static final String ERROR_MSG = "error.error_message";
@@ -47,6 +52,10 @@ public class AzureTelemeter {
     @Setter
     @Nullable
     private static AzureTelemetryClient client;
+    @Getter
+    @Setter
+    private static volatile double samplingRate = Math.min(1, Math.max(0, NumberUtils.toDouble(System.getProperty(SAMPLING_RATE_PROPERTY), 1)));
+    private static final OperationSpanExporter EXPORTER = new OperationSpanExporter(NumberUtils.toInt(System.getProperty(BUFFER_SIZE_PROPERTY), 4096));
 
     @Nullable
     public static Map<String, String> getCommonProperties() {
@@ -58,21 +67,28 @@ public class AzureTelemeter {
     }
 
     public static void afterCreate(@Nonnull final Operation op) {
-        op.getContext().setTelemetryProperty(AzureTelemetry.OP_CREATE_AT, Instant.now().toString());
+        op.getContext().setCreateAt(now());
     }
 
     public static void beforeEnter(@Nonnull final Operation op) {
-        op.getContext().setTelemetryProperty(AzureTelemetry.OP_ENTER_AT, Instant.now().toString());
+        op.getContext().setEnterAt(now());
     }
 
     public static void afterExit(@Nonnull final Operation op) {
-        op.getContext().setTelemetryProperty(AzureTelemetry.OP_EXIT_AT, Instant.now().toString());
-        AzureTelemeter.log(AzureTelemetry.Type.INFO, serialize(op));
+        op.getContext().setExitAt(now());
+        AzureTelemeter.record(AzureTelemetry.Type.INFO, op, null);
     }
 
     public static void onError(@Nonnull final Operation op, Throwable error) {
-        op.getContext().setTelemetryProperty(AzureTelemetry.OP_EXIT_AT, Instant.now().toString());
-        AzureTelemeter.log(AzureTelemetry.Type.ERROR, serialize(op), error);
+        op.getContext().setExitAt(now());
+        AzureTelemeter.record(AzureTelemetry.Type.ERROR, op, error);
+    }
+
+    /**
+     * sends telemetries of all exited operations, e.g. before the process exits.
+     */
+    public static void flush() {
+        EXPORTER.flush();
     }
 
     public static void log(final AzureTelemetry.Type type, final Map<String, String> properties, final Throwable e) {
@@ -90,67 +106,40 @@ public class AzureTelemeter {
         }
     }
 
-    @Nonnull
-    private static Map<String, String> serialize(@Nonnull final Operation op) {
-        final OperationContext context = op.getContext();
-        final Map<String, String> actionProperties = getActionProperties(op);
-        final Optional<Operation> parent = Optional.ofNullable(op.getParent());
-        final Map<String, String> properties = new HashMap<>();
-        final String name = op.getId().replaceAll("\\(.+\\)", "(***)"); // e.g. `appservice.list_file.dir`
-        final String[] parts = name.split("\\."); // ["appservice|file", "list", "dir"]
-        if (parts.length > 1) {
-            final String[] compositeServiceName = parts[0].split("\\|"); // ["appservice", "file"]
-            final String mainServiceName = compositeServiceName[0]; // "appservice"
-            final String operationName = compositeServiceName.length > 1 ? parts[1] + "_" + compositeServiceName[1] : parts[1]; // "list_file"
-            properties.put(SERVICE_NAME, mainServiceName);
-            properties.put(OPERATION_NAME, operationName);
+    private static void record(@Nonnull final AzureTelemetry.Type type, @Nonnull final Operation op, @Nullable final Throwable error) {
+        final AzureTelemetryClient current = client;
+        if (Objects.isNull(current)) {
+            return;
         }
-        properties.put(OP_ID, op.getExecutionId());
-        properties.put(OP_PARENT_ID, parent.map(Operation::getExecutionId).orElse("/"));
-        properties.put(OP_NAME, name);
-        properties.put(OP_TYPE, op.getType());
-        properties.putAll(actionProperties);
-        if (op instanceof MethodOperation) {
-            properties.putAll(getParameterProperties((MethodOperation) op));
+        final double rate = samplingRate;
+        if (rate < 1 && Objects.isNull(error) && !isSampled(op, rate)) {
+            return;
         }
-        properties.putAll(context.getTelemetryProperties());
-        return properties;
+        EXPORTER.submit(new OperationSpan(current, eventNamePrefix, type, op, error, rate));
     }
 
-    private static Map<String, String> getParameterProperties(MethodOperation ref) {
-        final HashMap<String, String> properties = new HashMap<>();
-        final List<Triple<String, Parameter, Object>> args = ref.getInvocation().getArgs();
-        for (final Triple<String, Parameter, Object> arg : args) {
-            final Parameter param = arg.getMiddle();
-            final Object value = arg.getRight();
-            Optional.ofNullable(param.getAnnotation(Property.class))
-                .map(Property::value)
-                .map(n -> Property.PARAM_NAME.equals(n) ? param.getName() : n)
-                .ifPresent((name) -> properties.put(name, Optional.ofNullable(value).map(Object::toString).orElse("")));
-            Optional.ofNullable(param.getAnnotation(Properties.class))
-                .map(Properties::value)
-                .map(AzureTelemeter::instantiate)
-                .map(converter -> converter.convert(value))
-                .ifPresent(properties::putAll);
+    /**
+     * operations are sampled by their root operation, so that sampled traces are complete, actions and errors are always tracked.
+     */
+    private static boolean isSampled(@Nonnull final Operation op, final double rate) {
+        if (op.getType().equals(AzureOperation.Type.ACTION.name())) {
+            return true;
         }
-        return properties;
-    }
-
-    @Nonnull
-    private static Map<String, String> getActionProperties(@Nonnull Operation operation) {
-        return Optional.ofNullable(operation.getActionParent())
-            .map(Operation::getContext)
-            .map(OperationContext::getTelemetryProperties)
-            .orElse(new HashMap<>());
+        Operation root = op;
+        for (Operation parent = op.getParent(); Objects.nonNull(parent); parent = parent.getParent()) {
+            root = parent;
+        }
+        final int hash = System.identityHashCode(root) * 0x9E3779B9;
+        return (hash >>> 8) < rate * (1 << 24);
     }
 
-    @SneakyThrows
-    private static <U> U instantiate(Class<? extends U> clazz) {
-        return clazz.newInstance();
+    private static long now() {
+        final Instant now = Instant.now();
+        return now.getEpochSecond() * 1_000_000_000L + now.getNano();
     }
 
     @Nonnull
-    private static HashMap<String, String> serialize(@Nonnull Throwable e) {
+    static HashMap<String, String> serialize(@Nonnull Throwable e) {
         final HashMap<String, String> properties = new HashMap<>();
         final ErrorType type = ErrorType.userError; // TODO: (@wangmi & @Hanxiao.Liu)decide error type based on the type of ex.
         properties.put(ERROR_CLASSNAME, e.getClass().getName());
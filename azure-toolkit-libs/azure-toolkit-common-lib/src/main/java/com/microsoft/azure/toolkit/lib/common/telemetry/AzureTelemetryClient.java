@@ -6,6 +6,7 @@
 package com.microsoft.azure.toolkit.lib.common.telemetry;
 
 import com.microsoft.applicationinsights.TelemetryClient;
+import lombok.AccessLevel;
 import lombok.Getter;
 import lombok.Setter;
 import org.apache.commons.lang3.StringUtils;
@@ -14,7 +15,9 @@ import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.Map;
+import java.util.function.Supplier;
 import java.util.regex.Pattern;
 
 import static com.microsoft.azure.toolkit.lib.common.action.Action.RESOURCE_TYPE;
@@ -40,6 +43,8 @@ public class AzureTelemetryClient {
     private final TelemetryClient client;
     @Setter
     private Map<String, String> defaultProperties;
+    @Getter(AccessLevel.NONE)
+    private final Map<String, Supplier<String>> lazyDefaultProperties = new LinkedHashMap<>();
     private boolean isEnabled = true;     // Telemetry is enabled by default.
 
     public AzureTelemetryClient() {
@@ -60,6 +65,16 @@ public class AzureTelemetryClient {
         defaultProperties.put(key, value);
     }
 
+    /**
+     * adds default property whose value is expensive (e.g. installation id), which is got only when an event is tracked.
+     */
+    public synchronized void addDefaultProperty(@Nonnull String key, @Nonnull Supplier<String> value) {
+        if (StringUtils.isEmpty(key)) {
+            return;
+        }
+        lazyDefaultProperties.put(key, value);
+    }
+
     public void enable() {
         this.isEnabled = true;
     }
@@ -86,6 +101,7 @@ public class AzureTelemetryClient {
             return;
         }
 
+        resolveLazyDefaultProperties();
         final Map<String, String> properties = mergeProperties(getDefaultProperties(), customProperties, overrideDefaultProperties);
         properties.entrySet().removeIf(stringStringEntry -> StringUtils.isEmpty(stringStringEntry.getValue())); // filter out null values
         anonymizePersonallyIdentifiableInformation(properties);
@@ -110,6 +126,11 @@ public class AzureTelemetryClient {
         return merged;
     }
 
+    private synchronized void resolveLazyDefaultProperties() {
+        lazyDefaultProperties.forEach((key, value) -> defaultProperties.put(key, value.get()));
+        lazyDefaultProperties.clear();
+    }
+
     private void initDefaultProperties() {
         this.addDefaultProperty(ARCH_KEY, System.getProperty("os.arch"));
         this.addDefaultProperty(JDK_KEY, System.getProperty("java.version"));
@@ -0,0 +1,148 @@
+/*
+ * Copyright (c) Microsoft Corporation. All rights reserved.
+ * Licensed under the MIT License. See License.txt in the project root for license information.
+ */
+
+package com.microsoft.azure.toolkit.lib.common.telemetry;
+
+import com.microsoft.azure.toolkit.lib.common.operation.MethodOperation;
+import com.microsoft.azure.toolkit.lib.common.operation.Operation;
+import com.microsoft.azure.toolkit.lib.common.operation.OperationContext;
+import com.microsoft.azure.toolkit.lib.common.telemetry.AzureTelemetry.Properties;
+import com.microsoft.azure.toolkit.lib.common.telemetry.AzureTelemetry.Property;
+import lombok.SneakyThrows;
+import org.apache.commons.lang3.tuple.Triple;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.lang.reflect.Parameter;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * compact record of an exited operation captured on the calling thread: ids, interned names, nano timestamps and snapshots of the
+ * properties, without references to the operation, its parents or its arguments. it's rendered into telemetry properties by
+ * {@link OperationSpanExporter} later.
+ */
+class OperationSpan {
+    private static final int MAX_NAMES = 1024;
+    /**
+     * [op_name, serviceName, operationName] by operation id, so that names are parsed once per operation id instead of per execution.
+     */
+    private static final Map<String, String[]> NAMES = new ConcurrentHashMap<>();
+
+    final AzureTelemetryClient client;
+    @Nullable
+    final String eventNamePrefix;
+    final AzureTelemetry.Type type;
+    final String[] names;
+    final String executionId;
+    final String parentId;
+    final String operationType;
+    /**
+     * properties of the action parent when the operation exits, since the action may still be running and changing them.
+     */
+    @Nullable
+    final Map<String, String> actionProperties;
+    final long actionCreateAt;
+    final long actionEnterAt;
+    final long actionExitAt;
+    /**
+     * rendered from the arguments of {@link MethodOperation}s when the operation exits, since the arguments may be changed later.
+     */
+    @Nullable
+    final Map<String, String> parameterProperties;
+    final Map<String, String> properties;
+    final long createAt;
+    final long enterAt;
+    final long exitAt;
+    @Nullable
+    final Throwable error;
+    final double samplingRate;
+
+    OperationSpan(@Nonnull AzureTelemetryClient client, @Nullable String eventNamePrefix, @Nonnull AzureTelemetry.Type type,
+                  @Nonnull Operation operation, @Nullable Throwable error, double samplingRate) {
+        this.client = client;
+        this.eventNamePrefix = eventNamePrefix;
+        this.type = type;
+        this.names = getNames(operation.getId());
+        this.executionId = operation.getExecutionId();
+        this.parentId = Optional.ofNullable(operation.getParent()).map(Operation::getExecutionId).orElse("/");
+        this.operationType = operation.getType();
+        final Operation action = operation.getActionParent();
+        if (action != null && action != operation) {
+            final OperationContext context = action.getContext();
+            this.actionProperties = context.getTelemetrySnapshot();
+            this.actionCreateAt = context.getCreateAt();
+            this.actionEnterAt = context.getEnterAt();
+            this.actionExitAt = context.getExitAt();
+        } else {
+            this.actionProperties = null;
+            this.actionCreateAt = 0;
+            this.actionEnterAt = 0;
+            this.actionExitAt = 0;
+        }
+        this.parameterProperties = operation instanceof MethodOperation ? getParameterProperties((MethodOperation) operation) : null;
+        final OperationContext context = operation.getContext();
+        this.properties = context.getTelemetrySnapshot();
+        this.createAt = context.getCreateAt();
+        this.enterAt = context.getEnterAt();
+        this.exitAt = context.getExitAt();
+        this.error = error;
+        this.samplingRate = samplingRate;
+    }
+
+    @Nonnull
+    private static String[] getNames(@Nonnull String id) {
+        final String[] cached = NAMES.get(id);
+        if (Objects.nonNull(cached)) {
+            return cached;
+        }
+        final String name = id.replaceAll("\\(.+\\)", "(***)"); // e.g. `appservice.list_file.dir`
+        final String[] parts = name.split("\\."); // ["appservice|file", "list", "dir"]
+        final String[] names = new String[]{name, null, null};
+        if (parts.length > 1) {
+            final String[] compositeServiceName = parts[0].split("\\|"); // ["appservice", "file"]
+            names[1] = compositeServiceName[0]; // "appservice"
+            names[2] = compositeServiceName.length > 1 ? parts[1] + "_" + compositeServiceName[1] : parts[1]; // "list_file"
+        }
+        // ids of tasks may be arbitrary titles, so that the cache is bounded.
+        if (NAMES.size() < MAX_NAMES) {
+            NAMES.put(id, names);
+        }
+        return names;
+    }
+
+    @Nullable
+    private static Map<String, String> getParameterProperties(@Nonnull MethodOperation ref) {
+        final List<Triple<String, Parameter, Object>> args = ref.getInvocation().getArgs();
+        HashMap<String, String> properties = null;
+        for (final Triple<String, Parameter, Object> arg : args) {
+            final Parameter param = arg.getMiddle();
+            final Object value = arg.getRight();
+            final Property property = param.getAnnotation(Property.class);
+            final Properties converter = param.getAnnotation(Properties.class);
+            if (Objects.isNull(property) && Objects.isNull(converter)) {
+                continue;
+            }
+            properties = Objects.isNull(properties) ? new HashMap<>() : properties;
+            if (Objects.nonNull(property)) {
+                final String name = Property.PARAM_NAME.equals(property.value()) ? param.getName() : property.value();
+                properties.put(name, Optional.ofNullable(value).map(Object::toString).orElse(""));
+            }
+            if (Objects.nonNull(converter)) {
+                Optional.ofNullable(instantiate(converter.value()).convert(value)).ifPresent(properties::putAll);
+            }
+        }
+        return properties;
+    }
+
+    @SneakyThrows
+    private static <U> U instantiate(Class<? extends U> clazz) {
+        return clazz.newInstance();
+    }
+}
@@ -0,0 +1,65 @@
+/*
+ * Copyright (c) Microsoft Corporation. All rights reserved.
+ * Licensed under the MIT License. See License.txt in the project root for license information.
+ */
+
+package com.microsoft.azure.toolkit.lib.common.telemetry;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * bounded lock-free ring buffer of spans, offered by any threads and polled by one consumer at a time.
+ */
+class OperationSpanBuffer {
+    private final AtomicReferenceArray<OperationSpan> slots;
+    private final int mask;
+    private final AtomicLong head = new AtomicLong();
+    private final AtomicLong tail = new AtomicLong();
+
+    /**
+     * @param capacity rounded up to a power of 2.
+     */
+    OperationSpanBuffer(int capacity) {
+        final int size = Integer.highestOneBit(Math.max(2, capacity) * 2 - 1);
+        this.slots = new AtomicReferenceArray<>(size);
+        this.mask = size - 1;
+    }
+
+    /**
+     * @return {@code false} if the buffer is full.
+     */
+    boolean offer(@Nonnull OperationSpan span) {
+        long t;
+        do {
+            t = this.tail.get();
+            if (t - this.head.get() >= this.slots.length()) {
+                return false;
+            }
+        } while (!this.tail.compareAndSet(t, t + 1));
+        this.slots.set((int) (t & this.mask), span);
+        return true;
+    }
+
+    /**
+     * @return the eldest span, or {@code null} if the buffer is empty or the eldest span is claimed but not yet written by its producer.
+     */
+    @Nullable
+    OperationSpan poll() {
+        final long h = this.head.get();
+        final int index = (int) (h & this.mask);
+        final OperationSpan span = this.slots.get(index);
+        if (span != null) {
+            // the slot is cleared before the head moves, so that producers never overwrite a slot which is not polled yet.
+            this.slots.set(index, null);
+            this.head.set(h + 1);
+        }
+        return span;
+    }
+
+    boolean isEmpty() {
+        return this.head.get() == this.tail.get();
+    }
+}
@@ -0,0 +1,136 @@
+/*
+ * Copyright (c) Microsoft Corporation. All rights reserved.
+ * Licensed under the MIT License. See License.txt in the project root for license information.
+ */
+
+package com.microsoft.azure.toolkit.lib.common.telemetry;
+
+import com.microsoft.azure.toolkit.lib.common.operation.OperationContext;
+import lombok.extern.slf4j.Slf4j;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * renders {@link OperationSpan}s into telemetry events of the same properties as they were tracked on the calling threads, on a
+ * background daemon thread. spans are exported on the calling thread if the buffer is full.
+ */
+@Slf4j
+class OperationSpanExporter {
+    private static final long IDLE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+
+    private final OperationSpanBuffer buffer;
+    private final Object exportLock = new Object();
+    @Nullable
+    private volatile Thread thread;
+    private volatile boolean idle;
+
+    OperationSpanExporter(int capacity) {
+        this.buffer = new OperationSpanBuffer(capacity);
+    }
+
+    void submit(@Nonnull OperationSpan span) {
+        if (!this.buffer.offer(span)) {
+            this.export(span);
+            return;
+        }
+        final Thread current = this.thread;
+        if (Objects.isNull(current)) {
+            this.start();
+        } else if (this.idle) {
+            LockSupport.unpark(current);
+        }
+    }
+
+    /**
+     * exports all submitted spans on the calling thread, waiting for the ones being exported by the background thread and the ones
+     * being written by producers.
+     */
+    void flush() {
+        synchronized (this.exportLock) {
+            while (!this.buffer.isEmpty()) {
+                if (!this.drain()) {
+                    // the eldest slot is claimed but not yet written by its producer.
+                    Thread.yield();
+                }
+            }
+        }
+    }
+
+    private synchronized void start() {
+        if (Objects.nonNull(this.thread)) {
+            return;
+        }
+        final Thread exporter = new Thread(() -> {
+            while (!Thread.currentThread().isInterrupted()) {
+                if (!this.drain()) {
+                    this.idle = true;
+                    if (this.buffer.isEmpty()) {
+                        LockSupport.parkNanos(this, IDLE_PARK_NANOS);
+                    }
+                    this.idle = false;
+                }
+            }
+        }, "azure-telemetry-exporter");
+        exporter.setDaemon(true);
+        exporter.start();
+        Runtime.getRuntime().addShutdownHook(new Thread(this::drain, "azure-telemetry-exporter-shutdown"));
+        this.thread = exporter;
+    }
+
+    private boolean drain() {
+        synchronized (this.exportLock) {
+            boolean exported = false;
+            OperationSpan span;
+            while (Objects.nonNull(span = this.buffer.poll())) {
+                this.export(span);
+                exported = true;
+            }
+            return exported;
+        }
+    }
+
+    private void export(@Nonnull OperationSpan span) {
+        try {
+            final Map<String, String> properties = serialize(span);
+            if (Objects.nonNull(span.error)) {
+                properties.putAll(AzureTelemeter.serialize(span.error));
+            }
+            Optional.ofNullable(span.client.getDefaultProperties()).ifPresent(properties::putAll);
+            final String eventName = Optional.ofNullable(span.eventNamePrefix).orElse("AzurePlugin") + "/" + span.type.name();
+            span.client.trackEvent(eventName, properties, null);
+        } catch (final Throwable t) {
+            log.debug("failed to export telemetry of operation {}", span.names[0], t);
+        }
+    }
+
+    @Nonnull
+    private static Map<String, String> serialize(@Nonnull OperationSpan span) {
+        final Map<String, String> properties = new HashMap<>();
+        if (Objects.nonNull(span.names[1])) {
+            properties.put(AzureTelemeter.SERVICE_NAME, span.names[1]);
+            properties.put(AzureTelemeter.OPERATION_NAME, span.names[2]);
+        }
+        properties.put(AzureTelemeter.OP_ID, span.executionId);
+        properties.put(AzureTelemeter.OP_PARENT_ID, span.parentId);
+        properties.put(AzureTelemeter.OP_NAME, span.names[0]);
+        properties.put(AzureTelemeter.OP_TYPE, span.operationType);
+        if (Objects.nonNull(span.actionProperties)) {
+            properties.putAll(span.actionProperties);
+            OperationContext.putTimestamps(properties, span.actionCreateAt, span.actionEnterAt, span.actionExitAt);
+        }
+        Optional.ofNullable(span.parameterProperties).ifPresent(properties::putAll);
+        properties.putAll(span.properties);
+        OperationContext.putTimestamps(properties, span.createAt, span.enterAt, span.exitAt);
+        if (span.samplingRate < 1) {
+            properties.put(AzureTelemeter.OP_SAMPLING_RATE, String.valueOf(span.samplingRate));
+        }
+        return properties;
+    }
+}
@@ -0,0 +1,69 @@
+/*
+ * Copyright (c) Microsoft Corporation. All rights reserved.
+ * Licensed under the MIT License. See License.txt in the project root for license information.
+ */
+
+package com.microsoft.azure.toolkit.lib.common.utils;
+
+import org.apache.commons.lang3.StringUtils;
+
+import javax.annotation.Nonnull;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+
+/**
+ * local caches shared by processes (e.g. resource indexes, tokens and upload manifests) are stored in {@value #DIR_PROPERTY}, or
+ * {@code ~/.azure/azure-toolkit-cache} by default.
+ */
+public final class CacheDirs {
+    public static final String DIR_PROPERTY = "azure.toolkit.cache.dir";
+
+    private CacheDirs() {
+    }
+
+    /**
+     * @return path of {@code first} (and {@code more}) under the cache directory, which is resolved on every call so that it can
+     * be changed by the system property at any time (e.g. in tests).
+     */
+    @Nonnull
+    public static Path resolve(@Nonnull String first, @Nonnull String... more) {
+        final String dir = StringUtils.firstNonBlank(System.getProperty(DIR_PROPERTY),
+            Paths.get(System.getProperty("user.home"), ".azure", "azure-toolkit-cache").toString());
+        return Paths.get(dir, first).resolve(Paths.get("", more));
+    }
+
+    public static void writeAtomically(@Nonnull Path file, @Nonnull byte[] content) throws IOException {
+        writeAtomically(file, output -> output.write(content));
+    }
+
+    /**
+     * writes to a temp file next to {@code file} and then replaces {@code file} with it, so that readers (maybe of other
+     * processes) never see partial content. parent directories are created if absent.
+     */
+    public static void writeAtomically(@Nonnull Path file, @Nonnull ContentWriter writer) throws IOException {
+        Files.createDirectories(file.getParent());
+        final Path temp = Files.createTempFile(file.getParent(), file.getFileName().toString(), ".tmp");
+        try {
+            try (final OutputStream output = Files.newOutputStream(temp)) {
+                writer.write(output);
+            }
+            try {
+                Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (final AtomicMoveNotSupportedException e) {
+                Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    @FunctionalInterface
+    public interface ContentWriter {
+        void write(@Nonnull OutputStream output) throws IOException;
+    }
+}
@@ -0,0 +1,180 @@
+/*
+ * Copyright (c) Microsoft Corporation. All rights reserved.
+ * Licensed under the MIT License. See License.txt in the project root for license information.
+ */
+
+package com.microsoft.azure.toolkit.lib.common.utils;
+
+import lombok.Builder;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.lang3.BooleanUtils;
+import org.apache.commons.lang3.math.NumberUtils;
+
+import javax.annotation.Nonnull;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * stages files into a directory incrementally:
+ * <ul>
+ *     <li>targets with the same size and modified time as their sources are skipped.</li>
+ *     <li>other targets are hard linked to their sources if {@code link} is set (system property {@value #LINK_PROPERTY}), and copied
+ *     (with the modified time) if linking is not supported, e.g. across file systems.</li>
+ *     <li>files are staged on up to {@code parallelism} (system property {@value #PARALLELISM_PROPERTY}) threads.</li>
+ *     <li>other files in the directory, e.g. left by previous runs, are removed if {@code removeStale} is set.</li>
+ * </ul>
+ * staged targets may be hard links, so they must not be modified in place.
+ */
+@Slf4j
+@Builder
+public class FileStager {
+    public static final String LINK_PROPERTY = "azure.staging.link";
+    public static final String PARALLELISM_PROPERTY = "azure.staging.parallelism";
+
+    @Builder.Default
+    private final boolean link = BooleanUtils.toBoolean(System.getProperty(LINK_PROPERTY, "true"));
+    @Builder.Default
+    private final int parallelism = Math.max(1, NumberUtils.toInt(System.getProperty(PARALLELISM_PROPERTY), Runtime.getRuntime().availableProcessors()));
+    @Builder.Default
+    private final boolean removeStale = true;
+
+    /**
+     * stages {@code files} into {@code dir}, files with the same name are staged only once (the last one wins).
+     */
+    @Nonnull
+    public Result stage(@Nonnull Collection<File> files, @Nonnull File dir) throws IOException {
+        final Map<String, Path> sources = new LinkedHashMap<>();
+        files.forEach(file -> sources.put(file.getName(), file.toPath()));
+        final Path target = dir.toPath();
+        Files.createDirectories(target);
+        final Result result = new Result();
+        if (this.removeStale) {
+            final File[] existing = dir.listFiles();
+            for (final File file : existing == null ? new File[0] : existing) {
+                if (!sources.containsKey(file.getName()) || file.isDirectory()) {
+                    FileUtils.forceDelete(file);
+                    result.removed.incrementAndGet();
+                }
+            }
+        }
+        final AtomicBoolean linkable = new AtomicBoolean(this.link);
+        final List<Path> items = new ArrayList<>(sources.values());
+        final int threads = Math.min(this.parallelism, items.size());
+        if (threads <= 1) {
+            for (final Path source : items) {
+                stage(source, target.resolve(source.getFileName()), linkable, result);
+            }
+            return result;
+        }
+        final ExecutorService pool = Executors.newFixedThreadPool(threads);
+        try {
+            final List<Future<?>> futures = new ArrayList<>();
+            for (final Path source : items) {
+                futures.add(pool.submit(() -> {
+                    stage(source, target.resolve(source.getFileName()), linkable, result);
+                    return null;
+                }));
+            }
+            for (final Future<?> future : futures) {
+                future.get();
+            }
+        } catch (final ExecutionException e) {
+            final Throwable cause = e.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            }
+            throw cause instanceof RuntimeException ? (RuntimeException) cause : new IllegalStateException(cause);
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("interrupted while staging files into " + dir, e);
+        } finally {
+            pool.shutdownNow();
+        }
+        return result;
+    }
+
+    private static void stage(@Nonnull Path source, @Nonnull Path target, @Nonnull AtomicBoolean linkable, @Nonnull Result result) throws IOException {
+        final BasicFileAttributes sourceAttributes = Files.readAttributes(source, BasicFileAttributes.class);
+        if (Files.exists(target, LinkOption.NOFOLLOW_LINKS)) {
+            final BasicFileAttributes targetAttributes = Files.readAttributes(target, BasicFileAttributes.class, LinkOption.NOFOLLOW_LINKS);
+            if (targetAttributes.isRegularFile() && targetAttributes.size() == sourceAttributes.size() &&
+                targetAttributes.lastModifiedTime().equals(sourceAttributes.lastModifiedTime())) {
+                result.skipped.incrementAndGet();
+                return;
+            }
+            Files.delete(target);
+        }
+        if (linkable.get()) {
+            try {
+                Files.createLink(target, source);
+                result.linked.incrementAndGet();
+                return;
+            } catch (final IOException | UnsupportedOperationException | SecurityException e) {
+                // e.g. across file systems, stop trying for the remaining files.
+                log.debug("failed to link {} to {}, fall back to copy", target, source, e);
+                linkable.set(false);
+                Files.deleteIfExists(target);
+            }
+        }
+        Files.copy(source, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.COPY_ATTRIBUTES);
+        result.copied.incrementAndGet();
+        result.bytes.addAndGet(sourceAttributes.size());
+    }
+
+    public static class Result {
+        private final AtomicLong copied = new AtomicLong();
+        private final AtomicLong linked = new AtomicLong();
+        private final AtomicLong skipped = new AtomicLong();
+        private final AtomicLong removed = new AtomicLong();
+        private final AtomicLong bytes = new AtomicLong();
+
+        public long getFilesCopied() {
+            return this.copied.get();
+        }
+
+        public long getFilesLinked() {
+            return this.linked.get();
+        }
+
+        /**
+         * @return files skipped because the targets are up-to-date.
+         */
+        public long getFilesSkipped() {
+            return this.skipped.get();
+        }
+
+        /**
+         * @return stale files (or directories) removed from the directory.
+         */
+        public long getFilesRemoved() {
+            return this.removed.get();
+        }
+
+        public long getBytesCopied() {
+            return this.bytes.get();
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%d copied (%s), %d linked, %d skipped, %d removed", this.getFilesCopied(),
+                FileUtils.byteCountToDisplaySize(this.getBytesCopied()), this.getFilesLinked(), this.getFilesSkipped(), this.getFilesRemoved());
+        }
+    }
+}
@@ -5,19 +5,34 @@
 
 package com.microsoft.azure.toolkit.lib.common.utils;
 
+import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.lang3.StringUtils;
 
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
+@Slf4j
 public class InstallationIdUtils {
+    private static final String INSTALLATION_ID_FILE = "installation-id";
 
     private static final Pattern HASHED_MAC_PATTERN = Pattern.compile("[0-9a-f]{64}");
     // Hashed mac address for iBridge device
     private static final String INVALID_HASHED_MAC_ADDRESS = "6c9d2bc8f91b89624add29c0abeae7fb42bf539fa1cdb2e3e57cd668fa9bcead";
+    private static final Object LOCK = new Object();
+    private static CompletableFuture<String> persistentHashMac;
 
     public static boolean isValidHashMac(String hashMac) {
         return isValidHash(hashMac) && !isDepreciatedHashMac(hashMac);
@@ -28,6 +43,71 @@ public class InstallationIdUtils {
         return StringUtils.isNotBlank(mac) ? hash(mac) : null;
     }
 
+    /**
+     * resolves {@link #getPersistentHashMac(Path)} in background once per process, so that callers (e.g. mojos) don't wait for it
+     * unless they need the installation id.
+     */
+    @Nonnull
+    public static synchronized CompletableFuture<String> getPersistentHashMacAsync() {
+        if (Objects.isNull(persistentHashMac)) {
+            final Path file = CacheDirs.resolve(INSTALLATION_ID_FILE);
+            persistentHashMac = CompletableFuture.supplyAsync(() -> getPersistentHashMac(file));
+        }
+        return persistentHashMac;
+    }
+
+    /**
+     * gets the hashed mac persisted in {@code file}, or computes (which forks commands to list network interfaces) and persists it
+     * if the file is absent or invalid. concurrent processes (e.g. parallel builds) are serialized by a lock file.
+     * <p>
+     * since the id is persisted in the {@link CacheDirs cache directory} (under the user home by default), it identifies a
+     * machine per user home: users (or containers) with different home directories on the same machine persist their own copies,
+     * which are the same unless the network interfaces changed in between.
+     */
+    @Nullable
+    public static String getPersistentHashMac(@Nonnull Path file) {
+        final String persisted = read(file);
+        if (isValidHashMac(persisted)) {
+            return persisted;
+        }
+        synchronized (LOCK) {
+            return computePersistentHashMac(file);
+        }
+    }
+
+    @Nullable
+    private static String computePersistentHashMac(@Nonnull Path file) {
+        try {
+            Files.createDirectories(file.getParent());
+            try (final FileChannel channel = FileChannel.open(file.resolveSibling(file.getFileName() + ".lock"),
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE); final FileLock ignored = channel.lock()) {
+                // may be persisted by another process while waiting for the lock
+                final String current = read(file);
+                if (isValidHashMac(current)) {
+                    return current;
+                }
+                final String hashMac = getHashMac();
+                if (isValidHashMac(hashMac)) {
+                    CacheDirs.writeAtomically(file, hashMac.getBytes(StandardCharsets.UTF_8));
+                }
+                return hashMac;
+            }
+        } catch (final IOException e) {
+            log.debug("failed to persist installation id into {}", file, e);
+            return getHashMac();
+        }
+    }
+
+    @Nullable
+    private static String read(@Nonnull Path file) {
+        try {
+            return Files.isRegularFile(file) ? StringUtils.trim(new String(Files.readAllBytes(file), StandardCharsets.UTF_8)) : null;
+        } catch (final IOException e) {
+            log.debug("failed to read installation id from {}", file, e);
+            return null;
+        }
+    }
+
     public static String hash(String mac) {
         if (StringUtils.isEmpty(mac)) {
             return null;
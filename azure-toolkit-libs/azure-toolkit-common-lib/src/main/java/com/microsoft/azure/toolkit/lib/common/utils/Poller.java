@@ -0,0 +1,314 @@
+/*
+ * Copyright (c) Microsoft Corporation. All rights reserved.
+ * Licensed under the MIT License. See License.txt in the project root for license information.
+ */
+
+package com.microsoft.azure.toolkit.lib.common.utils;
+
+import com.azure.core.exception.HttpResponseException;
+import com.azure.core.http.HttpResponse;
+import com.microsoft.azure.toolkit.lib.common.exception.AzureToolkitRuntimeException;
+import com.microsoft.azure.toolkit.lib.common.operation.Operation;
+import com.microsoft.azure.toolkit.lib.common.task.AzureTask;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.ToString;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.StringUtils;
+import org.apache.commons.lang3.math.NumberUtils;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.io.IOException;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Predicate;
+
+/**
+ * polls until the result is ready, with exponential backoff and jitter capped by {@code maxDelay}, within the deadline counted
+ * from creation of the poller (shared by all polls of the same poller).
+ * <ul>
+ *     <li>exceptions thrown by polls are treated as not ready if they are {@code retryable} (by default, {@link #isTransient(Throwable)
+ *     transient} ones), others are rethrown. if it's a throttled response with {@code Retry-After}, the next poll is delayed as asked
+ *     by the server (unless {@code retryAfterAware} is disabled).</li>
+ *     <li>polling is cancelled if the current thread is interrupted or the {@link AzureTask} it runs in is cancelled.</li>
+ *     <li>polls are counted by name in {@link Metrics}.</li>
+ * </ul>
+ */
+@Slf4j
+public class Poller {
+    private static final String[] RETRY_AFTER_MS_HEADERS = {"retry-after-ms", "x-ms-retry-after-ms"};
+    private static final String RETRY_AFTER_HEADER = "Retry-After";
+
+    private final Duration initialDelay;
+    private final Duration maxDelay;
+    private final double multiplier;
+    /**
+     * every delay is randomized by up to +/- this ratio to avoid polling in lockstep.
+     */
+    private final double jitter;
+    @Getter
+    private final Duration deadline;
+    private final Clock clock;
+    private final boolean retryAfterAware;
+    private final Predicate<? super Throwable> retryable;
+    private final long startNanos;
+    private final Map<String, Metrics> metrics = Collections.synchronizedMap(new LinkedHashMap<>());
+
+    @Builder
+    public Poller(@Nullable Duration initialDelay, @Nullable Duration maxDelay, @Nullable Double multiplier, @Nullable Double jitter,
+                  @Nonnull Duration deadline, @Nullable Clock clock, @Nullable Boolean retryAfterAware,
+                  @Nullable Predicate<? super Throwable> retryable) {
+        this.initialDelay = Objects.isNull(initialDelay) ? Duration.ofMillis(500) : initialDelay;
+        this.maxDelay = Objects.isNull(maxDelay) ? Duration.ofSeconds(10) : maxDelay;
+        this.multiplier = Objects.isNull(multiplier) ? 2 : Math.max(1, multiplier);
+        this.jitter = Objects.isNull(jitter) ? 0.2 : Math.min(Math.max(0, jitter), 0.99);
+        this.deadline = deadline;
+        this.clock = Objects.isNull(clock) ? Clock.SYSTEM : clock;
+        this.retryAfterAware = !Boolean.FALSE.equals(retryAfterAware);
+        this.retryable = Objects.isNull(retryable) ? Poller::isTransient : retryable;
+        this.startNanos = this.clock.nanoTime();
+    }
+
+    /**
+     * @return the first ready result, or the last result ({@code null} if the last poll failed) when the deadline is reached.
+     * @throws CancellationException if polling is cancelled.
+     * @throws AzureToolkitRuntimeException wrapping the checked exception thrown by a poll that is not retryable, unchecked ones
+     * are rethrown as they are.
+     */
+    @Nullable
+    public <T> T poll(@Nonnull String name, @Nonnull Callable<T> callable, @Nonnull Predicate<? super T> ready) {
+        final Metrics metrics = this.metrics.computeIfAbsent(name, k -> new Metrics());
+        final long start = this.clock.nanoTime();
+        Duration delay = this.initialDelay;
+        T result = null;
+        try {
+            while (true) {
+                checkCancelled(name, metrics);
+                Duration next = null;
+                final long pollStart = this.clock.nanoTime();
+                try {
+                    result = callable.call();
+                    metrics.record(Duration.ofNanos(this.clock.nanoTime() - pollStart), null);
+                    if (ready.test(result)) {
+                        metrics.outcome = Outcome.READY;
+                        return result;
+                    }
+                } catch (final InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    checkCancelled(name, metrics);
+                } catch (final Exception e) {
+                    result = null;
+                    metrics.record(Duration.ofNanos(this.clock.nanoTime() - pollStart), e);
+                    if (!this.retryable.test(e)) {
+                        metrics.outcome = Outcome.FAILED;
+                        throw e instanceof RuntimeException ? (RuntimeException) e : new AzureToolkitRuntimeException(e.getMessage(), e);
+                    }
+                    next = this.retryAfterAware ? getRetryAfter(e) : null;
+                    if (Objects.nonNull(next)) {
+                        metrics.throttled++;
+                    }
+                    log.debug("[poller]:{} poll {} failed: {}", name, metrics.polls, e.getMessage());
+                }
+                final Duration remaining = this.getRemaining();
+                if (remaining.isZero()) {
+                    metrics.outcome = Outcome.TIMEOUT;
+                    return result;
+                }
+                if (Objects.isNull(next)) {
+                    next = this.withJitter(delay);
+                    delay = min(Duration.ofNanos((long) (delay.toNanos() * this.multiplier)), this.maxDelay);
+                }
+                try {
+                    this.clock.sleep(min(next, remaining));
+                } catch (final InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        } finally {
+            metrics.elapsed = metrics.elapsed.plusNanos(this.clock.nanoTime() - start);
+            log.debug("[poller]:{} {}", name, metrics);
+        }
+    }
+
+    /**
+     * @return metrics of polls by name, in the order they are started.
+     */
+    @Nonnull
+    public Map<String, Metrics> getMetrics() {
+        synchronized (this.metrics) {
+            return new LinkedHashMap<>(this.metrics);
+        }
+    }
+
+    @Nonnull
+    public Duration getRemaining() {
+        final Duration elapsed = Duration.ofNanos(this.clock.nanoTime() - this.startNanos);
+        final Duration remaining = this.deadline.minus(elapsed);
+        return remaining.isNegative() ? Duration.ZERO : remaining;
+    }
+
+    private static void checkCancelled(@Nonnull String name, @Nonnull Metrics metrics) {
+        if (Thread.currentThread().isInterrupted() || isTaskCancelled()) {
+            metrics.outcome = Outcome.CANCELLED;
+            throw new CancellationException(String.format("polling of %s is cancelled", name));
+        }
+    }
+
+    private static boolean isTaskCancelled() {
+        for (Operation operation = Operation.current(); Objects.nonNull(operation); operation = operation.getParent()) {
+            if (operation instanceof AzureTask) {
+                final AzureTask.Monitor monitor = ((AzureTask<?>) operation).getMonitor();
+                if (Objects.nonNull(monitor) && monitor.isCancelled()) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @return {@code true} if {@code error} is caused by an I/O error, a timeout or an http response of 408, 429 or 5xx.
+     */
+    public static boolean isTransient(@Nonnull Throwable error) {
+        for (Throwable t = error; Objects.nonNull(t); t = t.getCause() == t ? null : t.getCause()) {
+            if (t instanceof IOException || t instanceof TimeoutException) {
+                return true;
+            }
+            if (t instanceof HttpResponseException && Objects.nonNull(((HttpResponseException) t).getResponse())) {
+                final int code = ((HttpResponseException) t).getResponse().getStatusCode();
+                return code == 408 || code == 429 || code >= 500;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @return delay asked by {@code Retry-After} (or {@code retry-after-ms}) header of the http response causing {@code error}.
+     */
+    @Nullable
+    Duration getRetryAfter(@Nonnull Throwable error) {
+        for (Throwable t = error; Objects.nonNull(t); t = t.getCause() == t ? null : t.getCause()) {
+            if (t instanceof HttpResponseException && Objects.nonNull(((HttpResponseException) t).getResponse())) {
+                final HttpResponse response = ((HttpResponseException) t).getResponse();
+                for (final String header : RETRY_AFTER_MS_HEADERS) {
+                    final long millis = NumberUtils.toLong(response.getHeaderValue(header), -1);
+                    if (millis >= 0) {
+                        return Duration.ofMillis(millis);
+                    }
+                }
+                return parseRetryAfter(response.getHeaderValue(RETRY_AFTER_HEADER));
+            }
+        }
+        return null;
+    }
+
+    @Nullable
+    private Duration parseRetryAfter(@Nullable String value) {
+        if (StringUtils.isBlank(value)) {
+            return null;
+        }
+        final long seconds = NumberUtils.toLong(value.trim(), -1);
+        if (seconds >= 0) {
+            return Duration.ofSeconds(seconds);
+        }
+        try {
+            final Duration delay = Duration.between(this.clock.now(), ZonedDateTime.parse(value.trim(), DateTimeFormatter.RFC_1123_DATE_TIME));
+            return delay.isNegative() ? Duration.ZERO : delay;
+        } catch (final DateTimeParseException e) {
+            return null;
+        }
+    }
+
+    private Duration withJitter(@Nonnull Duration delay) {
+        if (this.jitter <= 0) {
+            return delay;
+        }
+        final double factor = 1 + ThreadLocalRandom.current().nextDouble(-this.jitter, this.jitter);
+        return Duration.ofNanos((long) (delay.toNanos() * factor));
+    }
+
+    private static Duration min(@Nonnull Duration a, @Nonnull Duration b) {
+        return a.compareTo(b) <= 0 ? a : b;
+    }
+
+    public enum Outcome {
+        READY, TIMEOUT, CANCELLED, FAILED
+    }
+
+    @Getter
+    @ToString
+    public static class Metrics {
+        private int polls;
+        private int failures;
+        private int throttled;
+        /**
+         * total time spent in polls, excluding the delays between them.
+         */
+        private Duration latency = Duration.ZERO;
+        private Duration maxLatency = Duration.ZERO;
+        /**
+         * total time spent in polling, including the delays between polls.
+         */
+        private Duration elapsed = Duration.ZERO;
+        @Nullable
+        private Outcome outcome;
+        @Nullable
+        @ToString.Exclude
+        private Throwable lastError;
+
+        private void record(@Nonnull Duration latency, @Nullable Throwable error) {
+            this.polls++;
+            this.latency = this.latency.plus(latency);
+            this.maxLatency = latency.compareTo(this.maxLatency) > 0 ? latency : this.maxLatency;
+            this.lastError = error;
+            if (Objects.nonNull(error)) {
+                this.failures++;
+            }
+        }
+    }
+
+    /**
+     * source of time and delays, replaceable by a virtual one in tests.
+     */
+    public interface Clock {
+        Clock SYSTEM = new Clock() {
+            @Override
+            public long nanoTime() {
+                return System.nanoTime();
+            }
+
+            @Override
+            public void sleep(@Nonnull Duration duration) throws InterruptedException {
+                Thread.sleep(duration.toMillis());
+            }
+
+            @Nonnull
+            @Override
+            public Instant now() {
+                return Instant.now();
+            }
+        };
+
+        long nanoTime();
+
+        /**
+         * @return wall clock time, used to resolve {@code Retry-After} dates.
+         */
+        @Nonnull
+        Instant now();
+
+        void sleep(@Nonnull Duration duration) throws InterruptedException;
+    }
+}
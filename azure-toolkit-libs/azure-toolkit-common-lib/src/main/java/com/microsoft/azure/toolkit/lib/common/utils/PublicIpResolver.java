@@ -0,0 +1,317 @@
+/*
+ * Copyright (c) Microsoft Corporation. All rights reserved.
+ * Licensed under the MIT License. See License.txt in the project root for license information.
+ */
+
+package com.microsoft.azure.toolkit.lib.common.utils;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import lombok.Builder;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.StringUtils;
+import org.apache.commons.lang3.math.NumberUtils;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Properties;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.stream.Collectors;
+
+/**
+ * resolves public IP of local machine, e.g. to add firewall rules of database servers:
+ * <ul>
+ *     <li>probes (e.g. {@link #resolveByJdbc}) take precedence, since they report the IP seen by the server itself, which may differ
+ *     from the one seen by public endpoints (e.g. behind proxies or with split egress). public endpoints (system property
+ *     {@value #ENDPOINTS_PROPERTY}, separated by comma) are the fallback, they are requested concurrently and raced once the probes fail
+ *     or are not done in a short grace period.</li>
+ *     <li>resolution is limited by {@code timeout} (system property {@value #TIMEOUT_PROPERTY} in milliseconds), so as connecting to and
+ *     reading from each endpoint and logging in by jdbc probes.</li>
+ *     <li>resolved IP is cached by source (e.g. the jdbc url of a database server) for {@code ttl} (system property
+ *     {@value #TTL_PROPERTY} in seconds) and concurrent resolutions of the same source share one flight, failures are not cached.</li>
+ * </ul>
+ */
+@Slf4j
+public class PublicIpResolver {
+    public static final String ENDPOINTS_PROPERTY = "azure.publicIp.endpoints";
+    public static final String TIMEOUT_PROPERTY = "azure.publicIp.timeout";
+    public static final String TTL_PROPERTY = "azure.publicIp.ttl";
+    private static final String ENDPOINTS_SOURCE = "";
+    private static final List<String> DEFAULT_ENDPOINTS = Collections.unmodifiableList(Arrays.asList(
+        "http://whatismyip.akamai.com", "http://bot.whatismyipaddress.com", "https://ipecho.net/plain"));
+    private static final ExecutorService POOL = Executors.newCachedThreadPool(new ThreadFactoryBuilder()
+        .setNameFormat("public-ip-resolver-%d").setDaemon(true).build());
+    private static final PublicIpResolver DEFAULT = PublicIpResolver.builder().build();
+    private static final Duration PROBE_GRACE = Duration.ofSeconds(1);
+
+    private final List<String> endpoints;
+    private final Duration timeout;
+    private final Duration ttl;
+    private final Map<String, Source> sources = new ConcurrentHashMap<>();
+
+    @Builder
+    private PublicIpResolver(@Nullable List<String> endpoints, @Nullable Duration timeout, @Nullable Duration ttl) {
+        this.endpoints = Objects.nonNull(endpoints) ? new ArrayList<>(endpoints) : getDefaultEndpoints();
+        this.timeout = Objects.nonNull(timeout) ? timeout : Duration.ofMillis(NumberUtils.toLong(System.getProperty(TIMEOUT_PROPERTY), 5000));
+        this.ttl = Objects.nonNull(ttl) ? ttl : Duration.ofSeconds(NumberUtils.toLong(System.getProperty(TTL_PROPERTY), 300));
+    }
+
+    /**
+     * @return the resolver shared by all database modules.
+     */
+    @Nonnull
+    public static PublicIpResolver getDefault() {
+        return DEFAULT;
+    }
+
+    /**
+     * @return public IP of local machine seen by public endpoints, or empty if no endpoint returns a valid IP in time.
+     */
+    @Nonnull
+    public String resolve() {
+        return this.resolve(ENDPOINTS_SOURCE, Collections.emptyList());
+    }
+
+    /**
+     * @param source key of the cached IP, e.g. the server that {@code probes} connect to.
+     * @param probes strategies tried in order before the public endpoints, returning IP (may be surrounded by spaces) or empty.
+     * @return public IP of local machine, or empty if no probe or endpoint returns a valid IP in time.
+     */
+    @Nonnull
+    @SafeVarargs
+    public final String resolve(@Nonnull String source, @Nonnull Callable<String>... probes) {
+        return this.resolve(source, Arrays.asList(probes));
+    }
+
+    /**
+     * makes a connection to the database server with an empty password and parses local public IP from the error message (e.g. the IP
+     * is not allowed by firewall rules of the server), and falls back to public endpoints.
+     *
+     * @return public IP of local machine, or empty if it's resolved neither by the server nor by public endpoints in time.
+     */
+    @Nonnull
+    public String resolveByJdbc(@Nonnull String driver, @Nonnull String url, @Nonnull String username) {
+        return this.resolve(url, jdbcProbe(driver, url, username, this.timeout));
+    }
+
+    /**
+     * drops all the cached IPs, e.g. after network changes.
+     */
+    public void invalidate() {
+        this.sources.values().forEach(s -> s.resolved = null);
+    }
+
+    @Nonnull
+    private String resolve(@Nonnull String key, @Nonnull List<Callable<String>> probes) {
+        final Source source = this.sources.computeIfAbsent(key, k -> new Source());
+        final Resolved current = source.resolved;
+        if (Objects.nonNull(current) && current.isFresh()) {
+            return current.ip;
+        }
+        return StringUtils.defaultString(source.flight.run(() -> {
+            // may be resolved by the flight which is just finished
+            final Resolved latest = source.resolved;
+            if (Objects.nonNull(latest) && latest.isFresh()) {
+                return latest.ip;
+            }
+            final String ip = this.race(probes);
+            if (StringUtils.isNotBlank(ip)) {
+                source.resolved = new Resolved(ip, System.nanoTime() + this.ttl.toNanos());
+            }
+            return ip;
+        }));
+    }
+
+    /**
+     * @return probe which makes a connection to the database server with an empty password and parses local public IP from the
+     * error message, login of which is limited by {@code timeout}, since cancelling doesn't interrupt socket IO.
+     */
+    @Nonnull
+    static Callable<String> jdbcProbe(@Nonnull String driver, @Nonnull String url, @Nonnull String username, @Nonnull Duration timeout) {
+        return () -> {
+            Class.forName(driver);
+            try (final Connection ignored = DriverManager.getConnection(url, jdbcProperties(driver, username, timeout))) {
+                return StringUtils.EMPTY;
+            } catch (final SQLException e) {
+                return NetUtils.parseIpAddressFromMessage(e.getMessage());
+            }
+        };
+    }
+
+    /**
+     * @return connection properties with the connect/login timeouts of the known drivers, {@link DriverManager#setLoginTimeout} is not
+     * used since it's global to the jvm.
+     */
+    @Nonnull
+    static Properties jdbcProperties(@Nonnull String driver, @Nonnull String username, @Nonnull Duration timeout) {
+        final Properties properties = new Properties();
+        properties.setProperty("user", username);
+        final String millis = String.valueOf(Math.max(1, timeout.toMillis()));
+        final String seconds = String.valueOf(Math.max(1, (timeout.toMillis() + 999) / 1000));
+        switch (driver) {
+            case "com.mysql.jdbc.Driver":
+            case "com.mysql.cj.jdbc.Driver":
+                properties.setProperty("connectTimeout", millis);
+                properties.setProperty("socketTimeout", millis);
+                break;
+            case "org.postgresql.Driver":
+                properties.setProperty("connectTimeout", seconds);
+                properties.setProperty("loginTimeout", seconds);
+                properties.setProperty("socketTimeout", seconds);
+                break;
+            case "com.microsoft.sqlserver.jdbc.SQLServerDriver":
+                properties.setProperty("loginTimeout", seconds);
+                properties.setProperty("socketTimeout", millis);
+                break;
+            default:
+                log.debug("timeouts of jdbc driver {} are unknown, login is not limited", driver);
+        }
+        return properties;
+    }
+
+    /**
+     * waits for probes in order and falls back to the first valid IP of the endpoints. the endpoints are requested once all probes
+     * fail, or concurrently with the probes after a grace period (at most half of the timeout), so that slow probes don't leave no
+     * time for falling back, and fast probes don't cost any request to the endpoints.
+     */
+    @Nonnull
+    private String race(@Nonnull List<Callable<String>> probes) {
+        final List<Future<String>> probing = probes.stream().map(POOL::submit).collect(Collectors.toList());
+        final CompletionService<String> service = new ExecutorCompletionService<>(POOL);
+        final List<Future<String>> fetching = new ArrayList<>();
+        boolean fetched = false;
+        final long start = System.nanoTime();
+        final long deadline = start + this.timeout.toNanos();
+        final long grace = start + Math.min(PROBE_GRACE.toNanos(), this.timeout.toNanos() / 2);
+        try {
+            for (final Future<String> probe : probing) {
+                while (true) {
+                    final long until = fetched ? deadline : Math.min(grace, deadline);
+                    try {
+                        final String ip = StringUtils.trim(probe.get(Math.max(0, until - System.nanoTime()), TimeUnit.NANOSECONDS));
+                        if (isValid(ip)) {
+                            log.debug("resolved public IP by probe in {}ms", TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+                            return ip;
+                        }
+                    } catch (final ExecutionException e) {
+                        log.debug("failed to resolve public IP by probe: {}", e.getCause().getMessage());
+                    } catch (final TimeoutException e) {
+                        if (!fetched && System.nanoTime() - deadline < 0) {
+                            this.fetchAll(service, fetching);
+                            fetched = true;
+                            continue;
+                        }
+                        log.debug("timed out to resolve public IP by probe in {}ms", this.timeout.toMillis());
+                    }
+                    break;
+                }
+            }
+            if (!fetched) {
+                this.fetchAll(service, fetching);
+            }
+            for (int i = 0; i < fetching.size(); i++) {
+                // endpoints completed while waiting for probes are still taken after the deadline.
+                final Future<String> done = service.poll(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+                if (Objects.isNull(done)) {
+                    log.debug("timed out to resolve public IP in {}ms", this.timeout.toMillis());
+                    break;
+                }
+                try {
+                    final String ip = StringUtils.trim(done.get());
+                    if (isValid(ip)) {
+                        log.debug("resolved public IP in {}ms", TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+                        return ip;
+                    }
+                } catch (final ExecutionException e) {
+                    log.debug("failed to resolve public IP: {}", e.getCause().getMessage());
+                }
+            }
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            probing.forEach(f -> f.cancel(true));
+            fetching.forEach(f -> f.cancel(true));
+        }
+        return StringUtils.EMPTY;
+    }
+
+    private void fetchAll(@Nonnull CompletionService<String> service, @Nonnull List<Future<String>> fetching) {
+        this.endpoints.forEach(e -> fetching.add(service.submit(() -> this.fetch(e))));
+    }
+
+    private static boolean isValid(@Nullable String ip) {
+        return StringUtils.isNotBlank(ip) && NetUtils.INTACT_IPADDRESS_PATTERN.matcher(ip).find();
+    }
+
+    @Nonnull
+    private String fetch(@Nonnull String endpoint) throws IOException {
+        final HttpURLConnection connection = (HttpURLConnection) new URL(endpoint).openConnection();
+        connection.setConnectTimeout((int) this.timeout.toMillis());
+        connection.setReadTimeout((int) this.timeout.toMillis());
+        try (final BufferedReader in = new BufferedReader(new InputStreamReader(connection.getInputStream(), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = in.readLine()) != null) {
+                final String ip = StringUtils.trim(line);
+                if (NetUtils.INTACT_IPADDRESS_PATTERN.matcher(ip).find()) {
+                    return ip;
+                }
+            }
+            return StringUtils.EMPTY;
+        } finally {
+            connection.disconnect();
+        }
+    }
+
+    @Nonnull
+    private static List<String> getDefaultEndpoints() {
+        final String endpoints = System.getProperty(ENDPOINTS_PROPERTY);
+        if (StringUtils.isBlank(endpoints)) {
+            return DEFAULT_ENDPOINTS;
+        }
+        return Arrays.stream(StringUtils.split(endpoints, ',')).map(StringUtils::trim).filter(StringUtils::isNotBlank).collect(Collectors.toList());
+    }
+
+    private static class Source {
+        private final SingleFlight<String> flight = new SingleFlight<>();
+        @Nullable
+        private volatile Resolved resolved;
+    }
+
+    private static class Resolved {
+        private final String ip;
+        private final long expiresAt;
+
+        private Resolved(@Nonnull String ip, long expiresAt) {
+            this.ip = ip;
+            this.expiresAt = expiresAt;
+        }
+
+        private boolean isFresh() {
+            return this.expiresAt - System.nanoTime() > 0;
+        }
+    }
+}
@@ -0,0 +1,88 @@
+/*
+ * Copyright (c) Microsoft Corporation. All rights reserved.
+ * Licensed under the MIT License. See License.txt in the project root for license information.
+ */
+
+package com.microsoft.azure.toolkit.lib.common.utils;
+
+import com.microsoft.azure.toolkit.lib.common.exception.AzureToolkitRuntimeException;
+import lombok.Builder;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.function.Predicate;
+
+/**
+ * polls readiness signals (e.g. deployment status, host status) with exponential backoff and jitter until they are ready
+ * or the overall deadline (counted from creation of the probe) is reached, and records how long each phase took.
+ *
+ * @see Poller
+ */
+public class ReadinessProbe {
+    private final Poller poller;
+
+    @Builder
+    public ReadinessProbe(@Nullable Duration initialDelay, @Nullable Duration maxDelay, @Nullable Double multiplier,
+                          @Nullable Double jitter, @Nonnull Duration deadline) {
+        this.poller = Poller.builder().initialDelay(initialDelay).maxDelay(maxDelay).multiplier(multiplier).jitter(jitter)
+            .deadline(deadline).retryable(e -> true).build();
+    }
+
+    /**
+     * polls {@code probe} until its result matches {@code ready}, exceptions thrown by {@code probe} are treated as not ready.
+     *
+     * @return the first ready result
+     * @throws AzureToolkitRuntimeException if not ready before the deadline, with the last failure (if any) as cause.
+     */
+    public <T> T await(@Nonnull String phase, @Nonnull Callable<T> probe, @Nonnull Predicate<? super T> ready) {
+        final T result;
+        try {
+            result = this.poller.poll(phase, probe, ready);
+        } catch (final CancellationException e) {
+            throw new AzureToolkitRuntimeException(String.format("interrupted while waiting for %s", phase), e);
+        }
+        final Poller.Metrics metrics = this.poller.getMetrics().get(phase);
+        if (metrics.getOutcome() != Poller.Outcome.READY) {
+            final String message = String.format("%s is not ready after %d attempts in %ds", phase, metrics.getPolls(), this.getDeadline().getSeconds());
+            final Throwable lastError = metrics.getLastError();
+            throw Objects.isNull(lastError) ? new AzureToolkitRuntimeException(message) : new AzureToolkitRuntimeException(message, lastError);
+        }
+        return result;
+    }
+
+    /**
+     * runs {@code action} until it completes without exception.
+     */
+    public void await(@Nonnull String phase, @Nonnull Runnable action) {
+        this.await(phase, () -> {
+            action.run();
+            return Boolean.TRUE;
+        }, r -> true);
+    }
+
+    /**
+     * @return time spent in each phase, in the order they are started.
+     */
+    @Nonnull
+    public Map<String, Duration> getPhaseTimings() {
+        final Map<String, Duration> timings = new LinkedHashMap<>();
+        this.poller.getMetrics().forEach((phase, metrics) -> timings.put(phase, metrics.getElapsed()));
+        return timings;
+    }
+
+    @Nonnull
+    public Duration getDeadline() {
+        return this.poller.getDeadline();
+    }
+
+    @Nonnull
+    public Duration getRemaining() {
+        return this.poller.getRemaining();
+    }
+}
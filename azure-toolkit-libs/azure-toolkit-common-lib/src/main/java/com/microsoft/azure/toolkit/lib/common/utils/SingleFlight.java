@@ -0,0 +1,75 @@
+/*
+ * Copyright (c) Microsoft Corporation. All rights reserved.
+ * Licensed under the MIT License. See License.txt in the project root for license information.
+ */
+
+package com.microsoft.azure.toolkit.lib.common.utils;
+
+import com.microsoft.azure.toolkit.lib.common.exception.AzureToolkitRuntimeException;
+import lombok.RequiredArgsConstructor;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+
+/**
+ * runs at most one load at a time, callers arriving while a load is in flight join it instead of starting another.
+ */
+public class SingleFlight<V> {
+    private final AtomicReference<Flight<V>> inFlight = new AtomicReference<>();
+
+    public boolean isInFlight() {
+        return Objects.nonNull(this.inFlight.get());
+    }
+
+    /**
+     * @return result of the load started by current call or of the in-flight one,
+     * {@code null} if called reentrantly by the thread which is running the load.
+     */
+    @Nullable
+    public V run(@Nonnull Supplier<V> loader) {
+        while (true) {
+            final Flight<V> current = this.inFlight.get();
+            if (Objects.nonNull(current)) {
+                return current.owner == Thread.currentThread() ? null : join(current.future);
+            }
+            final Flight<V> flight = new Flight<>(Thread.currentThread());
+            if (this.inFlight.compareAndSet(null, flight)) {
+                try {
+                    final V result = loader.get();
+                    flight.future.complete(result);
+                    return result;
+                } catch (final Throwable t) {
+                    flight.future.completeExceptionally(t);
+                    throw t;
+                } finally {
+                    this.inFlight.compareAndSet(flight, null);
+                }
+            }
+        }
+    }
+
+    private static <V> V join(@Nonnull CompletableFuture<V> future) {
+        try {
+            return future.join();
+        } catch (final CompletionException e) {
+            final Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            } else if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new AzureToolkitRuntimeException(cause);
+        }
+    }
+
+    @RequiredArgsConstructor
+    private static class Flight<V> {
+        private final Thread owner;
+        private final CompletableFuture<V> future = new CompletableFuture<>();
+    }
+}
@@ -0,0 +1,99 @@
+/*
+ * Copyright (c) Microsoft Corporation. All rights reserved.
+ * Licensed under the MIT License. See License.txt in the project root for license information.
+ */
+
+package com.microsoft.azure.toolkit.lib.common.utils.aspect;
+
+import groovy.lang.Closure;
+import groovy.text.Template;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.java.Log;
+import org.codehaus.groovy.runtime.GStringImpl;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.Map;
+import java.util.logging.Level;
+
+/**
+ * a template parsed once by {@link ExpressionUtils#compile(String)} and rendered many times against method invocations.
+ */
+public abstract class CompiledTemplate {
+    private static final String INVALID_TEMPLATE = "error occurs when evaluate template(%s) with bindings(%s)";
+
+    @Nullable
+    public abstract String render(@Nonnull MethodInvocation invocation);
+
+    /**
+     * template without any groovy expression, rendered as is.
+     */
+    @RequiredArgsConstructor
+    static class Constant extends CompiledTemplate {
+        @Nullable
+        private final String template;
+
+        @Nullable
+        @Override
+        public String render(@Nonnull MethodInvocation invocation) {
+            return this.template;
+        }
+    }
+
+    /**
+     * template of a single parameter reference, e.g. {@code "$subscriptionId"} or {@code "${subscriptionId}"},
+     * rendered by reading the argument directly instead of running groovy.
+     */
+    @RequiredArgsConstructor
+    static class Parameter extends CompiledTemplate {
+        @Nonnull
+        private final String parameter;
+        @Nonnull
+        private final CompiledTemplate fallback;
+
+        @Nullable
+        @Override
+        public String render(@Nonnull MethodInvocation invocation) {
+            final int index = invocation.indexOfParameter(this.parameter);
+            if (index < 0) { // not a parameter, e.g. a predefined binding, let groovy resolve it.
+                return this.fallback.render(invocation);
+            }
+            final Object value = invocation.getArgument(index);
+            if (value instanceof Closure) {
+                return this.fallback.render(invocation);
+            }
+            // same as how groovy prints a `$parameter` in GString
+            return new GStringImpl(new Object[]{value}, new String[]{"", ""}).toString();
+        }
+    }
+
+    /**
+     * template compiled by groovy {@link groovy.text.SimpleTemplateEngine}.
+     */
+    @Log
+    @RequiredArgsConstructor
+    static class Groovy extends CompiledTemplate {
+        @Nonnull
+        private final String template;
+        @Nullable
+        private final Template compiled;
+        @Nullable
+        private final Throwable error;
+
+        @Nullable
+        @Override
+        public String render(@Nonnull MethodInvocation invocation) {
+            final Map<String, Object> bindings = ExpressionUtils.initBindings(invocation);
+            Throwable error = this.error;
+            if (this.compiled != null) {
+                try {
+                    return this.compiled.make(bindings).toString();
+                } catch (final Throwable e) { // swallow all exceptions during render
+                    error = e;
+                }
+            }
+            log.log(Level.SEVERE, String.format(INVALID_TEMPLATE, this.template, bindings), error);
+            return this.template;
+        }
+    }
+}
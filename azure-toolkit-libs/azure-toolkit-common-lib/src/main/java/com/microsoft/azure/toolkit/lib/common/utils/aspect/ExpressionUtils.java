@@ -9,7 +9,6 @@ import com.azure.resourcemanager.resources.fluentcore.arm.ResourceUtils;
 import com.google.common.collect.ImmutableMap;
 import groovy.text.SimpleTemplateEngine;
 import groovy.text.Template;
-import lombok.extern.java.Log;
 import org.apache.commons.lang3.StringUtils;
 import org.apache.commons.lang3.tuple.Triple;
 import org.codehaus.groovy.runtime.MethodClosure;
@@ -21,16 +20,23 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
-import java.util.logging.Level;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 
-@Log
 public class ExpressionUtils {
     private static final ImmutableMap<String, Boolean> valueMap = ImmutableMap.of("true", true, "false", false);
     private static final SimpleTemplateEngine engine = new SimpleTemplateEngine();
-    private static final String INVALID_TEMPLATE = "error occurs when evaluate template(%s) with bindings(%s)";
+    private static final Pattern PARAMETER_TEMPLATE = Pattern.compile("^\\$(?:([a-zA-Z_][a-zA-Z0-9_]*)|\\{\\s*([a-zA-Z_][a-zA-Z0-9_]*)\\s*})$");
+    private static final Pattern THIS_REFERENCE = Pattern.compile("(\\W)this(\\.)");
+    private static final Map<String, CompiledTemplate> templates = new ConcurrentHashMap<>();
 
     public static boolean evaluate(@Nonnull final String expression, @Nonnull final MethodInvocation invocation, boolean defaultVal) {
-        final String result = interpret(expression, invocation);
+        return evaluate(compileExpression(expression), invocation, defaultVal);
+    }
+
+    public static boolean evaluate(@Nonnull final CompiledTemplate expression, @Nonnull final MethodInvocation invocation, boolean defaultVal) {
+        final String result = expression.render(invocation);
         return valueMap.getOrDefault(Optional.ofNullable(result).map(String::toLowerCase).orElse(null), defaultVal);
     }
 
@@ -42,19 +48,45 @@ public class ExpressionUtils {
         if (StringUtils.isBlank(template) || !template.contains("$")) { // no groovy expression, just return
             return template;
         }
-        final Map<String, Object> bindings = initBindings(invocation);
-        final String fixed = template.replaceAll("(\\W)this(\\.)", "$1_this_$2"); // resolve `this`
+        return compile(template).render(invocation);
+    }
+
+    /**
+     * parse the {@code template} only once, the compiled template is cached and shared by all callers.
+     */
+    @Nonnull
+    public static CompiledTemplate compile(@Nullable final String template) {
+        if (StringUtils.isBlank(template) || !template.contains("$")) {
+            return new CompiledTemplate.Constant(template);
+        }
+        return templates.computeIfAbsent(template, ExpressionUtils::doCompile);
+    }
+
+    @Nonnull
+    public static CompiledTemplate compileExpression(@Nonnull final String expression) {
+        return compile(String.format("${%s}", expression));
+    }
+
+    @Nonnull
+    private static CompiledTemplate doCompile(@Nonnull final String template) {
+        final String fixed = THIS_REFERENCE.matcher(template).replaceAll("$1_this_$2"); // resolve `this`
+        CompiledTemplate.Groovy groovy;
         try {
             final Template tpl = engine.createTemplate(fixed);
-            return tpl.make(bindings).toString();
-        } catch (final Throwable e) { // swallow all exceptions during render
-            log.log(Level.SEVERE, String.format(INVALID_TEMPLATE, template, bindings), e);
+            groovy = new CompiledTemplate.Groovy(template, tpl, null);
+        } catch (final Throwable e) { // swallow all exceptions during compile, report them on render
+            groovy = new CompiledTemplate.Groovy(template, null, e);
+        }
+        final Matcher matcher = PARAMETER_TEMPLATE.matcher(template);
+        if (matcher.matches()) {
+            final String parameter = StringUtils.firstNonBlank(matcher.group(1), matcher.group(2));
+            return new CompiledTemplate.Parameter(parameter, groovy);
         }
-        return template;
+        return groovy;
     }
 
     @Nonnull
-    private static Map<String, Object> initBindings(@Nonnull final MethodInvocation invocation) {
+    static Map<String, Object> initBindings(@Nonnull final MethodInvocation invocation) {
         final List<Triple<String, Parameter, Object>> args = invocation.getArgs();
         final Map<String, Object> bindings = new HashMap<>();
         for (Triple<String, Parameter, Object> arg : args) {
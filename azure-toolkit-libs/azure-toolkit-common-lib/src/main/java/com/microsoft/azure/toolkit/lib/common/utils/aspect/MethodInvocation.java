@@ -64,6 +64,20 @@ public class MethodInvocation {
         return result;
     }
 
+    public int indexOfParameter(@Nonnull String name) {
+        final String[] names = this.signature.getParameterNames();
+        for (int i = 0; i < names.length; i++) {
+            if (name.equals(names[i])) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    public Object getArgument(int index) {
+        return this.point.getArgs()[index];
+    }
+
     public <T extends Annotation> T getAnnotation(Class<T> annotation) {
         return this.method.getAnnotation(annotation);
     }
@@ -0,0 +1,106 @@
+/*
+ * Copyright (c) Microsoft Corporation. All rights reserved.
+ * Licensed under the MIT License. See License.txt in the project root for license information.
+ */
+
+package com.microsoft.azure.toolkit.lib;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JMH benchmark of {@link Azure#az(Class)} lookups from 32 threads, by the {@code synchronized} scan of all services on every lookup
+ * (as it was) and by the lock-free snapshot of resolved services. it's not a unit test (and never run by surefire), run it after
+ * {@code test-compile} of this module by e.g.
+ * <pre>
+ * mvn -pl azure-toolkit-common-lib test-compile exec:exec -Dexec.executable=java -Dexec.classpathScope=test \
+ *     -Dexec.args="-cp %classpath org.openjdk.jmh.Main AzureBenchmark"
+ * </pre>
+ * the score is the throughput of all threads, run it on a machine with multiple cores to see the contention.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Threads(32)
+@Fork(1)
+public class AzureBenchmark {
+    /**
+     * number of services registered besides the looked up one, roughly as many as the services of all toolkit libs.
+     */
+    private static final int SERVICES = 20;
+    private static List<AzService> services;
+
+    private final LookedUpService service = new LookedUpService();
+    private final List<AzService> others = new ArrayList<>();
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        // services are registered at the head, so the looked up one is at the tail as services loaded first.
+        Azure.register(this.service);
+        for (int i = 0; i < SERVICES; i++) {
+            final AzService other = new OtherService();
+            this.others.add(other);
+            Azure.register(other);
+        }
+        services = Azure.getServices(AzService.class);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        this.others.forEach(Azure::unregister);
+        Azure.unregister(this.service);
+    }
+
+    @Benchmark
+    public LookedUpService synchronizedScan() {
+        return synchronizedAz(LookedUpService.class);
+    }
+
+    @Benchmark
+    public LookedUpService snapshot() {
+        return Azure.az(LookedUpService.class);
+    }
+
+    private static synchronized <T extends AzService> T synchronizedAz(Class<T> clazz) {
+        return services.stream().filter(clazz::isInstance).map(clazz::cast).findAny().orElse(null);
+    }
+
+    public static class LookedUpService implements AzService {
+        @Override
+        public String getName() {
+            return "LookedUp";
+        }
+
+        @Override
+        public void refresh() {
+        }
+    }
+
+    private static class OtherService implements AzService {
+        @Override
+        public String getName() {
+            return "Other";
+        }
+
+        @Override
+        public void refresh() {
+        }
+    }
+}
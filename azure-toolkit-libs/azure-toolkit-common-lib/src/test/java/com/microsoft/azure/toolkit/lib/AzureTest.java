@@ -0,0 +1,77 @@
+/*
+ * Copyright (c) Microsoft Corporation. All rights reserved.
+ * Licensed under the MIT License. See License.txt in the project root for license information.
+ */
+
+package com.microsoft.azure.toolkit.lib;
+
+import com.microsoft.azure.toolkit.lib.common.exception.AzureToolkitRuntimeException;
+import com.microsoft.azure.toolkit.lib.resource.AzureResources;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+public class AzureTest {
+
+    @Test
+    public void testLoadedService() {
+        final AzureResources resources = Azure.az(AzureResources.class);
+        Assert.assertSame(resources, Azure.az(AzureResources.class));
+        Assert.assertTrue(Azure.getServices(AzService.class).contains(resources));
+    }
+
+    @Test(expected = AzureToolkitRuntimeException.class)
+    public void testUnsupportedService() {
+        Azure.az(FakeService.class);
+    }
+
+    @Test
+    public void testRegisteredService() {
+        final FakeService fake = new FakeService();
+        Azure.register(fake);
+        try {
+            Assert.assertSame(fake, Azure.az(FakeService.class));
+            Assert.assertSame(fake, Azure.az(AzService.class));
+        } finally {
+            Azure.unregister(fake);
+        }
+        Assert.assertFalse(Azure.getServices(FakeService.class).contains(fake));
+    }
+
+    @Test
+    public void testConcurrentLookup() throws Exception {
+        final FakeService fake = new FakeService();
+        Azure.register(fake);
+        final ExecutorService executor = Executors.newFixedThreadPool(32);
+        try {
+            final Callable<Boolean> lookup = () -> IntStream.range(0, 10_000).allMatch(i -> Azure.az(FakeService.class) == fake);
+            final List<Future<Boolean>> results = executor.invokeAll(IntStream.range(0, 32).mapToObj(i -> lookup).collect(Collectors.toList()));
+            for (final Future<Boolean> result : results) {
+                Assert.assertTrue(result.get());
+            }
+        } finally {
+            executor.shutdownNow();
+            executor.awaitTermination(10, TimeUnit.SECONDS);
+            Azure.unregister(fake);
+        }
+    }
+
+    private static class FakeService implements AzService {
+        @Override
+        public String getName() {
+            return "Fake";
+        }
+
+        @Override
+        public void refresh() {
+        }
+    }
+}
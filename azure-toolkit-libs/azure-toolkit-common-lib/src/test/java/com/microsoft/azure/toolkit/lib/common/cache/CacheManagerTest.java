@@ -0,0 +1,205 @@
+/*
+ * Copyright (c) Microsoft Corporation. All rights reserved.
+ * Licensed under the MIT License. See License.txt in the project root for license information.
+ */
+
+package com.microsoft.azure.toolkit.lib.common.cache;
+
+import com.google.common.cache.CacheStats;
+import com.microsoft.azure.toolkit.lib.common.operation.AzureOperation;
+import com.microsoft.azure.toolkit.lib.common.operation.Operation;
+import com.microsoft.azure.toolkit.lib.common.task.QueuedTaskManager;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class CacheManagerTest {
+    private static QueuedTaskManager tasks;
+    private FakeService service;
+
+    @BeforeClass
+    public static void setUpClass() {
+        tasks = QueuedTaskManager.register();
+    }
+
+    @Before
+    public void setUp() {
+        tasks.clearPooledTasks();
+        CacheManager.evictCache(CacheEvict.ALL, CacheEvict.ALL);
+        this.service = new FakeService();
+    }
+
+    @Test
+    public void testExpireAfterWrite() throws InterruptedException {
+        Assert.assertEquals("a-1", this.service.expiring("a"));
+        Assert.assertEquals("a-1", this.service.expiring("a"));
+        Assert.assertEquals("b-2", this.service.expiring("b"));
+        Thread.sleep(300);
+        Assert.assertEquals("a-3", this.service.expiring("a"));
+    }
+
+    @Test
+    public void testRefreshAfterWrite() throws InterruptedException {
+        Assert.assertEquals("a-1", this.service.refreshing("a"));
+        Assert.assertEquals(0, tasks.countPooledTasks());
+        Thread.sleep(100);
+        // stale value is served while it's reloaded in background (only once).
+        Assert.assertEquals("a-1", this.service.refreshing("a"));
+        Assert.assertEquals("a-1", this.service.refreshing("a"));
+        Assert.assertEquals(1, tasks.countPooledTasks());
+        tasks.runPooledTasks();
+        Assert.assertEquals("a-2", this.service.refreshing("a"));
+    }
+
+    @Test
+    public void testRefreshDoesNotRestoreEvicted() throws InterruptedException {
+        Assert.assertEquals("a-1", this.service.refreshing("a"));
+        Thread.sleep(100);
+        Assert.assertEquals("a-1", this.service.refreshing("a"));
+        this.service.evict("a");
+        tasks.runPooledTasks(); // loads "a-2", which was requested before the eviction.
+        Assert.assertEquals(2, this.service.loads.get());
+        Assert.assertEquals("a-3", this.service.refreshing("a"));
+    }
+
+    @Test
+    public void testRefreshThroughAdvices() throws InterruptedException {
+        Assert.assertEquals("a-1", this.service.operated("a"));
+        Thread.sleep(100);
+        Assert.assertEquals("a-1", this.service.operated("a"));
+        tasks.runPooledTasks();
+        Assert.assertEquals("a-2", this.service.operated("a"));
+        // the method is re-invoked with its operation on refreshing, instead of proceeding the join point of a returned advice.
+        Assert.assertEquals(Arrays.asList(true, true), this.service.operations);
+    }
+
+    @Test
+    public void testOverrideOfDynamicName() {
+        // `test/overridden/$group.maximumSize=1` in azure-toolkit-cache.properties applies to caches of all groups.
+        Assert.assertEquals("a-1", this.service.overridden("a", "1"));
+        Assert.assertEquals("a-2", this.service.overridden("a", "2"));
+        Assert.assertEquals("a-3", this.service.overridden("a", "1"));
+        Assert.assertEquals("b-4", this.service.overridden("b", "1"));
+        Assert.assertEquals("b-5", this.service.overridden("b", "2"));
+        Assert.assertEquals("b-6", this.service.overridden("b", "1"));
+    }
+
+    @Test
+    public void testPolicyOfFirstDeclaration() {
+        // cache is created with maximumSize=1 by `bounded`, maximumSize=100 declared by `conflicting` is ignored.
+        Assert.assertEquals("a-1", this.service.bounded("a"));
+        Assert.assertEquals("b-2", this.service.conflicting("b"));
+        Assert.assertEquals("a-3", this.service.bounded("a"));
+        Assert.assertEquals("a-3", this.service.conflicting("a"));
+    }
+
+    @Test
+    public void testStatistics() {
+        this.service.counted("a");
+        this.service.counted("a");
+        this.service.counted("a");
+        this.service.counted("b");
+        final CacheStats stats = CacheManager.getStatistics().get("test/counted");
+        Assert.assertEquals(2, stats.hitCount());
+        Assert.assertEquals(2, stats.missCount());
+
+        // statistics of invalidated caches are kept.
+        CacheManager.evictCache("test/counted", CacheEvict.ALL);
+        this.service.counted("a");
+        final CacheStats total = CacheManager.getStatistics().get("test/counted");
+        Assert.assertEquals(2, total.hitCount());
+        Assert.assertEquals(3, total.missCount());
+    }
+
+    @Test
+    public void testLoadExceptions() {
+        Assert.assertThrows(IllegalStateException.class, () -> this.service.failing("a"));
+        // failures are not cached
+        Assert.assertThrows(IllegalStateException.class, () -> this.service.failing("a"));
+        Assert.assertEquals(2, this.service.loads.get());
+        final CacheStats stats = CacheManager.getStatistics().get("test/failing");
+        Assert.assertEquals(2, stats.loadExceptionCount());
+        Assert.assertEquals(0, stats.loadSuccessCount());
+    }
+
+    @Test
+    public void testPruneEmptyCaches() throws InterruptedException {
+        this.service.dynamic("a", "1");
+        this.service.dynamic("b", "1");
+        this.service.bounded("c");
+        Assert.assertEquals(3, CacheManager.countCaches());
+        Thread.sleep(300);
+        CacheManager.prune(Duration.ZERO);
+        // the expired caches of dynamic names are dropped, statistics are kept under the declared name.
+        Assert.assertEquals(1, CacheManager.countCaches());
+        Assert.assertEquals(2, CacheManager.getStatistics().get("test/dynamic/$group").missCount());
+        Assert.assertEquals("a-4", this.service.dynamic("a", "1"));
+        Assert.assertEquals(3, CacheManager.getStatistics().get("test/dynamic/$group").missCount());
+    }
+
+    public static class FakeService {
+        private final AtomicInteger loads = new AtomicInteger();
+        private final List<Boolean> operations = new CopyOnWriteArrayList<>();
+
+        @Cacheable(cacheName = "test/expiring", key = "$id", expireAfterWrite = 200, timeUnit = TimeUnit.MILLISECONDS)
+        public String expiring(String id) {
+            return id + "-" + this.loads.incrementAndGet();
+        }
+
+        @Cacheable(cacheName = "test/refreshing", key = "$id", refreshAfterWrite = 50, timeUnit = TimeUnit.MILLISECONDS)
+        public String refreshing(String id) {
+            return id + "-" + this.loads.incrementAndGet();
+        }
+
+        @AzureOperation(name = "test.refresh_operated.id", params = {"id"}, type = AzureOperation.Type.SERVICE)
+        @Cacheable(cacheName = "test/operated", key = "$id", refreshAfterWrite = 50, timeUnit = TimeUnit.MILLISECONDS)
+        public String operated(String id) {
+            this.operations.add(Objects.nonNull(Operation.current()));
+            return id + "-" + this.loads.incrementAndGet();
+        }
+
+        @CacheEvict(cacheName = "test/refreshing", key = "$id")
+        public void evict(String id) {
+        }
+
+        @Cacheable(cacheName = "test/bounded", key = "$id", maximumSize = 1)
+        public String bounded(String id) {
+            return id + "-" + this.loads.incrementAndGet();
+        }
+
+        @Cacheable(cacheName = "test/bounded", key = "$id", maximumSize = 100)
+        public String conflicting(String id) {
+            return id + "-" + this.loads.incrementAndGet();
+        }
+
+        @Cacheable(cacheName = "test/counted", key = "$id")
+        public String counted(String id) {
+            return id + "-" + this.loads.incrementAndGet();
+        }
+
+        @Cacheable(cacheName = "test/failing", key = "$id")
+        public String failing(String id) {
+            this.loads.incrementAndGet();
+            throw new IllegalStateException(id);
+        }
+
+        @Cacheable(cacheName = "test/dynamic/$group", key = "$id", expireAfterWrite = 200, timeUnit = TimeUnit.MILLISECONDS)
+        public String dynamic(String group, String id) {
+            return group + "-" + this.loads.incrementAndGet();
+        }
+
+        @Cacheable(cacheName = "test/overridden/$group", key = "$id")
+        public String overridden(String group, String id) {
+            return group + "-" + this.loads.incrementAndGet();
+        }
+    }
+}
@@ -0,0 +1,97 @@
+/*
+ * Copyright (c) Microsoft Corporation. All rights reserved.
+ * Licensed under the MIT License. See License.txt in the project root for license information.
+ */
+
+package com.microsoft.azure.toolkit.lib.common.http;
+
+import com.sun.net.httpserver.HttpServer;
+import org.apache.commons.io.IOUtils;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.netty.ByteBufFlux;
+import reactor.netty.http.client.HttpClient;
+
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+
+public class HttpTransportTest {
+    private static final byte[] BODY = "hello".getBytes(StandardCharsets.UTF_8);
+    private HttpServer server;
+
+    @Before
+    public void setUp() throws Exception {
+        this.server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        this.server.createContext("/", exchange -> {
+            IOUtils.toByteArray(exchange.getRequestBody());
+            exchange.sendResponseHeaders(200, BODY.length);
+            try (OutputStream output = exchange.getResponseBody()) {
+                output.write(BODY);
+            }
+        });
+        this.server.start();
+    }
+
+    @After
+    public void tearDown() {
+        this.server.stop(0);
+    }
+
+    @Test
+    public void testRequestsAreMetered() throws InterruptedException {
+        final HttpTransport transport = HttpTransport.getInstance();
+        final InetSocketAddress address = this.server.getAddress();
+        final String uri = String.format("http://%s:%d/", address.getHostString(), address.getPort());
+        final HttpClient client = transport.createHttpClient();
+        final List<String> responses = Flux.range(0, 10)
+            .flatMap(i -> client.post().uri(uri).send(ByteBufFlux.fromString(Mono.just("ping")))
+                .responseContent().aggregate().asString(), 4)
+            .collectList().block(Duration.ofSeconds(30));
+        Assert.assertNotNull(responses);
+        Assert.assertEquals(10, responses.size());
+        responses.forEach(r -> Assert.assertEquals("hello", r));
+
+        final String host = String.format("%s:%d", address.getHostString(), address.getPort());
+        HttpTransportMetrics.HostStatistics stats = HttpTransport.getStatistics().get(host);
+        Assert.assertNotNull(stats);
+        Assert.assertEquals(10, stats.getAcquireCount());
+        Assert.assertTrue(stats.getBytesIn() >= 10L * BODY.length);
+        Assert.assertTrue(stats.getBytesOut() >= 10L * "ping".length());
+        // connections are released to the pool asynchronously after responses are consumed.
+        final long deadline = System.currentTimeMillis() + 10_000;
+        while (stats.getActiveConnections() > 0 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+            stats = HttpTransport.getStatistics().get(host);
+        }
+        Assert.assertEquals(0, stats.getActiveConnections());
+        Assert.assertTrue(stats.getIdleConnections() > 0);
+    }
+
+    @Test
+    public void testConfigChangedAfterCreation() {
+        final HttpTransport transport = HttpTransport.getInstance();
+        final HttpTransportConfig config = new HttpTransportConfig();
+        config.setMaxConnections(transport.getConfig().getMaxConnections());
+        config.setPendingAcquireMaxCount(transport.getConfig().getPendingAcquireMaxCount());
+        config.setPendingAcquireTimeout(transport.getConfig().getPendingAcquireTimeout());
+        config.setMaxIdleTime(transport.getConfig().getMaxIdleTime());
+        config.setEvictionInterval(transport.getConfig().getEvictionInterval());
+        // settings not baked into the pool can be changed.
+        config.setHttp2Enabled(!transport.getConfig().isHttp2Enabled());
+        config.setResponseTimeout(Duration.ofSeconds(42));
+        Assert.assertTrue(transport.checkConfig(config));
+
+        config.setMaxConnections(transport.getConfig().getMaxConnections() + 1);
+        Assert.assertFalse(transport.checkConfig(config));
+        Assert.assertFalse(transport.checkConfig(config));
+        Assert.assertSame(transport, HttpTransport.getInstance());
+    }
+}
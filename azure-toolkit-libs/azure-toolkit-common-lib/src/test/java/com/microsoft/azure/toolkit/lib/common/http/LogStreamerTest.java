@@ -0,0 +1,209 @@
+/*
+ * Copyright (c) Microsoft Corporation. All rights reserved.
+ * Licensed under the MIT License. See License.txt in the project root for license information.
+ */
+
+package com.microsoft.azure.toolkit.lib.common.http;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import io.netty.handler.timeout.ReadTimeoutException;
+import org.apache.commons.io.IOUtils;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import reactor.core.publisher.Flux;
+import reactor.core.scheduler.Schedulers;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class LogStreamerTest {
+    private static final int LINES = 50000;
+    private HttpServer server;
+    private final AtomicInteger requests = new AtomicInteger();
+
+    @Before
+    public void setUp() throws Exception {
+        this.server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        this.server.setExecutor(Executors.newCachedThreadPool());
+        this.server.createContext("/burst", this::burst);
+        this.server.createContext("/flaky", this::flaky);
+        this.server.createContext("/replay", this::replay);
+        this.server.start();
+    }
+
+    @After
+    public void tearDown() {
+        this.server.stop(0);
+    }
+
+    @Test
+    public void testLinesAcrossChunks() {
+        final byte[] bytes = "first\nsecond ü\nlast".getBytes(StandardCharsets.UTF_8);
+        // split in the middle of the multi-byte character
+        final Flux<byte[]> chunks = Flux.just(Arrays.copyOfRange(bytes, 0, 3), Arrays.copyOfRange(bytes, 3, 14), Arrays.copyOfRange(bytes, 14, bytes.length));
+        Assert.assertEquals(Arrays.asList("first\n", "second ü\n", "last"), LogStreamer.lines(chunks).collectList().block());
+    }
+
+    @Test
+    public void testSlowConsumerDropsOldestLines() {
+        final LogStreamer streamer = LogStreamer.builder().bufferSize(100).follow(false).build();
+        final List<String> consumed = streamer.stream(source("/burst", new CopyOnWriteArrayList<>()))
+            .publishOn(Schedulers.boundedElastic(), 1)
+            .doOnNext(line -> sleep(1))
+            .collectList().block(Duration.ofMinutes(1));
+        final LogStreamer.Metrics metrics = streamer.getMetrics();
+        Assert.assertEquals(LINES, metrics.getReceivedLines());
+        Assert.assertTrue(metrics.getDroppedLines() > 0);
+        Assert.assertEquals(LINES, consumed.size() + metrics.getDroppedLines());
+        // the newest lines are kept
+        Assert.assertEquals(String.format("line %d\n", LINES - 1), consumed.get(consumed.size() - 1));
+        Assert.assertTrue(metrics.getLinesPerSecond() > 0);
+    }
+
+    @Test
+    public void testReconnectAndResume() {
+        final List<Optional<Instant>> resumes = new CopyOnWriteArrayList<>();
+        final LogStreamer streamer = LogStreamer.builder().reconnectDelay(Duration.ofMillis(10)).build();
+        final List<String> lines = streamer.stream(source("/flaky", resumes)).collectList().block(Duration.ofMinutes(1));
+        Assert.assertEquals(Arrays.asList("a\n", "b\n", "c\n"), lines);
+        Assert.assertEquals(4, requests.get());
+        Assert.assertEquals(3, streamer.getMetrics().getReconnects());
+        Assert.assertFalse(resumes.get(0).isPresent());
+        Assert.assertTrue(resumes.get(1).isPresent() && resumes.get(3).isPresent());
+    }
+
+    @Test
+    public void testSkipReplayedLines() {
+        final LogStreamer streamer = LogStreamer.builder().reconnectDelay(Duration.ofMillis(10)).build();
+        final LogStreamer.Source source = source("/replay", new CopyOnWriteArrayList<>()).withTimestamps(LogStreamer::leadingTimestamp);
+        final List<String> lines = streamer.stream(source).collectList().block(Duration.ofMinutes(1));
+        Assert.assertEquals(Arrays.asList("2023-01-01 00:00:01.000 a\n", "2023-01-01 00:00:02.000 b\n", "\tat stack\n",
+            "2023-01-01 00:00:02.000 c\n", "2023-01-01 00:00:03.000 d\n", "\tat stack\n", "2023-01-01 00:00:02.000 e\n"), lines);
+        Assert.assertEquals(3, requests.get());
+    }
+
+    @Test
+    public void testReadTimeoutIsTransient() {
+        final AtomicInteger connections = new AtomicInteger();
+        final LogStreamer streamer = LogStreamer.builder().follow(false).reconnectDelay(Duration.ofMillis(10)).build();
+        final List<String> lines = streamer.stream(resumeFrom -> connections.incrementAndGet() == 1 ?
+            Flux.error(ReadTimeoutException.INSTANCE) : Flux.just("a\n")).collectList().block(Duration.ofMinutes(1));
+        Assert.assertEquals(Collections.singletonList("a\n"), lines);
+        Assert.assertEquals(1, streamer.getMetrics().getReconnects());
+    }
+
+    @Test
+    public void testLeadingTimestamp() {
+        final Instant instant = Instant.parse("2023-01-01T00:00:01.123Z");
+        Assert.assertEquals(instant, LogStreamer.leadingTimestamp("2023-01-01T08:00:01.123+08:00  INFO 1 --- [main] Application"));
+        Assert.assertEquals(instant, LogStreamer.leadingTimestamp("2023-01-01 00:00:01.123  INFO 1 --- [main] Application"));
+        Assert.assertEquals(instant, LogStreamer.leadingTimestamp("2023-01-01 00:00:01,123 INFO Application"));
+        Assert.assertNull(LogStreamer.leadingTimestamp("\tat com.example.Application.main(Application.java:10)"));
+        Assert.assertNull(LogStreamer.leadingTimestamp("2023-13-01 00:00:01 invalid month"));
+    }
+
+    @Test
+    public void testMultiplexSources() {
+        final Map<String, LogStreamer.Source> sources = new LinkedHashMap<>();
+        sources.put("instance-0", source("/burst", new CopyOnWriteArrayList<>()));
+        sources.put("instance-1", source("/burst", new CopyOnWriteArrayList<>()));
+        final LogStreamer streamer = LogStreamer.builder().follow(false).bufferSize(LINES * 2).build();
+        final List<String> lines = streamer.stream(sources).collectList().block(Duration.ofMinutes(1));
+        Assert.assertEquals(LINES * 2, lines.size());
+        Assert.assertEquals(LINES, lines.stream().filter(line -> line.startsWith("[instance-1] line ")).count());
+        Assert.assertEquals(0, streamer.getMetrics().getDroppedLines());
+    }
+
+    private LogStreamer.Source source(String path, List<Optional<Instant>> resumes) {
+        final URI uri = URI.create("http://127.0.0.1:" + server.getAddress().getPort() + path);
+        return LogStreamer.http(resumeFrom -> {
+            resumes.add(Optional.ofNullable(resumeFrom));
+            return uri;
+        }, headers -> headers.set("Authorization", "Basic test"));
+    }
+
+    private void burst(HttpExchange exchange) throws IOException {
+        IOUtils.toByteArray(exchange.getRequestBody());
+        // chunked response
+        exchange.sendResponseHeaders(200, 0);
+        try (OutputStream output = exchange.getResponseBody()) {
+            final StringBuilder chunk = new StringBuilder();
+            for (int i = 0; i < LINES; i++) {
+                chunk.append(String.format("line %d\n", i));
+                if (chunk.length() > 4096) {
+                    output.write(chunk.toString().getBytes(StandardCharsets.UTF_8));
+                    output.flush();
+                    chunk.setLength(0);
+                }
+            }
+            output.write(chunk.toString().getBytes(StandardCharsets.UTF_8));
+        }
+    }
+
+    private void flaky(HttpExchange exchange) throws IOException {
+        IOUtils.toByteArray(exchange.getRequestBody());
+        switch (requests.incrementAndGet()) {
+            case 1:
+                respond(exchange, 200, "a\nb\n");
+                break;
+            case 2:
+                respond(exchange, 503, "");
+                break;
+            case 3:
+                respond(exchange, 200, "c\n");
+                break;
+            default:
+                respond(exchange, 404, "");
+        }
+    }
+
+    private void replay(HttpExchange exchange) throws IOException {
+        IOUtils.toByteArray(exchange.getRequestBody());
+        switch (requests.incrementAndGet()) {
+            case 1:
+                respond(exchange, 200, "2023-01-01 00:00:01.000 a\n2023-01-01 00:00:02.000 b\n\tat stack\n");
+                break;
+            case 2:
+                // replays lines since 00:00:01, `c` is logged at the same time as `b` but not received yet.
+                respond(exchange, 200, "2023-01-01 00:00:01.000 a\n2023-01-01 00:00:02.000 b\n\tat stack\n" +
+                    "2023-01-01 00:00:02.000 c\n2023-01-01 00:00:03.000 d\n\tat stack\n2023-01-01 00:00:02.000 e\n");
+                break;
+            default:
+                respond(exchange, 404, "");
+        }
+    }
+
+    private static void respond(HttpExchange exchange, int status, String body) throws IOException {
+        final byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.sendResponseHeaders(status, bytes.length == 0 ? -1 : 0);
+        try (OutputStream output = exchange.getResponseBody()) {
+            output.write(bytes);
+        }
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
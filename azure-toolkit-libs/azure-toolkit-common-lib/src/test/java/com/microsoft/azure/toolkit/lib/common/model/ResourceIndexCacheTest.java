@@ -0,0 +1,288 @@
+/*
+ * Copyright (c) Microsoft Corporation. All rights reserved.
+ * Licensed under the MIT License. See License.txt in the project root for license information.
+ */
+
+package com.microsoft.azure.toolkit.lib.common.model;
+
+import com.microsoft.azure.toolkit.lib.Azure;
+import com.microsoft.azure.toolkit.lib.account.IAccount;
+import com.microsoft.azure.toolkit.lib.account.IAzureAccount;
+import com.microsoft.azure.toolkit.lib.common.task.QueuedTaskManager;
+import com.microsoft.azure.toolkit.lib.common.utils.CacheDirs;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.mockito.Mockito;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+public class ResourceIndexCacheTest {
+    private static QueuedTaskManager tasks;
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+    private IAzureAccount azureAccount;
+    private final Set<String> remotes = ConcurrentHashMap.newKeySet();
+
+    @BeforeClass
+    public static void setUpClass() {
+        // `AzResourceModule.NONE` must be initialized before `AzResource.NONE`, which is its parent.
+        Assert.assertNotNull(AzResourceModule.NONE);
+        tasks = QueuedTaskManager.register();
+    }
+
+    @Before
+    public void setUp() {
+        this.azureAccount = Mockito.mock(IAzureAccount.class);
+        Mockito.when(this.azureAccount.getName()).thenReturn("Fake Account");
+        Mockito.when(this.azureAccount.account()).thenReturn(Mockito.mock(IAccount.class));
+        Azure.register(this.azureAccount);
+        System.setProperty(ResourceIndexCache.ENABLED_PROPERTY, "true");
+        System.setProperty(CacheDirs.DIR_PROPERTY, this.folder.getRoot().getAbsolutePath());
+        this.remotes.addAll(Arrays.asList("app-1", "app-2", "app-3"));
+        tasks.clearPooledTasks();
+    }
+
+    @After
+    public void tearDown() {
+        System.clearProperty(ResourceIndexCache.ENABLED_PROPERTY);
+        System.clearProperty(CacheDirs.DIR_PROPERTY);
+        Azure.unregister(this.azureAccount);
+    }
+
+    @Test
+    public void testListFromIndex() {
+        final FakeModule warm = this.newModule();
+        Assert.assertEquals(Arrays.asList("app-1", "app-2", "app-3"), names(warm.list()));
+        Assert.assertEquals(1, warm.listings.get());
+        Assert.assertEquals(1, this.indexFiles().size());
+        tasks.runPooledTasks();
+
+        // a cold module (e.g. of the next process) serves the indexed resources at once and revalidates them in background
+        final FakeModule cold = this.newModule();
+        this.remotes.add("app-4");
+        Assert.assertEquals(Arrays.asList("app-1", "app-2", "app-3"), names(cold.list()));
+        Assert.assertEquals(0, cold.listings.get());
+        Assert.assertEquals(1, tasks.countPooledTasks());
+        tasks.runPooledTasks();
+        Assert.assertEquals(1, cold.listings.get());
+        Assert.assertEquals(Arrays.asList("app-1", "app-2", "app-3", "app-4"), names(cold.list()));
+        Assert.assertEquals(1, cold.listings.get());
+    }
+
+    @Test
+    public void testPlaceholdersAreLoadedInBatch() {
+        this.newModule().list();
+        final FakeModule cold = this.newModule();
+        final List<FakeResource> resources = cold.list();
+        // reading every placeholder waits for the revalidation of its module instead of one request per resource
+        resources.forEach(r -> Assert.assertEquals(r.getName(), r.getRemote()));
+        Assert.assertSame(resources.get(1), cold.get("app-2", "rg"));
+        Assert.assertEquals(1, cold.listings.get());
+        Assert.assertEquals(0, cold.gets.get());
+        tasks.runPooledTasks();
+        Assert.assertEquals(1, cold.listings.get());
+        Assert.assertEquals(0, cold.gets.get());
+    }
+
+    @Test
+    public void testPlaceholdersFallBackToOwnRequests() {
+        this.newModule().list();
+        final FakeModule cold = this.newModule();
+        final List<FakeResource> resources = cold.list();
+        cold.failing = true;
+        // the revalidation fails, so the placeholder loads its own remote
+        Assert.assertEquals("app-1", resources.get(0).getRemote());
+        Assert.assertEquals(1, cold.listings.get());
+        Assert.assertEquals(1, cold.gets.get());
+    }
+
+    @Test
+    public void testDeletedResourcesAreDropped() {
+        this.newModule().list();
+        this.remotes.remove("app-2");
+        final FakeModule cold = this.newModule();
+        Assert.assertEquals(Arrays.asList("app-1", "app-2", "app-3"), names(cold.list()));
+        // get() doesn't return placeholders of resources deleted since they are indexed
+        Assert.assertNull(cold.get("app-2", "rg"));
+        Assert.assertEquals(1, cold.listings.get());
+        tasks.runPooledTasks();
+        Assert.assertEquals(1, cold.listings.get());
+        Assert.assertEquals(Arrays.asList("app-1", "app-3"), names(cold.list()));
+        Assert.assertNotNull(cold.get("app-1", "rg"));
+    }
+
+    @Test
+    public void testInvalidation() throws Exception {
+        final FakeModule module = this.newModule();
+        module.list();
+        Assert.assertEquals(1, this.indexFiles().size());
+        // modifying a resource invalidates the index of its module
+        module.get("app-1", "rg").doModify(() -> "app-1", AzResource.Status.UPDATING);
+        Assert.assertEquals(0, this.indexFiles().size());
+        final FakeModule cold = this.newModule();
+        cold.list();
+        Assert.assertEquals(1, cold.listings.get());
+
+        // corrupted and other versions of indexes are ignored and deleted
+        final Path file = this.indexFiles().get(0);
+        Files.write(file, "{\"version\": 0}".getBytes());
+        final FakeModule another = this.newModule();
+        another.list();
+        Assert.assertEquals(1, another.listings.get());
+        Files.write(file, "not json".getBytes());
+        Assert.assertNull(ResourceIndexCache.load(this.newModule()));
+        Assert.assertFalse(Files.exists(file));
+    }
+
+    @Test
+    public void testDisabled() {
+        System.clearProperty(ResourceIndexCache.ENABLED_PROPERTY);
+        this.newModule().list();
+        Assert.assertEquals(0, this.indexFiles().size());
+        final FakeModule cold = this.newModule();
+        cold.list();
+        Assert.assertEquals(1, cold.listings.get());
+    }
+
+    private FakeModule newModule() {
+        return new FakeParent(this.remotes).fakes;
+    }
+
+    private List<Path> indexFiles() {
+        final Path dir = this.folder.getRoot().toPath().resolve("resources");
+        if (!Files.isDirectory(dir)) {
+            return Collections.emptyList();
+        }
+        try (final Stream<Path> files = Files.list(dir)) {
+            return files.filter(f -> f.toString().endsWith(".json")).collect(Collectors.toList());
+        } catch (final Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static List<String> names(List<FakeResource> resources) {
+        return resources.stream().map(AbstractAzResource::getName).collect(Collectors.toList());
+    }
+
+    private static class FakeParent extends AbstractAzResource<FakeParent, AzResource.None, String> {
+        private final FakeModule fakes;
+
+        FakeParent(Set<String> remotes) {
+            super("parent", "rg", new FakeParentModule());
+            this.fakes = new FakeModule(this, remotes);
+        }
+
+        @Nonnull
+        @Override
+        public String getId() {
+            return "/subscriptions/00000000-0000-0000-0000-000000000000/resourceGroups/rg/providers/Fake/parents/parent";
+        }
+
+        @Nonnull
+        @Override
+        public List<AbstractAzResourceModule<?, FakeParent, ?>> getSubModules() {
+            return Collections.singletonList(this.fakes);
+        }
+
+        @Nonnull
+        @Override
+        public String loadStatus(@Nonnull String remote) {
+            return Status.RUNNING;
+        }
+    }
+
+    private static class FakeParentModule extends AbstractAzResourceModule<FakeParent, AzResource.None, String> {
+        FakeParentModule() {
+            super("parents", AzResource.NONE);
+        }
+
+        @Nonnull
+        @Override
+        protected FakeParent newResource(@Nonnull String remote) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Nonnull
+        @Override
+        protected FakeParent newResource(@Nonnull String name, @Nullable String resourceGroupName) {
+            throw new UnsupportedOperationException();
+        }
+    }
+
+    private static class FakeModule extends AbstractAzResourceModule<FakeResource, FakeParent, String> {
+        private final Set<String> remotes;
+        private final AtomicInteger listings = new AtomicInteger();
+        private final AtomicInteger gets = new AtomicInteger();
+        private volatile boolean failing;
+
+        FakeModule(@Nonnull FakeParent parent, @Nonnull Set<String> remotes) {
+            super("fakes", parent);
+            this.remotes = remotes;
+        }
+
+        @Nonnull
+        @Override
+        protected Stream<String> loadResourcesFromAzure() {
+            this.listings.incrementAndGet();
+            if (this.failing) {
+                throw new IllegalStateException("failed to list");
+            }
+            return this.remotes.stream().sorted();
+        }
+
+        @Nullable
+        @Override
+        protected String loadResourceFromAzure(@Nonnull String name, @Nullable String resourceGroup) {
+            this.gets.incrementAndGet();
+            return this.remotes.contains(name) ? name : null;
+        }
+
+        @Nonnull
+        @Override
+        protected FakeResource newResource(@Nonnull String remote) {
+            final FakeResource resource = new FakeResource(remote, this);
+            resource.setRemote(remote);
+            return resource;
+        }
+
+        @Nonnull
+        @Override
+        protected FakeResource newResource(@Nonnull String name, @Nullable String resourceGroupName) {
+            return new FakeResource(name, this);
+        }
+    }
+
+    private static class FakeResource extends AbstractAzResource<FakeResource, FakeParent, String> {
+        FakeResource(@Nonnull String name, @Nonnull FakeModule module) {
+            super(name, "rg", module);
+        }
+
+        @Nonnull
+        @Override
+        public List<AbstractAzResourceModule<?, FakeResource, ?>> getSubModules() {
+            return Collections.emptyList();
+        }
+
+        @Nonnull
+        @Override
+        public String loadStatus(@Nonnull String remote) {
+            return Status.RUNNING;
+        }
+    }
+}
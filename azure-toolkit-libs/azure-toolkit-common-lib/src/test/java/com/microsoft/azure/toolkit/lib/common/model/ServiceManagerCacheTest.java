@@ -0,0 +1,114 @@
+/*
+ * Copyright (c) Microsoft Corporation. All rights reserved.
+ * Licensed under the MIT License. See License.txt in the project root for license information.
+ */
+
+package com.microsoft.azure.toolkit.lib.common.model;
+
+import com.azure.core.http.HttpMethod;
+import com.azure.core.http.HttpPipeline;
+import com.azure.core.http.HttpPipelineBuilder;
+import com.azure.core.http.HttpRequest;
+import com.azure.core.http.HttpResponse;
+import com.microsoft.azure.toolkit.lib.Azure;
+import com.microsoft.azure.toolkit.lib.account.IAccount;
+import com.microsoft.azure.toolkit.lib.account.IAzureAccount;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mockito;
+import reactor.core.publisher.Mono;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+
+public class ServiceManagerCacheTest {
+    private IAzureAccount azureAccount;
+
+    @Before
+    public void setUp() {
+        this.azureAccount = Mockito.mock(IAzureAccount.class);
+        Mockito.when(this.azureAccount.getName()).thenReturn("Fake Account");
+        Mockito.when(this.azureAccount.account()).thenReturn(Mockito.mock(IAccount.class));
+        Azure.register(this.azureAccount);
+        ServiceManagerCache.clear();
+    }
+
+    @After
+    public void tearDown() {
+        ServiceManagerCache.clear();
+        Azure.unregister(this.azureAccount);
+    }
+
+    @Test
+    public void testManagerIsCachedPerSubscriptionAndType() {
+        final long before = ServiceManagerCache.getConstructions().getOrDefault(FakeManager.class.getSimpleName(), 0L);
+        final FakeManager manager = ServiceManagerCache.get("sub1", FakeManager.class, FakeManager::new);
+        Assert.assertSame(manager, ServiceManagerCache.get("SUB1", FakeManager.class, FakeManager::new));
+        Assert.assertNotSame(manager, ServiceManagerCache.get("sub2", FakeManager.class, FakeManager::new));
+        Assert.assertEquals(before + 2, (long) ServiceManagerCache.getConstructions().get(FakeManager.class.getSimpleName()));
+    }
+
+    @Test
+    public void testManagerIsRecreatedForAnotherAccount() {
+        final FakeManager manager = ServiceManagerCache.get("sub1", FakeManager.class, FakeManager::new);
+        Mockito.when(this.azureAccount.account()).thenReturn(Mockito.mock(IAccount.class));
+        final FakeManager recreated = ServiceManagerCache.get("sub1", FakeManager.class, FakeManager::new);
+        Assert.assertNotSame(manager, recreated);
+        Assert.assertSame(recreated, ServiceManagerCache.get("sub1", FakeManager.class, FakeManager::new));
+    }
+
+    @Test
+    public void testManagerIsRecreatedForAnotherLogLevel() {
+        final String logLevel = Azure.az().config().getLogLevel();
+        try {
+            final FakeManager manager = ServiceManagerCache.get("sub1", FakeManager.class, FakeManager::new);
+            Azure.az().config().setLogLevel("BODY_AND_HEADERS");
+            final FakeManager recreated = ServiceManagerCache.get("sub1", FakeManager.class, FakeManager::new);
+            Assert.assertNotSame(manager, recreated);
+            Assert.assertSame(recreated, ServiceManagerCache.get("sub1", FakeManager.class, FakeManager::new));
+        } finally {
+            Azure.az().config().setLogLevel(logLevel);
+        }
+    }
+
+    @Test
+    public void testNestedManagers() {
+        final FakeManager manager = ServiceManagerCache.get("sub1", FakeManager.class,
+            id -> new FakeManager(ServiceManagerCache.get(id, String.class, s -> "providers of " + s)));
+        Assert.assertEquals("providers of sub1", manager.subscriptionId);
+        ServiceManagerCache.clear();
+        Assert.assertNotSame(manager, ServiceManagerCache.get("sub1", FakeManager.class, FakeManager::new));
+    }
+
+    @Test
+    public void testUserAgentIsResolvedPerRequest() {
+        // modules are always initialized before (service subscription) resources
+        Assert.assertNotNull(AzResourceModule.NONE);
+        final List<String> userAgents = new ArrayList<>();
+        final AtomicReference<String> userAgent = new AtomicReference<>("azure-maven-plugin/1.0");
+        final HttpPipeline pipeline = new HttpPipelineBuilder()
+            .httpClient(request -> {
+                userAgents.add(request.getHeaders().getValue("User-Agent"));
+                return Mono.just(Mockito.mock(HttpResponse.class));
+            })
+            .policies(AbstractAzServiceSubscription.getUserAgentPolicy(userAgent::get))
+            .build();
+        pipeline.send(new HttpRequest(HttpMethod.GET, "https://management.azure.com")).block();
+        // e.g. installation id resolved after the (cached) manager is built
+        userAgent.set("azure-maven-plugin/1.0 installationId");
+        pipeline.send(new HttpRequest(HttpMethod.GET, "https://management.azure.com")).block();
+        Assert.assertEquals(Arrays.asList("azure-maven-plugin/1.0 null", "azure-maven-plugin/1.0 installationId null"), userAgents);
+    }
+
+    private static class FakeManager {
+        private final String subscriptionId;
+
+        FakeManager(String subscriptionId) {
+            this.subscriptionId = subscriptionId;
+        }
+    }
+}
@@ -0,0 +1,160 @@
+/*
+ * Copyright (c) Microsoft Corporation. All rights reserved.
+ * Licensed under the MIT License. See License.txt in the project root for license information.
+ */
+
+package com.microsoft.azure.toolkit.lib.common.task;
+
+import com.microsoft.azure.toolkit.lib.common.messager.AzureMessager;
+import com.microsoft.azure.toolkit.lib.common.messager.IAzureMessager;
+import com.microsoft.azure.toolkit.lib.common.operation.AzureOperationAspect;
+import com.microsoft.azure.toolkit.lib.common.operation.Operation;
+import com.microsoft.azure.toolkit.lib.common.operation.OperationContext;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class AzureTaskGraphTest {
+
+    /**
+     * tasks to create a vm: resource group, then virtual network, public ip, security group and storage account, then the vm.
+     */
+    @Test
+    public void testExecutionOrder() throws Exception {
+        for (final int parallelism : Arrays.asList(1, 4)) {
+            final Map<String, int[]> spans = new ConcurrentHashMap<>();
+            final AtomicInteger clock = new AtomicInteger();
+            final AtomicInteger running = new AtomicInteger();
+            final AtomicInteger maxRunning = new AtomicInteger();
+            // independent tasks wait for each other, which would time out if they were not run at the same time.
+            final CountDownLatch together = new CountDownLatch(parallelism);
+            final AzureTaskGraph graph = new AzureTaskGraph(parallelism);
+            final AzureTask<?> group = graph.add(task("group", clock, spans, () -> true));
+            final List<AzureTask<?>> resources = new ArrayList<>();
+            for (final String name : Arrays.asList("network", "ip", "nsg", "storage")) {
+                resources.add(graph.add(task(name, clock, spans, () -> {
+                    maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+                    together.countDown();
+                    final boolean awaited = together.await(10, TimeUnit.SECONDS);
+                    running.decrementAndGet();
+                    return awaited;
+                }), group));
+            }
+            final AzureTask<?> vm = graph.add(task("vm", clock, spans, () -> true), resources.toArray(new AzureTask<?>[0]));
+            graph.execute();
+
+            for (final String name : Arrays.asList("network", "ip", "nsg", "storage")) {
+                Assert.assertTrue(spans.get(name)[0] > spans.get("group")[1]);
+                Assert.assertTrue(spans.get("vm")[0] > spans.get(name)[1]);
+            }
+            Assert.assertEquals(AzureTaskGraph.Status.SUCCEEDED, graph.getStatus(vm));
+            Assert.assertEquals(parallelism, maxRunning.get());
+        }
+    }
+
+    @Test
+    public void testFailureCancelsPendingTasks() {
+        final AzureTaskGraph graph = new AzureTaskGraph(4);
+        final AtomicInteger executions = new AtomicInteger();
+        final AzureTask<?> group = graph.add(new AzureTask<>(executions::incrementAndGet));
+        final AzureTask<?> failed = graph.add(new AzureTask<>(() -> {
+            throw new IllegalStateException("failed to create storage account");
+        }), group);
+        final AzureTask<?> dependent = graph.add(new AzureTask<>(executions::incrementAndGet), failed);
+        final AzureTask<?> indirect = graph.add(new AzureTask<>(executions::incrementAndGet), dependent, group);
+        final AzureTask<?> running = graph.add(new AzureTask<>(() -> {
+            Thread.sleep(300);
+            return executions.incrementAndGet();
+        }), group);
+        final AzureTask<?> notStarted = graph.add(new AzureTask<>(executions::incrementAndGet), running);
+
+        final IllegalStateException e = Assert.assertThrows(IllegalStateException.class, graph::execute);
+        Assert.assertEquals("failed to create storage account", e.getMessage());
+        Assert.assertEquals(AzureTaskGraph.Status.FAILED, graph.getStatus(failed));
+        Assert.assertEquals(AzureTaskGraph.Status.CANCELLED, graph.getStatus(dependent));
+        Assert.assertEquals(AzureTaskGraph.Status.CANCELLED, graph.getStatus(indirect));
+        Assert.assertTrue(dependent.getMonitor().isCancelled());
+        // running tasks are not interrupted, but tasks not started yet are cancelled even if they don't depend on the failed one
+        Assert.assertEquals(AzureTaskGraph.Status.SUCCEEDED, graph.getStatus(running));
+        Assert.assertEquals(AzureTaskGraph.Status.CANCELLED, graph.getStatus(notStarted));
+        Assert.assertEquals(2, executions.get());
+        Assert.assertThrows(IllegalStateException.class, graph::execute);
+    }
+
+    @Test
+    public void testFailureStopsSequentialExecution() {
+        final AzureTaskGraph graph = new AzureTaskGraph(1);
+        final AtomicInteger executions = new AtomicInteger();
+        graph.add(new AzureTask<>(executions::incrementAndGet));
+        final AzureTask<?> failed = graph.add(new AzureTask<>(() -> {
+            throw new IllegalStateException("failed to create service plan");
+        }));
+        final AzureTask<?> independent = graph.add(new AzureTask<>(executions::incrementAndGet));
+
+        Assert.assertThrows(IllegalStateException.class, graph::execute);
+        Assert.assertEquals(AzureTaskGraph.Status.FAILED, graph.getStatus(failed));
+        Assert.assertEquals(AzureTaskGraph.Status.CANCELLED, graph.getStatus(independent));
+        Assert.assertEquals(1, executions.get());
+    }
+
+    @Test
+    public void testInvalidDependency() {
+        final AzureTaskGraph graph = new AzureTaskGraph();
+        final AzureTask<?> task = new AzureTask<>(() -> null);
+        Assert.assertThrows(IllegalArgumentException.class, () -> graph.add(new AzureTask<>(() -> null), task));
+        graph.add(task, (AzureTask<?>) null);
+        Assert.assertThrows(IllegalArgumentException.class, () -> graph.add(task));
+        Assert.assertEquals(Collections.emptyList(), graph.getDependencies(task));
+    }
+
+    @Test
+    public void testContextPropagation() throws Throwable {
+        final IAzureMessager messager = new AzureMessager.DummyMessager();
+        final Map<String, Operation> operations = new ConcurrentHashMap<>();
+        final Map<String, IAzureMessager> messagers = new ConcurrentHashMap<>();
+        final AzureTask<Void> outer = new AzureTask<>("outer", () -> {
+            OperationContext.current().setMessager(messager);
+            final AzureTaskGraph graph = new AzureTaskGraph(4);
+            final AzureTask<?> first = graph.add(new AzureTask<>(() -> {
+                operations.put("first", Operation.current());
+                messagers.put("first", AzureMessager.getMessager());
+            }));
+            for (final String name : Arrays.asList("second", "third")) {
+                graph.add(new AzureTask<>(() -> {
+                    operations.put(name, Operation.current());
+                    messagers.put(name, AzureMessager.getMessager());
+                }), first);
+            }
+            try {
+                graph.execute();
+            } catch (final Exception e) {
+                throw new IllegalStateException(e);
+            }
+        });
+        AzureOperationAspect.execute(outer, null);
+        Assert.assertEquals(3, operations.size());
+        operations.values().forEach(operation -> Assert.assertSame(outer, operation));
+        messagers.values().forEach(m -> Assert.assertSame(messager, m));
+    }
+
+    private static AzureTask<?> task(String name, AtomicInteger clock, Map<String, int[]> spans, Callable<Boolean> body) {
+        return new AzureTask<>(name, () -> {
+            final int start = clock.incrementAndGet();
+            if (!body.call()) {
+                throw new IllegalStateException(name + " is not run in parallel with others");
+            }
+            spans.put(name, new int[]{start, clock.incrementAndGet()});
+            return name;
+        });
+    }
+}
@@ -0,0 +1,78 @@
+/*
+ * Copyright (c) Microsoft Corporation. All rights reserved.
+ * Licensed under the MIT License. See License.txt in the project root for license information.
+ */
+
+package com.microsoft.azure.toolkit.lib.common.task;
+
+import javax.annotation.Nonnull;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * task manager for tests: tasks run synchronously, except pooled ones (e.g. background reloads), which are queued until
+ * {@link #runPooledTasks()}. it's shared by all tests, since {@link AzureTaskManager} can only be registered once.
+ */
+public class QueuedTaskManager extends AzureTaskManager {
+    private static final QueuedTaskManager INSTANCE = new QueuedTaskManager();
+    private final Queue<Runnable> pooled = new ConcurrentLinkedQueue<>();
+
+    @Nonnull
+    public static QueuedTaskManager register() {
+        AzureTaskManager.register(INSTANCE);
+        if (AzureTaskManager.getInstance() != INSTANCE) {
+            throw new IllegalStateException("another task manager is registered");
+        }
+        return INSTANCE;
+    }
+
+    public void runPooledTasks() {
+        Runnable task;
+        while ((task = this.pooled.poll()) != null) {
+            task.run();
+        }
+    }
+
+    public int countPooledTasks() {
+        return this.pooled.size();
+    }
+
+    public void clearPooledTasks() {
+        this.pooled.clear();
+    }
+
+    @Override
+    protected void doRead(Runnable runnable, AzureTask<?> task) {
+        runnable.run();
+    }
+
+    @Override
+    protected void doWrite(Runnable runnable, AzureTask<?> task) {
+        runnable.run();
+    }
+
+    @Override
+    protected void doRunLater(Runnable runnable, AzureTask<?> task) {
+        runnable.run();
+    }
+
+    @Override
+    protected void doRunOnPooledThread(Runnable runnable, AzureTask<?> task) {
+        this.pooled.add(runnable);
+    }
+
+    @Override
+    protected void doRunAndWait(Runnable runnable, AzureTask<?> task) {
+        runnable.run();
+    }
+
+    @Override
+    protected void doRunInBackground(Runnable runnable, AzureTask<?> task) {
+        runnable.run();
+    }
+
+    @Override
+    protected void doRunInModal(Runnable runnable, AzureTask<?> task) {
+        runnable.run();
+    }
+}
@@ -0,0 +1,98 @@
+/*
+ * Copyright (c) Microsoft Corporation. All rights reserved.
+ * Licensed under the MIT License. See License.txt in the project root for license information.
+ */
+
+package com.microsoft.azure.toolkit.lib.common.telemetry;
+
+import com.microsoft.azure.toolkit.lib.common.operation.AzureOperationAspect;
+import com.microsoft.azure.toolkit.lib.common.operation.OperationContext;
+import com.microsoft.azure.toolkit.lib.common.task.AzureTask;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import javax.annotation.Nullable;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * JMH benchmark of the overhead of nested operations (depth 3) on the calling thread, without telemetry and with spans exported by
+ * the pipeline. it's not a unit test (and never run by surefire), run it after {@code test-compile} of this module by e.g.
+ * <pre>
+ * mvn -pl azure-toolkit-common-lib test-compile exec:exec -Dexec.executable=java -Dexec.classpathScope=test \
+ *     -Dexec.args="-cp %classpath org.openjdk.jmh.Main AzureTelemeterBenchmark -prof gc"
+ * </pre>
+ * {@code -prof gc} reports the bytes allocated per operation besides the latency.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class AzureTelemeterBenchmark {
+    private static final int DEPTH = 3;
+
+    /**
+     * whether operations are tracked by telemetry, all of them are sampled if they are.
+     */
+    @Param({"false", "true"})
+    public boolean telemetry;
+
+    private final CountingClient client = new CountingClient();
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        AzureTelemeter.setEventNamePrefix("AzurePlugin.Benchmark");
+        AzureTelemeter.setSamplingRate(1);
+        AzureTelemeter.setClient(this.telemetry ? this.client : null);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        AzureTelemeter.flush();
+        AzureTelemeter.setClient(null);
+        AzureTelemeter.setEventNamePrefix(null);
+    }
+
+    @Benchmark
+    public void nestedOperations() throws Throwable {
+        AzureOperationAspect.execute(nested(DEPTH), null);
+    }
+
+    private static AzureTask<Void> nested(int depth) {
+        return new AzureTask<>("appservice|file.list.dir(/home)", () -> {
+            OperationContext.current().setTelemetryProperty("resourceType", "Microsoft.Web/sites");
+            if (depth > 1) {
+                try {
+                    AzureOperationAspect.execute(nested(depth - 1), null);
+                } catch (final RuntimeException | Error e) {
+                    throw e;
+                } catch (final Throwable t) {
+                    throw new IllegalStateException(t);
+                }
+            }
+        });
+    }
+
+    private static class CountingClient extends AzureTelemetryClient {
+        private final LongAdder events = new LongAdder();
+
+        @Override
+        public void trackEvent(String eventName, @Nullable Map<String, String> customProperties, @Nullable Map<String, Double> metrics) {
+            this.events.increment();
+        }
+    }
+}
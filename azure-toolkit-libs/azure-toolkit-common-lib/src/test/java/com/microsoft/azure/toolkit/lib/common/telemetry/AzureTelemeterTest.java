@@ -0,0 +1,209 @@
+/*
+ * Copyright (c) Microsoft Corporation. All rights reserved.
+ * Licensed under the MIT License. See License.txt in the project root for license information.
+ */
+
+package com.microsoft.azure.toolkit.lib.common.telemetry;
+
+import com.microsoft.azure.toolkit.lib.common.operation.AzureOperation;
+import com.microsoft.azure.toolkit.lib.common.operation.AzureOperationAspect;
+import com.microsoft.azure.toolkit.lib.common.operation.Operation;
+import com.microsoft.azure.toolkit.lib.common.operation.OperationContext;
+import com.microsoft.azure.toolkit.lib.common.task.AzureTask;
+import org.apache.commons.lang3.tuple.Pair;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Test;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.stream.Collectors;
+
+public class AzureTelemeterTest {
+    private static final String PREFIX = "AzurePlugin.Test";
+
+    @After
+    public void tearDown() {
+        AzureTelemeter.flush();
+        AzureTelemeter.setClient(null);
+        AzureTelemeter.setEventNamePrefix(null);
+        AzureTelemeter.setSamplingRate(1);
+    }
+
+    /**
+     * compares events sent by the pipeline with the properties built by the previous synchronous serialization when each operation exits.
+     */
+    @Test
+    public void testPropertiesUnchanged() throws Throwable {
+        final RecordingClient client = new RecordingClient();
+        AzureTelemeter.setClient(client);
+        AzureTelemeter.setEventNamePrefix(PREFIX);
+        final Map<String, Pair<String, Map<String, String>>> expected = new LinkedHashMap<>();
+
+        final AzureTask<Void> action = new AzureTask<>("webapp.deploy_app", () -> {
+            OperationContext.action().setTelemetryProperty("subscriptionId", "sub-1");
+            final AzureTask<Void> list = new AzureTask<>("appservice|file.list.dir(/home/site)", () -> {
+                OperationContext.current().setTelemetryProperty("resourceType", "Microsoft.Web/sites");
+            });
+            execute(list);
+            expected.put(list.getExecutionId(), Pair.of(PREFIX + "/INFO", legacy(list, null)));
+
+            // changed after `list` exits, so that they are not tracked with `list`
+            OperationContext.action().setTelemetryProperty("preloading", "true");
+            OperationContext.action().setTelemetryProperty("subscriptionId", "sub-2");
+            final IllegalStateException error = new IllegalStateException("conflict");
+            final AzureTask<Void> upload = new AzureTask<>("webapp.upload_artifact", () -> {
+                throw error;
+            });
+            AzureTelemeter.afterCreate(upload);
+            try {
+                execute(upload);
+                Assert.fail();
+            } catch (final RuntimeException e) {
+                expected.put(upload.getExecutionId(), Pair.of(PREFIX + "/ERROR", legacy(upload, error)));
+            }
+        });
+        action.setType(AzureOperation.Type.ACTION.name());
+        AzureTelemeter.afterCreate(action);
+        AzureOperationAspect.execute(action, null);
+        expected.put(action.getExecutionId(), Pair.of(PREFIX + "/INFO", legacy(action, null)));
+
+        AzureTelemeter.flush();
+        final Map<String, Pair<String, Map<String, String>>> actual = client.events.stream()
+            .collect(Collectors.toMap(e -> e.getRight().get(AzureTelemeter.OP_ID), e -> e, (a, b) -> b, LinkedHashMap::new));
+        Assert.assertEquals(expected, actual);
+        Assert.assertEquals(3, client.events.size());
+
+        final Map<String, String> list = actual.values().iterator().next().getRight();
+        Assert.assertEquals("appservice", list.get(AzureTelemeter.SERVICE_NAME));
+        Assert.assertEquals("list_file", list.get(AzureTelemeter.OPERATION_NAME));
+        Assert.assertEquals("appservice|file.list.dir(***)", list.get(AzureTelemeter.OP_NAME));
+        Assert.assertEquals("sub-1", list.get("subscriptionId"));
+        Assert.assertFalse(list.containsKey("preloading"));
+        Assert.assertEquals(action.getExecutionId(), list.get(AzureTelemeter.OP_PARENT_ID));
+        // timestamps of the action are inherited as before
+        Assert.assertEquals(action.getContext().getTelemetryProperties().get(AzureTelemetry.OP_CREATE_AT), list.get(AzureTelemetry.OP_CREATE_AT));
+        Instant.parse(list.get(AzureTelemetry.OP_EXIT_AT));
+    }
+
+    @Test
+    public void testSampling() throws Throwable {
+        final RecordingClient client = new RecordingClient();
+        AzureTelemeter.setClient(client);
+        AzureTelemeter.setSamplingRate(0);
+        AzureOperationAspect.execute(nested(2), null);
+        Assert.assertThrows(RuntimeException.class, () -> execute(new AzureTask<>("storage.list_accounts", () -> {
+            throw new IllegalStateException("throttled");
+        })));
+        final AzureTask<Void> action = new AzureTask<>("webapp.deploy_app", () -> {
+        });
+        action.setType(AzureOperation.Type.ACTION.name());
+        AzureOperationAspect.execute(action, null);
+        AzureTelemeter.flush();
+        // only errors and actions are tracked
+        Assert.assertEquals(2, client.events.size());
+        Assert.assertEquals("throttled", client.events.peek().getRight().get(AzureTelemeter.ERROR_MSG));
+        Assert.assertEquals("0.0", client.events.peek().getRight().get(AzureTelemeter.OP_SAMPLING_RATE));
+    }
+
+    /**
+     * parameter properties are rendered from the arguments when the operation exits, not when it's exported.
+     */
+    @Test
+    public void testMethodOperation() {
+        final RecordingClient client = new RecordingClient();
+        AzureTelemeter.setClient(client);
+        final StringBuilder app = new StringBuilder("app-1");
+        final Map<String, String> settings = new HashMap<>();
+        settings.put("runtime", "java 8");
+        this.deploy(app, settings);
+        app.setLength(0);
+        app.append("app-2");
+        settings.put("runtime", "java 17");
+        AzureTelemeter.flush();
+
+        Assert.assertEquals(1, client.events.size());
+        final Map<String, String> properties = client.events.peek().getRight();
+        Assert.assertEquals("app-1", properties.get("appName"));
+        Assert.assertEquals("java 8", properties.get("runtime"));
+        Assert.assertEquals("webapp", properties.get(AzureTelemeter.SERVICE_NAME));
+        Assert.assertEquals("deploy_app", properties.get(AzureTelemeter.OPERATION_NAME));
+        Assert.assertEquals(AzureOperation.Type.SERVICE.name(), properties.get(AzureTelemeter.OP_TYPE));
+        Assert.assertEquals("/", properties.get(AzureTelemeter.OP_PARENT_ID));
+        Instant.parse(properties.get(AzureTelemetry.OP_EXIT_AT));
+    }
+
+    @AzureOperation(name = "webapp.deploy_app.app", params = {"app"}, type = AzureOperation.Type.SERVICE)
+    void deploy(@AzureTelemetry.Property("appName") StringBuilder app, @AzureTelemetry.Properties(SettingsConverter.class) Map<String, String> settings) {
+    }
+
+    private static AzureTask<Void> nested(int depth) {
+        return new AzureTask<>("appservice|file.list.dir(/home)", () -> {
+            if (depth > 1) {
+                execute(nested(depth - 1));
+            }
+        });
+    }
+
+    private static void execute(AzureTask<?> task) {
+        try {
+            AzureOperationAspect.execute(task, null);
+        } catch (final RuntimeException | Error e) {
+            throw e;
+        } catch (final Throwable t) {
+            throw new IllegalStateException(t);
+        }
+    }
+
+    /**
+     * the synchronous serialization of operations before the pipeline.
+     */
+    private static Map<String, String> legacy(Operation op, @Nullable Throwable e) {
+        final OperationContext context = op.getContext();
+        final Map<String, String> actionProperties = Optional.ofNullable(op.getActionParent())
+            .map(Operation::getContext).map(OperationContext::getTelemetryProperties).orElse(new HashMap<>());
+        final Map<String, String> properties = new HashMap<>();
+        final String name = op.getId().replaceAll("\\(.+\\)", "(***)");
+        final String[] parts = name.split("\\.");
+        if (parts.length > 1) {
+            final String[] compositeServiceName = parts[0].split("\\|");
+            properties.put(AzureTelemeter.SERVICE_NAME, compositeServiceName[0]);
+            properties.put(AzureTelemeter.OPERATION_NAME, compositeServiceName.length > 1 ? parts[1] + "_" + compositeServiceName[1] : parts[1]);
+        }
+        properties.put(AzureTelemeter.OP_ID, op.getExecutionId());
+        properties.put(AzureTelemeter.OP_PARENT_ID, Optional.ofNullable(op.getParent()).map(Operation::getExecutionId).orElse("/"));
+        properties.put(AzureTelemeter.OP_NAME, name);
+        properties.put(AzureTelemeter.OP_TYPE, op.getType());
+        properties.putAll(actionProperties);
+        properties.putAll(context.getTelemetryProperties());
+        if (e != null) {
+            properties.putAll(AzureTelemeter.serialize(e));
+        }
+        properties.putAll(Optional.ofNullable(AzureTelemeter.getCommonProperties()).orElse(new HashMap<>()));
+        return properties;
+    }
+
+    public static class SettingsConverter implements AzureTelemetry.Properties.Converter<Map<String, String>> {
+        @Nonnull
+        @Override
+        public Map<String, String> convert(@Nullable Map<String, String> settings) {
+            return Optional.ofNullable(settings).map(HashMap::new).orElse(new HashMap<>());
+        }
+    }
+
+    private static class RecordingClient extends AzureTelemetryClient {
+        private final Queue<Pair<String, Map<String, String>>> events = new ConcurrentLinkedQueue<>();
+
+        @Override
+        public void trackEvent(String eventName, @Nullable Map<String, String> customProperties, @Nullable Map<String, Double> metrics) {
+            this.events.add(Pair.of(eventName, customProperties));
+        }
+    }
+}
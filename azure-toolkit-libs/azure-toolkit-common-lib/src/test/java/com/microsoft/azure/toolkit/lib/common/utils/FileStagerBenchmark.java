@@ -0,0 +1,100 @@
+/*
+ * Copyright (c) Microsoft Corporation. All rights reserved.
+ * Licensed under the MIT License. See License.txt in the project root for license information.
+ */
+
+package com.microsoft.azure.toolkit.lib.common.utils;
+
+import org.apache.commons.io.FileUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JMH benchmark of staging a synthetic dependency set of 300 jars (256KB each) by sequential copies (as it was), and by
+ * {@link FileStager} into an empty (cold) and an up-to-date (warm) folder. it's not a unit test (and never run by surefire), run it
+ * after {@code test-compile} of this module by e.g.
+ * <pre>
+ * mvn -pl azure-toolkit-common-lib test-compile exec:exec -Dexec.executable=java -Dexec.classpathScope=test \
+ *     -Dexec.args="-cp %classpath org.openjdk.jmh.Main FileStagerBenchmark"
+ * </pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class FileStagerBenchmark {
+    private static final int JARS = 300;
+    private static final int SIZE = 256 * 1024;
+
+    /**
+     * whether files are hard linked (if supported by the file system) instead of copied.
+     */
+    @Param({"false", "true"})
+    public boolean link;
+
+    private Path root;
+    private List<File> jars;
+    private File sequential;
+    private File cold;
+    private File warm;
+    private FileStager stager;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        this.root = Files.createTempDirectory("stager-benchmark");
+        this.jars = FileStagerTest.jars(Files.createDirectories(root.resolve("repository")).toFile(), JARS, SIZE);
+        this.sequential = Files.createDirectories(root.resolve("sequential")).toFile();
+        this.cold = root.resolve("cold").toFile();
+        this.warm = Files.createDirectories(root.resolve("warm")).toFile();
+        this.stager = FileStager.builder().link(this.link).build();
+        this.stager.stage(this.jars, this.warm);
+    }
+
+    @Setup(Level.Invocation)
+    public void clearColdFolder() throws IOException {
+        FileUtils.deleteDirectory(this.cold);
+        Files.createDirectories(this.cold.toPath());
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        FileUtils.deleteQuietly(this.root.toFile());
+    }
+
+    @Benchmark
+    public void sequentialCopy() throws IOException {
+        for (final File jar : this.jars) {
+            FileUtils.copyFileToDirectory(jar, this.sequential);
+        }
+    }
+
+    @Benchmark
+    public FileStager.Result coldStaging() throws IOException {
+        return this.stager.stage(this.jars, this.cold);
+    }
+
+    @Benchmark
+    public FileStager.Result warmStaging() throws IOException {
+        return this.stager.stage(this.jars, this.warm);
+    }
+}
@@ -0,0 +1,91 @@
+/*
+ * Copyright (c) Microsoft Corporation. All rights reserved.
+ * Licensed under the MIT License. See License.txt in the project root for license information.
+ */
+
+package com.microsoft.azure.toolkit.lib.common.utils;
+
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+public class FileStagerTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testIncrementalStaging() throws IOException {
+        final List<File> jars = jars(folder.newFolder("repository"), 10, 1024);
+        final File lib = folder.newFolder("lib");
+        Files.write(new File(lib, "stale.jar").toPath(), new byte[]{1});
+        final FileStager stager = FileStager.builder().link(false).parallelism(4).build();
+
+        final FileStager.Result cold = stager.stage(jars, lib);
+        Assert.assertEquals(10, cold.getFilesCopied());
+        Assert.assertEquals(10 * 1024, cold.getBytesCopied());
+        Assert.assertEquals(1, cold.getFilesRemoved());
+        Assert.assertFalse(new File(lib, "stale.jar").exists());
+        for (final File jar : jars) {
+            Assert.assertArrayEquals(Files.readAllBytes(jar.toPath()), Files.readAllBytes(new File(lib, jar.getName()).toPath()));
+        }
+
+        final FileStager.Result warm = stager.stage(jars, lib);
+        Assert.assertEquals(10, warm.getFilesSkipped());
+        Assert.assertEquals(0, warm.getFilesCopied());
+
+        // changed and removed dependencies
+        Files.write(jars.get(0).toPath(), new byte[]{2, 3});
+        final FileStager.Result changed = stager.stage(jars.subList(0, 9), lib);
+        Assert.assertEquals(1, changed.getFilesCopied());
+        Assert.assertEquals(8, changed.getFilesSkipped());
+        Assert.assertEquals(1, changed.getFilesRemoved());
+        Assert.assertArrayEquals(new byte[]{2, 3}, Files.readAllBytes(new File(lib, jars.get(0).getName()).toPath()));
+        Assert.assertEquals(9, lib.list().length);
+    }
+
+    @Test
+    public void testLinkedStaging() throws IOException {
+        final List<File> jars = jars(folder.newFolder("repository"), 5, 1024);
+        final File lib = folder.newFolder("lib");
+        final FileStager.Result result = FileStager.builder().build().stage(jars, lib);
+        // file systems not supporting hard links fall back to copy
+        Assert.assertEquals(5, result.getFilesLinked() + result.getFilesCopied());
+        Assert.assertEquals(result.getFilesCopied() * 1024, result.getBytesCopied());
+        Assert.assertEquals(5, FileStager.builder().build().stage(jars, lib).getFilesSkipped());
+    }
+
+    @Test
+    public void testKeepOtherFiles() throws IOException {
+        final File staging = folder.newFolder("staging");
+        final File hostJson = new File(staging, "host.json");
+        Files.write(hostJson.toPath(), new byte[]{1});
+        final File artifact = jars(folder.newFolder("target"), 1, 10).get(0);
+        FileStager.builder().removeStale(false).build().stage(Collections.singletonList(artifact), staging);
+        Assert.assertTrue(hostJson.exists());
+        Assert.assertEquals(2, staging.list().length);
+    }
+
+    static List<File> jars(File dir, int count, int size) throws IOException {
+        final Random random = new Random(count);
+        final List<File> jars = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            final byte[] bytes = new byte[size];
+            random.nextBytes(bytes);
+            final File jar = new File(dir, "dependency-" + i + ".jar");
+            Files.write(jar.toPath(), bytes);
+            Files.setLastModifiedTime(jar.toPath(), FileTime.fromMillis(1_600_000_000_000L + i * 1000L));
+            jars.add(jar);
+        }
+        return jars;
+    }
+}
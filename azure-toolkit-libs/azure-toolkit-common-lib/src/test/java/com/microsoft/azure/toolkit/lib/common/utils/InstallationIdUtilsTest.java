@@ -0,0 +1,72 @@
+/*
+ * Copyright (c) Microsoft Corporation. All rights reserved.
+ * Licensed under the MIT License. See License.txt in the project root for license information.
+ */
+
+package com.microsoft.azure.toolkit.lib.common.utils;
+
+import org.apache.commons.lang3.StringUtils;
+import org.junit.Assert;
+import org.junit.Assume;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+public class InstallationIdUtilsTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testPersistentHashMac() throws Exception {
+        final String hashMac = InstallationIdUtils.getHashMac();
+        Assume.assumeTrue(InstallationIdUtils.isValidHashMac(hashMac));
+        final Path file = folder.getRoot().toPath().resolve("cache").resolve("installation-id");
+
+        Assert.assertEquals(hashMac, InstallationIdUtils.getPersistentHashMac(file));
+        Assert.assertEquals(hashMac, new String(Files.readAllBytes(file), StandardCharsets.UTF_8));
+
+        // persisted id is kept even if network interfaces are changed
+        final String persisted = StringUtils.repeat("a", 64);
+        Files.write(file, persisted.getBytes(StandardCharsets.UTF_8));
+        Assert.assertEquals(persisted, InstallationIdUtils.getPersistentHashMac(file));
+
+        // invalid id is replaced
+        Files.write(file, "invalid".getBytes(StandardCharsets.UTF_8));
+        Assert.assertEquals(hashMac, InstallationIdUtils.getPersistentHashMac(file));
+        Assert.assertEquals(hashMac, new String(Files.readAllBytes(file), StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void testConcurrentResolution() throws Exception {
+        final String hashMac = InstallationIdUtils.getHashMac();
+        Assume.assumeTrue(InstallationIdUtils.isValidHashMac(hashMac));
+        final Path file = folder.getRoot().toPath().resolve("installation-id");
+        final ExecutorService pool = Executors.newFixedThreadPool(8);
+        try {
+            final List<Future<String>> futures = new ArrayList<>();
+            for (int i = 0; i < 8; i++) {
+                futures.add(pool.submit(() -> InstallationIdUtils.getPersistentHashMac(file)));
+            }
+            final Set<String> ids = ConcurrentHashMap.newKeySet();
+            for (final Future<String> future : futures) {
+                ids.add(future.get());
+            }
+            Assert.assertEquals(Collections.singleton(hashMac), ids);
+        } finally {
+            pool.shutdownNow();
+        }
+        Assert.assertSame(InstallationIdUtils.getPersistentHashMacAsync(), InstallationIdUtils.getPersistentHashMacAsync());
+    }
+}
@@ -0,0 +1,227 @@
+/*
+ * Copyright (c) Microsoft Corporation. All rights reserved.
+ * Licensed under the MIT License. See License.txt in the project root for license information.
+ */
+
+package com.microsoft.azure.toolkit.lib.common.utils;
+
+import com.azure.core.exception.HttpResponseException;
+import com.azure.core.http.HttpResponse;
+import com.microsoft.azure.toolkit.lib.common.exception.AzureToolkitRuntimeException;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class PollerTest {
+    private final VirtualClock clock = new VirtualClock();
+
+    @After
+    public void tearDown() {
+        // clear the interrupted flag set by cancellation tests
+        Thread.interrupted();
+    }
+
+    @Test
+    public void testBackoffIsCappedByMaxDelay() {
+        final AtomicInteger calls = new AtomicInteger();
+        final Poller poller = poller(Duration.ofMinutes(5)).build();
+        final Integer result = poller.poll("status", calls::incrementAndGet, count -> count >= 7);
+        Assert.assertEquals(7, result.intValue());
+        Assert.assertEquals(Arrays.asList(1000L, 2000L, 4000L, 8000L, 10000L, 10000L), clock.sleeps);
+        final Poller.Metrics metrics = poller.getMetrics().get("status");
+        Assert.assertEquals(7, metrics.getPolls());
+        Assert.assertEquals(Poller.Outcome.READY, metrics.getOutcome());
+        Assert.assertEquals(Duration.ofSeconds(35), metrics.getElapsed());
+    }
+
+    @Test
+    public void testDeadlineReturnsLastResult() {
+        final AtomicInteger calls = new AtomicInteger();
+        final Poller poller = poller(Duration.ofSeconds(6)).build();
+        Assert.assertEquals(4, poller.poll("status", calls::incrementAndGet, count -> false).intValue());
+        // the last delay is cut to the remaining time
+        Assert.assertEquals(Arrays.asList(1000L, 2000L, 3000L), clock.sleeps);
+        Assert.assertEquals(Duration.ZERO, poller.getRemaining());
+        Assert.assertEquals(Poller.Outcome.TIMEOUT, poller.getMetrics().get("status").getOutcome());
+    }
+
+    @Test
+    public void testJitterIsBounded() {
+        final Poller poller = poller(Duration.ofMinutes(1)).jitter(0.5).maxDelay(Duration.ofSeconds(1)).build();
+        poller.poll("status", () -> null, r -> false);
+        Assert.assertTrue(clock.sleeps.size() > 1);
+        clock.sleeps.subList(0, clock.sleeps.size() - 1).forEach(sleep -> Assert.assertTrue(sleep >= 500 && sleep <= 1500));
+    }
+
+    @Test
+    public void testRetryAfterIsHonored() {
+        final AtomicInteger calls = new AtomicInteger();
+        final Poller poller = poller(Duration.ofMinutes(5)).build();
+        final String result = poller.poll("status", () -> {
+            if (calls.incrementAndGet() == 1) {
+                throw throttled("Retry-After", "7");
+            } else if (calls.get() == 2) {
+                throw new IllegalStateException(new RuntimeException(throttled("retry-after-ms", "1500")));
+            }
+            return "Succeeded";
+        }, "Succeeded"::equals);
+        Assert.assertEquals("Succeeded", result);
+        Assert.assertEquals(Arrays.asList(7000L, 1500L), clock.sleeps);
+        final Poller.Metrics metrics = poller.getMetrics().get("status");
+        Assert.assertEquals(2, metrics.getThrottled());
+        Assert.assertEquals(2, metrics.getFailures());
+        Assert.assertNull(metrics.getLastError());
+    }
+
+    @Test
+    public void testRetryAfterIgnoredIfDisabled() {
+        final AtomicInteger calls = new AtomicInteger();
+        final Poller poller = poller(Duration.ofMinutes(5)).retryAfterAware(false).build();
+        poller.poll("status", () -> {
+            if (calls.incrementAndGet() == 1) {
+                throw throttled("Retry-After", "7");
+            }
+            return true;
+        }, Boolean::booleanValue);
+        Assert.assertEquals(Arrays.asList(1000L), clock.sleeps);
+        Assert.assertEquals(0, poller.getMetrics().get("status").getThrottled());
+    }
+
+    @Test
+    public void testFailuresAreRetried() {
+        final Poller poller = poller(Duration.ofSeconds(3)).build();
+        Assert.assertNull(poller.poll("status", () -> {
+            throw new UncheckedIOException(new IOException("connection reset"));
+        }, r -> true));
+        final Poller.Metrics metrics = poller.getMetrics().get("status");
+        Assert.assertEquals(3, metrics.getPolls());
+        Assert.assertEquals(3, metrics.getFailures());
+        Assert.assertTrue(metrics.getLastError() instanceof UncheckedIOException);
+    }
+
+    @Test
+    public void testNonRetryableFailuresAreThrown() {
+        final Poller poller = poller(Duration.ofMinutes(1)).build();
+        Assert.assertThrows(HttpResponseException.class, () -> poller.poll("status", () -> {
+            throw failed(403);
+        }, r -> true));
+        Assert.assertEquals(1, poller.getMetrics().get("status").getPolls());
+        Assert.assertEquals(Poller.Outcome.FAILED, poller.getMetrics().get("status").getOutcome());
+        Assert.assertThrows(AzureToolkitRuntimeException.class, () -> poller.poll("checked", () -> {
+            throw new Exception("unexpected");
+        }, r -> true));
+        Assert.assertTrue(clock.sleeps.isEmpty());
+
+        final Poller custom = poller(Duration.ofSeconds(3)).retryable(e -> e instanceof IllegalStateException).build();
+        Assert.assertNull(custom.poll("status", () -> {
+            throw new IllegalStateException("not yet");
+        }, r -> true));
+        Assert.assertEquals(3, custom.getMetrics().get("status").getPolls());
+    }
+
+    @Test
+    public void testTransientFailures() {
+        Assert.assertTrue(Poller.isTransient(new IOException()));
+        Assert.assertTrue(Poller.isTransient(new IllegalStateException(new TimeoutException())));
+        Assert.assertTrue(Poller.isTransient(failed(408)));
+        Assert.assertTrue(Poller.isTransient(failed(429)));
+        Assert.assertTrue(Poller.isTransient(failed(503)));
+        Assert.assertFalse(Poller.isTransient(failed(401)));
+        Assert.assertFalse(Poller.isTransient(failed(404)));
+        Assert.assertFalse(Poller.isTransient(new IllegalStateException("503")));
+    }
+
+    @Test
+    public void testLatencyIsRecorded() {
+        final AtomicInteger calls = new AtomicInteger();
+        final Poller poller = poller(Duration.ofMinutes(1)).build();
+        poller.poll("status", () -> {
+            clock.advance(calls.incrementAndGet() * 100L);
+            return calls.get();
+        }, count -> count >= 3);
+        final Poller.Metrics metrics = poller.getMetrics().get("status");
+        Assert.assertEquals(Duration.ofMillis(600), metrics.getLatency());
+        Assert.assertEquals(Duration.ofMillis(300), metrics.getMaxLatency());
+        Assert.assertEquals(Duration.ofMillis(3600), metrics.getElapsed());
+    }
+
+    @Test
+    public void testInterruptionCancelsPolling() {
+        final AtomicInteger calls = new AtomicInteger();
+        final Poller poller = poller(Duration.ofMinutes(1)).build();
+        Assert.assertThrows(CancellationException.class, () -> poller.poll("status", () -> {
+            if (calls.incrementAndGet() == 2) {
+                Thread.currentThread().interrupt();
+            }
+            return false;
+        }, Boolean::booleanValue));
+        Assert.assertEquals(2, calls.get());
+        Assert.assertEquals(Poller.Outcome.CANCELLED, poller.getMetrics().get("status").getOutcome());
+    }
+
+    @Test
+    public void testRetryAfterDate() {
+        final Poller poller = poller(Duration.ofMinutes(5)).build();
+        final HttpResponseException e = throttled("Retry-After", "Wed, 21 Oct 2015 07:28:00 GMT");
+        Assert.assertEquals(Duration.ofSeconds(90), poller.getRetryAfter(e));
+        clock.advance(Duration.ofMinutes(2).toMillis());
+        Assert.assertEquals(Duration.ZERO, poller.getRetryAfter(e));
+        Assert.assertNull(poller.getRetryAfter(throttled("Retry-After", "soon")));
+        Assert.assertNull(poller.getRetryAfter(new IllegalStateException()));
+    }
+
+    private Poller.PollerBuilder poller(Duration deadline) {
+        return Poller.builder().clock(clock).jitter(0.0).initialDelay(Duration.ofSeconds(1)).maxDelay(Duration.ofSeconds(10)).deadline(deadline);
+    }
+
+    private static HttpResponseException failed(int status) {
+        final HttpResponse response = Mockito.mock(HttpResponse.class);
+        Mockito.when(response.getStatusCode()).thenReturn(status);
+        return new HttpResponseException("failed", response);
+    }
+
+    private static HttpResponseException throttled(String header, String value) {
+        final HttpResponse response = Mockito.mock(HttpResponse.class);
+        Mockito.when(response.getStatusCode()).thenReturn(429);
+        Mockito.when(response.getHeaderValue(header)).thenReturn(value);
+        return new HttpResponseException("too many requests", response);
+    }
+
+    private static class VirtualClock implements Poller.Clock {
+        private static final Instant EPOCH = Instant.parse("2015-10-21T07:26:30Z");
+        private final List<Long> sleeps = new ArrayList<>();
+        private long nanos;
+
+        @Override
+        public long nanoTime() {
+            return nanos;
+        }
+
+        @Override
+        public void sleep(Duration duration) {
+            sleeps.add(duration.toMillis());
+            advance(duration.toMillis());
+        }
+
+        @Override
+        public Instant now() {
+            return EPOCH.plusNanos(nanos);
+        }
+
+        private void advance(long millis) {
+            nanos += Duration.ofMillis(millis).toNanos();
+        }
+    }
+}
@@ -0,0 +1,197 @@
+/*
+ * Copyright (c) Microsoft Corporation. All rights reserved.
+ * Licensed under the MIT License. See License.txt in the project root for license information.
+ */
+
+package com.microsoft.azure.toolkit.lib.common.utils;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class PublicIpResolverTest {
+    private static final String IP = "203.0.113.7";
+
+    private HttpServer server;
+    private final Map<String, AtomicInteger> hits = new ConcurrentHashMap<>();
+
+    @Before
+    public void setUp() throws IOException {
+        this.server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        this.server.setExecutor(Executors.newCachedThreadPool());
+        // hangs longer than any timeout of the tests
+        this.server.createContext("/slow", exchange -> {
+            this.hit("slow");
+            try {
+                Thread.sleep(10_000);
+            } catch (final InterruptedException ignored) {
+                // server is stopped
+            }
+            exchange.close();
+        });
+        this.server.createContext("/failing", exchange -> {
+            this.hit("failing");
+            exchange.sendResponseHeaders(503, -1);
+            exchange.close();
+        });
+        this.server.createContext("/garbage", exchange -> {
+            this.hit("garbage");
+            this.respond(exchange, "<html>not an ip</html>");
+        });
+        this.server.createContext("/correct", exchange -> {
+            this.hit("correct");
+            this.respond(exchange, "\n  " + IP + "  \n");
+        });
+        this.server.start();
+    }
+
+    @After
+    public void tearDown() {
+        this.server.stop(0);
+        ((ExecutorService) this.server.getExecutor()).shutdownNow();
+    }
+
+    @Test
+    public void testRaceEndpoints() {
+        // the slow endpoint doesn't block, which would stall sequential lookups until it's timed out
+        final PublicIpResolver resolver = PublicIpResolver.builder().timeout(Duration.ofSeconds(30))
+            .endpoints(urls("slow", "failing", "garbage", "correct")).build();
+        Assert.assertEquals(IP, resolver.resolve());
+        Assert.assertEquals(1, this.hits.get("correct").get());
+    }
+
+    @Test(timeout = 8000)
+    public void testTimeout() {
+        final PublicIpResolver resolver = PublicIpResolver.builder().timeout(Duration.ofMillis(500))
+            .endpoints(urls("slow", "failing", "garbage")).build();
+        Assert.assertEquals("", resolver.resolve("server", () -> {
+            Thread.sleep(10_000);
+            return IP;
+        }));
+        // failures are not cached
+        Assert.assertEquals("", resolver.resolve());
+        Assert.assertEquals(2, this.hits.get("failing").get());
+    }
+
+    @Test
+    public void testProbes() {
+        final PublicIpResolver resolver = PublicIpResolver.builder().endpoints(urls("slow")).build();
+        Assert.assertEquals("198.51.100.1", resolver.resolve("server", () -> {
+            throw new IllegalStateException("driver is not found");
+        }, () -> "", () -> " 198.51.100.1 "));
+        // probes are skipped if the IP is cached
+        Assert.assertEquals("198.51.100.1", resolver.resolve("server", () -> IP));
+        resolver.invalidate();
+        Assert.assertEquals(IP, resolver.resolve("server", () -> IP));
+    }
+
+    @Test
+    public void testProbePrecedence() {
+        final PublicIpResolver resolver = PublicIpResolver.builder().timeout(Duration.ofSeconds(30)).endpoints(urls("correct")).build();
+        // endpoints are not requested if the probe is done in the grace period
+        Assert.assertEquals("198.51.100.1", resolver.resolve("server", () -> {
+            Thread.sleep(300);
+            return "198.51.100.1";
+        }));
+        Assert.assertNull(this.hits.get("correct"));
+        // the IP seen by the server wins even if the endpoint responds earlier, e.g. behind a proxy.
+        Assert.assertEquals("198.51.100.2", resolver.resolve("slow", () -> {
+            Thread.sleep(1500);
+            return "198.51.100.2";
+        }));
+        Assert.assertEquals(1, this.hits.get("correct").get());
+        // endpoints are the fallback of failing probes
+        Assert.assertEquals(IP, resolver.resolve("other", () -> {
+            throw new IllegalStateException("connection refused");
+        }));
+        Assert.assertEquals(IP, resolver.resolve("another", () -> "<html>not an ip</html>"));
+    }
+
+    @Test
+    public void testJdbcTimeouts() {
+        final Duration timeout = Duration.ofMillis(1500);
+        final Properties mysql = PublicIpResolver.jdbcProperties("com.mysql.jdbc.Driver", "admin", timeout);
+        Assert.assertEquals("admin", mysql.getProperty("user"));
+        Assert.assertNull(mysql.getProperty("password"));
+        Assert.assertEquals("1500", mysql.getProperty("connectTimeout"));
+        Assert.assertEquals("2", PublicIpResolver.jdbcProperties("org.postgresql.Driver", "admin", timeout).getProperty("loginTimeout"));
+        Assert.assertEquals("2", PublicIpResolver.jdbcProperties("com.microsoft.sqlserver.jdbc.SQLServerDriver", "admin", timeout)
+            .getProperty("loginTimeout"));
+        Assert.assertEquals(Collections.singleton("user"), PublicIpResolver.jdbcProperties("org.h2.Driver", "admin", timeout).stringPropertyNames());
+    }
+
+    @Test
+    public void testCacheBySource() {
+        final PublicIpResolver resolver = PublicIpResolver.builder().endpoints(urls("correct")).build();
+        Assert.assertEquals("198.51.100.1", resolver.resolve("mysql", () -> "198.51.100.1"));
+        Assert.assertEquals("198.51.100.2", resolver.resolve("postgre", () -> "198.51.100.2"));
+        Assert.assertEquals(IP, resolver.resolve());
+        Assert.assertEquals("198.51.100.1", resolver.resolve("mysql", () -> "198.51.100.3"));
+        Assert.assertEquals("198.51.100.2", resolver.resolve("postgre", () -> "198.51.100.3"));
+    }
+
+    @Test
+    public void testCache() throws Exception {
+        final PublicIpResolver resolver = PublicIpResolver.builder().ttl(Duration.ofMillis(500)).endpoints(urls("correct")).build();
+        final ExecutorService pool = Executors.newFixedThreadPool(8);
+        try {
+            final List<Future<String>> futures = new ArrayList<>();
+            for (int i = 0; i < 8; i++) {
+                futures.add(pool.submit(() -> resolver.resolve()));
+            }
+            final Set<String> ips = ConcurrentHashMap.newKeySet();
+            for (final Future<String> future : futures) {
+                ips.add(future.get());
+            }
+            Assert.assertEquals(Collections.singleton(IP), ips);
+        } finally {
+            pool.shutdownNow();
+        }
+        Assert.assertEquals(IP, resolver.resolve());
+        Assert.assertEquals(1, this.hits.get("correct").get());
+        Thread.sleep(600);
+        Assert.assertEquals(IP, resolver.resolve());
+        Assert.assertEquals(2, this.hits.get("correct").get());
+    }
+
+    private void hit(String endpoint) {
+        this.hits.computeIfAbsent(endpoint, k -> new AtomicInteger()).incrementAndGet();
+    }
+
+    private void respond(HttpExchange exchange, String body) throws IOException {
+        final byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.sendResponseHeaders(200, bytes.length);
+        try (final OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    private List<String> urls(String... endpoints) {
+        final String base = "http://" + this.server.getAddress().getHostString() + ":" + this.server.getAddress().getPort() + "/";
+        final List<String> urls = new ArrayList<>();
+        Arrays.stream(endpoints).forEach(endpoint -> urls.add(base + endpoint));
+        return urls;
+    }
+}
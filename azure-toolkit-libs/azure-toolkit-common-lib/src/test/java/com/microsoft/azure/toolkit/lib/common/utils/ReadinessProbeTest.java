@@ -0,0 +1,84 @@
+/*
+ * Copyright (c) Microsoft Corporation. All rights reserved.
+ * Licensed under the MIT License. See License.txt in the project root for license information.
+ */
+
+package com.microsoft.azure.toolkit.lib.common.utils;
+
+import com.microsoft.azure.toolkit.lib.common.exception.AzureToolkitRuntimeException;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class ReadinessProbeTest {
+
+    @Test
+    public void testFastWarmUpReturnsImmediately() {
+        final WarmUp host = new WarmUp(Duration.ZERO);
+        final ReadinessProbe probe = probe(Duration.ofSeconds(5));
+        Assert.assertEquals("Running", probe.await("host", host::status, "Running"::equals));
+        Assert.assertEquals(1, host.calls.get());
+        Assert.assertTrue(probe.getPhaseTimings().get("host").toMillis() < 1000);
+    }
+
+    @Test
+    public void testSlowWarmUpIsPolledWithBackoff() {
+        final WarmUp host = new WarmUp(Duration.ofMillis(300));
+        final ReadinessProbe probe = probe(Duration.ofSeconds(5));
+        Assert.assertEquals("Running", probe.await("host", host::status, "Running"::equals));
+        // 10 + 20 + 40 + 80 + 160 + ... ms, fixed delay of 10ms would take ~30 calls.
+        Assert.assertTrue(host.calls.get() > 1 && host.calls.get() < 10);
+        Assert.assertTrue(probe.getPhaseTimings().get("host").toMillis() >= 300);
+    }
+
+    @Test
+    public void testFailuresAreRetriedUntilDeadline() {
+        final AtomicInteger calls = new AtomicInteger();
+        final ReadinessProbe probe = probe(Duration.ofMillis(200));
+        try {
+            probe.await("sync triggers", () -> {
+                calls.incrementAndGet();
+                throw new IllegalStateException("503");
+            });
+            Assert.fail();
+        } catch (final AzureToolkitRuntimeException e) {
+            Assert.assertTrue(e.getCause() instanceof IllegalStateException);
+        }
+        Assert.assertTrue(calls.get() > 1);
+        Assert.assertEquals(Duration.ZERO, probe.getRemaining());
+    }
+
+    @Test
+    public void testPhaseTimingsAreRecordedInOrder() {
+        final ReadinessProbe probe = probe(Duration.ofSeconds(5));
+        final WarmUp host = new WarmUp(Duration.ofMillis(50));
+        probe.await("host", host::status, "Running"::equals);
+        probe.await("functions", () -> 1, count -> count > 0);
+        final Map<String, Duration> timings = probe.getPhaseTimings();
+        Assert.assertArrayEquals(new String[]{"host", "functions"}, timings.keySet().toArray());
+    }
+
+    private static ReadinessProbe probe(Duration deadline) {
+        return ReadinessProbe.builder().initialDelay(Duration.ofMillis(10)).maxDelay(Duration.ofSeconds(1)).deadline(deadline).build();
+    }
+
+    /**
+     * stand-in of a function host which reports "Running" after the warm-up time.
+     */
+    private static class WarmUp {
+        private final long readyAt;
+        private final AtomicInteger calls = new AtomicInteger();
+
+        WarmUp(Duration warmUp) {
+            this.readyAt = System.nanoTime() + warmUp.toNanos();
+        }
+
+        String status() {
+            calls.incrementAndGet();
+            return System.nanoTime() >= readyAt ? "Running" : "Initializing";
+        }
+    }
+}
@@ -0,0 +1,94 @@
+/*
+ * Copyright (c) Microsoft Corporation. All rights reserved.
+ * Licensed under the MIT License. See License.txt in the project root for license information.
+ */
+
+package com.microsoft.azure.toolkit.lib.common.utils;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+public class SingleFlightTest {
+
+    @Test
+    public void testConcurrentCallersJoinInFlightLoad() throws Exception {
+        final SingleFlight<Integer> flight = new SingleFlight<>();
+        final AtomicInteger loads = new AtomicInteger();
+        final CountDownLatch started = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        final List<Thread> threads = new CopyOnWriteArrayList<>();
+        final ExecutorService executor = Executors.newFixedThreadPool(8, r -> {
+            final Thread thread = new Thread(r);
+            threads.add(thread);
+            return thread;
+        });
+        try {
+            final Future<Integer> first = executor.submit(() -> flight.run(() -> {
+                started.countDown();
+                await(release);
+                return loads.incrementAndGet();
+            }));
+            started.await();
+            Assert.assertTrue(flight.isInFlight());
+            final List<Future<Integer>> joiners = IntStream.range(0, 7)
+                .mapToObj(i -> executor.submit(() -> flight.run(loads::incrementAndGet)))
+                .collect(Collectors.toList());
+            // wait until all joiners are parked on the in-flight load.
+            while (threads.size() < 8 || threads.stream().filter(t -> t.getState() == Thread.State.WAITING).count() < 8) {
+                Thread.sleep(10);
+            }
+            release.countDown();
+            Assert.assertEquals(Integer.valueOf(1), first.get(10, TimeUnit.SECONDS));
+            for (final Future<Integer> joiner : joiners) {
+                Assert.assertEquals(Integer.valueOf(1), joiner.get(10, TimeUnit.SECONDS));
+            }
+            Assert.assertEquals(1, loads.get());
+            Assert.assertFalse(flight.isInFlight());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testFailureIsPropagatedAndNotRemembered() {
+        final SingleFlight<String> flight = new SingleFlight<>();
+        try {
+            flight.run(() -> {
+                throw new IllegalStateException("failed");
+            });
+            Assert.fail();
+        } catch (final IllegalStateException e) {
+            Assert.assertEquals("failed", e.getMessage());
+        }
+        Assert.assertFalse(flight.isInFlight());
+        Assert.assertEquals("loaded", flight.run(() -> "loaded"));
+    }
+
+    @Test
+    public void testReentrantCallDoesNotDeadlock() {
+        final SingleFlight<String> flight = new SingleFlight<>();
+        Assert.assertEquals("outer", flight.run(() -> {
+            Assert.assertNull(flight.run(() -> "inner"));
+            return "outer";
+        }));
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,79 @@
+/*
+ * Copyright (c) Microsoft Corporation. All rights reserved.
+ * Licensed under the MIT License. See License.txt in the project root for license information.
+ */
+
+package com.microsoft.azure.toolkit.lib.common.utils.aspect;
+
+import groovy.text.SimpleTemplateEngine;
+import org.aspectj.lang.JoinPoint;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.mockito.Mockito;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.HashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JMH benchmark of rendering an operation/cache template per invocation, by parsing it with {@link SimpleTemplateEngine} every time
+ * (as it was) and by the {@link CompiledTemplate} cached by {@link ExpressionUtils#compile(String)}. it's not a unit test (and never
+ * run by surefire), run it after {@code test-compile} of this module by e.g.
+ * <pre>
+ * mvn -pl azure-toolkit-common-lib test-compile exec:exec -Dexec.executable=java -Dexec.classpathScope=test \
+ *     -Dexec.args="-cp %classpath org.openjdk.jmh.Main ExpressionUtilsBenchmark -prof gc"
+ * </pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ExpressionUtilsBenchmark {
+    /**
+     * a parameter reference (the most common) and a groovy expression.
+     */
+    @Param({"$subscriptionId", "${subscriptionId}/${region.toString()}"})
+    public String template;
+
+    private MethodInvocation invocation;
+    private final SimpleTemplateEngine engine = new SimpleTemplateEngine();
+
+    @SuppressWarnings("unused")
+    public void list(String subscriptionId, Object region, Integer count) {
+    }
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        // stub only, invocations of the mocks are not recorded, which would be measured too.
+        final JoinPoint point = Mockito.mock(JoinPoint.class, Mockito.withSettings().stubOnly());
+        final MethodSignature signature = Mockito.mock(MethodSignature.class, Mockito.withSettings().stubOnly());
+        Mockito.when(point.getSignature()).thenReturn(signature);
+        Mockito.when(point.getThis()).thenReturn(this);
+        Mockito.when(point.getArgs()).thenReturn(new Object[]{"sub", "westus", 1});
+        Mockito.when(signature.getMethod()).thenReturn(ExpressionUtilsBenchmark.class.getMethod("list", String.class, Object.class, Integer.class));
+        Mockito.when(signature.getParameterNames()).thenReturn(new String[]{"subscriptionId", "region", "count"});
+        this.invocation = MethodInvocation.from(point);
+    }
+
+    @Benchmark
+    public String simpleTemplateEngine() throws Exception {
+        return this.engine.createTemplate(this.template).make(new HashMap<>(ExpressionUtils.initBindings(this.invocation))).toString();
+    }
+
+    @Benchmark
+    public String compiledTemplate() {
+        return ExpressionUtils.render(this.template, this.invocation);
+    }
+}
@@ -0,0 +1,89 @@
+/*
+ * Copyright (c) Microsoft Corporation. All rights reserved.
+ * Licensed under the MIT License. See License.txt in the project root for license information.
+ */
+
+package com.microsoft.azure.toolkit.lib.common.utils.aspect;
+
+import groovy.text.SimpleTemplateEngine;
+import org.aspectj.lang.JoinPoint;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.junit.Assert;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+public class ExpressionUtilsTest {
+
+    @SuppressWarnings("unused")
+    public String getResourceTypeName() {
+        return "Web App";
+    }
+
+    @SuppressWarnings("unused")
+    public void list(String subscriptionId, Object region, Integer count) {
+    }
+
+    @Test
+    public void testConstantTemplate() throws Exception {
+        final MethodInvocation invocation = mockInvocation("sub", "westus", 1);
+        Assert.assertTrue(ExpressionUtils.compile("Regions") instanceof CompiledTemplate.Constant);
+        Assert.assertEquals("Regions", ExpressionUtils.render("Regions", invocation));
+        Assert.assertEquals("<cache>", ExpressionUtils.render("<cache>", invocation));
+        Assert.assertNull(ExpressionUtils.render(null, invocation));
+        Assert.assertEquals("", ExpressionUtils.render("", invocation));
+    }
+
+    @Test
+    public void testParameterTemplate() throws Exception {
+        Assert.assertTrue(ExpressionUtils.compile("$subscriptionId") instanceof CompiledTemplate.Parameter);
+        Assert.assertTrue(ExpressionUtils.compile("${subscriptionId}") instanceof CompiledTemplate.Parameter);
+        for (final Object[] args : new Object[][]{
+            {"sub", "westus", 1},
+            {null, null, null},
+            {"sub", Arrays.asList("westus", "eastus"), 2},
+            {"sub", new String[]{"westus", "eastus"}, 3}
+        }) {
+            final MethodInvocation invocation = mockInvocation(args);
+            for (final String template : new String[]{"$subscriptionId", "${subscriptionId}", "${ region }", "$count", "$unknown"}) {
+                Assert.assertEquals(template, renderByGroovy(template, invocation), ExpressionUtils.render(template, invocation));
+            }
+        }
+    }
+
+    @Test
+    public void testGroovyTemplate() throws Exception {
+        final MethodInvocation invocation = mockInvocation("sub", "westus", 1);
+        Assert.assertEquals("sub/westus", ExpressionUtils.render("${subscriptionId}/${region.toString()}", invocation));
+        Assert.assertEquals("sub-1", ExpressionUtils.render("$subscriptionId-$count", invocation));
+        Assert.assertEquals("Web App", ExpressionUtils.interpret("this.getResourceTypeName()", invocation));
+        Assert.assertTrue(ExpressionUtils.evaluate("count == 1", invocation, false));
+        Assert.assertFalse(ExpressionUtils.evaluate("subscriptionId == 'xxx'", invocation, true));
+        // invalid templates are rendered as is.
+        Assert.assertEquals("${subscriptionId", ExpressionUtils.render("${subscriptionId", invocation));
+        Assert.assertSame(ExpressionUtils.compile("$subscriptionId-$count"), ExpressionUtils.compile("$subscriptionId-$count"));
+    }
+
+    private MethodInvocation mockInvocation(Object... args) throws NoSuchMethodException {
+        final JoinPoint point = Mockito.mock(JoinPoint.class);
+        final MethodSignature signature = Mockito.mock(MethodSignature.class);
+        Mockito.when(point.getSignature()).thenReturn(signature);
+        Mockito.when(point.getThis()).thenReturn(this);
+        Mockito.when(point.getArgs()).thenReturn(args);
+        Mockito.when(signature.getMethod()).thenReturn(ExpressionUtilsTest.class.getMethod("list", String.class, Object.class, Integer.class));
+        Mockito.when(signature.getParameterNames()).thenReturn(new String[]{"subscriptionId", "region", "count"});
+        return MethodInvocation.from(point);
+    }
+
+    private static String renderByGroovy(String template, MethodInvocation invocation) {
+        final Map<String, Object> bindings = new HashMap<>(ExpressionUtils.initBindings(invocation));
+        try {
+            return new SimpleTemplateEngine().createTemplate(template).make(bindings).toString();
+        } catch (final Throwable e) {
+            return template;
+        }
+    }
+}
@@ -19,11 +19,14 @@ import com.microsoft.azure.toolkit.lib.common.cache.Cacheable;
 import com.microsoft.azure.toolkit.lib.common.model.AbstractAzServiceSubscription;
 import com.microsoft.azure.toolkit.lib.common.model.AbstractAzService;
 import com.microsoft.azure.toolkit.lib.common.model.Region;
+import com.microsoft.azure.toolkit.lib.common.model.ServiceManagerCache;
 import com.microsoft.azure.toolkit.lib.compute.virtualmachine.VirtualMachine;
 import com.microsoft.azure.toolkit.lib.compute.virtualmachine.VirtualMachineModule;
+import com.microsoft.azure.toolkit.lib.compute.virtualmachine.VmCatalog;
 import com.microsoft.azure.toolkit.lib.compute.virtualmachine.VmImage;
 import com.microsoft.azure.toolkit.lib.compute.virtualmachine.VmImagePublisher;
 import com.microsoft.azure.toolkit.lib.compute.virtualmachine.VmSize;
+import com.microsoft.azure.toolkit.lib.compute.virtualmachine.model.OperatingSystem;
 import lombok.extern.slf4j.Slf4j;
 
 import javax.annotation.Nonnull;
@@ -51,16 +54,17 @@ public class AzureCompute extends AbstractAzService<ComputeServiceSubscription,
     @Nonnull
     @Override
     protected ComputeManager loadResourceFromAzure(@Nonnull String subscriptionId, String resourceGroup) {
-        final Account account = Azure.az(AzureAccount.class).account();
-        final AzureConfiguration config = Azure.az().config();
-        final String userAgent = config.getUserAgent();
-        final HttpLogDetailLevel logLevel = Optional.ofNullable(config.getLogLevel()).map(HttpLogDetailLevel::valueOf).orElse(HttpLogDetailLevel.NONE);
-        final AzureProfile azureProfile = new AzureProfile(null, subscriptionId, account.getEnvironment());
-        return ComputeManager.configure()
-            .withHttpClient(AbstractAzServiceSubscription.getDefaultHttpClient())
-            .withLogLevel(logLevel)
-            .withPolicy(AbstractAzServiceSubscription.getUserAgentPolicy(userAgent)) // set user agent with policy
-            .authenticate(account.getTokenCredential(subscriptionId), azureProfile);
+        return ServiceManagerCache.get(subscriptionId, ComputeManager.class, id -> {
+            final Account account = Azure.az(AzureAccount.class).account();
+            final AzureConfiguration config = Azure.az().config();
+            final HttpLogDetailLevel logLevel = Optional.ofNullable(config.getLogLevel()).map(HttpLogDetailLevel::valueOf).orElse(HttpLogDetailLevel.NONE);
+            final AzureProfile azureProfile = new AzureProfile(null, id, account.getEnvironment());
+            return ComputeManager.configure()
+                .withHttpClient(AbstractAzServiceSubscription.getDefaultHttpClient())
+                .withLogLevel(logLevel)
+                .withPolicy(AbstractAzServiceSubscription.getUserAgentPolicy(config::getUserAgent)) // set user agent with policy
+                .authenticate(account.getTokenCredential(id), azureProfile);
+        });
     }
 
     @Nonnull
@@ -110,7 +114,23 @@ public class AzureCompute extends AbstractAzService<ComputeServiceSubscription,
     @Cacheable(cacheName = "vm/{}/sizes", key = "${subscriptionId}/${region.getName()}")
     public List<VmSize> listSizes(@Nonnull final String subscriptionId, @Nonnull final Region region) {
         final ComputeServiceSubscription rm = get(subscriptionId, null);
-        return Optional.ofNullable(rm).map(m -> m.listSizes(region)).orElse(Collections.emptyList());
+        return Optional.ofNullable(rm).map(m -> m.getCatalog().listSizes(region)).orElse(Collections.emptyList());
+    }
+
+    public List<VmSize> listSizes(@Nonnull final String subscriptionId, @Nonnull final Region region, int minCpuCount, double minMemoryGB) {
+        final ComputeServiceSubscription rm = get(subscriptionId, null);
+        return Optional.ofNullable(rm).map(m -> m.getCatalog().listSizes(region, minCpuCount, minMemoryGB)).orElse(Collections.emptyList());
+    }
+
+    /**
+     * @param os              operating system of the images, {@code null} for any.
+     * @param publisherPrefix case-insensitive prefix of the publisher names, {@code null} for any.
+     * @return images of the region from the catalog snapshot, see {@link VmCatalog}.
+     */
+    public List<VmImage> listImages(@Nonnull final String subscriptionId, @Nonnull final Region region,
+                                    @Nullable OperatingSystem os, @Nullable String publisherPrefix) {
+        final ComputeServiceSubscription rm = get(subscriptionId, null);
+        return Optional.ofNullable(rm).map(m -> m.getCatalog().listImages(region, os, publisherPrefix)).orElse(Collections.emptyList());
     }
 
     public static List<VmImage> getKnownImages() {
@@ -7,14 +7,16 @@ package com.microsoft.azure.toolkit.lib.compute;
 
 import com.azure.resourcemanager.compute.ComputeManager;
 import com.azure.resourcemanager.compute.models.AvailabilitySet;
-import com.azure.resourcemanager.compute.models.ComputeResourceType;
 import com.azure.resourcemanager.resources.ResourceManager;
 import com.microsoft.azure.toolkit.lib.common.model.AbstractAzResourceModule;
 import com.microsoft.azure.toolkit.lib.common.model.AbstractAzServiceSubscription;
 import com.microsoft.azure.toolkit.lib.common.model.Region;
 import com.microsoft.azure.toolkit.lib.compute.virtualmachine.VirtualMachineModule;
+import com.microsoft.azure.toolkit.lib.compute.virtualmachine.VmCatalog;
+import com.microsoft.azure.toolkit.lib.compute.virtualmachine.VmCatalogSource;
 import com.microsoft.azure.toolkit.lib.compute.virtualmachine.VmImagePublisher;
 import com.microsoft.azure.toolkit.lib.compute.virtualmachine.VmSize;
+import lombok.AccessLevel;
 import lombok.Getter;
 
 import javax.annotation.Nonnull;
@@ -29,6 +31,8 @@ public class ComputeServiceSubscription extends AbstractAzServiceSubscription<Co
     private final String subscriptionId;
     @Nonnull
     private final VirtualMachineModule virtualMachineModule;
+    @Getter(AccessLevel.NONE)
+    private VmCatalog catalog;
 
     ComputeServiceSubscription(@Nonnull String subscriptionId, @Nonnull AzureCompute service) {
         super(subscriptionId, service);
@@ -53,21 +57,30 @@ public class ComputeServiceSubscription extends AbstractAzServiceSubscription<Co
         return Objects.requireNonNull(this.getRemote()).resourceManager();
     }
 
+    @Nonnull
+    public synchronized VmCatalog getCatalog() {
+        if (Objects.isNull(this.catalog)) {
+            final VmCatalogSource source = VmCatalogSource.from(Objects.requireNonNull(this.getRemote()));
+            this.catalog = VmCatalog.builder().source(source).key(this.subscriptionId).build();
+        }
+        return this.catalog;
+    }
+
     public List<String> listAvailabilitySets() {
         return Objects.requireNonNull(this.getRemote())
             .availabilitySets().list().stream().map(AvailabilitySet::name).collect(Collectors.toList());
     }
 
+    /**
+     * @return publishers listed by one call, whose offers, skus and images are fetched per publisher and cached by the {@link #getCatalog() catalog}.
+     */
     public List<VmImagePublisher> listPublishers(final Region region) {
-        return Objects.requireNonNull(this.getRemote()).virtualMachineImages()
-            .publishers().listByRegion(region.getName()).stream().map(VmImagePublisher::new).collect(Collectors.toList());
+        final VmCatalog catalog = this.getCatalog();
+        return catalog.listPublishers(region).stream().map(name -> new VmImagePublisher(catalog, region, name)).collect(Collectors.toList());
     }
 
     public List<VmSize> listSizes(final Region region) {
-        return Objects.requireNonNull(this.getRemote())
-            .computeSkus()
-            .listByRegionAndResourceType(com.azure.core.management.Region.fromName(region.getName()), ComputeResourceType.VIRTUALMACHINES).stream()
-            .map(VmSize::new).collect(Collectors.toList());
+        return this.getCatalog().listSizes(region);
     }
 }
 
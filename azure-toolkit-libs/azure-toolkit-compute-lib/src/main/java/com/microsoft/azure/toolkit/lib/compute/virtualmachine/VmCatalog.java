@@ -0,0 +1,617 @@
+/*
+ * Copyright (c) Microsoft Corporation. All rights reserved.
+ * Licensed under the MIT License. See License.txt in the project root for license information.
+ */
+
+package com.microsoft.azure.toolkit.lib.compute.virtualmachine;
+
+import com.azure.resourcemanager.compute.models.ImageReference;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.microsoft.azure.toolkit.lib.common.exception.AzureToolkitRuntimeException;
+import com.microsoft.azure.toolkit.lib.common.model.Region;
+import com.microsoft.azure.toolkit.lib.common.utils.CacheDirs;
+import com.microsoft.azure.toolkit.lib.common.utils.JsonUtils;
+import com.microsoft.azure.toolkit.lib.common.utils.SingleFlight;
+import com.microsoft.azure.toolkit.lib.compute.virtualmachine.model.OperatingSystem;
+import lombok.Builder;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.StringUtils;
+import org.apache.commons.lang3.math.NumberUtils;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Objects;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+/**
+ * vm image and size catalog of regions, instead of listing publishers, offers, skus and images one by one on every traversal:
+ * <ul>
+ *     <li>images and sizes of a region are cached separately and fetched only when they are queried, sizes by one call and the
+ *     publisher → offer → sku → image tree from {@link VmCatalogSource} concurrently by up to {@code parallelism} (system property
+ *     {@value #PARALLELISM_PROPERTY}) threads.</li>
+ *     <li>publishers of a region are listed by one call, and offers, skus and images of a publisher are fetched (and cached in memory)
+ *     only when they are traversed, unless the images of the whole region are already loaded.</li>
+ *     <li>failed calls are retried up to {@value #MAX_ATTEMPTS} times with backoff, subtrees which still can not be listed are skipped
+ *     (and the images of the region are then not saved) instead of failing the whole fetch.</li>
+ *     <li>fetched images and sizes are saved as versioned snapshots per region under {@code dir} (defaults to {@code compute/catalog/<key>}
+ *     of the toolkit cache dir), and reused by other processes until they are older than {@code ttl} (system property {@value #TTL_PROPERTY}
+ *     in seconds), the stale snapshot is still used if it can not be fetched.</li>
+ *     <li>queries (e.g. by operating system, publisher prefix, minimum vCPUs and memory) are answered by in-memory indexes of the snapshots.</li>
+ * </ul>
+ */
+@Slf4j
+public class VmCatalog {
+    public static final String TTL_PROPERTY = "azure.compute.catalog.ttl";
+    public static final String PARALLELISM_PROPERTY = "azure.compute.catalog.parallelism";
+    private static final String IMAGES = "images";
+    private static final String SIZES = "sizes";
+    private static final String PUBLISHERS = "publishers";
+    private static final String PUBLISHER = "publisher";
+    private static final int MAX_ATTEMPTS = 3;
+    /**
+     * bumped whenever the snapshot format changes, snapshots of other versions are ignored.
+     */
+    static final int SNAPSHOT_VERSION = 2;
+    private static final Object LOCK = new Object();
+
+    private final VmCatalogSource source;
+    private final Path dir;
+    private final Duration ttl;
+    private final int parallelism;
+    private final Duration retryDelay;
+    private final Map<String, ImageIndex> imageIndexes = new ConcurrentHashMap<>();
+    private final Map<String, PublisherIndex> publisherIndexes = new ConcurrentHashMap<>();
+    private final Map<String, OfferIndex> offerIndexes = new ConcurrentHashMap<>();
+    private final Map<String, SizeIndex> sizeIndexes = new ConcurrentHashMap<>();
+    private final Map<String, SingleFlight<Object>> flights = new ConcurrentHashMap<>();
+
+    @Builder
+    private VmCatalog(@Nonnull VmCatalogSource source, @Nullable String key, @Nullable Path dir, @Nullable Duration ttl, @Nullable Integer parallelism,
+                      @Nullable Duration retryDelay) {
+        this.source = source;
+        this.dir = Objects.nonNull(dir) ? dir : getDefaultDir(StringUtils.defaultIfBlank(key, "default"));
+        this.ttl = Objects.nonNull(ttl) ? ttl : Duration.ofSeconds(NumberUtils.toLong(System.getProperty(TTL_PROPERTY), Duration.ofDays(1).getSeconds()));
+        this.parallelism = Math.max(1, Objects.nonNull(parallelism) ? parallelism : NumberUtils.toInt(System.getProperty(PARALLELISM_PROPERTY), 8));
+        this.retryDelay = Objects.nonNull(retryDelay) ? retryDelay : Duration.ofSeconds(1);
+    }
+
+    @Nonnull
+    public List<VmImage> listImages(@Nonnull Region region) {
+        return this.getImageIndex(region).images;
+    }
+
+    /**
+     * @param os              operating system of the images, {@code null} for any.
+     * @param publisherPrefix case-insensitive prefix of the publisher names, blank for any.
+     */
+    @Nonnull
+    public List<VmImage> listImages(@Nonnull Region region, @Nullable OperatingSystem os, @Nullable String publisherPrefix) {
+        final ImageIndex index = this.getImageIndex(region);
+        if (StringUtils.isBlank(publisherPrefix)) {
+            return Objects.isNull(os) ? index.images : Collections.unmodifiableList(index.byOs.getOrDefault(os, Collections.emptyList()));
+        }
+        final String prefix = publisherPrefix.toLowerCase(Locale.ROOT);
+        return index.byPublisher.subMap(prefix, true, prefix + Character.MAX_VALUE, true).values().stream()
+            .flatMap(List::stream).filter(i -> Objects.isNull(os) || i.getOperatingSystem() == os).collect(Collectors.toList());
+    }
+
+    @Nonnull
+    public List<VmImage> listImages(@Nonnull Region region, @Nonnull String publisher, @Nonnull String offer, @Nonnull String sku) {
+        final List<VmImage> images = this.getSkus(region, publisher, offer).get(sku);
+        return Objects.isNull(images) ? Collections.emptyList() : Collections.unmodifiableList(images);
+    }
+
+    /**
+     * @return names of the publishers of {@code region}, sorted case-insensitively.
+     */
+    @Nonnull
+    public List<String> listPublishers(@Nonnull Region region) {
+        final String name = region.getName();
+        return this.getCached(PUBLISHERS, name, this.publisherIndexes, () -> new PublisherIndex(this.call(name, PUBLISHERS,
+            () -> this.source.listPublishers(name)))).names;
+    }
+
+    /**
+     * @return names of the offers (having images) of {@code publisher}, whose skus and images are fetched together with them.
+     */
+    @Nonnull
+    public List<String> listOffers(@Nonnull Region region, @Nonnull String publisher) {
+        return new ArrayList<>(this.getOffers(region, publisher).keySet());
+    }
+
+    @Nonnull
+    public List<String> listSkus(@Nonnull Region region, @Nonnull String publisher, @Nonnull String offer) {
+        return new ArrayList<>(this.getSkus(region, publisher, offer).keySet());
+    }
+
+    @Nonnull
+    private NavigableMap<String, List<VmImage>> getSkus(@Nonnull Region region, @Nonnull String publisher, @Nonnull String offer) {
+        return this.getOffers(region, publisher).getOrDefault(offer, Collections.emptyNavigableMap());
+    }
+
+    /**
+     * @return offer → sku → images of {@code publisher}, from the images of the region if they are loaded, or fetched for the publisher only.
+     */
+    @Nonnull
+    private NavigableMap<String, NavigableMap<String, List<VmImage>>> getOffers(@Nonnull Region region, @Nonnull String publisher) {
+        final ImageIndex index = this.peekImageIndex(region.getName());
+        if (Objects.nonNull(index)) {
+            return index.tree.getOrDefault(publisher, Collections.emptyNavigableMap());
+        }
+        final String name = region.getName();
+        final String key = name + "/" + publisher.toLowerCase(Locale.ROOT);
+        return this.getCached(PUBLISHER, key, this.offerIndexes, () -> {
+            try (final Fetch fetch = new Fetch(name)) {
+                final List<VmImage> images = this.fetchOffers(fetch, publisher).join();
+                fetch.log(String.format("%d vm images of publisher %s", images.size(), publisher));
+                return new OfferIndex(System.currentTimeMillis(), images);
+            } catch (final CompletionException e) {
+                throw unwrap(e, String.format("failed to fetch vm images of publisher %s in region %s", publisher, name));
+            }
+        }).offers;
+    }
+
+    @Nonnull
+    public List<VmSize> listSizes(@Nonnull Region region) {
+        return this.getSizeIndex(region).sizes;
+    }
+
+    /**
+     * @return sizes with at least {@code minCpuCount} vCPUs and {@code minMemoryGB} memory, sorted by vCPUs.
+     */
+    @Nonnull
+    public List<VmSize> listSizes(@Nonnull Region region, int minCpuCount, double minMemoryGB) {
+        return this.getSizeIndex(region).byCpu.tailMap(minCpuCount, true).values().stream()
+            .flatMap(List::stream).filter(s -> s.getMemoryGB() >= minMemoryGB).collect(Collectors.toList());
+    }
+
+    /**
+     * drops the images and sizes of {@code region} both in memory and on disk, so that they are fetched again on next query.
+     */
+    public void invalidate(@Nonnull Region region) {
+        final String name = region.getName();
+        this.imageIndexes.remove(name);
+        this.sizeIndexes.remove(name);
+        this.publisherIndexes.remove(name);
+        this.offerIndexes.keySet().removeIf(key -> key.startsWith(name + "/"));
+        for (final String kind : new String[]{IMAGES, SIZES}) {
+            try {
+                Files.deleteIfExists(this.getSnapshotFile(name, kind));
+            } catch (final IOException e) {
+                log.debug("failed to delete vm {} snapshot of region {}", kind, name, e);
+            }
+        }
+    }
+
+    @Nonnull
+    private ImageIndex getImageIndex(@Nonnull Region region) {
+        return this.getIndex(region.getName(), IMAGES, this.imageIndexes, ImageSnapshot.class, this::fetchImages, ImageIndex::new);
+    }
+
+    /**
+     * @return fresh images of {@code region} which are loaded or saved by others, without fetching them.
+     */
+    @Nullable
+    private ImageIndex peekImageIndex(@Nonnull String region) {
+        final ImageIndex current = this.imageIndexes.get(region);
+        if (Objects.nonNull(current) && current.isFresh(this.ttl)) {
+            return current;
+        }
+        final Path file = this.getSnapshotFile(region, IMAGES);
+        try {
+            if (!Files.isRegularFile(file) || System.currentTimeMillis() - Files.getLastModifiedTime(file).toMillis() >= this.ttl.toMillis()) {
+                return null;
+            }
+        } catch (final IOException e) {
+            return null;
+        }
+        final ImageSnapshot saved = readSnapshot(file, region, ImageSnapshot.class);
+        if (Objects.isNull(saved) || !saved.isFresh(this.ttl)) {
+            return null;
+        }
+        final ImageIndex loaded = new ImageIndex(saved);
+        this.imageIndexes.put(region, loaded);
+        return loaded;
+    }
+
+    @Nonnull
+    private SizeIndex getSizeIndex(@Nonnull Region region) {
+        return this.getIndex(region.getName(), SIZES, this.sizeIndexes, SizeSnapshot.class, this::fetchSizes, SizeIndex::new);
+    }
+
+    @Nonnull
+    private <S extends Snapshot, I extends Index> I getIndex(@Nonnull String region, @Nonnull String kind, @Nonnull Map<String, I> indexes,
+                                                            @Nonnull Class<S> type, @Nonnull Function<String, S> fetcher, @Nonnull Function<S, I> indexer) {
+        return this.getCached(kind, region, indexes, () -> indexer.apply(this.load(region, kind, type, fetcher)));
+    }
+
+    @Nonnull
+    private <I extends Index> I getCached(@Nonnull String kind, @Nonnull String key, @Nonnull Map<String, I> indexes, @Nonnull Supplier<I> loader) {
+        final I current = indexes.get(key);
+        if (Objects.nonNull(current) && current.isFresh(this.ttl)) {
+            return current;
+        }
+        final Object index = this.flights.computeIfAbsent(kind + "/" + key, k -> new SingleFlight<>()).run(() -> {
+            final I latest = indexes.get(key);
+            if (Objects.nonNull(latest) && latest.isFresh(this.ttl)) {
+                return latest;
+            }
+            final I loaded = loader.get();
+            indexes.put(key, loaded);
+            return loaded;
+        });
+        //noinspection unchecked
+        return (I) Objects.requireNonNull(index, "vm catalog is queried while it's being loaded.");
+    }
+
+    @Nonnull
+    private <S extends Snapshot> S load(@Nonnull String region, @Nonnull String kind, @Nonnull Class<S> type, @Nonnull Function<String, S> fetcher) {
+        final Path file = this.getSnapshotFile(region, kind);
+        final S cached = readSnapshot(file, region, type);
+        if (Objects.nonNull(cached) && cached.isFresh(this.ttl)) {
+            return cached;
+        }
+        final S snapshot;
+        try {
+            snapshot = fetcher.apply(region);
+        } catch (final RuntimeException e) {
+            if (Objects.isNull(cached)) {
+                throw e;
+            }
+            log.warn("failed to fetch vm {} of region {}, using the ones fetched at {}: {}", kind, region, cached.timestamp, e.getMessage());
+            return cached;
+        }
+        if (snapshot.partial) {
+            log.warn("vm {} of region {} are incomplete, they are not saved and will be fetched again by next process.", kind, region);
+        } else {
+            writeSnapshot(file, snapshot);
+        }
+        return snapshot;
+    }
+
+    @Nonnull
+    private SizeSnapshot fetchSizes(@Nonnull String region) {
+        return new SizeSnapshot(region, System.currentTimeMillis(), this.call(region, SIZES, () -> this.source.listSizes(region)));
+    }
+
+    @Nonnull
+    private ImageSnapshot fetchImages(@Nonnull String region) {
+        try (final Fetch fetch = new Fetch(region)) {
+            // levels are composed without blocking in the pool, so that the fan-out never waits for threads occupied by its parent level.
+            final List<VmImage> images = CompletableFuture.supplyAsync(() -> this.call(region, PUBLISHERS, () -> this.source.listPublishers(region)), fetch.pool)
+                .thenCompose(publishers -> fanOut(publishers, publisher -> this.fetchOffers(fetch, publisher))).join();
+            fetch.log(String.format("%d vm images", images.size()));
+            final ImageSnapshot snapshot = new ImageSnapshot(region, System.currentTimeMillis(), images);
+            snapshot.partial = fetch.skipped.get() > 0;
+            return snapshot;
+        } catch (final CompletionException e) {
+            throw unwrap(e, String.format("failed to fetch vm images of region %s", region));
+        }
+    }
+
+    @Nonnull
+    private CompletableFuture<List<VmImage>> fetchOffers(@Nonnull Fetch fetch, @Nonnull String publisher) {
+        final String region = fetch.region;
+        return CompletableFuture.supplyAsync(() -> this.callOrSkip(fetch, "offers of " + publisher, () -> this.source.listOffers(region, publisher)), fetch.pool)
+            .thenCompose(offers -> fanOut(offers, offer -> this.fetchSkus(fetch, publisher, offer)));
+    }
+
+    @Nonnull
+    private CompletableFuture<List<VmImage>> fetchSkus(@Nonnull Fetch fetch, @Nonnull String publisher, @Nonnull String offer) {
+        final String region = fetch.region;
+        final String path = publisher + "/" + offer;
+        return CompletableFuture.supplyAsync(() -> this.callOrSkip(fetch, "skus of " + path, () -> this.source.listSkus(region, publisher, offer)), fetch.pool)
+            .thenCompose(skus -> fanOut(skus, sku -> CompletableFuture.supplyAsync(() -> this.callOrSkip(fetch, "images of " + path + "/" + sku,
+                () -> this.source.listImages(region, publisher, offer, sku)), fetch.pool)));
+    }
+
+    /**
+     * @return result of {@link #call}, or empty if it still fails after retries, so that one failed subtree doesn't fail the whole fetch.
+     */
+    @Nonnull
+    private <T> List<T> callOrSkip(@Nonnull Fetch fetch, @Nonnull String what, @Nonnull Supplier<List<T>> lister) {
+        try {
+            return this.call(fetch.region, what, lister);
+        } catch (final RuntimeException e) {
+            fetch.skipped.incrementAndGet();
+            log.warn("skipped vm {} of region {} which can not be listed: {}", what, fetch.region, e.getMessage());
+            return Collections.emptyList();
+        }
+    }
+
+    /**
+     * calls {@code lister} up to {@value #MAX_ATTEMPTS} times, with doubled delay (starting from {@code retryDelay}) between the attempts.
+     */
+    private <T> T call(@Nonnull String region, @Nonnull String what, @Nonnull Supplier<T> lister) {
+        Duration delay = this.retryDelay;
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return lister.get();
+            } catch (final RuntimeException e) {
+                if (attempt >= MAX_ATTEMPTS || Thread.currentThread().isInterrupted()) {
+                    throw e;
+                }
+                log.debug("failed to list vm {} of region {} (attempt {}), retrying in {}ms: {}", what, region, attempt, delay.toMillis(), e.getMessage());
+                try {
+                    Thread.sleep(delay.toMillis());
+                } catch (final InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                    throw e;
+                }
+                delay = delay.multipliedBy(2);
+            }
+        }
+    }
+
+    @Nonnull
+    private static RuntimeException unwrap(@Nonnull CompletionException e, @Nonnull String message) {
+        final Throwable cause = e.getCause();
+        if (cause instanceof RuntimeException) {
+            return (RuntimeException) cause;
+        } else if (cause instanceof Error) {
+            throw (Error) cause;
+        }
+        return new AzureToolkitRuntimeException(message, cause);
+    }
+
+    /**
+     * @return flattened results of {@code mapper} on each of {@code items} in their order.
+     */
+    @Nonnull
+    private static <T, R> CompletableFuture<List<R>> fanOut(@Nonnull List<T> items, @Nonnull Function<T, CompletableFuture<List<R>>> mapper) {
+        final List<CompletableFuture<List<R>>> futures = items.stream().map(mapper).collect(Collectors.toList());
+        return CompletableFuture.allOf(futures.toArray(new CompletableFuture[0]))
+            .thenApply(v -> futures.stream().flatMap(f -> f.join().stream()).collect(Collectors.toList()));
+    }
+
+    @Nullable
+    private static <S extends Snapshot> S readSnapshot(@Nonnull Path file, @Nonnull String region, @Nonnull Class<S> type) {
+        if (!Files.isRegularFile(file)) {
+            return null;
+        }
+        try {
+            final S snapshot = JsonUtils.fromJson(new String(Files.readAllBytes(file), StandardCharsets.UTF_8), type);
+            final boolean valid = Objects.nonNull(snapshot) && snapshot.version == SNAPSHOT_VERSION && StringUtils.equalsIgnoreCase(snapshot.region, region);
+            return valid && snapshot.isComplete() ? snapshot : null;
+        } catch (final IOException | RuntimeException e) {
+            log.debug("ignored invalid vm catalog snapshot {}", file, e);
+            return null;
+        }
+    }
+
+    private static void writeSnapshot(@Nonnull Path file, @Nonnull Snapshot snapshot) {
+        synchronized (LOCK) {
+            try {
+                Files.createDirectories(file.getParent());
+                try (final FileChannel channel = FileChannel.open(file.resolveSibling(file.getFileName() + ".lock"),
+                    StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+                     final FileLock ignored = channel.lock()) {
+                    CacheDirs.writeAtomically(file, JsonUtils.getGson().toJson(snapshot).getBytes(StandardCharsets.UTF_8));
+                }
+            } catch (final IOException e) {
+                log.debug("failed to save vm catalog snapshot {}", file, e);
+            }
+        }
+    }
+
+    /**
+     * a fetch of (a subtree of) the image tree of a region, whose calls run in its own pool.
+     */
+    private class Fetch implements AutoCloseable {
+        private final String region;
+        private final ExecutorService pool;
+        private final AtomicInteger skipped = new AtomicInteger();
+        private final long start = System.nanoTime();
+
+        private Fetch(@Nonnull String region) {
+            this.region = region;
+            this.pool = Executors.newFixedThreadPool(VmCatalog.this.parallelism, new ThreadFactoryBuilder()
+                .setNameFormat("vm-catalog-" + region + "-%d").setDaemon(true).build());
+        }
+
+        private void log(@Nonnull String fetched) {
+            log.debug("fetched {} of region {} in {}ms, {} subtrees skipped", fetched, this.region, (System.nanoTime() - this.start) / 1_000_000, this.skipped.get());
+        }
+
+        @Override
+        public void close() {
+            this.pool.shutdownNow();
+        }
+    }
+
+    @Nonnull
+    private Path getSnapshotFile(@Nonnull String region, @Nonnull String kind) {
+        return this.dir.resolve(region.toLowerCase(Locale.ROOT).replaceAll("[^a-z0-9_-]", "_") + "." + kind + ".json");
+    }
+
+    @Nonnull
+    private static Path getDefaultDir(@Nonnull String key) {
+        return CacheDirs.resolve("compute", "catalog", key.replaceAll("[^A-Za-z0-9_-]", "_"));
+    }
+
+    private abstract static class Snapshot {
+        final int version;
+        final String region;
+        final long timestamp;
+        /**
+         * some subtrees are skipped because they can not be listed, such snapshots are never saved.
+         */
+        transient boolean partial;
+
+        private Snapshot(@Nonnull String region, long timestamp) {
+            this.version = SNAPSHOT_VERSION;
+            this.region = region;
+            this.timestamp = timestamp;
+        }
+
+        boolean isFresh(@Nonnull Duration ttl) {
+            return System.currentTimeMillis() - this.timestamp < ttl.toMillis();
+        }
+
+        abstract boolean isComplete();
+    }
+
+    private static class ImageSnapshot extends Snapshot {
+        private final List<ImageEntry> images;
+
+        private ImageSnapshot(@Nonnull String region, long timestamp, @Nonnull List<VmImage> images) {
+            super(region, timestamp);
+            this.images = images.stream().map(ImageEntry::new).collect(Collectors.toList());
+        }
+
+        @Override
+        boolean isComplete() {
+            return Objects.nonNull(this.images);
+        }
+    }
+
+    private static class SizeSnapshot extends Snapshot {
+        private final List<SizeEntry> sizes;
+
+        private SizeSnapshot(@Nonnull String region, long timestamp, @Nonnull List<VmSize> sizes) {
+            super(region, timestamp);
+            this.sizes = sizes.stream().map(SizeEntry::new).collect(Collectors.toList());
+        }
+
+        @Override
+        boolean isComplete() {
+            return Objects.nonNull(this.sizes);
+        }
+    }
+
+    private static class ImageEntry {
+        private final OperatingSystem os;
+        private final String publisher;
+        private final String offer;
+        private final String sku;
+        private final String version;
+
+        private ImageEntry(@Nonnull VmImage image) {
+            this.os = image.getOperatingSystem();
+            this.publisher = image.getPublisherName();
+            this.offer = image.getOffer();
+            this.sku = image.getSku();
+            this.version = image.getVersion();
+        }
+
+        private VmImage toImage() {
+            return new VmImage(this.os, new ImageReference().withPublisher(this.publisher).withOffer(this.offer).withSku(this.sku).withVersion(this.version));
+        }
+    }
+
+    private static class SizeEntry {
+        private final String name;
+        private final int cpuCount;
+        private final double memoryGB;
+
+        private SizeEntry(@Nonnull VmSize size) {
+            this.name = size.getName();
+            this.cpuCount = size.getCpuCount();
+            this.memoryGB = size.getMemoryGB();
+        }
+    }
+
+    private abstract static class Index {
+        private final long timestamp;
+
+        private Index(@Nonnull Snapshot snapshot) {
+            this(snapshot.timestamp);
+        }
+
+        private Index(long timestamp) {
+            this.timestamp = timestamp;
+        }
+
+        boolean isFresh(@Nonnull Duration ttl) {
+            return System.currentTimeMillis() - this.timestamp < ttl.toMillis();
+        }
+    }
+
+    private static class ImageIndex extends Index {
+        private final List<VmImage> images;
+        private final Map<OperatingSystem, List<VmImage>> byOs = new EnumMap<>(OperatingSystem.class);
+        private final NavigableMap<String, List<VmImage>> byPublisher = new TreeMap<>();
+        /**
+         * publisher → offer → sku → images, names are case-insensitive.
+         */
+        private final NavigableMap<String, NavigableMap<String, NavigableMap<String, List<VmImage>>>> tree = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+
+        private ImageIndex(@Nonnull ImageSnapshot snapshot) {
+            super(snapshot);
+            this.images = Collections.unmodifiableList(snapshot.images.stream().map(ImageEntry::toImage).collect(Collectors.toList()));
+            for (final VmImage image : this.images) {
+                if (Objects.nonNull(image.getOperatingSystem())) {
+                    this.byOs.computeIfAbsent(image.getOperatingSystem(), k -> new ArrayList<>()).add(image);
+                }
+                this.byPublisher.computeIfAbsent(StringUtils.defaultString(image.getPublisherName()).toLowerCase(Locale.ROOT), k -> new ArrayList<>()).add(image);
+                OfferIndex.add(this.tree.computeIfAbsent(StringUtils.defaultString(image.getPublisherName()), k -> new TreeMap<>(String.CASE_INSENSITIVE_ORDER)), image);
+            }
+        }
+    }
+
+    private static class PublisherIndex extends Index {
+        private final List<String> names;
+
+        private PublisherIndex(@Nonnull List<String> names) {
+            super(System.currentTimeMillis());
+            final List<String> sorted = new ArrayList<>(names);
+            sorted.sort(String.CASE_INSENSITIVE_ORDER);
+            this.names = Collections.unmodifiableList(sorted);
+        }
+    }
+
+    /**
+     * offers, skus and images of one publisher, fetched when it's traversed before the images of the whole region are loaded.
+     */
+    private static class OfferIndex extends Index {
+        /**
+         * offer → sku → images, names are case-insensitive.
+         */
+        private final NavigableMap<String, NavigableMap<String, List<VmImage>>> offers = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+
+        private OfferIndex(long timestamp, @Nonnull List<VmImage> images) {
+            super(timestamp);
+            images.forEach(image -> add(this.offers, image));
+        }
+
+        private static void add(@Nonnull NavigableMap<String, NavigableMap<String, List<VmImage>>> offers, @Nonnull VmImage image) {
+            offers.computeIfAbsent(StringUtils.defaultString(image.getOffer()), k -> new TreeMap<>(String.CASE_INSENSITIVE_ORDER))
+                .computeIfAbsent(StringUtils.defaultString(image.getSku()), k -> new ArrayList<>()).add(image);
+        }
+    }
+
+    private static class SizeIndex extends Index {
+        private final List<VmSize> sizes;
+        private final NavigableMap<Integer, List<VmSize>> byCpu = new TreeMap<>();
+
+        private SizeIndex(@Nonnull SizeSnapshot snapshot) {
+            super(snapshot);
+            this.sizes = Collections.unmodifiableList(snapshot.sizes.stream().map(s -> new VmSize(s.name, s.cpuCount, s.memoryGB)).collect(Collectors.toList()));
+            this.sizes.forEach(size -> this.byCpu.computeIfAbsent(size.getCpuCount(), k -> new ArrayList<>()).add(size));
+        }
+    }
+}
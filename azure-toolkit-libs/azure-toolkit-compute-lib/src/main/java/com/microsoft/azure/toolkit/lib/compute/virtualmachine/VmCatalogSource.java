@@ -0,0 +1,117 @@
+/*
+ * Copyright (c) Microsoft Corporation. All rights reserved.
+ * Licensed under the MIT License. See License.txt in the project root for license information.
+ */
+
+package com.microsoft.azure.toolkit.lib.compute.virtualmachine;
+
+import com.azure.resourcemanager.compute.ComputeManager;
+import com.azure.resourcemanager.compute.fluent.VirtualMachineImagesClient;
+import com.azure.resourcemanager.compute.fluent.models.VirtualMachineImageInner;
+import com.azure.resourcemanager.compute.fluent.models.VirtualMachineImageResourceInner;
+import com.azure.resourcemanager.compute.models.ComputeResourceType;
+import com.azure.resourcemanager.compute.models.ImageReference;
+import com.azure.resourcemanager.compute.models.OSDiskImage;
+import com.microsoft.azure.toolkit.lib.compute.virtualmachine.model.OperatingSystem;
+import org.apache.commons.lang3.math.NumberUtils;
+
+import javax.annotation.Nonnull;
+import java.math.BigInteger;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.stream.Collectors;
+
+/**
+ * one level of the vm image catalog (publisher → offer → sku → image) or the vm sizes of a region per call, see {@link VmCatalog}.
+ */
+public interface VmCatalogSource {
+    @Nonnull
+    List<String> listPublishers(@Nonnull String region);
+
+    @Nonnull
+    List<String> listOffers(@Nonnull String region, @Nonnull String publisher);
+
+    @Nonnull
+    List<String> listSkus(@Nonnull String region, @Nonnull String publisher, @Nonnull String offer);
+
+    @Nonnull
+    List<VmImage> listImages(@Nonnull String region, @Nonnull String publisher, @Nonnull String offer, @Nonnull String sku);
+
+    @Nonnull
+    List<VmSize> listSizes(@Nonnull String region);
+
+    /**
+     * @return source which lists the catalog by the service client of {@code manager}, operating system of the latest version is applied
+     * to all versions of a sku, instead of getting every version.
+     */
+    @Nonnull
+    static VmCatalogSource from(@Nonnull ComputeManager manager) {
+        final VirtualMachineImagesClient client = manager.serviceClient().getVirtualMachineImages();
+        return new VmCatalogSource() {
+            @Nonnull
+            @Override
+            public List<String> listPublishers(@Nonnull String region) {
+                return names(client.listPublishers(region));
+            }
+
+            @Nonnull
+            @Override
+            public List<String> listOffers(@Nonnull String region, @Nonnull String publisher) {
+                return names(client.listOffers(region, publisher));
+            }
+
+            @Nonnull
+            @Override
+            public List<String> listSkus(@Nonnull String region, @Nonnull String publisher, @Nonnull String offer) {
+                return names(client.listSkus(region, publisher, offer));
+            }
+
+            @Nonnull
+            @Override
+            public List<VmImage> listImages(@Nonnull String region, @Nonnull String publisher, @Nonnull String offer, @Nonnull String sku) {
+                // versions are not guaranteed to be listed in order.
+                final List<String> versions = names(client.list(region, publisher, offer, sku)).stream()
+                    .sorted(VmCatalogSource::compareVersions).collect(Collectors.toList());
+                if (versions.isEmpty()) {
+                    return Collections.emptyList();
+                }
+                final VirtualMachineImageInner latest = client.get(region, publisher, offer, sku, versions.get(versions.size() - 1));
+                final OperatingSystem os = Optional.ofNullable(latest).map(VirtualMachineImageInner::osDiskImage)
+                    .map(OSDiskImage::operatingSystem).map(Object::toString).map(OperatingSystem::fromString).orElse(null);
+                return versions.stream().map(version -> new VmImage(os, new ImageReference()
+                    .withPublisher(publisher).withOffer(offer).withSku(sku).withVersion(version))).collect(Collectors.toList());
+            }
+
+            @Nonnull
+            @Override
+            public List<VmSize> listSizes(@Nonnull String region) {
+                return manager.computeSkus()
+                    .listByRegionAndResourceType(com.azure.core.management.Region.fromName(region), ComputeResourceType.VIRTUALMACHINES).stream()
+                    .map(VmSize::new).collect(Collectors.toList());
+            }
+
+            private List<String> names(List<VirtualMachineImageResourceInner> resources) {
+                return Optional.ofNullable(resources).orElse(Collections.emptyList()).stream()
+                    .map(VirtualMachineImageResourceInner::name).filter(Objects::nonNull).collect(Collectors.toList());
+            }
+        };
+    }
+
+    /**
+     * compares image versions (e.g. {@code 1.0.9} and {@code 1.0.10}) by their numeric parts, non-numeric parts are compared as strings.
+     */
+    static int compareVersions(@Nonnull String a, @Nonnull String b) {
+        final String[] as = a.split("\\.");
+        final String[] bs = b.split("\\.");
+        for (int i = 0; i < Math.min(as.length, bs.length); i++) {
+            final int result = NumberUtils.isDigits(as[i]) && NumberUtils.isDigits(bs[i]) ?
+                new BigInteger(as[i]).compareTo(new BigInteger(bs[i])) : as[i].compareTo(bs[i]);
+            if (result != 0) {
+                return result;
+            }
+        }
+        return Integer.compare(as.length, bs.length);
+    }
+}
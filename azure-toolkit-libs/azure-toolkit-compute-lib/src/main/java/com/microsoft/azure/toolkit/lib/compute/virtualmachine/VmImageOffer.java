@@ -10,28 +10,43 @@ import com.microsoft.azure.toolkit.lib.common.model.Region;
 import lombok.Getter;
 
 import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
 import java.util.List;
+import java.util.Objects;
 import java.util.stream.Collectors;
 
 public class VmImageOffer {
     @Getter
     private final VmImagePublisher publisher;
+    @Nullable
     private final VirtualMachineOffer virtualMachineOffer;
+    private final String name;
 
     VmImageOffer(@Nonnull VmImagePublisher publisher, @Nonnull VirtualMachineOffer virtualMachineOffer) {
         this.publisher = publisher;
         this.virtualMachineOffer = virtualMachineOffer;
+        this.name = virtualMachineOffer.name();
+    }
+
+    VmImageOffer(@Nonnull VmImagePublisher publisher, @Nonnull String name) {
+        this.publisher = publisher;
+        this.virtualMachineOffer = null;
+        this.name = name;
     }
 
     public String name() {
-        return virtualMachineOffer.name();
+        return this.name;
     }
 
     public Region region() {
-        return Region.fromName(virtualMachineOffer.region().name());
+        return this.publisher.region();
     }
 
     public List<VmImageSku> skus() {
-        return virtualMachineOffer.skus().list().stream().map(sku -> new VmImageSku(this, sku)).collect(Collectors.toList());
+        final VmCatalog catalog = this.publisher.getCatalog();
+        if (Objects.nonNull(catalog)) {
+            return catalog.listSkus(this.region(), this.publisher.name(), this.name).stream().map(sku -> new VmImageSku(this, sku)).collect(Collectors.toList());
+        }
+        return Objects.requireNonNull(this.virtualMachineOffer).skus().list().stream().map(sku -> new VmImageSku(this, sku)).collect(Collectors.toList());
     }
 }
@@ -7,27 +7,55 @@ package com.microsoft.azure.toolkit.lib.compute.virtualmachine;
 
 import com.azure.resourcemanager.compute.models.VirtualMachinePublisher;
 import com.microsoft.azure.toolkit.lib.common.model.Region;
+import lombok.AccessLevel;
+import lombok.Getter;
 
 import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
 import java.util.List;
+import java.util.Objects;
 import java.util.stream.Collectors;
 
+/**
+ * publisher of vm images, whose offers, skus and images are looked up in the {@link VmCatalog} if it's listed from the catalog, or
+ * listed from Azure level by level otherwise.
+ */
 public class VmImagePublisher {
+    @Nullable
     private final VirtualMachinePublisher virtualMachinePublisher;
+    @Nullable
+    @Getter(AccessLevel.PACKAGE)
+    private final VmCatalog catalog;
+    private final String name;
+    private final Region region;
 
     public VmImagePublisher(@Nonnull VirtualMachinePublisher virtualMachinePublisher) {
         this.virtualMachinePublisher = virtualMachinePublisher;
+        this.catalog = null;
+        this.name = virtualMachinePublisher.name();
+        this.region = Region.fromName(virtualMachinePublisher.region().name());
+    }
+
+    public VmImagePublisher(@Nonnull VmCatalog catalog, @Nonnull Region region, @Nonnull String name) {
+        this.virtualMachinePublisher = null;
+        this.catalog = catalog;
+        this.name = name;
+        this.region = region;
     }
 
     public String name() {
-        return virtualMachinePublisher.name();
+        return this.name;
     }
 
     public Region region() {
-        return Region.fromName(virtualMachinePublisher.region().name());
+        return this.region;
     }
 
     public List<VmImageOffer> offers() {
-        return virtualMachinePublisher.offers().list().stream().map(offer -> new VmImageOffer(this, offer)).collect(Collectors.toList());
+        if (Objects.nonNull(this.catalog)) {
+            return this.catalog.listOffers(this.region, this.name).stream().map(offer -> new VmImageOffer(this, offer)).collect(Collectors.toList());
+        }
+        return Objects.requireNonNull(this.virtualMachinePublisher).offers().list().stream()
+            .map(offer -> new VmImageOffer(this, offer)).collect(Collectors.toList());
     }
 }
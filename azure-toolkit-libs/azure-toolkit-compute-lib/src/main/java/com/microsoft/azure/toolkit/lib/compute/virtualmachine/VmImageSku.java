@@ -10,28 +10,43 @@ import com.microsoft.azure.toolkit.lib.common.model.Region;
 import lombok.Getter;
 
 import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
 import java.util.List;
+import java.util.Objects;
 import java.util.stream.Collectors;
 
 public class VmImageSku {
     @Getter
     private final VmImageOffer publisher;
+    @Nullable
     private final VirtualMachineSku virtualMachineSku;
+    private final String name;
 
     VmImageSku(@Nonnull VmImageOffer imageOffer, @Nonnull VirtualMachineSku virtualMachineSku) {
         this.publisher = imageOffer;
         this.virtualMachineSku = virtualMachineSku;
+        this.name = virtualMachineSku.name();
+    }
+
+    VmImageSku(@Nonnull VmImageOffer imageOffer, @Nonnull String name) {
+        this.publisher = imageOffer;
+        this.virtualMachineSku = null;
+        this.name = name;
     }
 
     public String name() {
-        return virtualMachineSku.name();
+        return this.name;
     }
 
     public Region region() {
-        return Region.fromName(virtualMachineSku.region().name());
+        return this.publisher.region();
     }
 
     public List<VmImage> images() {
-        return virtualMachineSku.images().list().stream().map(VmImage::new).collect(Collectors.toList());
+        final VmCatalog catalog = this.publisher.getPublisher().getCatalog();
+        if (Objects.nonNull(catalog)) {
+            return catalog.listImages(this.region(), this.publisher.getPublisher().name(), this.publisher.name(), this.name);
+        }
+        return Objects.requireNonNull(this.virtualMachineSku).images().list().stream().map(VmImage::new).collect(Collectors.toList());
     }
 }
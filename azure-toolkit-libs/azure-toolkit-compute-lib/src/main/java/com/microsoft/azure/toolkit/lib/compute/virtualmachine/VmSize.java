@@ -6,11 +6,16 @@
 package com.microsoft.azure.toolkit.lib.compute.virtualmachine;
 
 import com.azure.resourcemanager.compute.models.ComputeSku;
+import com.azure.resourcemanager.compute.models.ResourceSkuCapabilities;
 import lombok.EqualsAndHashCode;
 import lombok.Getter;
+import org.apache.commons.lang3.StringUtils;
+import org.apache.commons.lang3.math.NumberUtils;
+
+import java.util.Optional;
 
 @Getter
-@EqualsAndHashCode
+@EqualsAndHashCode(onlyExplicitlyIncluded = true)
 public class VmSize {
     public static final VmSize Standard_D2 = new VmSize("Standard_D2");
     public static final VmSize Standard_D2_v2 = new VmSize("Standard_D2_v2");
@@ -19,13 +24,33 @@ public class VmSize {
     public static final VmSize Standard_D4s_v3 = new VmSize("Standard_D4s_v3");
     public static final VmSize Standard_E2s_v3 = new VmSize("Standard_E2s_v3");
 
+    @EqualsAndHashCode.Include
     private final String name;
+    /**
+     * number of vCPUs, 0 if unknown.
+     */
+    private final int cpuCount;
+    /**
+     * memory in GB, 0 if unknown.
+     */
+    private final double memoryGB;
 
     public VmSize(final ComputeSku size) {
-        this.name = size.name().toString();
+        this(size.name().toString(), NumberUtils.toInt(getCapability(size, "vCPUs")), NumberUtils.toDouble(getCapability(size, "MemoryGB")));
     }
 
     public VmSize(final String name) {
+        this(name, 0, 0);
+    }
+
+    public VmSize(final String name, final int cpuCount, final double memoryGB) {
         this.name = name;
+        this.cpuCount = cpuCount;
+        this.memoryGB = memoryGB;
+    }
+
+    private static String getCapability(final ComputeSku size, final String name) {
+        return Optional.ofNullable(size.capabilities()).flatMap(capabilities -> capabilities.stream()
+            .filter(c -> StringUtils.equalsIgnoreCase(c.name(), name)).findFirst()).map(ResourceSkuCapabilities::value).orElse(null);
     }
 }
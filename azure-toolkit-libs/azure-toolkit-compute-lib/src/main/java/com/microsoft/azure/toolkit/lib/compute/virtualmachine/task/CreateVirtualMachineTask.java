@@ -8,6 +8,7 @@ package com.microsoft.azure.toolkit.lib.compute.virtualmachine.task;
 import com.microsoft.azure.toolkit.lib.Azure;
 import com.microsoft.azure.toolkit.lib.common.bundle.AzureString;
 import com.microsoft.azure.toolkit.lib.common.task.AzureTask;
+import com.microsoft.azure.toolkit.lib.common.task.AzureTaskGraph;
 import com.microsoft.azure.toolkit.lib.compute.virtualmachine.VirtualMachine;
 import com.microsoft.azure.toolkit.lib.compute.virtualmachine.VirtualMachineDraft;
 import com.microsoft.azure.toolkit.lib.network.networksecuritygroup.NetworkSecurityGroup;
@@ -29,7 +30,7 @@ import java.util.Objects;
 
 public class CreateVirtualMachineTask extends AzureTask<VirtualMachine> {
     private final VirtualMachineDraft vmDraft;
-    private final List<AzureTask<?>> subTasks;
+    private final AzureTaskGraph subTasks;
     private VirtualMachine result;
 
     public CreateVirtualMachineTask(final VirtualMachineDraft vmDraft) {
@@ -37,26 +38,28 @@ public class CreateVirtualMachineTask extends AzureTask<VirtualMachine> {
         this.subTasks = this.initTasks();
     }
 
-    private List<AzureTask<?>> initTasks() {
-        final List<AzureTask<?>> tasks = new ArrayList<>();
-        tasks.add(new CreateResourceGroupTask(vmDraft.getSubscriptionId(), vmDraft.getResourceGroupName(), vmDraft.getRegion()));
+    private AzureTaskGraph initTasks() {
+        // network resources and storage account are created concurrently after the resource group, and the vm after all of them.
+        final AzureTaskGraph graph = new AzureTaskGraph();
+        final AzureTask<?> resourceGroupTask = graph.add(new CreateResourceGroupTask(vmDraft.getSubscriptionId(), vmDraft.getResourceGroupName(), vmDraft.getRegion()));
+        final List<AzureTask<?>> resourceTasks = new ArrayList<>();
         // Create Virtual Network
         final Network network = vmDraft.getNetwork();
         if (Objects.nonNull(network) && network.isDraftForCreating()) {
             final AzureString title = AzureString.format("Create new Virtual network({0})", network.getName());
-            tasks.add(new AzureTask<>(title, () -> ((NetworkDraft) network).createIfNotExist()));
+            resourceTasks.add(graph.add(new AzureTask<>(title, () -> ((NetworkDraft) network).createIfNotExist()), resourceGroupTask));
         }
         // Create Public IP
         final PublicIpAddress publicIpAddress = vmDraft.getIpAddress();
         if (Objects.nonNull(publicIpAddress) && publicIpAddress.isDraftForCreating()) {
             final AzureString title = AzureString.format("Create new Public Ip address({0})", publicIpAddress.getName());
-            tasks.add(new AzureTask<>(title, () -> ((PublicIpAddressDraft) publicIpAddress).createIfNotExist()));
+            resourceTasks.add(graph.add(new AzureTask<>(title, () -> ((PublicIpAddressDraft) publicIpAddress).createIfNotExist()), resourceGroupTask));
         }
         // Create Security Group
         final NetworkSecurityGroup securityGroup = vmDraft.getSecurityGroup();
         if (Objects.nonNull(securityGroup) && securityGroup.isDraftForCreating()) {
             final AzureString title = AzureString.format("Create Network security group ({0})", securityGroup.getName());
-            tasks.add(new AzureTask<>(title, () -> ((NetworkSecurityGroupDraft) securityGroup).createIfNotExist()));
+            resourceTasks.add(graph.add(new AzureTask<>(title, () -> ((NetworkSecurityGroupDraft) securityGroup).createIfNotExist()), resourceGroupTask));
         }
         // Create Storage Account
         // todo: migrate storage account to draft style
@@ -64,29 +67,30 @@ public class CreateVirtualMachineTask extends AzureTask<VirtualMachine> {
         if (storageConfig != null && StringUtils.isEmpty(storageConfig.getId())) {
             final String message = "'subscription' is required to create a Storage account.";
             final String subscriptionId = Objects.requireNonNull(storageConfig.getSubscriptionId(), message);
-            tasks.add(new CreateResourceGroupTask(subscriptionId, storageConfig.getResourceGroupName(), storageConfig.getRegion()));
+            // after the resource group of vm, which may be the same one
+            final AzureTask<?> storageGroupTask = graph.add(new CreateResourceGroupTask(subscriptionId, storageConfig.getResourceGroupName(),
+                storageConfig.getRegion()), resourceGroupTask);
             final AzureString title = AzureString.format("Create Storage account ({0})", storageConfig.getName());
-            tasks.add(new AzureTask<StorageAccountConfig>(title, () -> {
+            resourceTasks.add(graph.add(new AzureTask<StorageAccountConfig>(title, () -> {
                 final StorageAccountDraft draft = Azure.az(AzureStorageAccount.class).forSubscription(subscriptionId)
                     .storageAccounts().create(storageConfig.getName(), storageConfig.getResourceGroupName());
                 draft.setConfig(storageConfig);
                 final StorageAccount result = draft.commit();
                 storageConfig.setId(result.getId());
-            }));
+            }), storageGroupTask));
         }
         // Create VM
         final AzureString title = AzureString.format("Create Virtual machine ({0})", vmDraft.getName());
-        tasks.add(new AzureTask<>(title, () -> {
+        resourceTasks.add(resourceGroupTask);
+        graph.add(new AzureTask<>(title, () -> {
             CreateVirtualMachineTask.this.result = vmDraft.createIfNotExist();
             return CreateVirtualMachineTask.this.result;
-        }));
-        return tasks;
+        }), resourceTasks.toArray(new AzureTask<?>[0]));
+        return graph;
     }
 
     public VirtualMachine doExecute() throws Exception {
-        for (final AzureTask<?> t : this.subTasks) {
-            t.getBody().call();
-        }
+        this.subTasks.execute();
         return this.result;
     }
 }
@@ -0,0 +1,103 @@
+/*
+ * Copyright (c) Microsoft Corporation. All rights reserved.
+ * Licensed under the MIT License. See License.txt in the project root for license information.
+ */
+
+package com.microsoft.azure.toolkit.lib.compute.virtualmachine;
+
+import com.microsoft.azure.toolkit.lib.common.model.Region;
+import com.microsoft.azure.toolkit.lib.compute.virtualmachine.model.OperatingSystem;
+import org.apache.commons.io.FileUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JMH benchmark of a synthetic catalog of 10k images (20 publishers x 5 offers x 10 skus x 10 versions, 1121 calls of 2ms each):
+ * fetching it sequentially and concurrently, loading its snapshot in a new catalog (e.g. of the next maven invocation), and querying
+ * it by indexes. it's not a unit test (and never run by surefire), run it after {@code test-compile} of this module by e.g.
+ * <pre>
+ * mvn -pl azure-toolkit-compute-lib test-compile exec:exec -Dexec.executable=java -Dexec.classpathScope=test \
+ *     -Dexec.args="-cp %classpath org.openjdk.jmh.Main VmCatalogBenchmark"
+ * </pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class VmCatalogBenchmark {
+    private static final Region REGION = Region.fromName("eastus");
+
+    private Path root;
+    private VmCatalogTest.StandIn source;
+    private VmCatalog loaded;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        this.root = Files.createTempDirectory("catalog-benchmark");
+        this.source = new VmCatalogTest.StandIn(2);
+        final Path snapshot = Files.createDirectories(root.resolve("snapshot"));
+        VmCatalog.builder().source(this.source).dir(snapshot).build().listImages(REGION);
+        this.loaded = VmCatalog.builder().source(this.source).dir(snapshot).build();
+        this.loaded.listImages(REGION);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        FileUtils.deleteQuietly(this.root.toFile());
+    }
+
+    @Benchmark
+    public List<VmImage> fetch(Fetch fetch) {
+        return VmCatalog.builder().source(this.source).dir(fetch.dir).parallelism(fetch.parallelism).build().listImages(REGION);
+    }
+
+    @Benchmark
+    public List<VmImage> loadSnapshot() {
+        return VmCatalog.builder().source(this.source).dir(this.root.resolve("snapshot")).build().listImages(REGION);
+    }
+
+    @Benchmark
+    public List<VmImage> query() {
+        return this.loaded.listImages(REGION, OperatingSystem.Windows, "publisher-1");
+    }
+
+    @State(Scope.Benchmark)
+    public static class Fetch {
+        @Param({"1", "16"})
+        public int parallelism;
+
+        private Path dir;
+
+        /**
+         * every fetch starts without snapshot.
+         */
+        @Setup(Level.Invocation)
+        public void setUp() throws IOException {
+            this.dir = Files.createTempDirectory("catalog-benchmark");
+        }
+
+        @TearDown(Level.Invocation)
+        public void tearDown() {
+            FileUtils.deleteQuietly(this.dir.toFile());
+        }
+    }
+}
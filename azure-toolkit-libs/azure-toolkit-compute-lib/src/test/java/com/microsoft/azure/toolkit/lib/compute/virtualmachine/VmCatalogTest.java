@@ -0,0 +1,273 @@
+/*
+ * Copyright (c) Microsoft Corporation. All rights reserved.
+ * Licensed under the MIT License. See License.txt in the project root for license information.
+ */
+
+package com.microsoft.azure.toolkit.lib.compute.virtualmachine;
+
+import com.azure.resourcemanager.compute.models.ImageReference;
+import com.microsoft.azure.toolkit.lib.common.model.Region;
+import com.microsoft.azure.toolkit.lib.compute.virtualmachine.model.OperatingSystem;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import javax.annotation.Nonnull;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+public class VmCatalogTest {
+    private static final Region REGION = Region.fromName("eastus");
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testFetchOnDemand() {
+        final StandIn standIn = new StandIn();
+        final Path dir = this.folder.getRoot().toPath();
+        // sizes are fetched by one call, without traversing the image tree
+        Assert.assertEquals(5, VmCatalog.builder().source(standIn).dir(dir).build().listSizes(REGION).size());
+        Assert.assertEquals(1, standIn.calls.get());
+
+        for (final int parallelism : Arrays.asList(1, 16)) {
+            final StandIn images = new StandIn();
+            final VmCatalog catalog = VmCatalog.builder().source(images).dir(this.folder.getRoot().toPath().resolve("p" + parallelism))
+                .parallelism(parallelism).build();
+            Assert.assertEquals(10_000, catalog.listImages(REGION).size());
+            Assert.assertEquals(1 + 20 + 100 + 1000, images.calls.get());
+        }
+
+        // a new catalog (e.g. of the next maven invocation) loads the snapshots instead of fetching
+        final VmCatalog catalog = VmCatalog.builder().source(standIn).dir(dir).build();
+        Assert.assertEquals(5, catalog.listSizes(REGION).size());
+        Assert.assertEquals(1, standIn.calls.get());
+        Assert.assertEquals(10_000, catalog.listImages(REGION).size());
+        Assert.assertEquals(1 + 1121, standIn.calls.get());
+        Assert.assertEquals(10_000, VmCatalog.builder().source(standIn).dir(dir).build().listImages(REGION).size());
+        Assert.assertEquals(1 + 1121, standIn.calls.get());
+    }
+
+    @Test
+    public void testQueries() {
+        final VmCatalog catalog = VmCatalog.builder().source(new StandIn()).dir(this.folder.getRoot().toPath()).build();
+        Assert.assertEquals(5000, catalog.listImages(REGION, OperatingSystem.Linux, null).size());
+        // publisher-1 and publisher-10 ~ publisher-19
+        Assert.assertEquals(5500, catalog.listImages(REGION, null, "PUBLISHER-1").size());
+        Assert.assertEquals(2500, catalog.listImages(REGION, OperatingSystem.Linux, "publisher-1").size());
+        Assert.assertEquals(3000, catalog.listImages(REGION, OperatingSystem.Windows, "publisher-1").size());
+        Assert.assertEquals(0, catalog.listImages(REGION, null, "canonical").size());
+        final List<VmImage> images = catalog.listImages(REGION, "publisher-4", "offer-2", "sku-7");
+        Assert.assertEquals(10, images.size());
+        Assert.assertEquals(OperatingSystem.Linux, images.get(0).getOperatingSystem());
+        Assert.assertEquals("1.0.9", images.get(9).getVersion());
+
+        Assert.assertEquals(Arrays.asList("Standard_D4", "Standard_D8", "Standard_D16"),
+            catalog.listSizes(REGION, 4, 16).stream().map(VmSize::getName).collect(Collectors.toList()));
+        Assert.assertEquals(new VmSize("Standard_D8"), catalog.listSizes(REGION, 8, 0).get(0));
+        Assert.assertEquals(5, catalog.listSizes(REGION).size());
+    }
+
+    @Test
+    public void testTraversal() {
+        final StandIn standIn = new StandIn();
+        final VmCatalog catalog = VmCatalog.builder().source(standIn).dir(this.folder.getRoot().toPath()).build();
+        final List<VmImagePublisher> publishers = catalog.listPublishers(REGION).stream()
+            .map(name -> new VmImagePublisher(catalog, REGION, name)).collect(Collectors.toList());
+        Assert.assertEquals(20, publishers.size());
+        // publishers are listed by one call, without fetching the image tree
+        Assert.assertEquals(1, standIn.calls.get());
+        // offers, skus and images are fetched per publisher when it's traversed, and cached
+        Assert.assertEquals(5, publishers.get(3).offers().size());
+        Assert.assertEquals(1 + 1 + 5 + 50, standIn.calls.get());
+        Assert.assertEquals(10, publishers.get(3).offers().get(0).skus().size());
+        Assert.assertEquals(1 + 1 + 5 + 50, standIn.calls.get());
+        final List<VmImage> images = publishers.stream().flatMap(p -> p.offers().stream()).flatMap(o -> o.skus().stream())
+            .flatMap(s -> s.images().stream()).collect(Collectors.toList());
+        Assert.assertEquals(10_000, images.size());
+        Assert.assertEquals(1121, standIn.calls.get());
+        final VmImageSku sku = publishers.get(0).offers().get(2).skus().get(7);
+        Assert.assertEquals("sku-7", sku.name());
+        Assert.assertEquals(REGION, sku.region());
+        Assert.assertEquals(catalog.listImages(REGION, "PUBLISHER-0", "offer-2", "SKU-7"), sku.images());
+        Assert.assertEquals(Arrays.asList("offer-0", "offer-1", "offer-2", "offer-3", "offer-4"), catalog.listOffers(REGION, "publisher-3"));
+        Assert.assertTrue(catalog.listSkus(REGION, "publisher-3", "offer-9").isEmpty());
+    }
+
+    @Test
+    public void testSnapshotExpiration() throws Exception {
+        final StandIn standIn = new StandIn();
+        final Path dir = this.folder.getRoot().toPath();
+        VmCatalog.builder().source(standIn).dir(dir).build().listImages(REGION);
+        Assert.assertEquals(1121, standIn.calls.get());
+
+        // expired snapshot is fetched again
+        VmCatalog.builder().source(standIn).dir(dir).ttl(Duration.ZERO).build().listImages(REGION);
+        Assert.assertEquals(2242, standIn.calls.get());
+
+        // snapshots of other versions are ignored
+        final Path file = dir.resolve("eastus.images.json");
+        final String json = new String(Files.readAllBytes(file), StandardCharsets.UTF_8);
+        Files.write(file, json.replaceFirst("\"version\": " + VmCatalog.SNAPSHOT_VERSION, "\"version\": 0").getBytes(StandardCharsets.UTF_8));
+        VmCatalog.builder().source(standIn).dir(dir).build().listImages(REGION);
+        Assert.assertEquals(3363, standIn.calls.get());
+
+        // images and sizes are fetched again after being invalidated
+        final VmCatalog catalog = VmCatalog.builder().source(standIn).dir(dir).build();
+        catalog.listSizes(REGION);
+        Assert.assertEquals(3364, standIn.calls.get());
+        catalog.invalidate(REGION);
+        Assert.assertEquals(10_000, catalog.listImages(REGION).size());
+        Assert.assertEquals(5, catalog.listSizes(REGION).size());
+        Assert.assertEquals(3364 + 1122, standIn.calls.get());
+    }
+
+    @Test
+    public void testTraversalOfLoadedImages() {
+        final StandIn standIn = new StandIn();
+        final Path dir = this.folder.getRoot().toPath();
+        VmCatalog.builder().source(standIn).dir(dir).build().listImages(REGION);
+        Assert.assertEquals(1121, standIn.calls.get());
+        // the saved images of the region are traversed instead of fetching the publisher
+        final VmCatalog catalog = VmCatalog.builder().source(standIn).dir(dir).build();
+        Assert.assertEquals(10, catalog.listImages(REGION, "publisher-3", "offer-1", "sku-2").size());
+        Assert.assertEquals(1121, standIn.calls.get());
+    }
+
+    @Test
+    public void testSkipFailedSubtrees() {
+        final StandIn standIn = new StandIn();
+        final Path dir = this.folder.getRoot().toPath();
+        standIn.broken.add("publisher-2/offer-1/sku-3");
+        standIn.flaky.set(2);
+        final VmCatalog catalog = VmCatalog.builder().source(standIn).dir(dir).retryDelay(Duration.ZERO).build();
+        // flaky calls are retried, the subtree which still can not be listed is skipped
+        Assert.assertEquals(10_000 - 10, catalog.listImages(REGION).size());
+        Assert.assertEquals(1121 + 2 + 2, standIn.calls.get());
+        Assert.assertTrue(catalog.listImages(REGION, "publisher-2", "offer-1", "sku-3").isEmpty());
+        // incomplete images are not saved
+        Assert.assertFalse(Files.exists(dir.resolve("eastus.images.json")));
+
+        standIn.broken.clear();
+        final VmCatalog another = VmCatalog.builder().source(standIn).dir(dir).build();
+        Assert.assertEquals(10, another.listImages(REGION, "publisher-2", "offer-1", "sku-3").size());
+        Assert.assertEquals(10_000, another.listImages(REGION).size());
+    }
+
+    @Test
+    public void testFetchFailure() {
+        final StandIn standIn = new StandIn();
+        final Path dir = this.folder.getRoot().toPath();
+        standIn.failing.set(true);
+        final VmCatalog catalog = VmCatalog.builder().source(standIn).dir(dir).retryDelay(Duration.ZERO).build();
+        final IllegalStateException e = Assert.assertThrows(IllegalStateException.class, () -> catalog.listImages(REGION));
+        Assert.assertEquals("throttled", e.getMessage());
+        Assert.assertEquals(3, standIn.calls.get());
+
+        standIn.failing.set(false);
+        Assert.assertEquals(10_000, catalog.listImages(REGION).size());
+        // stale snapshot is used if the catalog can not be fetched
+        standIn.failing.set(true);
+        Assert.assertEquals(10_000, VmCatalog.builder().source(standIn).dir(dir).ttl(Duration.ZERO).build().listImages(REGION).size());
+    }
+
+    @Test
+    public void testCompareVersions() {
+        final List<String> versions = new ArrayList<>(Arrays.asList("1.0.10", "2.0.0", "1.0.9", "1.0"));
+        versions.sort(VmCatalogSource::compareVersions);
+        Assert.assertEquals(Arrays.asList("1.0", "1.0.9", "1.0.10", "2.0.0"), versions);
+    }
+
+    /**
+     * serves the synthetic catalog, images of odd publishers are windows.
+     */
+    static class StandIn implements VmCatalogSource {
+        private final long latency;
+        private final AtomicInteger calls = new AtomicInteger();
+        private final AtomicBoolean failing = new AtomicBoolean();
+        /**
+         * number of next calls which fail once.
+         */
+        private final AtomicInteger flaky = new AtomicInteger();
+        /**
+         * {@code publisher/offer/sku} whose images can never be listed.
+         */
+        private final Set<String> broken = ConcurrentHashMap.newKeySet();
+
+        StandIn() {
+            this(0);
+        }
+
+        StandIn(long latency) {
+            this.latency = latency;
+        }
+
+        @Nonnull
+        @Override
+        public List<String> listPublishers(@Nonnull String region) {
+            return this.serve("publisher", 20);
+        }
+
+        @Nonnull
+        @Override
+        public List<String> listOffers(@Nonnull String region, @Nonnull String publisher) {
+            return this.serve("offer", 5);
+        }
+
+        @Nonnull
+        @Override
+        public List<String> listSkus(@Nonnull String region, @Nonnull String publisher, @Nonnull String offer) {
+            return this.serve("sku", 10);
+        }
+
+        @Nonnull
+        @Override
+        public List<VmImage> listImages(@Nonnull String region, @Nonnull String publisher, @Nonnull String offer, @Nonnull String sku) {
+            if (this.broken.contains(publisher + "/" + offer + "/" + sku)) {
+                this.calls.incrementAndGet();
+                throw new IllegalStateException("not found");
+            }
+            final OperatingSystem os = Integer.parseInt(publisher.substring("publisher-".length())) % 2 == 1 ? OperatingSystem.Windows : OperatingSystem.Linux;
+            return this.serve("1.0", 10).stream().map(version -> new VmImage(os, new ImageReference()
+                .withPublisher(publisher).withOffer(offer).withSku(sku).withVersion(version.replace('-', '.')))).collect(Collectors.toList());
+        }
+
+        @Nonnull
+        @Override
+        public List<VmSize> listSizes(@Nonnull String region) {
+            this.serve("size", 0);
+            final List<VmSize> sizes = new ArrayList<>();
+            for (final int cpu : Arrays.asList(1, 2, 4, 8, 16)) {
+                sizes.add(new VmSize("Standard_D" + cpu, cpu, cpu * 4));
+            }
+            return sizes;
+        }
+
+        private List<String> serve(String prefix, int count) {
+            this.calls.incrementAndGet();
+            if (this.latency > 0) {
+                try {
+                    Thread.sleep(this.latency);
+                } catch (final InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            if (this.failing.get() || this.flaky.getAndUpdate(n -> Math.max(0, n - 1)) > 0) {
+                throw new IllegalStateException("throttled");
+            }
+            return IntStream.range(0, count).mapToObj(i -> prefix + "-" + i).collect(Collectors.toList());
+        }
+    }
+}
@@ -16,6 +16,7 @@ import com.microsoft.azure.toolkit.lib.auth.Account;
 import com.microsoft.azure.toolkit.lib.auth.AzureAccount;
 import com.microsoft.azure.toolkit.lib.common.model.AbstractAzServiceSubscription;
 import com.microsoft.azure.toolkit.lib.common.model.AbstractAzService;
+import com.microsoft.azure.toolkit.lib.common.model.ServiceManagerCache;
 import lombok.extern.slf4j.Slf4j;
 
 import javax.annotation.Nonnull;
@@ -40,16 +41,17 @@ public class AzureMySql extends AbstractAzService<MySqlServiceSubscription, MySq
     @Nonnull
     @Override
     protected MySqlManager loadResourceFromAzure(@Nonnull String subscriptionId, String resourceGroup) {
-        final Account account = Azure.az(AzureAccount.class).account();
-        final AzureConfiguration config = Azure.az().config();
-        final String userAgent = config.getUserAgent();
-        final HttpLogDetailLevel logLevel = Optional.ofNullable(config.getLogLevel()).map(HttpLogDetailLevel::valueOf).orElse(HttpLogDetailLevel.NONE);
-        final AzureProfile azureProfile = new AzureProfile(null, subscriptionId, account.getEnvironment());
-        return MySqlManager.configure()
-            .withHttpClient(AbstractAzServiceSubscription.getDefaultHttpClient())
-            .withLogOptions(new HttpLogOptions().setLogLevel(logLevel))
-            .withPolicy(AbstractAzServiceSubscription.getUserAgentPolicy(userAgent))
-            .authenticate(account.getTokenCredential(subscriptionId), azureProfile);
+        return ServiceManagerCache.get(subscriptionId, MySqlManager.class, id -> {
+            final Account account = Azure.az(AzureAccount.class).account();
+            final AzureConfiguration config = Azure.az().config();
+            final HttpLogDetailLevel logLevel = Optional.ofNullable(config.getLogLevel()).map(HttpLogDetailLevel::valueOf).orElse(HttpLogDetailLevel.NONE);
+            final AzureProfile azureProfile = new AzureProfile(null, id, account.getEnvironment());
+            return MySqlManager.configure()
+                .withHttpClient(AbstractAzServiceSubscription.getDefaultHttpClient())
+                .withLogOptions(new HttpLogOptions().setLogLevel(logLevel))
+                .withPolicy(AbstractAzServiceSubscription.getUserAgentPolicy(config::getUserAgent))
+                .authenticate(account.getTokenCredential(id), azureProfile);
+        });
     }
 
     @Nonnull
@@ -9,32 +9,33 @@ import com.azure.core.util.ExpandableStringEnum;
 import com.azure.resourcemanager.appplatform.models.DeploymentInstance;
 import com.azure.resourcemanager.appplatform.models.DeploymentSettings;
 import com.azure.resourcemanager.appplatform.models.SpringAppDeployment;
-import com.google.common.base.Charsets;
+import com.microsoft.azure.toolkit.lib.common.http.LogStreamer;
 import com.microsoft.azure.toolkit.lib.common.messager.AzureMessager;
 import com.microsoft.azure.toolkit.lib.common.model.AbstractAzResource;
 import com.microsoft.azure.toolkit.lib.common.model.AbstractAzResourceModule;
 import com.microsoft.azure.toolkit.lib.common.operation.AzureOperation;
-import io.netty.handler.codec.http.HttpHeaders;
+import com.microsoft.azure.toolkit.lib.common.operation.OperationContext;
+import com.microsoft.azure.toolkit.lib.common.utils.Poller;
 import lombok.SneakyThrows;
 import org.apache.commons.lang3.StringUtils;
 import org.apache.http.client.utils.URIBuilder;
 import reactor.core.publisher.Flux;
-import reactor.core.publisher.Mono;
-import reactor.netty.http.client.HttpClient;
 
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
+import java.net.URI;
 import java.time.Duration;
-import java.time.temporal.ChronoUnit;
+import java.time.Instant;
 import java.util.ArrayList;
 import java.util.Base64;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
-import java.util.function.Consumer;
 
 public class SpringCloudDeployment extends AbstractAzResource<SpringCloudDeployment, SpringCloudApp, SpringAppDeployment> {
 
@@ -92,11 +93,45 @@ public class SpringCloudDeployment extends AbstractAzResource<SpringCloudDeploym
     }
 
     @Nonnull
-    @SneakyThrows
     public Flux<String> streamLogs(final String instance, int sinceSeconds, int tailLines, int limitBytes, boolean follow) {
-        final HttpClient client = HttpClient.create().keepAlive(true);
-        final URIBuilder endpoint = new URIBuilder(this.getParent().getLogStreamingEndpoint(instance));
+        return LogStreamer.builder().follow(follow).build().stream(this.getLogSource(instance, sinceSeconds, tailLines, limitBytes, follow));
+    }
+
+    /**
+     * streams logs of all {@code instances} into one flux, each line is prefixed by its instance name.
+     */
+    @Nonnull
+    public Flux<String> streamLogs(@Nonnull Collection<String> instances, int sinceSeconds, int tailLines, int limitBytes, boolean follow) {
+        final Map<String, LogStreamer.Source> sources = new LinkedHashMap<>();
+        instances.forEach(instance -> sources.put(instance, this.getLogSource(instance, sinceSeconds, tailLines, limitBytes, follow)));
+        return LogStreamer.builder().follow(follow).build().stream(sources);
+    }
+
+    @Nonnull
+    private LogStreamer.Source getLogSource(final String instance, int sinceSeconds, int tailLines, int limitBytes, boolean follow) {
+        final String password = this.getParent().getParent().getTestKey();
+        final String userPass = "primary:" + password;
+        final String basicAuth = "Basic " + new String(Base64.getEncoder().encode(userPass.getBytes()));
+        final String streamingEndpoint = this.getParent().getLogStreamingEndpoint(instance);
+        // app logs are mostly led by timestamps (e.g. by the default pattern of spring boot), which are used to skip the lines
+        // replayed after reconnecting, since `sinceSeconds` is in seconds.
+        return LogStreamer.http(resumeFrom -> getLogEndpoint(streamingEndpoint, resumeFrom, sinceSeconds, tailLines, limitBytes, follow),
+            header -> header.set("Authorization", basicAuth)).withTimestamps(LogStreamer::leadingTimestamp);
+    }
+
+    /**
+     * @param resumeFrom time of the last received line when reconnecting, logs since then are requested instead of the tail lines,
+     *                   the overlap of up to 2 seconds is replayed.
+     */
+    @SneakyThrows
+    private static URI getLogEndpoint(String streamingEndpoint, @Nullable Instant resumeFrom, int sinceSeconds, int tailLines, int limitBytes, boolean follow) {
+        final URIBuilder endpoint = new URIBuilder(streamingEndpoint);
         endpoint.addParameter("follow", String.valueOf(follow));
+        if (Objects.nonNull(resumeFrom)) {
+            final long since = Duration.between(resumeFrom, Instant.now()).getSeconds() + 1;
+            endpoint.addParameter("sinceSeconds", String.valueOf(Math.max(1, since)));
+            return endpoint.build();
+        }
         if (sinceSeconds > 0) {
             endpoint.addParameter("sinceSeconds", String.valueOf(sinceSeconds));
         }
@@ -106,15 +141,7 @@ public class SpringCloudDeployment extends AbstractAzResource<SpringCloudDeploym
         if (limitBytes > 0) {
             endpoint.addParameter("limitBytes", String.valueOf(limitBytes));
         }
-        final String password = this.getParent().getParent().getTestKey();
-        final String userPass = "primary:" + password;
-        final String basicAuth = "Basic " + new String(Base64.getEncoder().encode(userPass.getBytes()));
-        final Consumer<? super HttpHeaders> headerBuilder = header -> header.set("Authorization", basicAuth);
-        return client.headers(headerBuilder)
-            .responseTimeout(Duration.of(10, ChronoUnit.MINUTES))
-            .get()
-            .uri(endpoint.build())
-            .response((resp, cont) -> resp.status().code() == 200 ? cont.asString(Charsets.UTF_8) : Mono.empty());
+        return endpoint.build();
     }
 
     @AzureOperation(
@@ -124,10 +151,16 @@ public class SpringCloudDeployment extends AbstractAzResource<SpringCloudDeploym
     )
     public boolean waitUntilReady(int timeoutInSeconds) {
         AzureMessager.getMessager().info("Getting deployment status...");
-        final SpringCloudDeployment deployment = Utils.pollUntil(() -> {
+        final Poller poller = Poller.builder().initialDelay(Duration.ofSeconds(1)).maxDelay(Duration.ofSeconds(10))
+            .deadline(Duration.ofSeconds(timeoutInSeconds)).build();
+        final SpringCloudDeployment deployment = poller.poll("deployment", () -> {
             this.refresh();
             return this;
-        }, Utils::isDeploymentDone, timeoutInSeconds);
+        }, Utils::isDeploymentDone);
+        final Poller.Metrics metrics = poller.getMetrics().get("deployment");
+        OperationContext.action().setTelemetryProperty("poll-count", String.valueOf(metrics.getPolls()));
+        OperationContext.action().setTelemetryProperty("poll-throttled", String.valueOf(metrics.getThrottled()));
+        OperationContext.action().setTelemetryProperty("poll-cost", String.valueOf(metrics.getElapsed().toMillis()));
         return Utils.isDeploymentDone(deployment);
     }
 
@@ -6,21 +6,21 @@
 package com.microsoft.azure.toolkit.lib.springcloud;
 
 import com.azure.resourcemanager.appplatform.models.DeploymentInstance;
+import com.microsoft.azure.toolkit.lib.common.utils.Poller;
 import org.apache.commons.collections4.CollectionUtils;
 import org.apache.commons.lang3.BooleanUtils;
 import org.apache.commons.lang3.StringUtils;
-import rx.Observable;
-import rx.schedulers.Schedulers;
 
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
+import java.time.Duration;
 import java.util.List;
 import java.util.concurrent.Callable;
-import java.util.concurrent.TimeUnit;
 import java.util.function.Predicate;
 
 public class Utils {
     private static final int POLLING_INTERVAL = 1;
+    private static final Duration MAX_POLLING_INTERVAL = Duration.ofSeconds(10);
 
 //    protected static final List<String> DEPLOYMENT_PROCESSING_STATUS =
 //            Arrays.asList(DeploymentResourceStatus.COMPILING.toString(), DeploymentResourceStatus.ALLOCATING.toString(), DeploymentResourceStatus.UPGRADING.toString());
@@ -42,7 +42,7 @@ public class Utils {
     }
 
     /**
-     * Get resource repeatedly until it match the predicate or timeout, will return null when meet exception
+     * Get resource repeatedly until it match the predicate or timeout, will return null when meet transient exception (others are thrown)
      * with default pollingInterval = 1s
      *
      * @param callable         callable to get resource
@@ -55,21 +55,23 @@ public class Utils {
     }
 
     /**
-     * Get resource repeatedly until it match the predicate or timeout, will return null when meet exception
+     * Get resource repeatedly until it match the predicate or timeout, will return null when meet transient exception (others are thrown).
+     * the polling interval starts from {@code pollingInterval} and backs off up to 10s (or {@code pollingInterval} if larger)
      *
      * @param callable         callable to get resource
      * @param predicate        function that evaluate the resource
      * @param timeOutInSeconds max time for the method
-     * @param pollingInterval  polling interval
+     * @param pollingInterval  initial polling interval
      * @return the first resource which fit the predicate or the last result before timeout
+     * @see Poller
      */
     public static <T> T pollUntil(Callable<T> callable, @Nonnull Predicate<T> predicate, int timeOutInSeconds, int pollingInterval) {
-        final long timeout = System.currentTimeMillis() + timeOutInSeconds * 1000L;
-        return Observable.interval(pollingInterval, TimeUnit.SECONDS)
-                .timeout(timeOutInSeconds, TimeUnit.SECONDS)
-                .flatMap(aLong -> Observable.fromCallable(callable))
-                .subscribeOn(Schedulers.io())
-                .takeUntil(resource -> predicate.test(resource) || System.currentTimeMillis() > timeout)
-                .toBlocking().last();
+        final Duration interval = Duration.ofSeconds(pollingInterval);
+        return Poller.builder()
+            .initialDelay(interval)
+            .maxDelay(interval.compareTo(MAX_POLLING_INTERVAL) > 0 ? interval : MAX_POLLING_INTERVAL)
+            .deadline(Duration.ofSeconds(timeOutInSeconds))
+            .build()
+            .poll("poll", callable, predicate);
     }
 }
@@ -11,6 +11,7 @@ import com.microsoft.azure.toolkit.lib.common.exception.AzureToolkitRuntimeExcep
 import com.microsoft.azure.toolkit.lib.common.operation.AzureOperation;
 import com.microsoft.azure.toolkit.lib.common.operation.OperationContext;
 import com.microsoft.azure.toolkit.lib.common.task.AzureTask;
+import com.microsoft.azure.toolkit.lib.common.task.AzureTaskGraph;
 import com.microsoft.azure.toolkit.lib.springcloud.AzureSpringCloud;
 import com.microsoft.azure.toolkit.lib.springcloud.SpringCloudAppDraft;
 import com.microsoft.azure.toolkit.lib.springcloud.SpringCloudCluster;
@@ -18,11 +19,11 @@ import com.microsoft.azure.toolkit.lib.springcloud.SpringCloudDeployment;
 import com.microsoft.azure.toolkit.lib.springcloud.SpringCloudDeploymentDraft;
 import com.microsoft.azure.toolkit.lib.springcloud.config.SpringCloudAppConfig;
 import com.microsoft.azure.toolkit.lib.springcloud.config.SpringCloudDeploymentConfig;
+import lombok.AccessLevel;
 import lombok.Getter;
 import org.apache.commons.lang3.StringUtils;
 
 import javax.annotation.Nonnull;
-import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
 
@@ -32,7 +33,8 @@ public class DeploySpringCloudAppTask extends AzureTask<SpringCloudDeployment> {
 
     private final SpringCloudAppConfig config;
     @Nonnull
-    private final List<AzureTask<?>> subTasks;
+    @Getter(AccessLevel.NONE)
+    private final AzureTaskGraph subTasks;
     private SpringCloudDeployment deployment;
 
     public DeploySpringCloudAppTask(SpringCloudAppConfig appConfig) {
@@ -41,7 +43,7 @@ public class DeploySpringCloudAppTask extends AzureTask<SpringCloudDeployment> {
     }
 
     @Nonnull
-    private List<AzureTask<?>> initTasks() {
+    private AzureTaskGraph initTasks() {
         // Init spring clients, and prompt users to confirm
         final SpringCloudDeploymentConfig deploymentConfig = config.getDeployment();
         final String clusterName = config.getClusterName();
@@ -72,31 +74,36 @@ public class DeploySpringCloudAppTask extends AzureTask<SpringCloudDeployment> {
         final AzureString UPDATE_DEPLOYMENT_TITLE = AzureString.format("Update deployment({0}) of app({1})", deploymentName, appName);
         final AzureString MODIFY_DEPLOYMENT_TITLE = toCreateDeployment ? CREATE_DEPLOYMENT_TITLE : UPDATE_DEPLOYMENT_TITLE;
 
-        final List<AzureTask<?>> tasks = new ArrayList<>();
+        // the app (if to create), the deployment and the activation of the deployment depend on each other.
+        final AzureTaskGraph tasks = new AzureTaskGraph();
         app.setConfig(config);
-        if (toCreateApp) {
-            tasks.add(new AzureTask<Void>(CREATE_APP_TITLE, app::createIfNotExist));
-        }
-        tasks.add(new AzureTask<Void>(MODIFY_DEPLOYMENT_TITLE, () -> {
+        final AzureTask<Void> createAppTask = toCreateApp ? tasks.add(new AzureTask<Void>(CREATE_APP_TITLE, app::createIfNotExist)) : null;
+        final AzureTask<Void> modifyDeploymentTask = tasks.add(new AzureTask<Void>(MODIFY_DEPLOYMENT_TITLE, () -> {
             final SpringCloudDeploymentDraft draft = app.deployments().updateOrCreate(deploymentName, resourceGroup);
             draft.setConfig(config.getDeployment());
             this.deployment = draft.commit();
-        }));
-        tasks.add(new AzureTask<Void>(UPDATE_APP_TITLE, () -> {
+        }), createAppTask);
+        final AzureTask<Void> updateAppTask = tasks.add(new AzureTask<Void>(UPDATE_APP_TITLE, () -> {
             final SpringCloudAppDraft draft = (SpringCloudAppDraft) app.update();
             draft.setConfig(config);
             draft.updateIfExist();
-        }));
-        tasks.add(new AzureTask<Void>(app::reset));
+        }), modifyDeploymentTask);
+        tasks.add(new AzureTask<Void>(app::reset), updateAppTask);
         return tasks;
     }
 
+    /**
+     * @return sub tasks in the order they are executed.
+     */
+    @Nonnull
+    public List<AzureTask<?>> getSubTasks() {
+        return this.subTasks.getTasks();
+    }
+
     @Override
     @AzureOperation(name = "springcloud.create_update_app.app", params = {"this.config.getAppName()"}, type = AzureOperation.Type.SERVICE)
     public SpringCloudDeployment doExecute() throws Exception {
-        for (final AzureTask<?> t : this.subTasks) {
-            t.getBody().call();
-        }
+        this.subTasks.execute();
         return this.deployment;
     }
 }
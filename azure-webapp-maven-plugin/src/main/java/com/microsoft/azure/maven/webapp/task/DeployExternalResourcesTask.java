@@ -6,19 +6,18 @@
 package com.microsoft.azure.maven.webapp.task;
 
 import com.microsoft.azure.maven.model.DeploymentResource;
-import com.microsoft.azure.maven.webapp.utils.FTPUtils;
 import com.microsoft.azure.maven.webapp.utils.Utils;
 import com.microsoft.azure.toolkit.lib.appservice.AppServiceAppBase;
 import com.microsoft.azure.toolkit.lib.appservice.model.PublishingProfile;
 import com.microsoft.azure.toolkit.lib.appservice.webapp.WebAppBase;
 import com.microsoft.azure.toolkit.lib.common.bundle.AzureString;
+import com.microsoft.azure.toolkit.lib.common.exception.AzureExecutionException;
 import com.microsoft.azure.toolkit.lib.common.exception.AzureToolkitRuntimeException;
 import com.microsoft.azure.toolkit.lib.common.messager.AzureMessager;
 import com.microsoft.azure.toolkit.lib.common.task.AzureTask;
-import org.apache.commons.net.ftp.FTPClient;
+import com.microsoft.azure.toolkit.lib.legacy.appservice.handlers.artifact.ParallelFTPUploader;
+import org.apache.commons.lang3.math.NumberUtils;
 
-import java.io.File;
-import java.io.IOException;
 import java.util.List;
 
 @Deprecated
@@ -49,21 +48,17 @@ public class DeployExternalResourcesTask extends AzureTask<WebAppBase<?, ?, ?>>
         AzureMessager.getMessager().info(AzureString.format("Uploading resources to %s", target.name()));
         final PublishingProfile publishingProfile = target.getPublishingProfile();
         final String serverUrl = publishingProfile.getFtpUrl().split("/", 2)[0];
+        final ParallelFTPUploader uploader = ParallelFTPUploader.builder()
+            .ftpServer(serverUrl).username(publishingProfile.getFtpUsername()).password(publishingProfile.getFtpPassword())
+            .connections(NumberUtils.toInt(System.getProperty(ParallelFTPUploader.CONNECTIONS_PROPERTY), ParallelFTPUploader.DEFAULT_CONNECTIONS))
+            .skipUnchanged(Boolean.getBoolean(ParallelFTPUploader.SKIP_UNCHANGED_PROPERTY))
+            .build();
         try {
-            final FTPClient ftpClient = FTPUtils.getFTPClient(serverUrl, publishingProfile.getFtpUsername(), publishingProfile.getFtpPassword());
-            for (final DeploymentResource externalResource : resources) {
-                uploadResource(externalResource, ftpClient);
+            for (final DeploymentResource resource : resources) {
+                uploader.uploadFiles(Utils.getArtifacts(resource), resource.getAbsoluteTargetPath());
             }
-        } catch (IOException e) {
+        } catch (AzureExecutionException e) {
             throw new AzureToolkitRuntimeException(e);
         }
     }
-
-    private static void uploadResource(DeploymentResource resource, FTPClient ftpClient) throws IOException {
-        final List<File> files = Utils.getArtifacts(resource);
-        final String target = resource.getAbsoluteTargetPath();
-        for (final File file : files) {
-            FTPUtils.uploadFile(ftpClient, file.getPath(), target);
-        }
-    }
 }